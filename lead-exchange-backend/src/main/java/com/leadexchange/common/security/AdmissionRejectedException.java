@@ -0,0 +1,26 @@
+package com.leadexchange.common.security;
+
+/**
+ * 准入拒绝异常
+ * 登录限流或密码哈希线程池已满时抛出，调用方应返回429并带上Retry-After
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议的重试等待时间（秒）
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
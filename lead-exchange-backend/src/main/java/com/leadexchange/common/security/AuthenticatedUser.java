@@ -0,0 +1,35 @@
+package com.leadexchange.common.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 携带用户ID的用户详情
+ * 由 {@link CustomUserDetailsService} 在认证时创建，签发访问令牌时把用户ID写入令牌，
+ * 之后的请求从 {@link JwtPrincipal#getUserId()} 读取，不再按用户名查库
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+
+    public AuthenticatedUser(Long userId, String username, String password, boolean enabled, boolean accountNonLocked,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, accountNonLocked, authorities);
+        this.userId = userId;
+    }
+
+    /**
+     * 用户ID
+     */
+    public Long getUserId() {
+        return userId;
+    }
+}
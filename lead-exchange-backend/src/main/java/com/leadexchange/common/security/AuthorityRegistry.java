@@ -0,0 +1,129 @@
+package com.leadexchange.common.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限注册表
+ * 为权限名称分配固定的位序号，紧凑格式的访问令牌以"版本 + 位掩码"代替权限名称列表。
+ * 每个版本的权限表只能在末尾追加；删除或调整顺序必须新增版本，旧版本的表保留到旧令牌全部过期为止。
+ * 签发总是使用当前版本，解码按令牌中的版本查表
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class AuthorityRegistry {
+
+    /** 当前版本 */
+    public static final int CURRENT_VERSION = 1;
+
+    /** 各版本的权限表，下标为版本号减一，表中下标为位序号（最多64个） */
+    private static final String[][] VERSIONS = {
+            {
+                    SecurityConstants.AUTHORITY.PREFIX + SecurityConstants.AUTHORITY.ADMIN,
+                    SecurityConstants.AUTHORITY.PREFIX + SecurityConstants.AUTHORITY.USER,
+                    SecurityConstants.AUTHORITY.PREFIX + SecurityConstants.AUTHORITY.ENTERPRISE,
+                    SecurityConstants.AUTHORITY.PREFIX + SecurityConstants.AUTHORITY.AGENT
+            }
+    };
+
+    /** 当前版本：权限名称 -> 位 */
+    private static final Map<String, Long> AUTHORITY_BITS = new HashMap<>();
+
+    /** 当前版本：角色名称（带或不带前缀） -> 位 */
+    private static final Map<String, Long> ROLE_BITS = new HashMap<>();
+
+    /** 已解码的权限列表，按版本分表，键为掩码（只解码已验签的令牌，条目数受实际权限组合数限制） */
+    private static final List<Map<Long, List<String>>> DECODED = new ArrayList<>();
+
+    static {
+        String[] current = VERSIONS[CURRENT_VERSION - 1];
+        for (int i = 0; i < current.length; i++) {
+            long bit = 1L << i;
+            AUTHORITY_BITS.put(current[i], bit);
+            ROLE_BITS.put(current[i], bit);
+            if (current[i].startsWith(SecurityConstants.AUTHORITY.PREFIX)) {
+                ROLE_BITS.put(current[i].substring(SecurityConstants.AUTHORITY.PREFIX.length()), bit);
+            }
+        }
+        for (int i = 0; i < VERSIONS.length; i++) {
+            DECODED.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    private AuthorityRegistry() {
+    }
+
+    /**
+     * 按当前版本编码权限列表
+     *
+     * @param authorityNames 权限名称
+     * @return 位掩码，存在未注册的权限时返回-1（此时只能使用名称列表）
+     */
+    public static long encode(Collection<String> authorityNames) {
+        long mask = 0L;
+        for (String name : authorityNames) {
+            Long bit = AUTHORITY_BITS.get(name);
+            if (bit == null) {
+                return -1L;
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * 解码为权限名称列表（同一版本与掩码返回同一个不可修改的列表）
+     *
+     * @param version 权限表版本
+     * @param mask 位掩码
+     * @return 权限名称列表
+     * @throws IllegalArgumentException 版本未知或掩码含有未注册的位
+     */
+    public static List<String> decode(int version, long mask) {
+        if (version < 1 || version > VERSIONS.length) {
+            throw new IllegalArgumentException("未知的权限表版本: " + version);
+        }
+        String[] table = VERSIONS[version - 1];
+        if (table.length < Long.SIZE && (mask >>> table.length) != 0) {
+            throw new IllegalArgumentException("权限掩码含有未注册的位: " + Long.toHexString(mask));
+        }
+        return DECODED.get(version - 1).computeIfAbsent(mask, key -> {
+            List<String> names = new ArrayList<>(Long.bitCount(key));
+            for (int i = 0; i < table.length; i++) {
+                if ((key & (1L << i)) != 0) {
+                    names.add(table[i]);
+                }
+            }
+            return Collections.unmodifiableList(names);
+        });
+    }
+
+    /**
+     * 权限名称在当前版本中的位
+     *
+     * @param authority 权限名称
+     * @return 位，未注册时返回0
+     */
+    public static long authorityBit(String authority) {
+        Long bit = AUTHORITY_BITS.get(authority);
+        return bit == null ? 0L : bit;
+    }
+
+    /**
+     * 角色在当前版本中的位，角色名可带或不带ROLE_前缀
+     *
+     * @param role 角色名称
+     * @return 位，未注册时返回0
+     */
+    public static long roleBit(String role) {
+        Long bit = ROLE_BITS.get(role);
+        return bit == null ? 0L : bit;
+    }
+}
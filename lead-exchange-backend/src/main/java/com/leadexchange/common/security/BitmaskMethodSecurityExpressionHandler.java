@@ -0,0 +1,49 @@
+package com.leadexchange.common.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 方法安全表达式处理器
+ * 为 @PreAuthorize/@PostAuthorize 创建 {@link BitmaskMethodSecurityExpressionRoot}。
+ * 配置了角色继承时位掩码无法表达继承关系，全部按标准实现判断
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class BitmaskMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                              MethodInvocation invocation) {
+        SecurityExpressionRoot delegate = new SecurityExpressionRoot(authentication) {
+        };
+        delegate.setPermissionEvaluator(getPermissionEvaluator());
+        delegate.setTrustResolver(trustResolver);
+        delegate.setRoleHierarchy(getRoleHierarchy());
+        delegate.setDefaultRolePrefix(SecurityConstants.AUTHORITY.PREFIX);
+
+        long authorityMask = -1L;
+        if (getRoleHierarchy() == null && authentication != null
+                && authentication.getPrincipal() instanceof JwtPrincipal) {
+            authorityMask = ((JwtPrincipal) authentication.getPrincipal()).getAuthorityMask();
+        }
+        BitmaskMethodSecurityExpressionRoot root = new BitmaskMethodSecurityExpressionRoot(delegate, authorityMask);
+        root.setThis(invocation.getThis());
+        return root;
+    }
+
+    @Override
+    public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+        super.setTrustResolver(trustResolver);
+        this.trustResolver = trustResolver;
+    }
+}
@@ -0,0 +1,160 @@
+package com.leadexchange.common.security;
+
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * 按权限位掩码判断的方法安全表达式根对象
+ * 认证主体为持有位掩码的 {@link JwtPrincipal} 时，hasRole/hasAnyRole/hasAuthority/hasAnyAuthority
+ * 按位与判断，不遍历权限列表、不拼接角色前缀；其他认证方式及其余表达式委托给标准实现
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class BitmaskMethodSecurityExpressionRoot implements MethodSecurityExpressionOperations {
+
+    private final SecurityExpressionRoot delegate;
+
+    /** 权限位掩码，-1表示按标准实现判断 */
+    private final long authorityMask;
+
+    private Object filterObject;
+
+    private Object returnObject;
+
+    private Object target;
+
+    /**
+     * @param delegate 标准表达式根对象
+     * @param authorityMask 权限位掩码，-1表示按标准实现判断
+     */
+    public BitmaskMethodSecurityExpressionRoot(SecurityExpressionRoot delegate, long authorityMask) {
+        this.delegate = delegate;
+        this.authorityMask = authorityMask;
+    }
+
+    @Override
+    public Authentication getAuthentication() {
+        return delegate.getAuthentication();
+    }
+
+    /**
+     * 认证主体（表达式中的 principal）
+     */
+    public Object getPrincipal() {
+        return delegate.getPrincipal();
+    }
+
+    @Override
+    public boolean hasAuthority(String authority) {
+        if (authorityMask < 0) {
+            return delegate.hasAuthority(authority);
+        }
+        return (authorityMask & AuthorityRegistry.authorityBit(authority)) != 0;
+    }
+
+    @Override
+    public boolean hasAnyAuthority(String... authorities) {
+        if (authorityMask < 0) {
+            return delegate.hasAnyAuthority(authorities);
+        }
+        for (String authority : authorities) {
+            if ((authorityMask & AuthorityRegistry.authorityBit(authority)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasRole(String role) {
+        if (authorityMask < 0) {
+            return delegate.hasRole(role);
+        }
+        return (authorityMask & AuthorityRegistry.roleBit(role)) != 0;
+    }
+
+    @Override
+    public boolean hasAnyRole(String... roles) {
+        if (authorityMask < 0) {
+            return delegate.hasAnyRole(roles);
+        }
+        for (String role : roles) {
+            if ((authorityMask & AuthorityRegistry.roleBit(role)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean permitAll() {
+        return true;
+    }
+
+    @Override
+    public boolean denyAll() {
+        return false;
+    }
+
+    @Override
+    public boolean isAnonymous() {
+        return delegate.isAnonymous();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return delegate.isAuthenticated();
+    }
+
+    @Override
+    public boolean isRememberMe() {
+        return delegate.isRememberMe();
+    }
+
+    @Override
+    public boolean isFullyAuthenticated() {
+        return delegate.isFullyAuthenticated();
+    }
+
+    @Override
+    public boolean hasPermission(Object target, Object permission) {
+        return delegate.hasPermission(target, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Object targetId, String targetType, Object permission) {
+        return delegate.hasPermission(targetId, targetType, permission);
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        this.filterObject = filterObject;
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return filterObject;
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        this.returnObject = returnObject;
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return returnObject;
+    }
+
+    void setThis(Object target) {
+        this.target = target;
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+}
@@ -1,25 +1,50 @@
 package com.leadexchange.common.security;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leadexchange.modules.user.entity.User;
+import com.leadexchange.modules.user.mapper.UserMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 自定义用户详情服务
  * 实现Spring Security的UserDetailsService接口，提供用户认证信息
  * 
+ * 用户信息两级缓存：本地Caffeine（短TTL）-> Redis的 user（按用户名）与 user:permissions（按用户ID）缓存区 -> 数据库。
+ * 同一用户名的并发加载在本地缓存内合并为一次（Caffeine按键原子计算，其余线程等待同一结果），
+ * 登录高峰时不会对同一用户重复查库。用户状态、锁定、角色变更时调用 {@link #evictUser} 清除两级缓存，
+ * 并通过pub/sub通知其他节点清除本地缓存。
+ * 密码哈希只保存在本地缓存中，不写入共享的Redis缓存；从Redis命中时单独查询数据库取得密码
+ * 
  * @author 系统
  * @version 1.0.0
  * @since 2024-01-01
@@ -30,12 +55,52 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
-    // TODO: 注入用户服务和权限服务
-    // @Autowired
-    // private UserService userService;
-    // 
-    // @Autowired
-    // private RoleService roleService;
+    private static final String USER_CACHE = "user";
+
+    private static final String PERMISSIONS_CACHE = "user:permissions";
+
+    /** user缓存区中按用户ID的键已被 CacheService 使用，按用户名的键加前缀区分 */
+    private static final String USERNAME_KEY_PREFIX = "username:";
+
+    private static final String EVICT_CHANNEL = "security:user:evict";
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.security.user-cache.local-max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.security.user-cache.local-ttl:60000}")
+    private long localTtlMillis;
+
+    /** 本地缓存：用户名 -> 用户信息 */
+    private Cache<String, UserInfo> localCache;
+
+    private final MessageListener evictListener = this::onEvictMessage;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofMillis(localTtlMillis))
+                .build();
+        redisMessageListenerContainer.addMessageListener(evictListener, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisMessageListenerContainer.removeMessageListener(evictListener);
+    }
 
     /**
      * 根据用户名加载用户详情
@@ -49,9 +114,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         log.debug("正在加载用户详情，用户名: {}", username);
         
         try {
-            // TODO: 从数据库查询用户信息
-            // 这里先使用模拟数据，后续需要替换为实际的数据库查询
-            UserInfo userInfo = loadUserFromDatabase(username);
+            UserInfo userInfo = localCache.get(username, this::loadUserInfo);
             
             if (userInfo == null) {
                 log.warn("用户不存在: {}", username);
@@ -64,16 +127,10 @@ public class CustomUserDetailsService implements UserDetailsService {
             // 获取用户权限
             Collection<? extends GrantedAuthority> authorities = getUserAuthorities(userInfo);
             
-            // 创建UserDetails对象
-            UserDetails userDetails = User.builder()
-                    .username(userInfo.getUsername())
-                    .password(userInfo.getPassword())
-                    .authorities(authorities)
-                    .accountExpired(!userInfo.isAccountNonExpired())
-                    .accountLocked(!userInfo.isAccountNonLocked())
-                    .credentialsExpired(!userInfo.isCredentialsNonExpired())
-                    .disabled(!userInfo.isEnabled())
-                    .build();
+            // 每次创建新的UserDetails对象：认证成功后Spring Security会擦除其中的密码，不能复用缓存实例
+            UserDetails userDetails = new AuthenticatedUser(userInfo.getId(), userInfo.getUsername(),
+                    userInfo.getPassword(), userInfo.isEnabled(),
+                    !userInfo.isLockedAt(System.currentTimeMillis()), authorities);
             
             log.debug("用户详情加载成功，用户名: {}, 权限数量: {}", username, authorities.size());
             return userDetails;
@@ -87,44 +144,102 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     /**
-     * 从数据库加载用户信息
-     * TODO: 实现实际的数据库查询逻辑
+     * 清除用户的两级缓存，并通知其他节点清除本地缓存
+     * 用户状态、锁定、角色（用户类型）或密码变更后调用，应在事务提交后执行
      * 
+     * @param userId 用户ID
      * @param username 用户名
-     * @return 用户信息对象
      */
-    private UserInfo loadUserFromDatabase(String username) {
-        // TODO: 实现数据库查询逻辑
-        // 示例代码，需要替换为实际的数据库查询
-        if ("admin".equals(username)) {
-            return UserInfo.builder()
-                    .id(1L)
-                    .username("admin")
-                    .password("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG") // "password"
-                    .email("admin@leadexchange.com")
-                    .phone("13800138000")
-                    .enabled(true)
-                    .accountNonExpired(true)
-                    .accountNonLocked(true)
-                    .credentialsNonExpired(true)
-                    .roles(List.of("ADMIN", "USER"))
-                    .build();
-        } else if ("user".equals(username)) {
-            return UserInfo.builder()
-                    .id(2L)
-                    .username("user")
-                    .password("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG") // "password"
-                    .email("user@leadexchange.com")
-                    .phone("13800138001")
-                    .enabled(true)
-                    .accountNonExpired(true)
-                    .accountNonLocked(true)
-                    .credentialsNonExpired(true)
-                    .roles(List.of("USER"))
-                    .build();
+    public void evictUser(Long userId, String username) {
+        if (username != null) {
+            localCache.invalidate(username);
         }
-        
-        return null;
+        try {
+            if (username != null) {
+                redisCache(USER_CACHE).evict(USERNAME_KEY_PREFIX + username);
+            }
+            if (userId != null) {
+                redisCache(PERMISSIONS_CACHE).evict(userId);
+            }
+            if (username != null) {
+                stringRedisTemplate.convertAndSend(EVICT_CHANNEL, username);
+            }
+            log.debug("用户详情缓存已清除: userId={}, username={}", userId, username);
+        } catch (Exception e) {
+            // 本地缓存已清除；其他节点最迟在本地TTL到期后读到新数据，Redis中的条目按缓存区TTL过期
+            log.error("清除用户详情缓存失败: userId={}, username={}", userId, username, e);
+        }
+    }
+
+    /**
+     * 本地缓存未命中时加载：先读Redis（不含密码，密码单独查库），再查数据库并回填
+     * 
+     * @param username 用户名
+     * @return 用户信息，不存在时返回null（不缓存）
+     */
+    private UserInfo loadUserInfo(String username) {
+        UserInfo userInfo = readRedis(username);
+        if (userInfo != null) {
+            String password = userMapper.findPasswordByUsername(username);
+            if (password == null) {
+                // 用户已删除，缓存条目尚未过期
+                return null;
+            }
+            userInfo.setPassword(password);
+            return userInfo;
+        }
+        User user = userMapper.findByUsername(username);
+        if (user == null) {
+            return null;
+        }
+        userInfo = UserInfo.from(user);
+        writeRedis(userInfo);
+        return userInfo;
+    }
+
+    private UserInfo readRedis(String username) {
+        try {
+            UserInfo userInfo = redisCache(USER_CACHE).get(USERNAME_KEY_PREFIX + username, UserInfo.class);
+            if (userInfo == null) {
+                return null;
+            }
+            List<String> roles = readRoles(userInfo.getId());
+            if (roles == null) {
+                return null;
+            }
+            userInfo.setRoles(roles);
+            return userInfo;
+        } catch (Exception e) {
+            log.warn("读取用户详情缓存失败，回源数据库: username={}, 错误: {}", username, e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> readRoles(Long userId) {
+        org.springframework.cache.Cache.ValueWrapper wrapper = redisCache(PERMISSIONS_CACHE).get(userId);
+        return wrapper == null ? null : (List<String>) wrapper.get();
+    }
+
+    private void writeRedis(UserInfo userInfo) {
+        try {
+            redisCache(USER_CACHE).put(USERNAME_KEY_PREFIX + userInfo.getUsername(), userInfo);
+            redisCache(PERMISSIONS_CACHE).put(userInfo.getId(), new ArrayList<>(userInfo.getRoles()));
+        } catch (Exception e) {
+            log.warn("写入用户详情缓存失败: username={}, 错误: {}", userInfo.getUsername(), e.getMessage());
+        }
+    }
+
+    private org.springframework.cache.Cache redisCache(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("缓存区不存在: " + name);
+        }
+        return cache;
+    }
+
+    private void onEvictMessage(Message message, byte[] pattern) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
     }
 
     /**
@@ -138,17 +253,9 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("用户账户已被禁用");
         }
         
-        if (!userInfo.isAccountNonLocked()) {
+        if (userInfo.isLockedAt(System.currentTimeMillis())) {
             throw new UsernameNotFoundException("用户账户已被锁定");
         }
-        
-        if (!userInfo.isAccountNonExpired()) {
-            throw new UsernameNotFoundException("用户账户已过期");
-        }
-        
-        if (!userInfo.isCredentialsNonExpired()) {
-            throw new UsernameNotFoundException("用户凭证已过期");
-        }
     }
 
     /**
@@ -175,87 +282,66 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     /**
-     * 用户信息内部类
-     * TODO: 后续可以替换为实际的用户实体类
+     * 用户信息快照（缓存对象，经Jackson序列化到Redis）
+     * 角色单独缓存在 user:permissions 缓存区，密码只保留在本地缓存，二者都不随用户信息序列化
      */
-    private static class UserInfo {
+    public static class UserInfo {
         private Long id;
         private String username;
         private String password;
-        private String email;
-        private String phone;
         private boolean enabled;
-        private boolean accountNonExpired;
-        private boolean accountNonLocked;
-        private boolean credentialsNonExpired;
-        private List<String> roles;
+        /** 锁定截止时间（毫秒），未锁定时为null */
+        private Long lockedUntil;
+        private List<String> roles = Collections.emptyList();
+
+        /**
+         * 由用户实体构建，角色按用户类型确定（1：个人用户，2：企业用户，3：管理员）
+         */
+        static UserInfo from(User user) {
+            UserInfo userInfo = new UserInfo();
+            userInfo.setId(user.getId());
+            userInfo.setUsername(user.getUsername());
+            userInfo.setPassword(user.getPassword());
+            userInfo.setEnabled(user.getStatus() != null && user.getStatus() == 1);
+            if (user.getLockTime() != null) {
+                userInfo.setLockedUntil(user.getLockTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            Integer userType = user.getUserType();
+            if (userType != null && userType == 3) {
+                userInfo.setRoles(Arrays.asList(SecurityConstants.AUTHORITY.ADMIN, SecurityConstants.AUTHORITY.USER));
+            } else if (userType != null && userType == 2) {
+                userInfo.setRoles(Arrays.asList(SecurityConstants.AUTHORITY.ENTERPRISE, SecurityConstants.AUTHORITY.USER));
+            } else {
+                userInfo.setRoles(Collections.singletonList(SecurityConstants.AUTHORITY.USER));
+            }
+            return userInfo;
+        }
+
+        /**
+         * 在指定时间是否处于锁定状态
+         */
+        boolean isLockedAt(long now) {
+            return lockedUntil != null && lockedUntil > now;
+        }
 
         // Getters
         public Long getId() { return id; }
         public String getUsername() { return username; }
+        @JsonIgnore
         public String getPassword() { return password; }
-        public String getEmail() { return email; }
-        public String getPhone() { return phone; }
         public boolean isEnabled() { return enabled; }
-        public boolean isAccountNonExpired() { return accountNonExpired; }
-        public boolean isAccountNonLocked() { return accountNonLocked; }
-        public boolean isCredentialsNonExpired() { return credentialsNonExpired; }
+        public Long getLockedUntil() { return lockedUntil; }
+        @JsonIgnore
         public List<String> getRoles() { return roles; }
 
         // Setters
         public void setId(Long id) { this.id = id; }
         public void setUsername(String username) { this.username = username; }
+        @JsonIgnore
         public void setPassword(String password) { this.password = password; }
-        public void setEmail(String email) { this.email = email; }
-        public void setPhone(String phone) { this.phone = phone; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
-        public void setAccountNonExpired(boolean accountNonExpired) { this.accountNonExpired = accountNonExpired; }
-        public void setAccountNonLocked(boolean accountNonLocked) { this.accountNonLocked = accountNonLocked; }
-        public void setCredentialsNonExpired(boolean credentialsNonExpired) { this.credentialsNonExpired = credentialsNonExpired; }
+        public void setLockedUntil(Long lockedUntil) { this.lockedUntil = lockedUntil; }
+        @JsonIgnore
         public void setRoles(List<String> roles) { this.roles = roles; }
-
-        // Builder pattern
-        public static UserInfoBuilder builder() {
-            return new UserInfoBuilder();
-        }
-
-        public static class UserInfoBuilder {
-            private Long id;
-            private String username;
-            private String password;
-            private String email;
-            private String phone;
-            private boolean enabled;
-            private boolean accountNonExpired;
-            private boolean accountNonLocked;
-            private boolean credentialsNonExpired;
-            private List<String> roles;
-
-            public UserInfoBuilder id(Long id) { this.id = id; return this; }
-            public UserInfoBuilder username(String username) { this.username = username; return this; }
-            public UserInfoBuilder password(String password) { this.password = password; return this; }
-            public UserInfoBuilder email(String email) { this.email = email; return this; }
-            public UserInfoBuilder phone(String phone) { this.phone = phone; return this; }
-            public UserInfoBuilder enabled(boolean enabled) { this.enabled = enabled; return this; }
-            public UserInfoBuilder accountNonExpired(boolean accountNonExpired) { this.accountNonExpired = accountNonExpired; return this; }
-            public UserInfoBuilder accountNonLocked(boolean accountNonLocked) { this.accountNonLocked = accountNonLocked; return this; }
-            public UserInfoBuilder credentialsNonExpired(boolean credentialsNonExpired) { this.credentialsNonExpired = credentialsNonExpired; return this; }
-            public UserInfoBuilder roles(List<String> roles) { this.roles = roles; return this; }
-
-            public UserInfo build() {
-                UserInfo userInfo = new UserInfo();
-                userInfo.setId(this.id);
-                userInfo.setUsername(this.username);
-                userInfo.setPassword(this.password);
-                userInfo.setEmail(this.email);
-                userInfo.setPhone(this.phone);
-                userInfo.setEnabled(this.enabled);
-                userInfo.setAccountNonExpired(this.accountNonExpired);
-                userInfo.setAccountNonLocked(this.accountNonLocked);
-                userInfo.setCredentialsNonExpired(this.credentialsNonExpired);
-                userInfo.setRoles(this.roles);
-                return userInfo;
-            }
-        }
     }
-}
\ No newline at end of file
+}
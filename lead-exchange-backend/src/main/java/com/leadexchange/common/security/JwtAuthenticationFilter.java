@@ -3,11 +3,8 @@ package com.leadexchange.common.security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -18,12 +15,12 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * JWT认证过滤器
  * 拦截HTTP请求，验证JWT令牌并设置安全上下文
+ * 认证主体与权限列表来自已缓存的 {@link JwtClaims}，每个请求只创建一个轻量的 {@link JwtAuthenticationToken}；
+ * WebAuthenticationDetails 仅在配置开启时构建
  * 
  * @author 系统
  * @version 1.0.0
@@ -34,9 +31,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private static final String SSE_STREAM_PATH = "/notification/stream";
+
+    private static final String SSE_TOKEN_PARAMETER = "access_token";
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    /** 是否构建认证详情（远程地址、会话ID），默认不构建 */
+    @Value("${app.security.authentication-details:false}")
+    private boolean buildDetails;
+
     /**
      * 执行过滤逻辑
      * 
@@ -54,11 +61,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 从请求中获取JWT令牌
             String jwt = getJwtFromRequest(request);
             
-            // 验证JWT令牌并设置认证信息
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
+            // 验证JWT令牌并设置认证信息（只解析一次）
+            JwtClaims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseToken(jwt) : null;
+            if (claims != null) {
                 // 检查是否为访问令牌（非刷新令牌）
-                if (!jwtTokenProvider.isRefreshToken(jwt)) {
-                    setAuthenticationContext(jwt, request);
+                if (!claims.isRefreshToken()) {
+                    setAuthenticationContext(claims, request);
                 } else {
                     log.warn("尝试使用刷新令牌进行API访问，请求路径: {}", request.getRequestURI());
                 }
@@ -84,40 +92,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return bearerToken.substring(SecurityConstants.JWT.TOKEN_PREFIX.length());
         }
         
+        // 浏览器EventSource无法设置请求头，通知推送连接允许通过查询参数携带令牌
+        if (request.getRequestURI().endsWith(SSE_STREAM_PATH)) {
+            String token = request.getParameter(SSE_TOKEN_PARAMETER);
+            if (StringUtils.hasText(token)) {
+                return token;
+            }
+        }
+        
         return null;
     }
 
     /**
      * 设置认证上下文
      * 
-     * @param jwt JWT令牌
+     * @param claims 已验证的JWT声明
      * @param request HTTP请求
      */
-    private void setAuthenticationContext(String jwt, HttpServletRequest request) {
+    private void setAuthenticationContext(JwtClaims claims, HttpServletRequest request) {
         try {
-            // 从JWT令牌中获取用户信息
-            String username = jwtTokenProvider.getUsernameFromToken(jwt);
-            List<String> authorities = jwtTokenProvider.getAuthoritiesFromToken(jwt);
+            JwtPrincipal principal = claims.getPrincipal();
             
-            if (username != null && authorities != null) {
-                // 创建用户详情对象
-                UserDetails userDetails = createUserDetails(username, authorities);
-                
-                // 创建认证令牌
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, 
-                        null, 
-                        userDetails.getAuthorities()
-                    );
+            if (principal != null) {
+                // 创建认证令牌（复用缓存的认证主体与权限列表）
+                JwtAuthenticationToken authentication = new JwtAuthenticationToken(principal);
                 
                 // 设置认证详情
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (buildDetails) {
+                    authentication.setDetails(detailsSource.buildDetails(request));
+                }
                 
                 // 设置安全上下文
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 
-                log.debug("用户 '{}' 认证成功，权限: {}", username, authorities);
+                log.debug("用户 '{}' 认证成功", principal.getName());
             }
         } catch (Exception ex) {
             log.error("设置认证上下文失败: {}", ex.getMessage());
@@ -125,29 +133,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    /**
-     * 创建用户详情对象
-     * 
-     * @param username 用户名
-     * @param authorities 权限列表
-     * @return UserDetails对象
-     */
-    private UserDetails createUserDetails(String username, List<String> authorities) {
-        List<SimpleGrantedAuthority> grantedAuthorities = authorities.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-        
-        return User.builder()
-                .username(username)
-                .password("") // JWT认证不需要密码
-                .authorities(grantedAuthorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
-    }
-
     /**
      * 判断是否应该跳过过滤
      * 对于某些特定路径（如登录、注册等），可以跳过JWT验证
@@ -0,0 +1,77 @@
+package com.leadexchange.common.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * JWT认证令牌
+ * 直接返回 {@link JwtPrincipal} 中驻留的权限列表，不像 UsernamePasswordAuthenticationToken 那样每次复制权限集合。
+ * 凭证恒为null；详情默认不构建
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class JwtAuthenticationToken implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final JwtPrincipal principal;
+
+    private Object details;
+
+    private boolean authenticated = true;
+
+    public JwtAuthenticationToken(JwtPrincipal principal) {
+        this.principal = principal;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.getAuthorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return details;
+    }
+
+    public void setDetails(Object details) {
+        this.details = details;
+    }
+
+    @Override
+    public JwtPrincipal getPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("不能将令牌设置为已认证，只能由JWT验证创建");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return principal.getName();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [Principal=" + principal + ", Authenticated=" + authenticated + "]";
+    }
+}
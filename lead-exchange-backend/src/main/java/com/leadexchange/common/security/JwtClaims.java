@@ -0,0 +1,182 @@
+package com.leadexchange.common.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 已验证的JWT声明（不可变）
+ * 令牌签名验证与解析只做一次，过滤器和控制器直接读取本对象，不再重复解析；
+ * 认证主体 {@link JwtPrincipal} 随声明一起创建，与声明一同缓存复用。
+ * 支持两种访问令牌格式：名称列表（authorities）与紧凑格式（v为权限表版本，a为权限位掩码，省略type）；
+ * 访问令牌携带用户ID（uid），升级前签发的令牌没有该声明
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class JwtClaims {
+
+    public static final String TYPE_ACCESS = "access";
+
+    public static final String TYPE_REFRESH = "refresh";
+
+    /** 紧凑格式：权限表版本 */
+    static final String CLAIM_AUTHORITY_VERSION = "v";
+
+    /** 紧凑格式：权限位掩码 */
+    static final String CLAIM_AUTHORITY_MASK = "a";
+
+    /** 用户ID */
+    static final String CLAIM_USER_ID = "uid";
+
+    private final String tokenId;
+
+    private final String subject;
+
+    private final Long userId;
+
+    private final List<String> authorities;
+
+    private final String type;
+
+    private final long issuedAt;
+
+    private final long expiration;
+
+    private final JwtPrincipal principal;
+
+    private JwtClaims(String tokenId, String subject, Long userId, List<String> authorities, long authorityMask,
+                      String type, long issuedAt, long expiration) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.userId = userId;
+        this.authorities = authorities;
+        this.type = type;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+        this.principal = subject == null ? null : JwtPrincipal.of(subject, userId, authorities, authorityMask);
+    }
+
+    /**
+     * 由jjwt解析结果构建
+     *
+     * @param claims 已验证签名的声明
+     * @param fallbackId 令牌没有jti（升级前签发）时使用的令牌ID，一般为令牌摘要
+     * @return 不可变声明
+     * @throws IllegalArgumentException 紧凑格式的权限表版本未知或掩码无效
+     */
+    static JwtClaims from(Claims claims, String fallbackId) {
+        List<String> authorities = Collections.emptyList();
+        long authorityMask;
+        Object type = claims.get("type");
+        Object version = claims.get(CLAIM_AUTHORITY_VERSION);
+        Object value = claims.get("authorities");
+        if (version instanceof Number) {
+            int authorityVersion = ((Number) version).intValue();
+            Object mask = claims.get(CLAIM_AUTHORITY_MASK);
+            long maskValue = mask instanceof Number ? ((Number) mask).longValue() : 0L;
+            authorities = AuthorityRegistry.decode(authorityVersion, maskValue);
+            // 旧版本的位序号与当前版本不一定一致，按名称重新编码
+            authorityMask = authorityVersion == AuthorityRegistry.CURRENT_VERSION
+                    ? maskValue : AuthorityRegistry.encode(authorities);
+            if (type == null) {
+                type = TYPE_ACCESS;
+            }
+        } else if (value instanceof List) {
+            List<String> copy = new ArrayList<>();
+            for (Object authority : (List<?>) value) {
+                if (authority != null) {
+                    copy.add(authority.toString());
+                }
+            }
+            authorities = Collections.unmodifiableList(copy);
+            authorityMask = AuthorityRegistry.encode(authorities);
+        } else {
+            authorityMask = 0L;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        String tokenId = claims.getId();
+        Object userId = claims.get(CLAIM_USER_ID);
+        return new JwtClaims(tokenId == null || tokenId.isEmpty() ? fallbackId : tokenId,
+                claims.getSubject(),
+                userId instanceof Number ? ((Number) userId).longValue() : null,
+                authorities, authorityMask, type == null ? null : type.toString(),
+                issuedAt == null ? 0L : issuedAt.getTime(),
+                expiration == null ? Long.MAX_VALUE : expiration.getTime());
+    }
+
+    /**
+     * 令牌ID（jti）
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /**
+     * 用户名
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * 用户ID，升级前签发的令牌为null
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * 权限列表（不可修改）
+     */
+    public List<String> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * 认证主体，无用户名时为null
+     */
+    public JwtPrincipal getPrincipal() {
+        return principal;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 签发时间（毫秒）
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * 过期时间（毫秒）
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * 是否为刷新令牌
+     */
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+
+    /**
+     * 在指定时间是否已过期
+     *
+     * @param now 当前时间（毫秒）
+     * @return 是否过期
+     */
+    public boolean isExpired(long now) {
+        return expiration <= now;
+    }
+}
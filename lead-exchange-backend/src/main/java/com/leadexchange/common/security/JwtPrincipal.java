@@ -0,0 +1,141 @@
+package com.leadexchange.common.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT认证主体（不可变）
+ * 随 {@link JwtClaims} 一起创建并缓存，同一令牌的请求复用同一实例。
+ * 权限集合按不同的权限组合驻留：相同组合的用户共享同一个不可修改的权限列表及其中的权限对象；
+ * 权限全部在 {@link AuthorityRegistry} 中注册时同时持有位掩码，方法安全表达式直接按位判断
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class JwtPrincipal implements AuthenticatedPrincipal, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 驻留的权限组合上限，超过后新组合不再驻留（权限组合由角色决定，正常情况下远小于该值） */
+    private static final int MAX_AUTHORITY_SETS = 1024;
+
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private static final Map<List<String>, List<GrantedAuthority>> AUTHORITY_SETS = new ConcurrentHashMap<>();
+
+    private final String username;
+
+    private final Long userId;
+
+    private final List<GrantedAuthority> authorities;
+
+    /** 当前版本权限表下的位掩码，-1表示含有未注册的权限 */
+    private final long authorityMask;
+
+    private JwtPrincipal(String username, Long userId, List<GrantedAuthority> authorities, long authorityMask) {
+        this.username = username;
+        this.userId = userId;
+        this.authorities = authorities;
+        this.authorityMask = authorityMask;
+    }
+
+    /**
+     * 创建认证主体
+     *
+     * @param username 用户名
+     * @param userId 用户ID，令牌未携带时为null
+     * @param authorityNames 权限名称列表
+     * @param authorityMask 当前版本权限表下的位掩码，-1表示含有未注册的权限
+     * @return 认证主体
+     */
+    static JwtPrincipal of(String username, Long userId, List<String> authorityNames, long authorityMask) {
+        return new JwtPrincipal(username, userId, internAuthorities(authorityNames), authorityMask);
+    }
+
+    /**
+     * 获取驻留的权限列表
+     *
+     * @param authorityNames 权限名称列表
+     * @return 不可修改的权限列表
+     */
+    static List<GrantedAuthority> internAuthorities(List<String> authorityNames) {
+        if (authorityNames == null || authorityNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<GrantedAuthority> interned = AUTHORITY_SETS.get(authorityNames);
+        if (interned != null) {
+            return interned;
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(authorityNames.size());
+        for (String name : authorityNames) {
+            authorities.add(AUTHORITIES.computeIfAbsent(name, SimpleGrantedAuthority::new));
+        }
+        List<GrantedAuthority> built = Collections.unmodifiableList(authorities);
+        if (AUTHORITY_SETS.size() >= MAX_AUTHORITY_SETS) {
+            return built;
+        }
+        List<GrantedAuthority> existing = AUTHORITY_SETS.putIfAbsent(
+                Collections.unmodifiableList(new ArrayList<>(authorityNames)), built);
+        return existing != null ? existing : built;
+    }
+
+    /**
+     * 用户名
+     */
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    /**
+     * 用户ID，升级前签发的令牌为null
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * 权限列表（不可修改）
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    /**
+     * 权限位掩码，-1表示不可用（需按权限列表判断）
+     */
+    public long getAuthorityMask() {
+        return authorityMask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JwtPrincipal)) {
+            return false;
+        }
+        JwtPrincipal that = (JwtPrincipal) o;
+        return username.equals(that.username) && authorities.equals(that.authorities);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
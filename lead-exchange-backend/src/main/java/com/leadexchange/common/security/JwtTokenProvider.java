@@ -2,8 +2,11 @@ package com.leadexchange.common.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,11 +17,16 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * JWT令牌提供者
  * 负责JWT令牌的生成、验证、解析等操作
+ * 验证入口为 {@link #parseToken}：签名验证与解析只做一次，结果为不可变的 {@link JwtClaims}；
+ * 验证通过的令牌按摘要缓存到过期（或缓存TTL），同一令牌的后续请求不再重复验签与解析JSON；
+ * 缓存命中与否都会经 {@link TokenRevocationService} 检查令牌ID（jti）是否已吊销。
+ * 访问令牌默认使用紧凑格式：权限编码为 {@link AuthorityRegistry} 的版本与位掩码，省略签发者、受众与类型声明
  * 
  * @author 系统
  * @version 1.0.0
@@ -32,6 +40,18 @@ public class JwtTokenProvider {
     /** JWT签名密钥 */
     private final SecretKey secretKey;
 
+    /** 复用的解析器（线程安全） */
+    private final JwtParser jwtParser;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final Counter cacheHitCounter;
+
+    private final Counter cacheMissCounter;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /** JWT令牌过期时间 */
     @Value("${app.jwt.expiration:86400000}")
     private long jwtExpiration;
@@ -40,12 +60,29 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration:604800000}")
     private long refreshExpiration;
 
+    /** 访问令牌是否使用紧凑格式（权限位掩码） */
+    @Value("${app.jwt.compact-authorities:true}")
+    private boolean compactAuthorities;
+
     /**
-     * 构造函数，初始化JWT签名密钥
+     * 构造函数，初始化JWT签名密钥、解析器与已验证令牌缓存
      */
-    public JwtTokenProvider() {
+    public JwtTokenProvider(MeterRegistry meterRegistry,
+                            @Value("${app.jwt.verified-cache.max-size:10000}") int cacheMaxSize,
+                            @Value("${app.jwt.verified-cache.ttl:300000}") long cacheTtl) {
         // 使用HMAC-SHA算法生成密钥
         this.secretKey = Keys.hmacShaKeyFor(SecurityConstants.JWT.SECRET.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verifiedTokenCache = new VerifiedTokenCache(cacheMaxSize, cacheTtl);
+        meterRegistry.gauge("jwt.verified.cache.size", verifiedTokenCache, VerifiedTokenCache::size);
+        this.cacheHitCounter = Counter.builder("jwt.verified.cache.hit")
+                .description("命中已验证令牌缓存的次数")
+                .register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("jwt.verified.cache.miss")
+                .description("未命中缓存、完整验签解析的次数")
+                .register(meterRegistry);
     }
 
     /**
@@ -63,16 +100,26 @@ public class JwtTokenProvider {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
                 .setIssuedAt(new Date())
-                .setExpiration(expiryDate)
-                .setIssuer(SecurityConstants.JWT.ISSUER)
-                .setAudience(SecurityConstants.JWT.AUDIENCE)
-                .claim("authorities", authorities)
-                .claim("type", "access")
-                .signWith(secretKey, SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(expiryDate);
+        if (userPrincipal instanceof AuthenticatedUser && ((AuthenticatedUser) userPrincipal).getUserId() != null) {
+            builder.claim(JwtClaims.CLAIM_USER_ID, ((AuthenticatedUser) userPrincipal).getUserId());
+        }
+        long authorityMask = compactAuthorities ? AuthorityRegistry.encode(authorities) : -1L;
+        if (authorityMask >= 0) {
+            builder.claim(JwtClaims.CLAIM_AUTHORITY_VERSION, AuthorityRegistry.CURRENT_VERSION)
+                    .claim(JwtClaims.CLAIM_AUTHORITY_MASK, authorityMask);
+        } else {
+            // 未启用紧凑格式或含有未注册的权限时使用名称列表
+            builder.setIssuer(SecurityConstants.JWT.ISSUER)
+                    .setAudience(SecurityConstants.JWT.AUDIENCE)
+                    .claim("authorities", authorities)
+                    .claim("type", JwtClaims.TYPE_ACCESS);
+        }
+        return builder.signWith(secretKey, SignatureAlgorithm.HS512).compact();
     }
 
     /**
@@ -85,16 +132,72 @@ public class JwtTokenProvider {
         Date expiryDate = new Date(System.currentTimeMillis() + refreshExpiration);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .setIssuer(SecurityConstants.JWT.ISSUER)
                 .setAudience(SecurityConstants.JWT.AUDIENCE)
-                .claim("type", "refresh")
+                .claim("type", JwtClaims.TYPE_REFRESH)
                 .signWith(secretKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * 验证并解析JWT令牌（签名、格式、过期时间只验证一次）
+     * 
+     * @param token JWT令牌
+     * @return 已验证的声明，令牌无效或已吊销时返回null
+     */
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String key = VerifiedTokenCache.digest(token);
+        JwtClaims cached = verifiedTokenCache.get(key, now);
+        if (cached != null) {
+            cacheHitCounter.increment();
+            return checkRevoked(cached);
+        }
+        cacheMissCounter.increment();
+        try {
+            Claims body = jwtParser.parseClaimsJws(token).getBody();
+            JwtClaims claims;
+            try {
+                claims = JwtClaims.from(body, key);
+            } catch (IllegalArgumentException ex) {
+                // 签名有效但权限声明无法解码（未知的权限表版本或无效掩码）
+                log.error("JWT令牌权限声明无效: {}", ex.getMessage());
+                return null;
+            }
+            verifiedTokenCache.put(key, claims, now);
+            return checkRevoked(claims);
+        } catch (ExpiredJwtException ex) {
+            log.error("JWT令牌已过期: {}", ex.getMessage());
+        } catch (MalformedJwtException ex) {
+            log.error("JWT令牌格式错误: {}", ex.getMessage());
+        } catch (UnsupportedJwtException ex) {
+            log.error("不支持的JWT令牌: {}", ex.getMessage());
+        } catch (SecurityException | io.jsonwebtoken.security.SecurityException ex) {
+            log.error("JWT令牌签名无效: {}", ex.getMessage());
+        } catch (JwtException ex) {
+            log.error("JWT令牌无效: {}", ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            log.error("JWT令牌参数为空: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 吊销令牌，到令牌自身过期前所有节点都拒绝该令牌
+     *
+     * @param claims 已验证的声明
+     */
+    public void revokeToken(JwtClaims claims) {
+        tokenRevocationService.revoke(claims.getTokenId(), claims.getExpiration());
+    }
+
     /**
      * 从JWT令牌中获取用户名
      * 
@@ -102,8 +205,7 @@ public class JwtTokenProvider {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.getSubject();
+        return requireClaims(token).getSubject();
     }
 
     /**
@@ -112,10 +214,8 @@ public class JwtTokenProvider {
      * @param token JWT令牌
      * @return 权限列表
      */
-    @SuppressWarnings("unchecked")
     public List<String> getAuthoritiesFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (List<String>) claims.get("authorities");
+        return requireClaims(token).getAuthorities();
     }
 
     /**
@@ -125,8 +225,7 @@ public class JwtTokenProvider {
      * @return 过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.getExpiration();
+        return new Date(requireClaims(token).getExpiration());
     }
 
     /**
@@ -136,24 +235,7 @@ public class JwtTokenProvider {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("JWT令牌签名无效: {}", ex.getMessage());
-        } catch (MalformedJwtException ex) {
-            log.error("JWT令牌格式错误: {}", ex.getMessage());
-        } catch (ExpiredJwtException ex) {
-            log.error("JWT令牌已过期: {}", ex.getMessage());
-        } catch (UnsupportedJwtException ex) {
-            log.error("不支持的JWT令牌: {}", ex.getMessage());
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT令牌参数为空: {}", ex.getMessage());
-        }
-        return false;
+        return parseToken(token) != null;
     }
 
     /**
@@ -163,8 +245,7 @@ public class JwtTokenProvider {
      * @return 是否过期
      */
     public boolean isTokenExpired(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return requireClaims(token).isExpired(System.currentTimeMillis());
     }
 
     /**
@@ -174,23 +255,29 @@ public class JwtTokenProvider {
      * @return 是否为刷新令牌
      */
     public boolean isRefreshToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        String type = (String) claims.get("type");
-        return "refresh".equals(type);
+        return requireClaims(token).isRefreshToken();
+    }
+
+    private JwtClaims checkRevoked(JwtClaims claims) {
+        if (tokenRevocationService.isRevoked(claims.getTokenId())) {
+            log.warn("JWT令牌已吊销: jti={}, subject={}", claims.getTokenId(), claims.getSubject());
+            return null;
+        }
+        return claims;
     }
 
     /**
-     * 从JWT令牌中解析Claims
+     * 解析令牌，无效时抛出异常
      * 
      * @param token JWT令牌
-     * @return Claims对象
+     * @return 已验证的声明
      */
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private JwtClaims requireClaims(String token) {
+        JwtClaims claims = parseToken(token);
+        if (claims == null) {
+            throw new JwtException("JWT令牌无效");
+        }
+        return claims;
     }
 
     /**
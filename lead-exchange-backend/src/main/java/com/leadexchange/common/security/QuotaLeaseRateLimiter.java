@@ -0,0 +1,242 @@
+package com.leadexchange.common.security;
+
+import com.leadexchange.common.utils.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 配额租约限流器
+ * 全局令牌桶保存在Redis，各节点按块租用配额后在本地扣减：绝大多数请求只做一次本地扣减，
+ * 剩余配额过半时后台预取下一块，只有租约用尽或首次访问时才同步访问Redis。
+ * Redis返回配额耗尽时，在补充出下一个令牌之前本地直接拒绝，被限流的客户端持续请求也不会打到Redis。
+ * 租约在有效期后作废，避免单个节点长期占用配额；Redis不可用时退化为本节点的本地令牌桶
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class QuotaLeaseRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaLeaseRateLimiter.class);
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    /**
+     * 租用配额（令牌桶，时间取Redis服务器时间，避免节点间时钟偏差）
+     * KEYS: 令牌桶键; ARGV: 每秒速率, 容量, 申请数量
+     * 返回: >0 实际租到的数量; <=0 配额耗尽，绝对值为补充出一个令牌所需的毫秒数
+     */
+    private static final RedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "local rate = tonumber(ARGV[1]) " +
+            "local burst = tonumber(ARGV[2]) " +
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local data = redis.call('hmget', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(data[1]) " +
+            "local ts = tonumber(data[2]) " +
+            "if tokens == nil or ts == nil then tokens = burst ts = now end " +
+            "tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000) " +
+            "local granted = math.min(math.floor(tokens), tonumber(ARGV[3])) " +
+            "tokens = tokens - granted " +
+            "redis.call('hset', KEYS[1], 'tokens', tostring(tokens), 'ts', now) " +
+            "redis.call('pexpire', KEYS[1], math.ceil(burst * 1000 / rate) + 1000) " +
+            "if granted > 0 then return granted end " +
+            "return -math.max(1, math.ceil((1 - tokens) * 1000 / rate))",
+            Long.class);
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    private final RateLimitProperties properties;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    private final Counter syncLeaseCounter;
+
+    private final Counter prefetchLeaseCounter;
+
+    private final Counter fallbackCounter;
+
+    public QuotaLeaseRateLimiter(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> stringRedisTemplate,
+                                 RateLimitProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.prefetchExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "rate-limit-lease-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.syncLeaseCounter = Counter.builder("ratelimit.lease")
+                .tag("mode", "sync")
+                .description("从Redis租用配额的次数")
+                .register(meterRegistry);
+        this.prefetchLeaseCounter = Counter.builder("ratelimit.lease")
+                .tag("mode", "prefetch")
+                .description("从Redis租用配额的次数")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("ratelimit.fallback")
+                .description("Redis不可用、退化为本地令牌桶的次数")
+                .register(meterRegistry);
+        meterRegistry.gauge("ratelimit.keys", leases, Map::size);
+    }
+
+    /**
+     * 尝试获取一个请求配额
+     *
+     * @param key 限流键（分组 + 维度 + 标识）
+     * @param rate 每秒速率
+     * @param burst 容量（突发量）
+     * @return 0 表示允许；大于0表示被限流，值为建议等待的毫秒数
+     */
+    public long tryAcquire(String key, double rate, int burst) {
+        Lease lease = leases.get(key);
+        if (lease == null) {
+            if (leases.size() >= properties.getMaxKeys()) {
+                evictIdle();
+            }
+            lease = leases.computeIfAbsent(key, k -> new Lease(k, rate, Math.max(1, burst)));
+        }
+        return lease.acquire();
+    }
+
+    /**
+     * 定期清理已过期且空闲的租约
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        leases.values().removeIf(lease -> lease.isIdle(now));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 单个限流键在本节点的租约
+     */
+    private final class Lease {
+
+        private final String key;
+
+        private final double rate;
+
+        private final int burst;
+
+        /** 每次租用的数量：一个租约有效期内按速率可用的配额，不超过容量 */
+        private final int chunk;
+
+        private final TokenBucket fallback;
+
+        private int permits;
+
+        private long expiresAt;
+
+        private long deniedUntil;
+
+        private boolean prefetching;
+
+        private Lease(String key, double rate, int burst) {
+            this.key = key;
+            this.rate = rate;
+            this.burst = burst;
+            this.chunk = (int) Math.max(1, Math.min(burst, Math.ceil(rate * properties.getLeaseMillis() / 1000.0)));
+            this.fallback = new TokenBucket(rate, burst);
+        }
+
+        private synchronized long acquire() {
+            long now = System.currentTimeMillis();
+            if (now < deniedUntil) {
+                return deniedUntil - now;
+            }
+            if (permits > 0 && now < expiresAt) {
+                permits--;
+                if (permits * 2 <= chunk && !prefetching) {
+                    prefetch();
+                }
+                return 0;
+            }
+            // 租约用尽或过期：同步租用（同一键的并发请求在此等待同一次结果）
+            syncLeaseCounter.increment();
+            try {
+                long granted = lease();
+                now = System.currentTimeMillis();
+                if (granted > 0) {
+                    permits = (int) granted - 1;
+                    expiresAt = now + properties.getLeaseMillis();
+                    return 0;
+                }
+                permits = 0;
+                deniedUntil = now - granted;
+                return -granted;
+            } catch (Exception e) {
+                fallbackCounter.increment();
+                log.debug("租用限流配额失败，使用本地令牌桶: key={}, 错误: {}", key, e.getMessage());
+                return fallback.tryAcquire(1) ? 0 : Math.max(1, (long) Math.ceil(1000 / rate));
+            }
+        }
+
+        private void prefetch() {
+            prefetching = true;
+            try {
+                prefetchExecutor.execute(() -> {
+                    long granted = 0;
+                    try {
+                        prefetchLeaseCounter.increment();
+                        granted = lease();
+                    } catch (Exception e) {
+                        log.debug("预取限流配额失败: key={}, 错误: {}", key, e.getMessage());
+                    }
+                    synchronized (this) {
+                        long now = System.currentTimeMillis();
+                        if (granted > 0) {
+                            permits = (now < expiresAt ? permits : 0) + (int) granted;
+                            expiresAt = now + properties.getLeaseMillis();
+                        }
+                        prefetching = false;
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 预取队列已满，等租约用尽时同步租用
+                prefetching = false;
+            }
+        }
+
+        private long lease() {
+            Long granted = stringRedisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+                    String.valueOf(rate), String.valueOf(burst), String.valueOf(chunk));
+            if (granted == null) {
+                throw new IllegalStateException("限流脚本无返回值");
+            }
+            return granted;
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return !prefetching && now >= expiresAt && now >= deniedUntil;
+        }
+    }
+}
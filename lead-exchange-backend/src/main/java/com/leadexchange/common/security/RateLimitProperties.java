@@ -0,0 +1,147 @@
+package com.leadexchange.common.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口限流配置
+ * 按接口分组配置，请求路径（不含context-path）依配置顺序匹配第一个分组；
+ * 每个分组可分别设置按用户、按IP、按分组整体（路由）的速率与突发量，速率为0表示不启用该维度
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    /** 是否启用限流 */
+    private boolean enabled = true;
+
+    /** 从Redis租用的配额有效期（毫秒），到期未用完的配额作废 */
+    private long leaseMillis = 1000;
+
+    /** 本地最多保留的限流键数量 */
+    private int maxKeys = 100000;
+
+    /** 分组配置：分组名 -> 配置 */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Map<String, Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Group> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * 接口分组限流配置
+     */
+    public static class Group {
+
+        /** 路径模式（Ant风格） */
+        private List<String> patterns = new ArrayList<>();
+
+        /** 每个用户每秒请求数 */
+        private double userRate;
+
+        private int userBurst;
+
+        /** 每个IP每秒请求数 */
+        private double ipRate;
+
+        private int ipBurst;
+
+        /** 分组整体每秒请求数 */
+        private double routeRate;
+
+        private int routeBurst;
+
+        public List<String> getPatterns() {
+            return patterns;
+        }
+
+        public void setPatterns(List<String> patterns) {
+            this.patterns = patterns;
+        }
+
+        public double getUserRate() {
+            return userRate;
+        }
+
+        public void setUserRate(double userRate) {
+            this.userRate = userRate;
+        }
+
+        public int getUserBurst() {
+            return userBurst;
+        }
+
+        public void setUserBurst(int userBurst) {
+            this.userBurst = userBurst;
+        }
+
+        public double getIpRate() {
+            return ipRate;
+        }
+
+        public void setIpRate(double ipRate) {
+            this.ipRate = ipRate;
+        }
+
+        public int getIpBurst() {
+            return ipBurst;
+        }
+
+        public void setIpBurst(int ipBurst) {
+            this.ipBurst = ipBurst;
+        }
+
+        public double getRouteRate() {
+            return routeRate;
+        }
+
+        public void setRouteRate(double routeRate) {
+            this.routeRate = routeRate;
+        }
+
+        public int getRouteBurst() {
+            return routeBurst;
+        }
+
+        public void setRouteBurst(int routeBurst) {
+            this.routeBurst = routeBurst;
+        }
+    }
+}
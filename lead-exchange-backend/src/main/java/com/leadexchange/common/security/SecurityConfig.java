@@ -1,9 +1,12 @@
 package com.leadexchange.common.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -46,15 +49,34 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 密码哈希线程数，0表示取CPU核数的一半 */
+    @Value("${app.security.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${app.security.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.security.password-hashing.wait-timeout:3000}")
+    private long passwordHashingWaitTimeout;
+
     /**
      * 密码编码器Bean
-     * 使用BCrypt算法进行密码加密
+     * 使用BCrypt算法进行密码加密，计算在有界的专用线程池中执行
      * 
-     * @return BCryptPasswordEncoder实例
+     * @return BoundedPasswordEncoder实例
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); // 使用强度为12的BCrypt
+        int threads = passwordHashingThreads > 0 ? passwordHashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(12), // 使用强度为12的BCrypt
+                threads, passwordHashingQueueCapacity, passwordHashingWaitTimeout, meterRegistry);
     }
 
     /**
@@ -84,6 +106,18 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * 方法安全表达式处理器Bean
+     * JWT认证的请求按令牌中的权限位掩码判断 @PreAuthorize 中的角色与权限
+     * （静态方法，避免方法安全配置提前初始化本配置类）
+     * 
+     * @return BitmaskMethodSecurityExpressionHandler实例
+     */
+    @Bean
+    public static MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        return new BitmaskMethodSecurityExpressionHandler();
+    }
+
     /**
      * 安全过滤器链配置
      * 配置HTTP安全策略、CORS、CSRF、会话管理等
@@ -175,7 +209,10 @@ public class SecurityConfig {
             .authenticationProvider(authenticationProvider())
             
             // 添加JWT认证过滤器
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            
+            // 添加限流过滤器（在JWT认证之后，可按用户限流）
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
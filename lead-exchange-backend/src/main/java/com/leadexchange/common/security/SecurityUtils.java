@@ -0,0 +1,47 @@
+package com.leadexchange.common.security;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 安全上下文工具类
+ * 提供从SecurityContext中获取当前登录用户信息的便捷方法
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public final class SecurityUtils {
+
+    private SecurityUtils() {
+        throw new UnsupportedOperationException("工具类不能被实例化");
+    }
+
+    /**
+     * 获取当前登录用户名
+     *
+     * @return 用户名，未登录时返回null
+     */
+    public static String getCurrentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * 获取当前登录用户ID（取自访问令牌，不查库）
+     *
+     * @return 用户ID，未登录或令牌未携带用户ID（升级前签发）时返回null
+     */
+    public static Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal)) {
+            return null;
+        }
+        return ((JwtPrincipal) authentication.getPrincipal()).getUserId();
+    }
+}
@@ -0,0 +1,250 @@
+package com.leadexchange.common.security;
+
+import com.leadexchange.common.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌吊销服务
+ *
+ * 吊销的令牌ID（jti）写入Redis：黑名单键的TTL等于令牌剩余有效期，同时记入按过期时间排序的ZSET供各节点全量加载，
+ * 并通过pub/sub通知所有节点。每个节点在本地维护布隆过滤器与一个小的精确集合（近期吊销的ID）：
+ * 布隆过滤器未命中直接判定未吊销（绝大多数请求，无网络往返）；命中时先查精确集合，再查Redis确认，
+ * 确认未吊销的误判结果在本地短暂记住。布隆过滤器不支持删除，定期从ZSET重建以淘汰已过期的ID，
+ * 重建同时弥补pub/sub断线期间漏收的通知。Redis不可用且布隆过滤器命中时按已吊销处理
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String REVOKED_SET_KEY = "security:revoked_tokens";
+
+    private static final String CHANNEL = "security:token:revoked";
+
+    /**
+     * 吊销令牌：写黑名单键（TTL为剩余有效期）、记入ZSET、发布通知
+     * KEYS: 黑名单键, ZSET; ARGV: jti, 剩余有效期ms, 过期时间ms, 通知频道
+     */
+    private static final RedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('set', KEYS[1], '1', 'PX', ARGV[2]) " +
+            "redis.call('zadd', KEYS[2], ARGV[3], ARGV[1]) " +
+            "redis.call('publish', ARGV[4], ARGV[1] .. ':' .. ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.security.revocation.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${app.security.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${app.security.revocation.exact-set-size:10000}")
+    private int exactSetSize;
+
+    @Value("${app.security.revocation.rebuild-interval:600000}")
+    private long rebuildIntervalMillis;
+
+    private volatile BloomFilter bloomFilter;
+
+    /** 近期吊销的令牌ID -> 过期时间（毫秒） */
+    private final Map<String, Long> recentlyRevoked = new ConcurrentHashMap<>();
+
+    /** 布隆过滤器误判、经Redis确认未吊销的令牌ID -> 过期时间（毫秒） */
+    private final Map<String, Long> confirmedValid = new ConcurrentHashMap<>();
+
+    private final MessageListener revokeListener = this::onRevokeMessage;
+
+    private final AtomicLong bloomRejects = new AtomicLong();
+
+    private final AtomicLong redisLookups = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        redisMessageListenerContainer.addMessageListener(revokeListener, new ChannelTopic(CHANNEL));
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // 未加载成功前，Redis中已有的吊销记录在定期重建时补上
+            log.error("加载已吊销令牌失败，将在下次重建时重试", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisMessageListenerContainer.removeMessageListener(revokeListener);
+    }
+
+    /**
+     * 吊销令牌
+     *
+     * @param tokenId 令牌ID
+     * @param expiration 令牌过期时间（毫秒）
+     */
+    public void revoke(String tokenId, long expiration) {
+        long now = System.currentTimeMillis();
+        long remaining = expiration - now;
+        if (remaining <= 0) {
+            return;
+        }
+        stringRedisTemplate.execute(REVOKE_SCRIPT,
+                Arrays.asList(SecurityConstants.CACHE.BLACKLIST_TOKEN_PREFIX + tokenId, REVOKED_SET_KEY),
+                tokenId, String.valueOf(remaining), String.valueOf(expiration), CHANNEL);
+        // 本节点立即生效，不等待pub/sub回环
+        remember(tokenId, expiration);
+        log.info("令牌已吊销: jti={}, remainingMillis={}", tokenId, remaining);
+    }
+
+    /**
+     * 令牌是否已吊销
+     *
+     * @param tokenId 令牌ID
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!bloomFilter.mightContain(tokenId)) {
+            bloomRejects.incrementAndGet();
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Long revokedUntil = recentlyRevoked.get(tokenId);
+        if (revokedUntil != null && revokedUntil > now) {
+            return true;
+        }
+        Long validUntil = confirmedValid.get(tokenId);
+        if (validUntil != null && validUntil > now) {
+            return false;
+        }
+        redisLookups.incrementAndGet();
+        try {
+            Boolean exists = stringRedisTemplate.hasKey(SecurityConstants.CACHE.BLACKLIST_TOKEN_PREFIX + tokenId);
+            if (Boolean.TRUE.equals(exists)) {
+                return true;
+            }
+            if (confirmedValid.size() >= exactSetSize) {
+                confirmedValid.clear();
+            }
+            // 只记住到下次重建，重建后布隆过滤器通常不再误判该ID
+            confirmedValid.put(tokenId, now + rebuildIntervalMillis);
+            return false;
+        } catch (Exception e) {
+            log.warn("查询令牌吊销状态失败，按已吊销处理: jti={}", tokenId, e);
+            return true;
+        }
+    }
+
+    /**
+     * 定期从Redis重建布隆过滤器，淘汰已过期的ID并补上漏收的通知
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.rebuild-interval:600000}",
+            initialDelayString = "${app.security.revocation.rebuild-interval:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("重建令牌吊销过滤器失败", e);
+        }
+    }
+
+    /**
+     * 从Redis全量重建本地过滤器
+     */
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(REVOKED_SET_KEY, Double.NEGATIVE_INFINITY, now);
+        Set<String> revoked = stringRedisTemplate.opsForZSet().rangeByScore(REVOKED_SET_KEY, now, Double.POSITIVE_INFINITY);
+        int count = revoked == null ? 0 : revoked.size();
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, count * 2L), falsePositiveRate);
+        if (revoked != null) {
+            for (String tokenId : revoked) {
+                rebuilt.add(tokenId);
+            }
+        }
+        synchronized (this) {
+            // 加载期间收到的通知已写入精确集合，与替换在同一把锁内合并，不会漏掉
+            recentlyRevoked.values().removeIf(expiration -> expiration <= now);
+            for (String tokenId : recentlyRevoked.keySet()) {
+                rebuilt.add(tokenId);
+            }
+            bloomFilter = rebuilt;
+            confirmedValid.clear();
+        }
+        log.info("令牌吊销过滤器重建完成: revoked={}, bits={}, hashes={}", count, rebuilt.bitSize(), rebuilt.hashCount());
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recentlyRevoked", recentlyRevoked.size());
+        stats.put("confirmedValid", confirmedValid.size());
+        stats.put("bloomRejects", bloomRejects.get());
+        stats.put("redisLookups", redisLookups.get());
+        return stats;
+    }
+
+    private void onRevokeMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.lastIndexOf(':');
+            if (separator <= 0) {
+                return;
+            }
+            remember(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+        } catch (Exception e) {
+            log.warn("处理令牌吊销通知失败", e);
+        }
+    }
+
+    private synchronized void remember(String tokenId, long expiration) {
+        bloomFilter.add(tokenId);
+        confirmedValid.remove(tokenId);
+        if (recentlyRevoked.size() >= exactSetSize) {
+            long now = System.currentTimeMillis();
+            recentlyRevoked.values().removeIf(value -> value <= now);
+        }
+        // 精确集合满时不再加入，布隆过滤器命中后回查Redis仍能得到正确结果
+        if (recentlyRevoked.size() < exactSetSize) {
+            recentlyRevoked.put(tokenId, expiration);
+        } else {
+            log.warn("近期吊销集合已满: size={}", recentlyRevoked.size());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.leadexchange.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已验证令牌缓存
+ * 以令牌的SHA-256摘要为键（不保存令牌原文），条目在令牌过期或缓存TTL到期时失效，二者取早。
+ * 容量有界：写入时超过上限先清理过期条目，仍超过则按迭代顺序淘汰一批（近似淘汰，不维护访问顺序，读取无锁）。
+ * 只缓存验证通过的令牌，无效令牌每次都重新验证
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    });
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    VerifiedTokenCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 计算令牌摘要
+     *
+     * @param token 令牌
+     * @return Base64编码的摘要
+     */
+    static String digest(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().withoutPadding()
+                .encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * 读取未失效的声明
+     *
+     * @param key 令牌摘要
+     * @param now 当前时间（毫秒）
+     * @return 声明，不存在或已失效时返回null
+     */
+    JwtClaims get(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.claims;
+    }
+
+    /**
+     * 写入已验证的声明
+     *
+     * @param key 令牌摘要
+     * @param claims 声明
+     * @param now 当前时间（毫秒）
+     */
+    void put(String key, JwtClaims claims, long now) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long expiresAt = Math.min(claims.getExpiration(), now + ttlMillis);
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(key, new Entry(claims, expiresAt));
+    }
+
+    /**
+     * 移除条目
+     *
+     * @param key 令牌摘要
+     */
+    void remove(String key) {
+        entries.remove(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (excess-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        final JwtClaims claims;
+
+        final long expiresAt;
+
+        Entry(JwtClaims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
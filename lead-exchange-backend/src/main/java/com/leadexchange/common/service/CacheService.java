@@ -166,29 +166,33 @@ public class CacheService {
     }
 
     /**
-     * 设置分布式锁
+     * 设置分布式锁（键不存在时才设置成功）
+     * 需要等待、续期或公平排队的场景请使用 {@link DistributedLockService}
      * 
      * @param lockKey 锁键
-     * @param lockValue 锁值
+     * @param lockValue 锁值（持有者标识，释放时校验）
      * @param expireSeconds 过期时间（秒）
      * @return 是否获取锁成功
      */
     public boolean tryLock(String lockKey, String lockValue, long expireSeconds) {
         String key = "lock:" + lockKey;
-        boolean success = redisUtils.set(key, lockValue, expireSeconds);
+        boolean success = redisUtils.setIfAbsent(key, lockValue, expireSeconds);
         log.info("尝试获取分布式锁: lockKey={}, success={}", lockKey, success);
         return success;
     }
 
     /**
-     * 释放分布式锁
+     * 释放分布式锁，只有锁值匹配的持有者才能释放
      * 
      * @param lockKey 锁键
+     * @param lockValue 获取锁时使用的锁值
+     * @return 是否释放成功
      */
-    public void releaseLock(String lockKey) {
+    public boolean releaseLock(String lockKey, String lockValue) {
         String key = "lock:" + lockKey;
-        redisUtils.del(key);
-        log.info("释放分布式锁: lockKey={}", lockKey);
+        boolean success = redisUtils.delIfEquals(key, lockValue);
+        log.info("释放分布式锁: lockKey={}, success={}", lockKey, success);
+        return success;
     }
 
     /**
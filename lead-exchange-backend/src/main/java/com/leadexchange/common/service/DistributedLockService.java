@@ -0,0 +1,425 @@
+package com.leadexchange.common.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Redis分布式锁服务
+ *
+ * 获取：Lua脚本内 SET NX PX，锁被占用时进入Redis中的FIFO等待队列（跨节点公平）；
+ * 释放：Lua脚本校验持有者令牌后删除，并通过发布/订阅通知等待者，等待者无需自旋轮询；
+ * 续期：未指定租期时启用看门狗，按租期1/3周期续期，持有者进程宕机后锁自动过期；
+ * 本地快速路径：同一JVM内对同一把锁的等待者先在本地公平锁上排队，每个节点同一时刻只有一个线程访问Redis。
+ * 同一线程可重入，重入不再访问Redis。
+ * 租约状态：续期失败（锁已被他人获取）或租期耗尽时，{@link LockHandle#isHeld()} 返回false，
+ * 临界区较长的调用方应在每个步骤前检查，丢失后停止写入。
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+@Service
+public class DistributedLockService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistributedLockService.class);
+
+    private static final String LOCK_PREFIX = "lock:";
+
+    private static final String QUEUE_SUFFIX = ":queue";
+
+    private static final String DEADLINE_SUFFIX = ":deadline";
+
+    private static final String CHANNEL_PREFIX = "lock:release:";
+
+    /** 看门狗模式下的租期 */
+    private static final long WATCHDOG_LEASE_MILLIS = 30000;
+
+    /** 锁空闲但未轮到本节点时的兜底等待时间（队首等待者超时退出时不一定能收到通知） */
+    private static final long QUEUE_RECHECK_MILLIS = 100;
+
+    /**
+     * 获取锁
+     * KEYS: 锁键, 等待队列(ZSET 按入队时间排序), 等待者截止时间(HASH)
+     * ARGV: 令牌, 租期ms, 当前时间ms, 等待截止时间ms
+     * 返回: -1 获取成功; -2 锁空闲但队首不是自己; >=0 锁剩余存活时间ms
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[3]) " +
+            "while true do " +
+            "  local head = redis.call('zrange', KEYS[2], 0, 0) " +
+            "  if #head == 0 then break end " +
+            "  local deadline = tonumber(redis.call('hget', KEYS[3], head[1]) or '0') " +
+            "  if deadline > now then break end " +
+            "  redis.call('zrem', KEYS[2], head[1]) " +
+            "  redis.call('hdel', KEYS[3], head[1]) " +
+            "end " +
+            "if redis.call('exists', KEYS[1]) == 0 then " +
+            "  local head = redis.call('zrange', KEYS[2], 0, 0) " +
+            "  if #head == 0 or head[1] == ARGV[1] then " +
+            "    redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "    redis.call('zrem', KEYS[2], ARGV[1]) " +
+            "    redis.call('hdel', KEYS[3], ARGV[1]) " +
+            "    return -1 " +
+            "  end " +
+            "end " +
+            "local waitDeadline = tonumber(ARGV[4]) " +
+            "if waitDeadline > now then " +
+            "  redis.call('zadd', KEYS[2], 'NX', now, ARGV[1]) " +
+            "  redis.call('hset', KEYS[3], ARGV[1], ARGV[4]) " +
+            "  local keep = waitDeadline - now + 60000 " +
+            "  if redis.call('pttl', KEYS[2]) < keep then " +
+            "    redis.call('pexpire', KEYS[2], keep) " +
+            "    redis.call('pexpire', KEYS[3], keep) " +
+            "  end " +
+            "end " +
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl < 0 then return -2 end " +
+            "return ttl",
+            Long.class);
+
+    /**
+     * 释放锁：令牌匹配才删除，并发布释放通知
+     * KEYS: 锁键; ARGV: 令牌, 通知频道
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  redis.call('del', KEYS[1]) " +
+            "  redis.call('publish', ARGV[2], ARGV[1]) " +
+            "  return 1 " +
+            "end " +
+            "return 0",
+            Long.class);
+
+    /**
+     * 放弃等待：移出等待队列，并通知后续等待者
+     * KEYS: 等待队列, 等待者截止时间; ARGV: 令牌, 通知频道
+     */
+    private static final RedisScript<Long> CANCEL_WAIT_SCRIPT = new DefaultRedisScript<>(
+            "local removed = redis.call('zrem', KEYS[1], ARGV[1]) " +
+            "redis.call('hdel', KEYS[2], ARGV[1]) " +
+            "if removed == 1 then redis.call('publish', ARGV[2], '') end " +
+            "return removed",
+            Long.class);
+
+    /**
+     * 续期：令牌匹配才延长租期
+     * KEYS: 锁键; ARGV: 令牌, 租期ms
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0",
+            Long.class);
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 本节点各锁的本地状态 */
+    private final ConcurrentHashMap<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService watchdog;
+
+    private final MessageListener releaseListener = this::onReleaseMessage;
+
+    @PostConstruct
+    public void init() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        redisMessageListenerContainer.addMessageListener(releaseListener, new PatternTopic(CHANNEL_PREFIX + "*"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        redisMessageListenerContainer.removeMessageListener(releaseListener);
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 尝试获取锁
+     *
+     * @param name 锁名称
+     * @param waitTime 最长等待时间，0表示不等待
+     * @param leaseTime 租期，小于等于0表示启用看门狗自动续期
+     * @param unit 时间单位
+     * @return 锁句柄，获取失败返回null
+     * @throws InterruptedException 等待期间被中断
+     */
+    public LockHandle tryLock(String name, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(Math.max(waitTime, 0));
+        LocalLock local = retain(name);
+        boolean locked = false;
+        try {
+            locked = local.lock.tryLock(Math.max(waitTime, 0), unit);
+            if (!locked) {
+                return null;
+            }
+            if (local.lock.getHoldCount() > 1) {
+                // 同一线程重入，Redis锁已经持有
+                return new LockHandle(this, name, local.token, local.lease);
+            }
+
+            String token = UUID.randomUUID().toString();
+            long leaseMillis = leaseTime > 0 ? unit.toMillis(leaseTime) : WATCHDOG_LEASE_MILLIS;
+            // 租期从发出请求前开始计算，本地判断的到期时间不晚于Redis中的实际过期时间
+            long requestedAt = System.currentTimeMillis();
+            if (acquire(name, token, leaseMillis, deadline, local)) {
+                Lease lease = new Lease(requestedAt + leaseMillis);
+                local.token = token;
+                local.lease = lease;
+                if (leaseTime <= 0) {
+                    long period = WATCHDOG_LEASE_MILLIS / 3;
+                    local.renewal = watchdog.scheduleAtFixedRate(() -> renew(name, token, lease),
+                            period, period, TimeUnit.MILLISECONDS);
+                }
+                return new LockHandle(this, name, token, lease);
+            }
+            local.lock.unlock();
+            locked = false;
+            return null;
+        } catch (InterruptedException | RuntimeException e) {
+            if (locked) {
+                local.lock.unlock();
+                locked = false;
+            }
+            throw e;
+        } finally {
+            if (!locked) {
+                releaseLocal(name, local);
+            }
+        }
+    }
+
+    /**
+     * 释放锁
+     *
+     * @param handle 锁句柄
+     */
+    public void unlock(LockHandle handle) {
+        LocalLock local = localLocks.get(handle.getName());
+        if (local == null || !local.lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("当前线程未持有锁: " + handle.getName());
+        }
+        try {
+            if (local.lock.getHoldCount() == 1) {
+                if (local.renewal != null) {
+                    local.renewal.cancel(false);
+                    local.renewal = null;
+                }
+                Long released = stringRedisTemplate.execute(RELEASE_SCRIPT,
+                        Collections.singletonList(lockKey(handle.getName())),
+                        handle.getToken(), CHANNEL_PREFIX + handle.getName());
+                if (released == null || released == 0) {
+                    log.warn("分布式锁已过期或被其他持有者获取: name={}", handle.getName());
+                }
+                local.token = null;
+                local.lease = null;
+            }
+        } finally {
+            local.lock.unlock();
+            releaseLocal(handle.getName(), local);
+        }
+    }
+
+    /**
+     * 在Redis中获取锁，锁被占用时排队等待释放通知
+     */
+    private boolean acquire(String name, String token, long leaseMillis, long deadline, LocalLock local)
+            throws InterruptedException {
+        List<String> keys = Arrays.asList(lockKey(name), lockKey(name) + QUEUE_SUFFIX, lockKey(name) + DEADLINE_SUFFIX);
+        while (true) {
+            // 先清空旧通知，再检查锁状态，避免错过检查之后到达的释放通知
+            local.released.drainPermits();
+            long now = System.currentTimeMillis();
+            Long result = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, token,
+                    String.valueOf(leaseMillis), String.valueOf(now), String.valueOf(deadline));
+            if (result != null && result == -1) {
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                cancelWait(name, token);
+                return false;
+            }
+            long waitMillis = result == null || result < 0 ? QUEUE_RECHECK_MILLIS : Math.max(result, 1);
+            try {
+                local.released.tryAcquire(Math.min(waitMillis, remaining), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                cancelWait(name, token);
+                throw e;
+            }
+        }
+    }
+
+    private void cancelWait(String name, String token) {
+        try {
+            stringRedisTemplate.execute(CANCEL_WAIT_SCRIPT,
+                    Arrays.asList(lockKey(name) + QUEUE_SUFFIX, lockKey(name) + DEADLINE_SUFFIX),
+                    token, CHANNEL_PREFIX + name);
+        } catch (Exception e) {
+            // 等待记录带有截止时间，清理失败不影响其他等待者
+            log.warn("移出分布式锁等待队列失败: name={}", name, e);
+        }
+    }
+
+    private void renew(String name, String token, Lease lease) {
+        try {
+            long requestedAt = System.currentTimeMillis();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(lockKey(name)),
+                    token, String.valueOf(WATCHDOG_LEASE_MILLIS));
+            if (renewed == null || renewed == 0) {
+                lease.lost = true;
+                LocalLock local = localLocks.get(name);
+                if (local != null && local.renewal != null && token.equals(local.token)) {
+                    local.renewal.cancel(false);
+                }
+                log.warn("分布式锁续期失败，锁已丢失: name={}", name);
+            } else {
+                lease.expiresAt = requestedAt + WATCHDOG_LEASE_MILLIS;
+            }
+        } catch (Exception e) {
+            // 续期异常时不延长本地到期时间，租期耗尽后 isHeld 返回false
+            log.warn("分布式锁续期异常: name={}", name, e);
+        }
+    }
+
+    private void onReleaseMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        LocalLock local = localLocks.get(channel.substring(CHANNEL_PREFIX.length()));
+        if (local != null) {
+            local.released.release();
+        }
+    }
+
+    private LocalLock retain(String name) {
+        return localLocks.compute(name, (key, existing) -> {
+            LocalLock local = existing != null ? existing : new LocalLock();
+            local.references++;
+            return local;
+        });
+    }
+
+    private void releaseLocal(String name, LocalLock local) {
+        localLocks.computeIfPresent(name, (key, existing) -> {
+            if (existing != local) {
+                return existing;
+            }
+            return --existing.references == 0 ? null : existing;
+        });
+    }
+
+    private static String lockKey(String name) {
+        return LOCK_PREFIX + name;
+    }
+
+    /**
+     * 本节点内单把锁的状态（references 只在 ConcurrentHashMap.compute 中修改）
+     */
+    private static final class LocalLock {
+        final ReentrantLock lock = new ReentrantLock(true);
+        final Semaphore released = new Semaphore(0);
+        int references;
+        volatile String token;
+        volatile Lease lease;
+        volatile ScheduledFuture<?> renewal;
+    }
+
+    /**
+     * 单次获取的租约状态，同一次获取的重入句柄共享
+     */
+    private static final class Lease {
+        /** 本地视角的租约到期时间（毫秒） */
+        volatile long expiresAt;
+        /** 续期时发现锁已不属于本持有者 */
+        volatile boolean lost;
+
+        Lease(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 锁句柄，支持 try-with-resources
+     */
+    public static final class LockHandle implements AutoCloseable {
+
+        private final DistributedLockService service;
+        private final String name;
+        private final String token;
+        private final Lease lease;
+
+        private LockHandle(DistributedLockService service, String name, String token, Lease lease) {
+            this.service = service;
+            this.name = name;
+            this.token = token;
+            this.lease = lease;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * 租约是否仍然有效
+         * 续期失败（锁已被其他持有者获取）或本地计算的租期已耗尽时返回false，
+         * 此后临界区内的写入不再受锁保护，应立即停止
+         *
+         * @return 是否仍持有锁
+         */
+        public boolean isHeld() {
+            return isHeld(0);
+        }
+
+        /**
+         * 租约是否仍然有效，且剩余租期不少于指定时间
+         * 用于开始一段耗时有上限的操作前确认锁在操作完成前不会过期
+         *
+         * @param minRemainingMillis 最少剩余租期（毫秒）
+         * @return 是否仍持有锁
+         */
+        public boolean isHeld(long minRemainingMillis) {
+            return lease != null && !lease.lost
+                    && lease.expiresAt - System.currentTimeMillis() > minRemainingMillis;
+        }
+
+        @Override
+        public void close() {
+            service.unlock(this);
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.leadexchange.common.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带本地近缓存的Redis会话仓库
+ * 
+ * 会话以Hash保存在Redis，只回写变化的属性（增量），未变化的请求只在距上次持久化的访问时间超过
+ * touch间隔时才写一次访问时间，其余情况不访问Redis。读取先查本地近缓存（保存会话快照，每次返回副本），
+ * 未命中才读Redis。会话在其他节点变更或删除时通过pub/sub通知各节点清除近缓存。
+ * Redis键的TTL为最大空闲时间加touch间隔，保证节流写访问时间不会使会话提前过期；
+ * 只写访问时间的保存不发布通知，近缓存快照可能落后于其他节点的访问，因此快照看起来已过期时先回源Redis确认，
+ * 只有Redis中的访问时间也超过最大空闲时间加touch间隔时才删除会话。
+ * 已有会话的回写（增量、访问时间、改ID）都由Lua脚本在键存在时原子执行：会话已被其他节点删除（登出）或已过期时
+ * 视为已失效，不会以残缺的Hash重新出现
+ * 
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public class NearCacheRedisSessionRepository
+        implements SessionRepository<NearCacheRedisSessionRepository.DeltaSession> {
+
+    private static final Logger log = LoggerFactory.getLogger(NearCacheRedisSessionRepository.class);
+
+    private static final String KEY_PREFIX = "lead:session:sessions:";
+
+    private static final String INVALIDATE_CHANNEL = "lead:session:invalidate";
+
+    private static final String CREATION_TIME = "creationTime";
+
+    private static final String LAST_ACCESSED_TIME = "lastAccessedTime";
+
+    private static final String MAX_INACTIVE_INTERVAL = "maxInactiveInterval";
+
+    private static final String ATTRIBUTE_PREFIX = "attr:";
+
+    /**
+     * 键存在时写入字段、删除字段并刷新TTL
+     * ARGV: 写入字段数n, TTL（毫秒）, n组字段名/值, 待删除的字段名...
+     * 返回: 1 已写入，0 键不存在
+     */
+    private static final RedisScript<Long> UPDATE_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+            "local n = tonumber(ARGV[1]) " +
+            "for i = 0, n - 1 do redis.call('hset', KEYS[1], ARGV[3 + 2 * i], ARGV[4 + 2 * i]) end " +
+            "for i = 3 + 2 * n, #ARGV do redis.call('hdel', KEYS[1], ARGV[i]) end " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * 键存在时改名
+     * 返回: 1 已改名，0 原键不存在
+     */
+    private static final RedisScript<Long> RENAME_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+            "redis.call('rename', KEYS[1], KEYS[2]) " +
+            "return 1",
+            Long.class);
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /** 本节点标识，忽略自己发出的失效通知 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Duration defaultMaxInactiveInterval;
+
+    private final long touchIntervalMillis;
+
+    private final Cache<String, Snapshot> nearCache;
+
+    private final MessageListener invalidateListener = this::onInvalidateMessage;
+
+    private final Counter nearHitCounter;
+
+    private final Counter redisLoadCounter;
+
+    private final Counter writeCounter;
+
+    private final Counter skippedWriteCounter;
+
+    private final Counter invalidatedWriteCounter;
+
+    /**
+     * @param redisTemplate 会话数据模板（Hash值使用JDK序列化）
+     * @param stringRedisTemplate 字符串模板（发布失效通知）
+     * @param listenerContainer 消息监听容器
+     * @param defaultMaxInactiveInterval 默认最大空闲时间
+     * @param touchIntervalMillis 仅访问时间变化时的最小回写间隔（毫秒）
+     * @param nearCacheMaxSize 近缓存容量
+     * @param nearCacheTtlMillis 近缓存有效期（毫秒）
+     * @param meterRegistry 指标注册表
+     */
+    public NearCacheRedisSessionRepository(RedisTemplate<String, Object> redisTemplate,
+                                           RedisTemplate<String, String> stringRedisTemplate,
+                                           RedisMessageListenerContainer listenerContainer,
+                                           Duration defaultMaxInactiveInterval,
+                                           long touchIntervalMillis,
+                                           long nearCacheMaxSize,
+                                           long nearCacheTtlMillis,
+                                           MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.touchIntervalMillis = touchIntervalMillis;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(nearCacheTtlMillis))
+                .build();
+        this.nearHitCounter = Counter.builder("session.load")
+                .tag("source", "near-cache")
+                .description("会话读取次数")
+                .register(meterRegistry);
+        this.redisLoadCounter = Counter.builder("session.load")
+                .tag("source", "redis")
+                .description("会话读取次数")
+                .register(meterRegistry);
+        this.writeCounter = Counter.builder("session.save")
+                .tag("result", "written")
+                .description("会话保存次数")
+                .register(meterRegistry);
+        this.skippedWriteCounter = Counter.builder("session.save")
+                .tag("result", "skipped")
+                .description("会话保存次数")
+                .register(meterRegistry);
+        this.invalidatedWriteCounter = Counter.builder("session.save")
+                .tag("result", "invalidated")
+                .description("会话保存次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅失效通知（作为@Bean时由Spring调用）
+     */
+    public void init() {
+        listenerContainer.addMessageListener(invalidateListener, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 取消订阅（作为@Bean时由Spring调用）
+     */
+    public void destroy() {
+        listenerContainer.removeMessageListener(invalidateListener);
+    }
+
+    @Override
+    public DeltaSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new DeltaSession(session, true, 0L);
+    }
+
+    @Override
+    public void save(DeltaSession session) {
+        String id = session.getId();
+        long lastAccessed = session.getLastAccessedTime().toEpochMilli();
+        boolean changed = false;
+        if (session.isNew) {
+            Map<String, Object> entries = new HashMap<>();
+            entries.put(CREATION_TIME, session.getCreationTime().toEpochMilli());
+            entries.put(LAST_ACCESSED_TIME, lastAccessed);
+            entries.put(MAX_INACTIVE_INTERVAL, (int) session.getMaxInactiveInterval().getSeconds());
+            for (String name : session.getAttributeNames()) {
+                entries.put(ATTRIBUTE_PREFIX + name, session.getAttribute(name));
+            }
+            redisTemplate.opsForHash().putAll(key(id), entries);
+            expire(session);
+            changed = true;
+        } else {
+            if (!session.originalId.equals(id)) {
+                Long renamed = redisTemplate.execute(RENAME_IF_EXISTS_SCRIPT,
+                        Arrays.asList(key(session.originalId), key(id)));
+                nearCache.invalidate(session.originalId);
+                publishInvalidate(session.originalId);
+                if (renamed == null || renamed == 0) {
+                    onInvalidated(session.originalId);
+                    return;
+                }
+                changed = true;
+            }
+            if (!session.delta.isEmpty()) {
+                Map<String, Object> updates = new HashMap<>();
+                List<String> removed = new ArrayList<>();
+                for (Map.Entry<String, Object> entry : session.delta.entrySet()) {
+                    if (entry.getValue() == null) {
+                        removed.add(entry.getKey());
+                    } else {
+                        updates.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                updates.put(LAST_ACCESSED_TIME, lastAccessed);
+                if (!updateIfExists(session, updates, removed)) {
+                    onInvalidated(id);
+                    return;
+                }
+                changed = true;
+            } else if (lastAccessed - session.persistedLastAccessed >= touchIntervalMillis) {
+                if (!updateIfExists(session, Collections.singletonMap(LAST_ACCESSED_TIME, lastAccessed),
+                        Collections.emptyList())) {
+                    onInvalidated(id);
+                    return;
+                }
+            } else {
+                skippedWriteCounter.increment();
+                nearCache.put(id, new Snapshot(new MapSession(session.cached), session.persistedLastAccessed));
+                return;
+            }
+        }
+        writeCounter.increment();
+        session.markSaved(lastAccessed);
+        nearCache.put(id, new Snapshot(new MapSession(session.cached), lastAccessed));
+        if (changed) {
+            publishInvalidate(id);
+        }
+    }
+
+    @Override
+    public DeltaSession findById(String id) {
+        Snapshot snapshot = nearCache.getIfPresent(id);
+        if (snapshot != null) {
+            if (!snapshot.session.isExpired()) {
+                nearHitCounter.increment();
+                return new DeltaSession(new MapSession(snapshot.session), false, snapshot.persistedLastAccessed);
+            }
+            // 其他节点可能已延长会话（只写访问时间时不发通知），以Redis为准
+            nearCache.invalidate(id);
+        }
+        redisLoadCounter.increment();
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(id));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        MapSession session = new MapSession(id);
+        long persistedLastAccessed = 0L;
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = (String) entry.getKey();
+            Object value = entry.getValue();
+            if (CREATION_TIME.equals(field)) {
+                session.setCreationTime(Instant.ofEpochMilli((Long) value));
+            } else if (LAST_ACCESSED_TIME.equals(field)) {
+                persistedLastAccessed = (Long) value;
+                session.setLastAccessedTime(Instant.ofEpochMilli(persistedLastAccessed));
+            } else if (MAX_INACTIVE_INTERVAL.equals(field)) {
+                session.setMaxInactiveInterval(Duration.ofSeconds((Integer) value));
+            } else if (field.startsWith(ATTRIBUTE_PREFIX)) {
+                session.setAttribute(field.substring(ATTRIBUTE_PREFIX.length()), value);
+            }
+        }
+        if (isExpired(session)) {
+            deleteById(id);
+            return null;
+        }
+        nearCache.put(id, new Snapshot(new MapSession(session), persistedLastAccessed));
+        return new DeltaSession(session, false, persistedLastAccessed);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        nearCache.invalidate(id);
+        redisTemplate.delete(key(id));
+        publishInvalidate(id);
+    }
+
+    /**
+     * Redis中的访问时间最多落后touch间隔（节流写入），按与键TTL相同的宽限判断过期
+     */
+    private boolean isExpired(MapSession session) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        if (maxInactive.isNegative()) {
+            return false;
+        }
+        long deadline = session.getLastAccessedTime().toEpochMilli() + maxInactive.toMillis() + touchIntervalMillis;
+        return deadline <= System.currentTimeMillis();
+    }
+
+    /**
+     * 键存在时写入字段与删除字段并刷新TTL（原子执行）
+     *
+     * @return 是否已写入，false表示会话已被删除或已过期
+     */
+    @SuppressWarnings("unchecked")
+    private boolean updateIfExists(DeltaSession session, Map<String, Object> updates, List<String> removed) {
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        List<byte[]> args = new ArrayList<>(2 + updates.size() * 2 + removed.size());
+        args.add(String.valueOf(updates.size()).getBytes(StandardCharsets.UTF_8));
+        long ttl = session.getMaxInactiveInterval().toMillis() + touchIntervalMillis;
+        args.add(String.valueOf(ttl).getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            args.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            args.add(valueSerializer.serialize(entry.getValue()));
+        }
+        for (String field : removed) {
+            args.add(field.getBytes(StandardCharsets.UTF_8));
+        }
+        Long result = redisTemplate.execute(UPDATE_IF_EXISTS_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                Collections.singletonList(key(session.getId())), args.toArray());
+        return result != null && result == 1;
+    }
+
+    /**
+     * 回写时发现会话已不存在：清除近缓存，不重建
+     */
+    private void onInvalidated(String id) {
+        invalidatedWriteCounter.increment();
+        nearCache.invalidate(id);
+        log.debug("会话已失效，放弃回写: sessionId={}", id);
+    }
+
+    private void expire(DeltaSession session) {
+        long ttl = session.getMaxInactiveInterval().toMillis() + touchIntervalMillis;
+        redisTemplate.expire(key(session.getId()), ttl, TimeUnit.MILLISECONDS);
+    }
+
+    private void publishInvalidate(String id) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nodeId + ":" + id);
+        } catch (Exception e) {
+            // 其他节点在近缓存过期后读到新数据
+            log.warn("发布会话失效通知失败: sessionId={}", id, e);
+        }
+    }
+
+    private void onInvalidateMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator <= 0 || body.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        nearCache.invalidate(body.substring(separator + 1));
+    }
+
+    private static String key(String id) {
+        return KEY_PREFIX + id;
+    }
+
+    /**
+     * 近缓存条目：会话快照与已持久化的访问时间
+     */
+    private static final class Snapshot {
+
+        final MapSession session;
+
+        final long persistedLastAccessed;
+
+        Snapshot(MapSession session, long persistedLastAccessed) {
+            this.session = session;
+            this.persistedLastAccessed = persistedLastAccessed;
+        }
+    }
+
+    /**
+     * 记录属性增量的会话
+     */
+    public static final class DeltaSession implements Session {
+
+        private final MapSession cached;
+
+        /** 变化的字段 -> 新值，null表示删除 */
+        private final Map<String, Object> delta = new HashMap<>();
+
+        private boolean isNew;
+
+        private String originalId;
+
+        private long persistedLastAccessed;
+
+        DeltaSession(MapSession cached, boolean isNew, long persistedLastAccessed) {
+            this.cached = cached;
+            this.isNew = isNew;
+            this.originalId = cached.getId();
+            this.persistedLastAccessed = persistedLastAccessed;
+        }
+
+        @Override
+        public String getId() {
+            return cached.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return cached.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return cached.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return cached.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            cached.setAttribute(attributeName, attributeValue);
+            delta.put(ATTRIBUTE_PREFIX + attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            cached.removeAttribute(attributeName);
+            delta.put(ATTRIBUTE_PREFIX + attributeName, null);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return cached.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            cached.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return cached.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            cached.setMaxInactiveInterval(interval);
+            delta.put(MAX_INACTIVE_INTERVAL, (int) interval.getSeconds());
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return cached.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return cached.isExpired();
+        }
+
+        private void markSaved(long lastAccessed) {
+            delta.clear();
+            isNew = false;
+            originalId = cached.getId();
+            persistedLastAccessed = lastAccessed;
+        }
+    }
+}
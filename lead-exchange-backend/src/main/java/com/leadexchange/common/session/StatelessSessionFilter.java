@@ -0,0 +1,272 @@
+package com.leadexchange.common.session;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionContext;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 无状态会话过滤器
+ * 位于Spring Session的SessionRepositoryFilter之后。携带Bearer令牌的请求（JWT认证）以及匹配配置路径的请求
+ * 被包装为无会话请求：不读取会话Cookie，也就不会访问会话仓库、不会签发Cookie。
+ * 此类请求中要求创建会话时返回只在本次请求内有效的临时会话（不持久化、不关联Cookie），
+ * 写入其中的属性在请求结束后丢弃，依赖会话的代码不会因无状态请求而失败
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public class StatelessSessionFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> patterns;
+
+    /**
+     * @param patterns 始终无会话的路径（不含context-path）
+     */
+    public StatelessSessionFilter(List<String> patterns) {
+        this.patterns = patterns;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (isStateless(request)) {
+            filterChain.doFilter(new StatelessRequest(request), response);
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private boolean isStateless(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 不关联会话的请求
+     */
+    private static final class StatelessRequest extends HttpServletRequestWrapper {
+
+        private TransientSession session;
+
+        StatelessRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && session.invalidated) {
+                session = null;
+            }
+            if (session == null && create) {
+                session = new TransientSession(getServletContext());
+            }
+            return session;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return false;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        @Override
+        public String changeSessionId() {
+            HttpSession current = getSession(false);
+            if (current == null) {
+                throw new IllegalStateException("请求没有关联的会话: " + getRequestURI());
+            }
+            session = session.copyWithNewId();
+            return session.getId();
+        }
+    }
+
+    /**
+     * 临时会话：只存在于单次请求内，不写入会话仓库
+     */
+    @SuppressWarnings("deprecation")
+    private static final class TransientSession implements HttpSession {
+
+        private final String id;
+
+        private final long creationTime;
+
+        private final ServletContext servletContext;
+
+        private final Map<String, Object> attributes;
+
+        private int maxInactiveInterval;
+
+        private boolean invalidated;
+
+        TransientSession(ServletContext servletContext) {
+            this(UUID.randomUUID().toString(), System.currentTimeMillis(), servletContext,
+                    new ConcurrentHashMap<>(), 0);
+        }
+
+        private TransientSession(String id, long creationTime, ServletContext servletContext,
+                                 Map<String, Object> attributes, int maxInactiveInterval) {
+            this.id = id;
+            this.creationTime = creationTime;
+            this.servletContext = servletContext;
+            this.attributes = attributes;
+            this.maxInactiveInterval = maxInactiveInterval;
+        }
+
+        TransientSession copyWithNewId() {
+            return new TransientSession(UUID.randomUUID().toString(), creationTime, servletContext,
+                    attributes, maxInactiveInterval);
+        }
+
+        private void checkValid() {
+            if (invalidated) {
+                throw new IllegalStateException("会话已失效: " + id);
+            }
+        }
+
+        @Override
+        public long getCreationTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            checkValid();
+            return creationTime;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {
+            this.maxInactiveInterval = interval;
+        }
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return maxInactiveInterval;
+        }
+
+        @Override
+        public HttpSessionContext getSessionContext() {
+            return null;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            checkValid();
+            return attributes.get(name);
+        }
+
+        @Override
+        public Object getValue(String name) {
+            return getAttribute(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            checkValid();
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public String[] getValueNames() {
+            checkValid();
+            return attributes.keySet().toArray(new String[0]);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            checkValid();
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        @Override
+        public void putValue(String name, Object value) {
+            setAttribute(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            checkValid();
+            attributes.remove(name);
+        }
+
+        @Override
+        public void removeValue(String name) {
+            removeAttribute(name);
+        }
+
+        @Override
+        public void invalidate() {
+            checkValid();
+            invalidated = true;
+            attributes.clear();
+        }
+
+        @Override
+        public boolean isNew() {
+            checkValid();
+            return true;
+        }
+    }
+}
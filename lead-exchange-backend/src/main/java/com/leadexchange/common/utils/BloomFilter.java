@@ -0,0 +1,88 @@
+package com.leadexchange.common.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器
+ * 判断字符串是否"可能存在"：返回false时一定不存在，返回true时按设定的误判率可能不存在。
+ * 不支持删除，需要淘汰时整体重建。位数组基于 AtomicLongArray，add 与 mightContain 可并发调用
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计元素数量
+     * @param falsePositiveRate 期望误判率（0~1）
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("预计元素数量必须大于0");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("误判率必须在0到1之间");
+        }
+        // m = -n·ln(p) / (ln2)^2, k = m/n·ln2
+        long bitSize = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (bitSize + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (this.bitSize / 64));
+    }
+
+    /**
+     * 加入元素
+     *
+     * @param item 元素
+     */
+    public void add(String item) {
+        long hash = HashUtils.hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 元素是否可能存在
+     *
+     * @param item 元素
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String item) {
+        long hash = HashUtils.hash64(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+}
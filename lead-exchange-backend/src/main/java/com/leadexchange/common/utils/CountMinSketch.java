@@ -0,0 +1,150 @@
+package com.leadexchange.common.utils;
+
+/**
+ * Count-Min Sketch 频率估计
+ * 固定内存下估计任意字符串的出现次数，估计值不小于真实值；同尺寸的两个草图逐格相加即可合并，
+ * 合并结果等价于对两份数据流一起计数。非线程安全，由调用方同步
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public class CountMinSketch {
+
+    private final int depth;
+
+    private final int width;
+
+    private final int mask;
+
+    /** depth 行 × width 列，按行展开 */
+    private final long[] counters;
+
+    private long total;
+
+    /**
+     * @param depth 哈希行数（误差超出范围的概率约为 e^-depth）
+     * @param width 每行计数器数量，向上取整为2的幂（误差约为 总数 × e / width）
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("行数与宽度必须大于0");
+        }
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.counters = new long[depth * this.width];
+    }
+
+    /**
+     * 从计数器数组还原（用于跨节点合并）
+     *
+     * @param depth 哈希行数
+     * @param width 每行计数器数量（2的幂）
+     * @param counters 计数器
+     * @param total 计数总和
+     * @return 草图
+     */
+    public static CountMinSketch of(int depth, int width, long[] counters, long total) {
+        CountMinSketch sketch = new CountMinSketch(depth, width);
+        if (sketch.width != width || counters.length != sketch.counters.length) {
+            throw new IllegalArgumentException("草图尺寸不匹配");
+        }
+        System.arraycopy(counters, 0, sketch.counters, 0, counters.length);
+        sketch.total = total;
+        return sketch;
+    }
+
+    /**
+     * 累加计数
+     *
+     * @param item 元素
+     * @param count 次数
+     * @return 累加后的估计值
+     */
+    public long add(String item, long count) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            long value = counters[index] += count;
+            if (value < estimate) {
+                estimate = value;
+            }
+        }
+        total += count;
+        return estimate;
+    }
+
+    /**
+     * 估计出现次数
+     *
+     * @param item 元素
+     * @return 估计值（不小于真实值）
+     */
+    public long estimate(String item) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = counters[row * width + ((h1 + row * h2) & mask)];
+            if (value < estimate) {
+                estimate = value;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * 合并另一个同尺寸的草图
+     *
+     * @param other 草图
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("草图尺寸不匹配");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * 复制草图
+     *
+     * @return 副本
+     */
+    public CountMinSketch copy() {
+        return of(depth, width, counters, total);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 计数器数组（只读使用）
+     */
+    public long[] getCounters() {
+        return counters;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * 高低32位作为双重哈希的两个基
+     */
+    private static long hash(String item) {
+        // 第二个基取奇数，保证各行落点不同
+        return HashUtils.hash64(item) | (1L << 32);
+    }
+}
@@ -0,0 +1,38 @@
+package com.leadexchange.common.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 哈希工具类
+ * 供布隆过滤器、Count-Min Sketch 等概率数据结构使用的非加密哈希
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public final class HashUtils {
+
+    private HashUtils() {
+        throw new UnsupportedOperationException("工具类不能被实例化");
+    }
+
+    /**
+     * 字符串的64位哈希：UTF-8字节做 FNV-1a，再用 MurmurHash3 的 fmix64 末端混合，
+     * 高低32位分布均匀，可直接作为双重哈希（h1 + i * h2）的两个基
+     *
+     * @param item 字符串
+     * @return 64位哈希值
+     */
+    public static long hash64(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
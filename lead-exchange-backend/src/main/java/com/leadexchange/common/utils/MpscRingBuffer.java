@@ -0,0 +1,120 @@
+package com.leadexchange.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者单消费者无锁环形缓冲区
+ * 生产者通过CAS认领序号后写入槽位，缓冲区满时立即返回false，不阻塞；
+ * 消费者按序号顺序读取，遇到已认领但尚未写入的槽位即停止，保证不越过未完成的写入。
+ * 只能有一个线程调用 poll/drain
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    /** 下一个待认领的写入序号 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 下一个待读取的序号（仅消费者写入） */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * 写入元素，缓冲区满时不等待
+     *
+     * @param element 元素（非null）
+     * @return 是否写入成功
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("元素不能为空");
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) sequence & mask, element);
+        return true;
+    }
+
+    /**
+     * 读取一个元素（仅消费者线程调用）
+     *
+     * @return 元素，没有可读元素时返回null
+     */
+    public E poll() {
+        long sequence = head.get();
+        int index = (int) sequence & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(sequence + 1);
+        return element;
+    }
+
+    /**
+     * 批量读取（仅消费者线程调用）
+     *
+     * @param consumer 元素处理
+     * @param limit 最多读取数量
+     * @return 实际读取数量
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        long sequence = head.get();
+        int drained = 0;
+        try {
+            while (drained < limit) {
+                int index = (int) sequence & mask;
+                E element = slots.get(index);
+                if (element == null) {
+                    break;
+                }
+                slots.lazySet(index, null);
+                sequence++;
+                drained++;
+                consumer.accept(element);
+            }
+        } finally {
+            // 处理异常时也推进读序号，已取出的槽位不会卡住后续读取
+            head.lazySet(sequence);
+        }
+        return drained;
+    }
+
+    /**
+     * 当前元素数量（近似值）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
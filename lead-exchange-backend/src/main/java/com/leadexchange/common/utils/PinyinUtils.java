@@ -0,0 +1,160 @@
+package com.leadexchange.common.utils;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 拼音工具类
+ * 生成全拼与首字母检索键（小写、无声调、无分隔符），非汉字的字母数字原样保留（转小写），其他字符忽略。
+ * 多音字按读音组合展开，组合数超过上限时其余汉字只取第一个读音
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+public final class PinyinUtils {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private PinyinUtils() {
+    }
+
+    /**
+     * 是否包含汉字
+     *
+     * @param text 文本
+     * @return 是否包含
+     */
+    public static boolean containsChinese(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (isChinese(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成全拼与首字母检索键
+     *
+     * @param text 文本
+     * @param maxVariants 多音字组合上限
+     * @return 检索键（全拼在前，去重）；不含汉字时返回空集合
+     */
+    public static Set<String> keys(String text, int maxVariants) {
+        if (!containsChinese(text)) {
+            return Collections.emptySet();
+        }
+        List<StringBuilder> full = new ArrayList<>();
+        List<StringBuilder> initials = new ArrayList<>();
+        full.add(new StringBuilder());
+        initials.add(new StringBuilder());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isChinese(c)) {
+                String[] readings = readings(c);
+                if (readings.length == 0) {
+                    continue;
+                }
+                int usable = full.size() * readings.length <= maxVariants ? readings.length : 1;
+                full = expand(full, readings, usable, false);
+                initials = expand(initials, readings, usable, true);
+            } else if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                for (StringBuilder builder : full) {
+                    builder.append(lower);
+                }
+                for (StringBuilder builder : initials) {
+                    builder.append(lower);
+                }
+            }
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (StringBuilder builder : full) {
+            keys.add(builder.toString());
+        }
+        for (StringBuilder builder : initials) {
+            keys.add(builder.toString());
+        }
+        keys.remove("");
+        return keys;
+    }
+
+    /**
+     * 检索文本规范化：转小写并去除空白
+     *
+     * @param text 文本
+     * @return 规范化后的文本
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(c);
+            }
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<StringBuilder> expand(List<StringBuilder> prefixes, String[] readings, int usable,
+                                              boolean initialsOnly) {
+        List<StringBuilder> expanded = new ArrayList<>(prefixes.size() * usable);
+        Set<String> seen = new LinkedHashSet<>();
+        for (StringBuilder prefix : prefixes) {
+            for (int r = 0; r < usable; r++) {
+                String part = initialsOnly ? readings[r].substring(0, 1) : readings[r];
+                String candidate = prefix + part;
+                if (seen.add(candidate)) {
+                    expanded.add(new StringBuilder(candidate));
+                }
+            }
+        }
+        return expanded;
+    }
+
+    private static String[] readings(char c) {
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            if (readings == null) {
+                return new String[0];
+            }
+            // 去掉只有声调不同的重复读音
+            Set<String> distinct = new LinkedHashSet<>();
+            for (String reading : readings) {
+                if (!reading.isEmpty()) {
+                    distinct.add(reading);
+                }
+            }
+            return distinct.toArray(new String[0]);
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return new String[0];
+        }
+    }
+
+    private static boolean isChinese(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -2,9 +2,12 @@ package com.leadexchange.common.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -20,6 +23,10 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtils {
 
+    private static final RedisScript<Long> DEL_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -136,6 +143,40 @@ public class RedisUtils {
         }
     }
 
+    /**
+     * 键不存在时放入并设置时间（SET NX EX）
+     * 
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒) 必须大于0
+     * @return true成功 false键已存在或失败
+     */
+    public boolean setIfAbsent(String key, Object value, long time) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, time, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 值与期望值相等时删除（Lua脚本保证比较与删除的原子性）
+     * 
+     * @param key   键
+     * @param value 期望值
+     * @return true删除成功 false值不相等或失败
+     */
+    public boolean delIfEquals(String key, Object value) {
+        try {
+            Long deleted = redisTemplate.execute(DEL_IF_EQUALS_SCRIPT, Collections.singletonList(key), value);
+            return deleted != null && deleted > 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * 递增
      * 
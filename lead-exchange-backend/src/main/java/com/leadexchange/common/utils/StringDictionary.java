@@ -0,0 +1,90 @@
+package com.leadexchange.common.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串字典编码器
+ * 将行业、地区等低基数字符串映射为连续的整数编码，便于使用基本类型数组存储和索引
+ * 编码一经分配不再回收，线程安全
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class StringDictionary {
+
+    /** 空值编码 */
+    public static final int NULL_CODE = 0;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private volatile String[] values = new String[16];
+
+    private int size = 1;
+
+    /**
+     * 获取字符串编码，不存在时分配新编码
+     *
+     * @param value 字符串值
+     * @return 编码（null或空串返回NULL_CODE）
+     */
+    public int encode(String value) {
+        if (value == null || value.isEmpty()) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int newCode = size++;
+            String[] current = values;
+            if (newCode >= current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[newCode] = value;
+            values = current;
+            codes.put(value, newCode);
+            return newCode;
+        }
+    }
+
+    /**
+     * 查询已存在的编码，不分配新编码
+     *
+     * @param value 字符串值
+     * @return 编码，不存在返回-1
+     */
+    public int lookup(String value) {
+        if (value == null || value.isEmpty()) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * 根据编码还原字符串
+     *
+     * @param code 编码
+     * @return 字符串值
+     */
+    public String decode(int code) {
+        String[] current = values;
+        return code > NULL_CODE && code < current.length ? current[code] : null;
+    }
+
+    /**
+     * 当前编码数量（含空值编码）
+     *
+     * @return 编码数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package com.leadexchange.config;
+
+import com.leadexchange.modules.notification.channel.LocalNotificationChannel;
+import com.leadexchange.modules.notification.channel.NotificationChannel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 通知渠道配置类
+ * 邮件、短信渠道默认使用本地模拟实现；接入服务商后将 provider 改为其他值并提供同名渠道Bean即可替换
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+@Configuration
+public class NotificationChannelConfig {
+
+    /**
+     * 本地模拟邮件渠道
+     *
+     * @return 邮件渠道
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.notification.digest.channels.email.provider", havingValue = "local", matchIfMissing = true)
+    public NotificationChannel emailNotificationChannel() {
+        return new LocalNotificationChannel(NotificationChannel.EMAIL);
+    }
+
+    /**
+     * 本地模拟短信渠道
+     *
+     * @return 短信渠道
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.notification.digest.channels.sms.provider", havingValue = "local", matchIfMissing = true)
+    public NotificationChannel smsNotificationChannel() {
+        return new LocalNotificationChannel(NotificationChannel.SMS);
+    }
+}
@@ -0,0 +1,31 @@
+package com.leadexchange.config;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ配置类
+ * 声明领域事件交换机，事件以事件类型作为路由键投递
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.outbox.sender", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitMqConfig {
+
+    /**
+     * 领域事件交换机
+     * 消费方按 lead.# 、exchange.application.# 等路由键绑定自己的队列
+     *
+     * @param exchangeName 交换机名称
+     * @return 持久化的Topic交换机
+     */
+    @Bean
+    public TopicExchange domainEventExchange(@Value("${app.outbox.exchange:lead-exchange.events}") String exchangeName) {
+        return new TopicExchange(exchangeName, true, false);
+    }
+}
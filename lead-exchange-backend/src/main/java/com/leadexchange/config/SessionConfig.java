@@ -1,23 +1,98 @@
 package com.leadexchange.config;
 
+import com.leadexchange.common.session.NearCacheRedisSessionRepository;
+import com.leadexchange.common.session.StatelessSessionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
 import org.springframework.session.web.http.CookieSerializer;
 import org.springframework.session.web.http.DefaultCookieSerializer;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * 会话管理配置类
  * 配置Redis会话存储和Cookie设置
+ * 认证基于JWT，携带Bearer令牌的请求经 {@link StatelessSessionFilter} 完全绕开会话仓库；
+ * 仍使用会话的请求由 {@link NearCacheRedisSessionRepository} 提供本地近缓存与增量回写
  * 
  * @author Lead Exchange Team
  * @since 1.0.0
  */
 @Configuration
-@EnableRedisHttpSession(maxInactiveIntervalInSeconds = 7200) // 会话超时时间2小时
+@EnableSpringHttpSession
 public class SessionConfig {
 
+    /** 会话超时时间（秒），默认2小时 */
+    @Value("${app.session.max-inactive-interval:7200}")
+    private int maxInactiveIntervalSeconds;
+
+    @Value("${app.session.touch-interval:60000}")
+    private long touchIntervalMillis;
+
+    @Value("${app.session.near-cache.max-size:10000}")
+    private long nearCacheMaxSize;
+
+    @Value("${app.session.near-cache.ttl:30000}")
+    private long nearCacheTtlMillis;
+
+    @Value("${app.session.stateless.enabled:true}")
+    private boolean statelessEnabled;
+
+    @Value("${app.session.stateless.patterns:/api/auth/**}")
+    private List<String> statelessPatterns;
+
+    /**
+     * 配置会话仓库
+     * 
+     * @param connectionFactory Redis连接工厂
+     * @param stringRedisTemplate 字符串模板
+     * @param listenerContainer 消息监听容器
+     * @param meterRegistry 指标注册表
+     * @return 会话仓库
+     */
+    @Bean(initMethod = "init", destroyMethod = "destroy")
+    public NearCacheRedisSessionRepository sessionRepository(RedisConnectionFactory connectionFactory,
+                                                             @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> stringRedisTemplate,
+                                                             RedisMessageListenerContainer listenerContainer,
+                                                             MeterRegistry meterRegistry) {
+        // 会话属性可能是任意可序列化对象，使用JDK序列化，与Spring Session默认一致
+        RedisTemplate<String, Object> sessionRedisTemplate = new RedisTemplate<>();
+        sessionRedisTemplate.setConnectionFactory(connectionFactory);
+        sessionRedisTemplate.setKeySerializer(new StringRedisSerializer());
+        sessionRedisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        sessionRedisTemplate.setHashValueSerializer(new JdkSerializationRedisSerializer());
+        sessionRedisTemplate.afterPropertiesSet();
+        return new NearCacheRedisSessionRepository(sessionRedisTemplate, stringRedisTemplate, listenerContainer,
+                Duration.ofSeconds(maxInactiveIntervalSeconds), touchIntervalMillis,
+                nearCacheMaxSize, nearCacheTtlMillis, meterRegistry);
+    }
+
+    /**
+     * 注册无状态会话过滤器，紧随SessionRepositoryFilter之后
+     * 
+     * @return 过滤器注册
+     */
+    @Bean
+    public FilterRegistrationBean<StatelessSessionFilter> statelessSessionFilter() {
+        FilterRegistrationBean<StatelessSessionFilter> registration =
+                new FilterRegistrationBean<>(new StatelessSessionFilter(statelessPatterns));
+        registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER + 1);
+        registration.setEnabled(statelessEnabled);
+        return registration;
+    }
+
     /**
      * 配置Cookie序列化器
      * 设置Cookie的安全属性和域名等配置
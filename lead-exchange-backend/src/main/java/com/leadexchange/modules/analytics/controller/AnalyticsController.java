@@ -1,12 +1,24 @@
 package com.leadexchange.modules.analytics.controller;
 
+import com.leadexchange.common.result.Result;
+import com.leadexchange.modules.analytics.engine.AnalyticsResult;
+import com.leadexchange.modules.analytics.service.AnalyticsService;
+import com.leadexchange.modules.analytics.service.AnalyticsService.QueryRequest;
+import com.leadexchange.modules.analytics.service.LeadCubeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 数据分析控制器
  * 负责处理数据分析相关的HTTP请求
- * 
+ *
  * @author 系统
  * @version 1.0.0
  * @since 2024-01-01
@@ -14,7 +26,78 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/analytics")
 public class AnalyticsController {
-    
-    // TODO: 实现数据分析相关接口
-    
-}
\ No newline at end of file
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private LeadCubeService leadCubeService;
+
+    /**
+     * 线索分析查询（过滤 + 分组 + 聚合）
+     *
+     * @param request 查询请求
+     * @return 查询结果
+     */
+    @PostMapping("/query")
+    public Result<AnalyticsResult> query(@RequestBody QueryRequest request) {
+        try {
+            return Result.success(analyticsService.query(request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(503, e.getMessage());
+        }
+    }
+
+    /**
+     * 看板概览
+     *
+     * @return 概览数据
+     */
+    @GetMapping("/overview")
+    public Result<Map<String, Object>> getOverview() {
+        try {
+            return Result.success(analyticsService.getOverview());
+        } catch (IllegalStateException e) {
+            return Result.error(503, e.getMessage());
+        }
+    }
+
+    /**
+     * 立方体交叉分析（行业 × 地区 × 评级 × 日期的切片与上卷）
+     *
+     * @param request 查询请求
+     * @return 结果行
+     */
+    @PostMapping("/cube/query")
+    public Result<List<Map<String, Object>>> queryCube(@RequestBody QueryRequest request) {
+        try {
+            return Result.success(leadCubeService.query(request));
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return Result.error(503, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取立方体统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/cube/stats")
+    public Result<Map<String, Object>> getCubeStats() {
+        return Result.success(leadCubeService.getStats());
+    }
+
+    /**
+     * 获取分析引擎统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/engine/stats")
+    public Result<Map<String, Object>> getEngineStats() {
+        return Result.success(analyticsService.getStats());
+    }
+}
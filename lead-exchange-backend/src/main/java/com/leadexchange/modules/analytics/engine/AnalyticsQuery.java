@@ -0,0 +1,105 @@
+package com.leadexchange.modules.analytics.engine;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分析查询：过滤 + 分组 + 聚合
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AnalyticsQuery {
+
+    /** 分组维度（最多两个，为空表示汇总为一行） */
+    private final List<Dimension> groupBy = new ArrayList<>(2);
+
+    /** 维度过滤（同一维度内为“或”，维度之间为“且”） */
+    private final Map<Dimension, List<String>> filters = new EnumMap<>(Dimension.class);
+
+    /** 创建日期起（含） */
+    private LocalDate startDate;
+
+    /** 创建日期止（含） */
+    private LocalDate endDate;
+
+    private final List<Metric> metrics = new ArrayList<>();
+
+    /** 排序指标，为空时按记录数降序；按日期分组且未指定时按日期升序 */
+    private Metric orderBy;
+
+    /** 返回行数上限，0表示不限 */
+    private int limit;
+
+    public AnalyticsQuery groupBy(Dimension dimension) {
+        groupBy.add(dimension);
+        return this;
+    }
+
+    public AnalyticsQuery filter(Dimension dimension, Collection<String> values) {
+        filters.computeIfAbsent(dimension, key -> new ArrayList<>()).addAll(values);
+        return this;
+    }
+
+    public AnalyticsQuery between(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        return this;
+    }
+
+    public AnalyticsQuery metric(Metric metric) {
+        if (!metrics.contains(metric)) {
+            metrics.add(metric);
+        }
+        return this;
+    }
+
+    public AnalyticsQuery orderBy(Metric metric) {
+        this.orderBy = metric;
+        return this;
+    }
+
+    public AnalyticsQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public List<Dimension> getGroupBy() {
+        return groupBy;
+    }
+
+    public Map<Dimension, List<String>> getFilters() {
+        return filters;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<Metric> getMetrics() {
+        return metrics;
+    }
+
+    public Metric getOrderBy() {
+        return orderBy;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyticsQuery{groupBy=" + groupBy + ", filters=" + filters + ", startDate=" + startDate
+                + ", endDate=" + endDate + ", metrics=" + metrics + ", orderBy=" + orderBy + ", limit=" + limit + "}";
+    }
+}
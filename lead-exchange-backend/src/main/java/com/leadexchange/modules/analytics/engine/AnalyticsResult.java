@@ -0,0 +1,58 @@
+package com.leadexchange.modules.analytics.engine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分析查询结果
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class AnalyticsResult {
+
+    /** 结果行：维度字段、count 及各指标字段 */
+    private final List<Map<String, Object>> rows;
+
+    /** 扫描的行数（含已删除） */
+    private final long scannedRows;
+
+    /** 命中过滤条件的行数 */
+    private final long matchedRows;
+
+    /** 扫描的分段数 */
+    private final int segments;
+
+    /** 查询耗时（微秒） */
+    private final long elapsedMicros;
+
+    public AnalyticsResult(List<Map<String, Object>> rows, long scannedRows, long matchedRows,
+                           int segments, long elapsedMicros) {
+        this.rows = rows;
+        this.scannedRows = scannedRows;
+        this.matchedRows = matchedRows;
+        this.segments = segments;
+        this.elapsedMicros = elapsedMicros;
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public long getMatchedRows() {
+        return matchedRows;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+}
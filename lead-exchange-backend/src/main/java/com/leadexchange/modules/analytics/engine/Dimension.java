@@ -0,0 +1,57 @@
+package com.leadexchange.modules.analytics.engine;
+
+/**
+ * 分析维度（可用于过滤与分组）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum Dimension {
+
+    /** 线索状态 */
+    STATUS("status"),
+
+    /** 线索类型 */
+    LEAD_TYPE("leadType"),
+
+    /** 评级 */
+    RATING("rating"),
+
+    /** 行业 */
+    INDUSTRY("industry"),
+
+    /** 地区 */
+    REGION("region"),
+
+    /** 创建日期 */
+    DAY("day");
+
+    private final String field;
+
+    Dimension(String field) {
+        this.field = field;
+    }
+
+    /**
+     * 结果中的字段名
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * 按名称解析（兼容枚举名与字段名，不区分大小写）
+     *
+     * @param name 名称
+     * @return 维度
+     */
+    public static Dimension of(String name) {
+        for (Dimension dimension : values()) {
+            if (dimension.name().equalsIgnoreCase(name) || dimension.field.equalsIgnoreCase(name)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("不支持的分析维度: " + name);
+    }
+}
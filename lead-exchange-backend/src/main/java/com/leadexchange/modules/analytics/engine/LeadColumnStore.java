@@ -0,0 +1,583 @@
+package com.leadexchange.modules.analytics.engine;
+
+import com.leadexchange.common.utils.StringDictionary;
+import com.leadexchange.modules.lead.entity.Lead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 线索列式存储
+ *
+ * 数据组织：线索按行号顺序追加到固定大小的分段中，每列一个基本类型数组；评级、行业、地区使用字典编码，
+ *          状态、类型直接存为字节。删除的线索只打墓碑，全量重建时压缩。
+ * 并发：写入方（增量刷新/全量重建）串行执行，复制受影响的分段后整体发布新快照；查询无锁读取快照。
+ * 查询：每个扫描任务负责一段连续的分段，先生成选择向量（有效行 → 日期范围 → 各维度过滤逐列收窄），
+ *      再逐列计算稠密分组键并累加指标，各任务的部分结果最后合并。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadColumnStore.class);
+
+    /** 字节列取值范围 [0, 128)，超出范围的值按0存储 */
+    private static final int BYTE_CARDINALITY = 1 << 7;
+
+    /** 单次查询允许的最大分组数 */
+    private static final int MAX_GROUPS = 1 << 18;
+
+    private static final int MAX_GROUP_BY = 2;
+
+    private final StringDictionary ratings = new StringDictionary();
+
+    private final StringDictionary industries = new StringDictionary();
+
+    private final StringDictionary regions = new StringDictionary();
+
+    /** 线索ID → 行号，仅写入方访问 */
+    private Map<Long, Integer> rowIndex = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(new LeadColumnSegment[0], 0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    private final ForkJoinPool scanPool;
+
+    private final int parallelism;
+
+    public LeadColumnStore(@Value("${app.analytics.parallelism:0}") int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.scanPool = new ForkJoinPool(this.parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("analytics-scan-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scanPool.shutdown();
+        scanPool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 增量写入（新增、更新或删除）
+     *
+     * @param leads 变更的线索（deleted非0表示已删除）
+     * @return 实际写入的行数
+     */
+    public synchronized int apply(Collection<Lead> leads) {
+        if (leads.isEmpty()) {
+            return 0;
+        }
+        Snapshot current = snapshot;
+        List<LeadColumnSegment> next = new ArrayList<>(Arrays.asList(current.segments));
+        boolean[] copied = new boolean[current.segments.length];
+        int rows = current.rows;
+        int liveRows = current.liveRows;
+        int minDay = current.minDay;
+        int maxDay = current.maxDay;
+        int written = 0;
+        for (Lead lead : leads) {
+            boolean deleted = lead.getDeleted() != null && lead.getDeleted() != 0;
+            Integer row = rowIndex.get(lead.getId());
+            if (row == null) {
+                if (deleted) {
+                    continue;
+                }
+                row = rows++;
+                if ((row >>> LeadColumnSegment.SHIFT) == next.size()) {
+                    next.add(new LeadColumnSegment());
+                }
+                rowIndex.put(lead.getId(), row);
+            }
+            LeadColumnSegment segment = writable(next, copied, row >>> LeadColumnSegment.SHIFT);
+            int offset = row & LeadColumnSegment.MASK;
+            boolean wasLive = offset < segment.size && segment.live[offset] != 0;
+            segment.size = Math.max(segment.size, offset + 1);
+            if (deleted) {
+                segment.live[offset] = 0;
+                rowIndex.remove(lead.getId());
+            } else {
+                int day = write(segment, offset, lead);
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+            liveRows += (deleted ? 0 : 1) - (wasLive ? 1 : 0);
+            written++;
+        }
+        snapshot = new Snapshot(next.toArray(new LeadColumnSegment[0]), rows, liveRows, minDay, maxDay);
+        return written;
+    }
+
+    /**
+     * 全量重建，替换当前全部数据并清除墓碑
+     *
+     * @param pageLoader 分页加载函数：上一页最后一个ID → 下一页线索，空列表表示结束
+     * @return 有效行数
+     */
+    public synchronized int rebuild(Function<Long, List<Lead>> pageLoader) {
+        Map<Long, Integer> index = new HashMap<>();
+        List<LeadColumnSegment> segments = new ArrayList<>();
+        int rows = 0;
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        long afterId = 0L;
+        List<Lead> page;
+        while (!(page = pageLoader.apply(afterId)).isEmpty()) {
+            for (Lead lead : page) {
+                afterId = lead.getId();
+                if (lead.getDeleted() != null && lead.getDeleted() != 0) {
+                    continue;
+                }
+                int offset = rows & LeadColumnSegment.MASK;
+                if (offset == 0) {
+                    segments.add(new LeadColumnSegment());
+                }
+                LeadColumnSegment segment = segments.get(segments.size() - 1);
+                int day = write(segment, offset, lead);
+                segment.size = offset + 1;
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+                index.put(lead.getId(), rows++);
+            }
+        }
+        rowIndex = index;
+        snapshot = new Snapshot(segments.toArray(new LeadColumnSegment[0]), rows, rows, minDay, maxDay);
+        return rows;
+    }
+
+    /**
+     * 执行分析查询
+     *
+     * @param query 查询
+     * @return 查询结果
+     * @throws IllegalArgumentException 查询参数不合法
+     */
+    public AnalyticsResult execute(AnalyticsQuery query) {
+        long start = System.nanoTime();
+        // 先取快照再读字典大小：快照中的编码一定小于此时的字典大小
+        Snapshot current = snapshot;
+        Plan plan = new Plan(query, current);
+        LeadColumnSegment[] segments = current.segments;
+        long[] totals = new long[plan.groups * plan.width];
+        long matched = 0;
+        if (segments.length > 0) {
+            int tasks = Math.min(parallelism, segments.length);
+            List<Callable<long[]>> scans = new ArrayList<>(tasks);
+            for (int t = 0; t < tasks; t++) {
+                int from = (int) ((long) segments.length * t / tasks);
+                int to = (int) ((long) segments.length * (t + 1) / tasks);
+                scans.add(() -> scan(plan, segments, from, to));
+            }
+            try {
+                for (Future<long[]> future : scanPool.invokeAll(scans)) {
+                    long[] partial = future.get();
+                    for (int i = 0; i < totals.length; i++) {
+                        totals[i] += partial[i];
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("分析查询被中断", e);
+            } catch (ExecutionException e) {
+                log.error("分析查询扫描失败: {}", query, e.getCause());
+                throw new IllegalStateException("分析查询扫描失败", e.getCause());
+            }
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int group = 0; group < plan.groups; group++) {
+            long count = totals[group * plan.width];
+            if (count == 0) {
+                continue;
+            }
+            matched += count;
+            rows.add(plan.toRow(group, totals, group * plan.width));
+        }
+        plan.sort(rows);
+        if (query.getLimit() > 0 && rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, query.getLimit()));
+        }
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        return new AnalyticsResult(rows, current.rows, matched, segments.length, elapsedMicros);
+    }
+
+    /**
+     * 获取存储统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rows", current.rows);
+        stats.put("liveRows", current.liveRows);
+        stats.put("segments", current.segments.length);
+        stats.put("ratings", ratings.size() - 1);
+        stats.put("industries", industries.size() - 1);
+        stats.put("regions", regions.size() - 1);
+        stats.put("minDay", current.liveRows > 0 ? LocalDate.ofEpochDay(current.minDay).toString() : null);
+        stats.put("maxDay", current.liveRows > 0 ? LocalDate.ofEpochDay(current.maxDay).toString() : null);
+        stats.put("parallelism", parallelism);
+        return stats;
+    }
+
+    private static LeadColumnSegment writable(List<LeadColumnSegment> segments, boolean[] copied, int index) {
+        if (index < copied.length && !copied[index]) {
+            segments.set(index, segments.get(index).copy());
+            copied[index] = true;
+        }
+        return segments.get(index);
+    }
+
+    private int write(LeadColumnSegment segment, int offset, Lead lead) {
+        int day = lead.getCreateTime() != null ? (int) lead.getCreateTime().toLocalDate().toEpochDay() : 0;
+        segment.id[offset] = lead.getId();
+        segment.live[offset] = 1;
+        segment.status[offset] = toByte(lead.getStatus());
+        segment.leadType[offset] = toByte(lead.getLeadType());
+        segment.rating[offset] = ratings.encode(lead.getRating());
+        segment.industry[offset] = industries.encode(lead.getIndustry());
+        segment.region[offset] = regions.encode(lead.getRegion());
+        segment.day[offset] = day;
+        segment.ratingScore[offset] = valueOf(lead.getRatingScore());
+        segment.viewCount[offset] = valueOf(lead.getViewCount());
+        segment.favoriteCount[offset] = valueOf(lead.getFavoriteCount());
+        segment.exchangeCount[offset] = valueOf(lead.getExchangeCount());
+        return day;
+    }
+
+    private static byte toByte(Integer value) {
+        return value != null && value >= 0 && value < BYTE_CARDINALITY ? value.byteValue() : 0;
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private StringDictionary dictionary(Dimension dimension) {
+        switch (dimension) {
+            case RATING:
+                return ratings;
+            case INDUSTRY:
+                return industries;
+            case REGION:
+                return regions;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 扫描一段连续的分段，返回部分聚合结果
+     */
+    private static long[] scan(Plan plan, LeadColumnSegment[] segments, int from, int to) {
+        long[] acc = new long[plan.groups * plan.width];
+        int[] selection = new int[LeadColumnSegment.CAPACITY];
+        int[] keys = new int[LeadColumnSegment.CAPACITY];
+        for (int s = from; s < to; s++) {
+            LeadColumnSegment segment = segments[s];
+            int count = select(plan, segment, selection);
+            if (count == 0) {
+                continue;
+            }
+            Arrays.fill(keys, 0, count, 0);
+            for (int d = 0; d < plan.dimensions.length; d++) {
+                int cardinality = plan.cardinalities[d];
+                int base = plan.bases[d];
+                if (plan.dimensions[d] == Dimension.STATUS || plan.dimensions[d] == Dimension.LEAD_TYPE) {
+                    byte[] column = segment.byteColumn(plan.dimensions[d]);
+                    for (int k = 0; k < count; k++) {
+                        keys[k] = keys[k] * cardinality + column[selection[k]];
+                    }
+                } else {
+                    int[] column = segment.intColumn(plan.dimensions[d]);
+                    for (int k = 0; k < count; k++) {
+                        keys[k] = keys[k] * cardinality + (column[selection[k]] - base);
+                    }
+                }
+            }
+            int width = plan.width;
+            for (int k = 0; k < count; k++) {
+                acc[keys[k] * width]++;
+            }
+            for (int m = 0; m < plan.metrics.length; m++) {
+                int[] column = segment.metricColumn(plan.metrics[m]);
+                int slot = m + 1;
+                for (int k = 0; k < count; k++) {
+                    acc[keys[k] * width + slot] += column[selection[k]];
+                }
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * 生成选择向量：有效行 → 日期范围 → 各维度过滤，逐列收窄
+     *
+     * @return 命中行数
+     */
+    private static int select(Plan plan, LeadColumnSegment segment, int[] selection) {
+        int size = segment.size;
+        byte[] live = segment.live;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            selection[count] = i;
+            count += live[i];
+        }
+        if (plan.ranged) {
+            int[] day = segment.day;
+            int lo = plan.startDay;
+            int hi = plan.endDay;
+            int kept = 0;
+            for (int k = 0; k < count; k++) {
+                int row = selection[k];
+                selection[kept] = row;
+                kept += day[row] >= lo && day[row] <= hi ? 1 : 0;
+            }
+            count = kept;
+        }
+        for (int f = 0; f < plan.filterDimensions.length && count > 0; f++) {
+            Dimension dimension = plan.filterDimensions[f];
+            boolean[] allowed = plan.allowed[f];
+            int base = plan.filterBases[f];
+            int kept = 0;
+            if (dimension == Dimension.STATUS || dimension == Dimension.LEAD_TYPE) {
+                byte[] column = segment.byteColumn(dimension);
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    selection[kept] = row;
+                    kept += allowed[column[row]] ? 1 : 0;
+                }
+            } else {
+                int[] column = segment.intColumn(dimension);
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    int value = column[row] - base;
+                    selection[kept] = row;
+                    kept += value >= 0 && value < allowed.length && allowed[value] ? 1 : 0;
+                }
+            }
+            count = kept;
+        }
+        return count;
+    }
+
+    /**
+     * 存储快照（发布后不可变）
+     */
+    private static final class Snapshot {
+
+        final LeadColumnSegment[] segments;
+
+        final int rows;
+
+        final int liveRows;
+
+        final int minDay;
+
+        final int maxDay;
+
+        Snapshot(LeadColumnSegment[] segments, int rows, int liveRows, int minDay, int maxDay) {
+            this.segments = segments;
+            this.rows = rows;
+            this.liveRows = liveRows;
+            this.minDay = minDay;
+            this.maxDay = maxDay;
+        }
+    }
+
+    /**
+     * 查询执行计划：解析后的过滤条件、分组基数与指标布局
+     */
+    private final class Plan {
+
+        final Dimension[] dimensions;
+
+        final int[] cardinalities;
+
+        final int[] bases;
+
+        final int groups;
+
+        final Metric[] metrics;
+
+        /** 每个分组占用的累加槽数：记录数 + 各指标 */
+        final int width;
+
+        final boolean ranged;
+
+        final int startDay;
+
+        final int endDay;
+
+        final Dimension[] filterDimensions;
+
+        final boolean[][] allowed;
+
+        final int[] filterBases;
+
+        final Metric orderBy;
+
+        Plan(AnalyticsQuery query, Snapshot snapshot) {
+            List<Dimension> groupBy = query.getGroupBy();
+            if (groupBy.size() > MAX_GROUP_BY) {
+                throw new IllegalArgumentException("分组维度最多" + MAX_GROUP_BY + "个");
+            }
+            this.dimensions = groupBy.toArray(new Dimension[0]);
+            this.cardinalities = new int[dimensions.length];
+            this.bases = new int[dimensions.length];
+            long product = 1;
+            for (int d = 0; d < dimensions.length; d++) {
+                cardinalities[d] = cardinality(dimensions[d], snapshot);
+                bases[d] = dimensions[d] == Dimension.DAY ? snapshot.minDay : 0;
+                product *= cardinalities[d];
+                if (product > MAX_GROUPS) {
+                    throw new IllegalArgumentException("分组数过多，请增加过滤条件或减少分组维度");
+                }
+            }
+            this.groups = (int) product;
+            this.metrics = query.getMetrics().toArray(new Metric[0]);
+            this.width = metrics.length + 1;
+            this.orderBy = query.getOrderBy();
+            if (orderBy != null && !query.getMetrics().contains(orderBy)) {
+                throw new IllegalArgumentException("排序指标必须在查询指标中: " + orderBy.getField());
+            }
+
+            this.ranged = query.getStartDate() != null || query.getEndDate() != null;
+            this.startDay = query.getStartDate() != null ? (int) query.getStartDate().toEpochDay() : Integer.MIN_VALUE;
+            this.endDay = query.getEndDate() != null ? (int) query.getEndDate().toEpochDay() : Integer.MAX_VALUE;
+
+            List<Dimension> filterList = new ArrayList<>();
+            List<boolean[]> allowedList = new ArrayList<>();
+            List<Integer> baseList = new ArrayList<>();
+            for (Map.Entry<Dimension, List<String>> entry : query.getFilters().entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    continue;
+                }
+                Dimension dimension = entry.getKey();
+                int base = dimension == Dimension.DAY ? snapshot.minDay : 0;
+                boolean[] mask = new boolean[cardinality(dimension, snapshot)];
+                for (String value : entry.getValue()) {
+                    int code = encodeFilterValue(dimension, value) - base;
+                    if (code >= 0 && code < mask.length) {
+                        mask[code] = true;
+                    }
+                }
+                filterList.add(dimension);
+                allowedList.add(mask);
+                baseList.add(base);
+            }
+            this.filterDimensions = filterList.toArray(new Dimension[0]);
+            this.allowed = allowedList.toArray(new boolean[0][]);
+            this.filterBases = baseList.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private int cardinality(Dimension dimension, Snapshot snapshot) {
+            switch (dimension) {
+                case STATUS:
+                case LEAD_TYPE:
+                    return BYTE_CARDINALITY;
+                case DAY:
+                    return snapshot.maxDay >= snapshot.minDay ? snapshot.maxDay - snapshot.minDay + 1 : 1;
+                default:
+                    return dictionary(dimension).size();
+            }
+        }
+
+        /**
+         * 过滤值转换为列中的编码，不存在的值返回-1
+         */
+        private int encodeFilterValue(Dimension dimension, String value) {
+            try {
+                switch (dimension) {
+                    case STATUS:
+                    case LEAD_TYPE:
+                        return Integer.parseInt(value.trim());
+                    case DAY:
+                        return (int) LocalDate.parse(value.trim()).toEpochDay();
+                    default:
+                        return dictionary(dimension).lookup(value);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("过滤值无效: " + dimension.getField() + "=" + value);
+            }
+        }
+
+        Map<String, Object> toRow(int group, long[] totals, int offset) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            int remaining = group;
+            Object[] labels = new Object[dimensions.length];
+            for (int d = dimensions.length - 1; d >= 0; d--) {
+                int value = remaining % cardinalities[d] + bases[d];
+                remaining /= cardinalities[d];
+                labels[d] = label(dimensions[d], value);
+            }
+            for (int d = 0; d < dimensions.length; d++) {
+                row.put(dimensions[d].getField(), labels[d]);
+            }
+            long count = totals[offset];
+            row.put("count", count);
+            for (int m = 0; m < metrics.length; m++) {
+                long sum = totals[offset + m + 1];
+                if (metrics[m].isAverage()) {
+                    row.put(metrics[m].getField(), BigDecimal.valueOf(sum)
+                            .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP));
+                } else {
+                    row.put(metrics[m].getField(), sum);
+                }
+            }
+            return row;
+        }
+
+        private Object label(Dimension dimension, int value) {
+            switch (dimension) {
+                case STATUS:
+                case LEAD_TYPE:
+                    return value;
+                case DAY:
+                    return LocalDate.ofEpochDay(value).toString();
+                default:
+                    return dictionary(dimension).decode(value);
+            }
+        }
+
+        /**
+         * 排序：指定排序指标时按指标降序；首个分组维度为日期时保持日期升序；否则按记录数降序
+         */
+        void sort(List<Map<String, Object>> rows) {
+            if (orderBy != null) {
+                String field = orderBy.getField();
+                rows.sort(Comparator.comparingDouble((Map<String, Object> row) -> ((Number) row.get(field)).doubleValue())
+                        .reversed());
+            } else if (dimensions.length == 0 || dimensions[0] != Dimension.DAY) {
+                rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.leadexchange.modules.analytics.engine;
+
+import com.leadexchange.modules.analytics.entity.LeadCubeCell;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 线索多维立方体（内存副本）
+ *
+ * 维度：行业 × 地区 × 评级 × 创建日期，只保存非空单元格。每个维度值维护倒排的单元格集合，
+ * 切片查询从候选最少的维度（或日期区间）出发，只访问命中的单元格；上卷即对未分组的维度求和。
+ * 数据库中的单元格表是权威数据，本副本由启动加载、本实例提交后的增量与定期同步维护。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadCube {
+
+    private static final Set<Dimension> SUPPORTED = EnumSet.of(Dimension.INDUSTRY, Dimension.REGION,
+            Dimension.RATING, Dimension.DAY);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<CellKey, Cell> cells = new HashMap<>();
+
+    private Map<String, Set<Cell>> byIndustry = new HashMap<>();
+
+    private Map<String, Set<Cell>> byRegion = new HashMap<>();
+
+    private Map<String, Set<Cell>> byRating = new HashMap<>();
+
+    private NavigableMap<LocalDate, Set<Cell>> byDay = new TreeMap<>();
+
+    /** 每次本地增量加一，用于判断同步期间是否有本地写入 */
+    private long version;
+
+    /**
+     * 当前版本
+     *
+     * @return 版本号
+     */
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用数据库中的单元格替换内存副本
+     *
+     * @param rows 单元格
+     * @param expectedVersion 读取数据库前的版本，读取期间有本地增量时放弃替换
+     * @return 是否已替换
+     */
+    public boolean load(List<LeadCubeCell> rows, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (version != expectedVersion) {
+                return false;
+            }
+            cells = new HashMap<>();
+            byIndustry = new HashMap<>();
+            byRegion = new HashMap<>();
+            byRating = new HashMap<>();
+            byDay = new TreeMap<>();
+            for (LeadCubeCell row : rows) {
+                add(row);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 应用已提交的单元格增量
+     *
+     * @param deltas 单元格增量
+     */
+    public void apply(Collection<LeadCubeCell> deltas) {
+        lock.writeLock().lock();
+        try {
+            for (LeadCubeCell delta : deltas) {
+                add(delta);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 切片与上卷查询
+     * 使用 groupBy（行业、地区、评级、日期）、filters、startDate/endDate 与 limit，
+     * 每行输出 count、ratingScoreSum、avgRatingScore、investmentAmount
+     *
+     * @param query 查询
+     * @return 结果行
+     * @throws IllegalArgumentException 使用了立方体不支持的维度
+     */
+    public List<Map<String, Object>> query(AnalyticsQuery query) {
+        List<Dimension> groupBy = query.getGroupBy();
+        for (Dimension dimension : groupBy) {
+            checkSupported(dimension);
+        }
+        Map<Dimension, Set<Object>> slices = new HashMap<>();
+        for (Map.Entry<Dimension, List<String>> entry : query.getFilters().entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                checkSupported(entry.getKey());
+                slices.put(entry.getKey(), parseValues(entry.getKey(), entry.getValue()));
+            }
+        }
+        LocalDate start = query.getStartDate();
+        LocalDate end = query.getEndDate();
+
+        Map<List<Object>, Accumulator> groups = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Cell cell : candidates(slices, start, end)) {
+                if (!matches(cell.key, slices, start, end)) {
+                    continue;
+                }
+                Object[] labels = new Object[groupBy.size()];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = cell.key.value(groupBy.get(i));
+                }
+                groups.computeIfAbsent(Arrays.asList(labels), key -> new Accumulator()).add(cell);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Accumulator> entry : groups.entrySet()) {
+            Accumulator acc = entry.getValue();
+            if (acc.count == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                Object label = entry.getKey().get(i);
+                row.put(groupBy.get(i).getField(), label instanceof LocalDate ? label.toString() : label);
+            }
+            row.put("count", acc.count);
+            row.put("ratingScoreSum", acc.ratingScoreSum);
+            row.put("avgRatingScore", BigDecimal.valueOf(acc.ratingScoreSum)
+                    .divide(BigDecimal.valueOf(acc.count), 2, RoundingMode.HALF_UP));
+            row.put("investmentAmount", acc.investmentAmountSum);
+            rows.add(row);
+        }
+        if (!groupBy.isEmpty() && groupBy.get(0) == Dimension.DAY) {
+            rows.sort(Comparator.comparing((Map<String, Object> row) -> (String) row.get(Dimension.DAY.getField())));
+        } else {
+            rows.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("count")).reversed());
+        }
+        if (query.getLimit() > 0 && rows.size() > query.getLimit()) {
+            return new ArrayList<>(rows.subList(0, query.getLimit()));
+        }
+        return rows;
+    }
+
+    /**
+     * 获取立方体统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("cells", cells.size());
+            stats.put("industries", byIndustry.size());
+            stats.put("regions", byRegion.size());
+            stats.put("ratings", byRating.size());
+            stats.put("days", byDay.size());
+            stats.put("leads", cells.values().stream().mapToLong(cell -> cell.count).sum());
+            stats.put("version", version);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(LeadCubeCell delta) {
+        CellKey key = new CellKey(delta.getIndustry(), delta.getRegion(), delta.getRating(), delta.getStatDay());
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell(key);
+            cells.put(key, cell);
+            byIndustry.computeIfAbsent(key.industry, k -> new HashSet<>()).add(cell);
+            byRegion.computeIfAbsent(key.region, k -> new HashSet<>()).add(cell);
+            byRating.computeIfAbsent(key.rating, k -> new HashSet<>()).add(cell);
+            byDay.computeIfAbsent(key.day, k -> new HashSet<>()).add(cell);
+        }
+        cell.count += delta.getLeadCount() != null ? delta.getLeadCount() : 0;
+        cell.ratingScoreSum += delta.getRatingScoreSum() != null ? delta.getRatingScoreSum() : 0;
+        if (delta.getInvestmentAmountSum() != null) {
+            cell.investmentAmountSum = cell.investmentAmountSum.add(delta.getInvestmentAmountSum());
+        }
+        if (cell.count == 0) {
+            cells.remove(key);
+            unindex(byIndustry, key.industry, cell);
+            unindex(byRegion, key.region, cell);
+            unindex(byRating, key.rating, cell);
+            unindex(byDay, key.day, cell);
+        }
+    }
+
+    private static <K> void unindex(Map<K, Set<Cell>> index, K value, Cell cell) {
+        Set<Cell> postings = index.get(value);
+        if (postings != null && postings.remove(cell) && postings.isEmpty()) {
+            index.remove(value);
+        }
+    }
+
+    /**
+     * 选择候选单元格最少的访问路径
+     */
+    private Collection<Cell> candidates(Map<Dimension, Set<Object>> slices, LocalDate start, LocalDate end) {
+        Collection<Cell> best = null;
+        for (Map.Entry<Dimension, Set<Object>> slice : slices.entrySet()) {
+            Map<?, Set<Cell>> index = index(slice.getKey());
+            List<Cell> postings = new ArrayList<>();
+            for (Object value : slice.getValue()) {
+                Set<Cell> matched = index.get(value);
+                if (matched != null) {
+                    postings.addAll(matched);
+                }
+            }
+            if (best == null || postings.size() < best.size()) {
+                best = postings;
+            }
+        }
+        if (start != null || end != null) {
+            NavigableMap<LocalDate, Set<Cell>> range = start != null && end != null ? byDay.subMap(start, true, end, true)
+                    : start != null ? byDay.tailMap(start, true) : byDay.headMap(end, true);
+            int size = 0;
+            for (Set<Cell> postings : range.values()) {
+                size += postings.size();
+            }
+            if (best == null || size < best.size()) {
+                List<Cell> postings = new ArrayList<>(size);
+                range.values().forEach(postings::addAll);
+                best = postings;
+            }
+        }
+        return best != null ? best : cells.values();
+    }
+
+    private static boolean matches(CellKey key, Map<Dimension, Set<Object>> slices, LocalDate start, LocalDate end) {
+        if (start != null && key.day.isBefore(start) || end != null && key.day.isAfter(end)) {
+            return false;
+        }
+        for (Map.Entry<Dimension, Set<Object>> slice : slices.entrySet()) {
+            if (!slice.getValue().contains(key.value(slice.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<?, Set<Cell>> index(Dimension dimension) {
+        switch (dimension) {
+            case INDUSTRY:
+                return byIndustry;
+            case REGION:
+                return byRegion;
+            case RATING:
+                return byRating;
+            default:
+                return byDay;
+        }
+    }
+
+    private static Set<Object> parseValues(Dimension dimension, List<String> values) {
+        Set<Object> parsed = new HashSet<>();
+        for (String value : values) {
+            if (dimension != Dimension.DAY) {
+                parsed.add(value != null ? value : "");
+                continue;
+            }
+            try {
+                parsed.add(LocalDate.parse(value.trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("过滤值无效: " + dimension.getField() + "=" + value);
+            }
+        }
+        return parsed;
+    }
+
+    private static void checkSupported(Dimension dimension) {
+        if (!SUPPORTED.contains(dimension)) {
+            throw new IllegalArgumentException("立方体不支持的维度: " + dimension.getField());
+        }
+    }
+
+    /**
+     * 单元格坐标
+     */
+    private static final class CellKey {
+
+        final String industry;
+
+        final String region;
+
+        final String rating;
+
+        final LocalDate day;
+
+        CellKey(String industry, String region, String rating, LocalDate day) {
+            this.industry = industry != null ? industry : "";
+            this.region = region != null ? region : "";
+            this.rating = rating != null ? rating : "";
+            this.day = day;
+        }
+
+        Object value(Dimension dimension) {
+            switch (dimension) {
+                case INDUSTRY:
+                    return industry;
+                case REGION:
+                    return region;
+                case RATING:
+                    return rating;
+                default:
+                    return day;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CellKey)) {
+                return false;
+            }
+            CellKey other = (CellKey) o;
+            return industry.equals(other.industry) && region.equals(other.region)
+                    && rating.equals(other.rating) && Objects.equals(day, other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(industry, region, rating, day);
+        }
+    }
+
+    private static final class Cell {
+
+        final CellKey key;
+
+        long count;
+
+        long ratingScoreSum;
+
+        BigDecimal investmentAmountSum = BigDecimal.ZERO;
+
+        Cell(CellKey key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Accumulator {
+
+        long count;
+
+        long ratingScoreSum;
+
+        BigDecimal investmentAmountSum = BigDecimal.ZERO;
+
+        void add(Cell cell) {
+            count += cell.count;
+            ratingScoreSum += cell.ratingScoreSum;
+            investmentAmountSum = investmentAmountSum.add(cell.investmentAmountSum);
+        }
+    }
+}
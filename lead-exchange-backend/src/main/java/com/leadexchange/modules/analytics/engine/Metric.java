@@ -0,0 +1,61 @@
+package com.leadexchange.modules.analytics.engine;
+
+/**
+ * 分析指标（记录数总是计算，无需指定）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public enum Metric {
+
+    /** 浏览次数合计 */
+    VIEW_COUNT("viewCount", false),
+
+    /** 收藏次数合计 */
+    FAVORITE_COUNT("favoriteCount", false),
+
+    /** 交换次数合计 */
+    EXCHANGE_COUNT("exchangeCount", false),
+
+    /** 平均评级分数 */
+    RATING_SCORE("avgRatingScore", true);
+
+    private final String field;
+
+    private final boolean average;
+
+    Metric(String field, boolean average) {
+        this.field = field;
+        this.average = average;
+    }
+
+    /**
+     * 结果中的字段名
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * 是否输出平均值（否则输出合计）
+     */
+    public boolean isAverage() {
+        return average;
+    }
+
+    /**
+     * 按名称解析（兼容枚举名与字段名，不区分大小写）
+     *
+     * @param name 名称
+     * @return 指标
+     */
+    public static Metric of(String name) {
+        for (Metric metric : values()) {
+            if (metric.name().equalsIgnoreCase(name) || metric.field.equalsIgnoreCase(name)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("不支持的分析指标: " + name);
+    }
+}
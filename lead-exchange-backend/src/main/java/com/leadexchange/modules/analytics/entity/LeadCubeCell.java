@@ -0,0 +1,118 @@
+package com.leadexchange.modules.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 线索多维立方体单元格实体类
+ * 行业 × 地区 × 评级 × 创建日期 的已发布线索数量与合计值，(industry, region, rating, stat_day) 唯一
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_lead_cube_cell")
+public class LeadCubeCell extends BaseEntity {
+
+    /**
+     * 行业（空值存为空串）
+     */
+    @TableField("industry")
+    private String industry;
+
+    /**
+     * 地区（空值存为空串）
+     */
+    @TableField("region")
+    private String region;
+
+    /**
+     * 评级（空值存为空串）
+     */
+    @TableField("rating")
+    private String rating;
+
+    /**
+     * 线索创建日期
+     */
+    @TableField("stat_day")
+    private LocalDate statDay;
+
+    /**
+     * 线索数量
+     */
+    @TableField("lead_count")
+    private Long leadCount;
+
+    /**
+     * 评级分数合计
+     */
+    @TableField("rating_score_sum")
+    private Long ratingScoreSum;
+
+    /**
+     * 投资金额合计（万元）
+     */
+    @TableField("investment_amount_sum")
+    private BigDecimal investmentAmountSum;
+
+    public String getIndustry() {
+        return industry;
+    }
+
+    public void setIndustry(String industry) {
+        this.industry = industry;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getRating() {
+        return rating;
+    }
+
+    public void setRating(String rating) {
+        this.rating = rating;
+    }
+
+    public LocalDate getStatDay() {
+        return statDay;
+    }
+
+    public void setStatDay(LocalDate statDay) {
+        this.statDay = statDay;
+    }
+
+    public Long getLeadCount() {
+        return leadCount;
+    }
+
+    public void setLeadCount(Long leadCount) {
+        this.leadCount = leadCount;
+    }
+
+    public Long getRatingScoreSum() {
+        return ratingScoreSum;
+    }
+
+    public void setRatingScoreSum(Long ratingScoreSum) {
+        this.ratingScoreSum = ratingScoreSum;
+    }
+
+    public BigDecimal getInvestmentAmountSum() {
+        return investmentAmountSum;
+    }
+
+    public void setInvestmentAmountSum(BigDecimal investmentAmountSum) {
+        this.investmentAmountSum = investmentAmountSum;
+    }
+}
@@ -0,0 +1,135 @@
+package com.leadexchange.modules.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * 线索立方体成员实体类
+ * 记录每条已计入立方体的线索及其计入时的维度与数值，线索变化时据此精确扣减原单元格；lead_id 唯一
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_lead_cube_member")
+public class LeadCubeMember extends BaseEntity {
+
+    /**
+     * 线索ID
+     */
+    @TableField("lead_id")
+    private Long leadId;
+
+    /**
+     * 行业（空值存为空串）
+     */
+    @TableField("industry")
+    private String industry;
+
+    /**
+     * 地区（空值存为空串）
+     */
+    @TableField("region")
+    private String region;
+
+    /**
+     * 评级（空值存为空串）
+     */
+    @TableField("rating")
+    private String rating;
+
+    /**
+     * 线索创建日期
+     */
+    @TableField("stat_day")
+    private LocalDate statDay;
+
+    /**
+     * 计入时的评级分数
+     */
+    @TableField("rating_score")
+    private Integer ratingScore;
+
+    /**
+     * 计入时的投资金额（万元）
+     */
+    @TableField("investment_amount")
+    private BigDecimal investmentAmount;
+
+    /**
+     * 维度与数值是否与另一成员相同
+     *
+     * @param other 另一成员
+     * @return 是否相同
+     */
+    public boolean sameContribution(LeadCubeMember other) {
+        return Objects.equals(industry, other.industry)
+                && Objects.equals(region, other.region)
+                && Objects.equals(rating, other.rating)
+                && Objects.equals(statDay, other.statDay)
+                && Objects.equals(ratingScore, other.ratingScore)
+                && (investmentAmount == null ? other.investmentAmount == null
+                        : other.investmentAmount != null && investmentAmount.compareTo(other.investmentAmount) == 0);
+    }
+
+    public Long getLeadId() {
+        return leadId;
+    }
+
+    public void setLeadId(Long leadId) {
+        this.leadId = leadId;
+    }
+
+    public String getIndustry() {
+        return industry;
+    }
+
+    public void setIndustry(String industry) {
+        this.industry = industry;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getRating() {
+        return rating;
+    }
+
+    public void setRating(String rating) {
+        this.rating = rating;
+    }
+
+    public LocalDate getStatDay() {
+        return statDay;
+    }
+
+    public void setStatDay(LocalDate statDay) {
+        this.statDay = statDay;
+    }
+
+    public Integer getRatingScore() {
+        return ratingScore;
+    }
+
+    public void setRatingScore(Integer ratingScore) {
+        this.ratingScore = ratingScore;
+    }
+
+    public BigDecimal getInvestmentAmount() {
+        return investmentAmount;
+    }
+
+    public void setInvestmentAmount(BigDecimal investmentAmount) {
+        this.investmentAmount = investmentAmount;
+    }
+}
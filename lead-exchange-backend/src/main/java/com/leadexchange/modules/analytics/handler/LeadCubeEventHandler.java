@@ -0,0 +1,69 @@
+package com.leadexchange.modules.analytics.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leadexchange.modules.analytics.service.LeadCubeService;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * 线索立方体事件处理器
+ * 消费线索生命周期事件（创建、状态变更、删除），按线索当前状态对账立方体
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sender", havingValue = "rabbit", matchIfMissing = true)
+public class LeadCubeEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadCubeEventHandler.class);
+
+    private final LeadCubeService leadCubeService;
+
+    private final ObjectMapper objectMapper;
+
+    public LeadCubeEventHandler(LeadCubeService leadCubeService, ObjectMapper objectMapper) {
+        this.leadCubeService = leadCubeService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 每个实例单消费者顺序处理；多实例之间以及与全量对账之间仍可能并发对账同一线索，
+     * 由对账时先锁定成员记录再读取线索状态保证结果正确
+     */
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue(value = "${app.analytics.cube.queue:analytics.lead-cube}", durable = "true"),
+            exchange = @Exchange(value = "${app.outbox.exchange:lead-exchange.events}", type = ExchangeTypes.TOPIC),
+            key = {"lead.created", "lead.status.changed", "lead.deleted"}), concurrency = "1")
+    public void onEvent(Message message, Channel channel) throws IOException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            JsonNode event = objectMapper.readTree(message.getBody());
+            long leadId = event.path("leadId").asLong();
+            if (leadId > 0) {
+                leadCubeService.reconcile(Collections.singletonList(leadId));
+            }
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            // 漏掉的变更由定时全量对账修正，不重新入队以免毒消息反复投递
+            log.error("处理线索立方体事件失败: eventType={}, messageId={}",
+                    message.getMessageProperties().getReceivedRoutingKey(),
+                    message.getMessageProperties().getMessageId(), e);
+            channel.basicNack(deliveryTag, false, false);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.leadexchange.modules.analytics.mapper;
+
+import com.leadexchange.modules.lead.entity.Lead;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分析引擎线索投影Mapper接口
+ * 只读取分析所需的列，包含已逻辑删除的线索（用于从投影中移除）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface LeadColumnMapper {
+
+    /**
+     * 按ID顺序分页读取全部线索（全量重建）
+     *
+     * @param afterId 上一页最后一个ID
+     * @param limit 数量
+     * @return 线索列表
+     */
+    @Select("SELECT id, lead_type, status, rating, rating_score, industry, region, view_count, favorite_count, " +
+            "exchange_count, create_time, update_time, deleted FROM biz_lead " +
+            "WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Lead> findAfterId(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 按 (update_time, id) 顺序分页读取变更的线索（增量刷新）
+     *
+     * @param since 起始更新时间
+     * @param afterId 与since相同更新时间的上一页最后一个ID
+     * @param limit 数量
+     * @return 线索列表
+     */
+    @Select("SELECT id, lead_type, status, rating, rating_score, industry, region, view_count, favorite_count, " +
+            "exchange_count, create_time, update_time, deleted FROM biz_lead " +
+            "WHERE update_time > #{since} OR (update_time = #{since} AND id > #{afterId}) " +
+            "ORDER BY update_time, id LIMIT #{limit}")
+    List<Lead> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                @Param("limit") Integer limit);
+}
@@ -0,0 +1,134 @@
+package com.leadexchange.modules.analytics.mapper;
+
+import com.leadexchange.modules.analytics.entity.LeadCubeCell;
+import com.leadexchange.modules.analytics.entity.LeadCubeMember;
+import com.leadexchange.modules.lead.entity.Lead;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 线索多维立方体Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface LeadCubeMapper {
+
+    /**
+     * 查询全部非空单元格（启动加载与定期同步）
+     *
+     * @return 单元格列表
+     */
+    @Select("SELECT * FROM biz_lead_cube_cell WHERE deleted = 0 AND lead_count <> 0")
+    List<LeadCubeCell> findCells();
+
+    /**
+     * 累加单元格（单条多行INSERT，不存在时创建；审计字段显式写入）
+     *
+     * @param deltas 单元格增量（lead_count 等字段为增量值）
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO biz_lead_cube_cell (industry, region, rating, stat_day, lead_count, rating_score_sum, " +
+            "investment_amount_sum, create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='deltas' item='item' separator=','>" +
+            "(#{item.industry}, #{item.region}, #{item.rating}, #{item.statDay}, #{item.leadCount}, " +
+            "#{item.ratingScoreSum}, #{item.investmentAmountSum}, NOW(), NOW(), 0, 0, 0, 0)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE lead_count = lead_count + VALUES(lead_count), " +
+            "rating_score_sum = rating_score_sum + VALUES(rating_score_sum), " +
+            "investment_amount_sum = investment_amount_sum + VALUES(investment_amount_sum), update_time = NOW()" +
+            "</script>")
+    int addToCells(@Param("deltas") Collection<LeadCubeCell> deltas);
+
+    /**
+     * 查询线索的当前状态（包含已逻辑删除的线索）
+     *
+     * @param leadIds 线索ID列表
+     * @return 线索列表
+     */
+    @Select("<script>" +
+            "SELECT id, status, rating, rating_score, industry, region, investment_amount, create_time, deleted " +
+            "FROM biz_lead WHERE id IN " +
+            "<foreach collection='leadIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Lead> findLeadStates(@Param("leadIds") Collection<Long> leadIds);
+
+    /**
+     * 按ID顺序分页读取线索ID（全量对账，状态在锁定成员记录后再读取）
+     *
+     * @param afterId 上一页最后一个ID
+     * @param limit 数量
+     * @return 线索ID列表
+     */
+    @Select("SELECT id FROM biz_lead WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Long> findLeadIdsAfterId(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 查询并锁定线索的立方体成员记录
+     *
+     * @param leadIds 线索ID列表
+     * @return 成员列表
+     */
+    @Select("<script>" +
+            "SELECT * FROM biz_lead_cube_member WHERE lead_id IN " +
+            "<foreach collection='leadIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<LeadCubeMember> findMembersForUpdate(@Param("leadIds") Collection<Long> leadIds);
+
+    /**
+     * 写入或更新成员记录（单条多行INSERT；审计字段显式写入）
+     *
+     * @param members 成员列表
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO biz_lead_cube_member (lead_id, industry, region, rating, stat_day, rating_score, " +
+            "investment_amount, create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='members' item='item' separator=','>" +
+            "(#{item.leadId}, #{item.industry}, #{item.region}, #{item.rating}, #{item.statDay}, " +
+            "#{item.ratingScore}, #{item.investmentAmount}, NOW(), NOW(), 0, 0, 0, 0)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE industry = VALUES(industry), region = VALUES(region), " +
+            "rating = VALUES(rating), stat_day = VALUES(stat_day), rating_score = VALUES(rating_score), " +
+            "investment_amount = VALUES(investment_amount), update_time = NOW()" +
+            "</script>")
+    int upsertMembers(@Param("members") Collection<LeadCubeMember> members);
+
+    /**
+     * 删除成员记录（线索不再计入立方体）
+     *
+     * @param leadIds 线索ID列表
+     * @return 删除数量
+     */
+    @Delete("<script>" +
+            "DELETE FROM biz_lead_cube_member WHERE lead_id IN " +
+            "<foreach collection='leadIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteMembers(@Param("leadIds") Collection<Long> leadIds);
+
+    /**
+     * 删除计数归零的单元格
+     *
+     * @return 删除数量
+     */
+    @Delete("DELETE FROM biz_lead_cube_cell WHERE lead_count = 0")
+    int deleteEmptyCells();
+
+    /**
+     * 成员数量
+     *
+     * @return 数量
+     */
+    @Select("SELECT COUNT(*) FROM biz_lead_cube_member")
+    long countMembers();
+}
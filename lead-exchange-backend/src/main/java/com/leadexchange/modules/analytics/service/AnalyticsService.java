@@ -0,0 +1,167 @@
+package com.leadexchange.modules.analytics.service;
+
+import com.leadexchange.modules.analytics.engine.AnalyticsQuery;
+import com.leadexchange.modules.analytics.engine.AnalyticsResult;
+import com.leadexchange.modules.analytics.engine.Dimension;
+import com.leadexchange.modules.analytics.engine.Metric;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据分析服务接口
+ * 查询由内存列式存储回答，存储按更新时间增量刷新，不访问数据库
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface AnalyticsService {
+
+    /**
+     * 执行分析查询
+     *
+     * @param request 查询请求
+     * @return 查询结果
+     * @throws IllegalArgumentException 查询参数不合法
+     * @throws IllegalStateException 分析数据尚未加载完成
+     */
+    AnalyticsResult query(QueryRequest request);
+
+    /**
+     * 获取看板概览：状态分布、评级分布、热门行业与地区、近30天每日新增线索
+     *
+     * @return 概览数据
+     */
+    Map<String, Object> getOverview();
+
+    /**
+     * 增量刷新（按更新时间拉取变更的线索）
+     */
+    void refresh();
+
+    /**
+     * 全量重建
+     */
+    void rebuild();
+
+    /**
+     * 获取分析引擎统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * 分析查询请求
+     */
+    class QueryRequest implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 分组维度：status、leadType、rating、industry、region、day */
+        private List<String> groupBy;
+
+        /** 维度过滤：维度 → 取值列表 */
+        private Map<String, List<String>> filters;
+
+        /** 创建日期起（含） */
+        private LocalDate startDate;
+
+        /** 创建日期止（含） */
+        private LocalDate endDate;
+
+        /** 指标：viewCount、favoriteCount、exchangeCount、avgRatingScore */
+        private List<String> metrics;
+
+        /** 排序指标，为空时按记录数降序 */
+        private String orderBy;
+
+        /** 返回行数上限 */
+        private Integer limit;
+
+        public List<String> getGroupBy() {
+            return groupBy;
+        }
+
+        public void setGroupBy(List<String> groupBy) {
+            this.groupBy = groupBy;
+        }
+
+        public Map<String, List<String>> getFilters() {
+            return filters;
+        }
+
+        public void setFilters(Map<String, List<String>> filters) {
+            this.filters = filters;
+        }
+
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        public void setStartDate(LocalDate startDate) {
+            this.startDate = startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return endDate;
+        }
+
+        public void setEndDate(LocalDate endDate) {
+            this.endDate = endDate;
+        }
+
+        public List<String> getMetrics() {
+            return metrics;
+        }
+
+        public void setMetrics(List<String> metrics) {
+            this.metrics = metrics;
+        }
+
+        public String getOrderBy() {
+            return orderBy;
+        }
+
+        public void setOrderBy(String orderBy) {
+            this.orderBy = orderBy;
+        }
+
+        public Integer getLimit() {
+            return limit;
+        }
+
+        public void setLimit(Integer limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * 转换为引擎查询
+         *
+         * @return 引擎查询
+         * @throws IllegalArgumentException 维度或指标名称不支持
+         */
+        public AnalyticsQuery toQuery() {
+            AnalyticsQuery query = new AnalyticsQuery();
+            if (groupBy != null) {
+                groupBy.forEach(name -> query.groupBy(Dimension.of(name)));
+            }
+            if (filters != null) {
+                filters.forEach((name, values) -> query.filter(Dimension.of(name), values));
+            }
+            if (metrics != null) {
+                metrics.forEach(name -> query.metric(Metric.of(name)));
+            }
+            if (orderBy != null && !orderBy.isEmpty() && !"count".equals(orderBy)) {
+                query.orderBy(Metric.of(orderBy));
+            }
+            if (limit != null) {
+                query.limit(limit);
+            }
+            return query.between(startDate, endDate);
+        }
+    }
+}
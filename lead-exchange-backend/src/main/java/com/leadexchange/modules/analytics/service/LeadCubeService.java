@@ -0,0 +1,52 @@
+package com.leadexchange.modules.analytics.service;
+
+import com.leadexchange.modules.analytics.service.AnalyticsService.QueryRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 线索多维立方体服务接口
+ * 已发布线索按 行业 × 地区 × 评级 × 创建日期 预聚合，由线索生命周期事件维护并持久化，
+ * 支持切片与上卷的交叉分析
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface LeadCubeService {
+
+    /**
+     * 交叉分析查询（groupBy 与 filters 仅支持 industry、region、rating、day）
+     *
+     * @param request 查询请求
+     * @return 结果行
+     * @throws IllegalArgumentException 查询参数不合法
+     */
+    List<Map<String, Object>> query(QueryRequest request);
+
+    /**
+     * 按线索当前状态对账，调整其所在单元格（幂等）
+     *
+     * @param leadIds 线索ID列表
+     */
+    void reconcile(Collection<Long> leadIds);
+
+    /**
+     * 全量对账：逐页比对全部线索与立方体成员，修正未经事件的变更（如评级重算）
+     */
+    void reconcileAll();
+
+    /**
+     * 从数据库同步内存副本
+     */
+    void reload();
+
+    /**
+     * 获取立方体统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,199 @@
+package com.leadexchange.modules.analytics.service.impl;
+
+import com.leadexchange.modules.analytics.engine.AnalyticsQuery;
+import com.leadexchange.modules.analytics.engine.AnalyticsResult;
+import com.leadexchange.modules.analytics.engine.Dimension;
+import com.leadexchange.modules.analytics.engine.LeadColumnStore;
+import com.leadexchange.modules.analytics.engine.Metric;
+import com.leadexchange.modules.analytics.mapper.LeadColumnMapper;
+import com.leadexchange.modules.analytics.service.AnalyticsService;
+import com.leadexchange.modules.lead.entity.Lead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据分析服务实现类
+ *
+ * 启动后按ID分页全量加载线索到列式存储，之后按 (update_time, id) 游标增量拉取变更；
+ * 每次增量从水位线回看若干秒，覆盖更新时间早于提交时间的事务，重复拉取的行按ID覆盖写入。
+ * 刷新与重建串行执行；查询只读内存快照。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsServiceImpl.class);
+
+    private static final int OVERVIEW_TOP = 10;
+
+    private static final int OVERVIEW_DAYS = 30;
+
+    private final LeadColumnStore leadColumnStore;
+
+    private final LeadColumnMapper leadColumnMapper;
+
+    @Value("${app.analytics.page-size:2000}")
+    private int pageSize;
+
+    @Value("${app.analytics.lookback-seconds:5}")
+    private long lookbackSeconds;
+
+    /** 已加载的最大更新时间 */
+    private LocalDateTime watermark;
+
+    private volatile boolean ready;
+
+    private volatile LocalDateTime lastRefreshTime;
+
+    private volatile LocalDateTime lastRebuildTime;
+
+    private volatile long refreshedRows;
+
+    public AnalyticsServiceImpl(LeadColumnStore leadColumnStore, LeadColumnMapper leadColumnMapper) {
+        this.leadColumnStore = leadColumnStore;
+        this.leadColumnMapper = leadColumnMapper;
+    }
+
+    /**
+     * 应用启动完成后全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("分析数据初始加载失败，将在下次刷新时重试", e);
+        }
+    }
+
+    @Override
+    public AnalyticsResult query(QueryRequest request) {
+        if (!ready) {
+            throw new IllegalStateException("分析数据加载中，请稍后再试");
+        }
+        AnalyticsQuery query = request.toQuery();
+        AnalyticsResult result = leadColumnStore.execute(query);
+        log.debug("分析查询完成: query={}, rows={}, scanned={}, elapsedMicros={}",
+                query, result.getRows().size(), result.getScannedRows(), result.getElapsedMicros());
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getOverview() {
+        if (!ready) {
+            throw new IllegalStateException("分析数据加载中，请稍后再试");
+        }
+        Map<String, Object> overview = new LinkedHashMap<>();
+        overview.put("total", leadColumnStore.execute(new AnalyticsQuery()
+                .metric(Metric.VIEW_COUNT).metric(Metric.FAVORITE_COUNT).metric(Metric.EXCHANGE_COUNT)).getRows());
+        overview.put("byStatus", leadColumnStore.execute(new AnalyticsQuery()
+                .groupBy(Dimension.STATUS)).getRows());
+        overview.put("byRating", leadColumnStore.execute(new AnalyticsQuery()
+                .groupBy(Dimension.RATING).metric(Metric.RATING_SCORE)).getRows());
+        overview.put("topIndustries", leadColumnStore.execute(new AnalyticsQuery()
+                .groupBy(Dimension.INDUSTRY).limit(OVERVIEW_TOP)).getRows());
+        overview.put("topRegions", leadColumnStore.execute(new AnalyticsQuery()
+                .groupBy(Dimension.REGION).limit(OVERVIEW_TOP)).getRows());
+        LocalDate today = LocalDate.now();
+        overview.put("dailyNew", leadColumnStore.execute(new AnalyticsQuery()
+                .groupBy(Dimension.DAY).between(today.minusDays(OVERVIEW_DAYS - 1), today)).getRows());
+        return overview;
+    }
+
+    /**
+     * 定时增量刷新，初始加载失败时改为全量重建
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.analytics.refresh-interval:5000}")
+    public synchronized void refresh() {
+        if (!ready) {
+            warmUp();
+            return;
+        }
+        try {
+            LocalDateTime since = watermark.minusSeconds(lookbackSeconds);
+            long afterId = 0L;
+            LocalDateTime maxSeen = watermark;
+            long changed = 0;
+            List<Lead> page;
+            do {
+                page = leadColumnMapper.findChangedSince(since, afterId, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                changed += leadColumnStore.apply(page);
+                Lead last = page.get(page.size() - 1);
+                since = last.getUpdateTime();
+                afterId = last.getId();
+                if (since.isAfter(maxSeen)) {
+                    maxSeen = since;
+                }
+            } while (page.size() == pageSize);
+            watermark = maxSeen;
+            refreshedRows += changed;
+            lastRefreshTime = LocalDateTime.now();
+        } catch (Exception e) {
+            log.error("分析数据增量刷新失败: watermark={}", watermark, e);
+        }
+    }
+
+    /**
+     * 定时全量重建，清除已删除线索留下的墓碑
+     */
+    @Scheduled(cron = "${app.analytics.rebuild-cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("分析数据全量重建失败", e);
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime[] maxSeen = {LocalDateTime.MIN};
+        int rows = leadColumnStore.rebuild(afterId -> {
+            List<Lead> page = leadColumnMapper.findAfterId(afterId, pageSize);
+            for (Lead lead : page) {
+                if (lead.getUpdateTime() != null && lead.getUpdateTime().isAfter(maxSeen[0])) {
+                    maxSeen[0] = lead.getUpdateTime();
+                }
+            }
+            return page;
+        });
+        if (maxSeen[0] != LocalDateTime.MIN) {
+            watermark = maxSeen[0];
+        } else if (watermark == null) {
+            watermark = LocalDateTime.now();
+        }
+        ready = true;
+        lastRebuildTime = LocalDateTime.now();
+        log.info("分析数据全量加载完成: rows={}, watermark={}, cost={}ms",
+                rows, watermark, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(leadColumnStore.getStats());
+        stats.put("ready", ready);
+        stats.put("lastRefreshTime", lastRefreshTime);
+        stats.put("lastRebuildTime", lastRebuildTime);
+        stats.put("refreshedRows", refreshedRows);
+        return stats;
+    }
+}
@@ -0,0 +1,275 @@
+package com.leadexchange.modules.analytics.service.impl;
+
+import com.leadexchange.common.service.DistributedLockService;
+import com.leadexchange.common.utils.TransactionUtils;
+import com.leadexchange.modules.analytics.engine.LeadCube;
+import com.leadexchange.modules.analytics.entity.LeadCubeCell;
+import com.leadexchange.modules.analytics.entity.LeadCubeMember;
+import com.leadexchange.modules.analytics.mapper.LeadCubeMapper;
+import com.leadexchange.modules.analytics.service.AnalyticsService.QueryRequest;
+import com.leadexchange.modules.analytics.service.LeadCubeService;
+import com.leadexchange.modules.lead.entity.Lead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线索多维立方体服务实现类
+ *
+ * 维护：每条计入立方体的线索在成员表中记录其计入时的坐标与数值。对账时先锁定成员记录、再在同一事务内读取线索当前状态，
+ *      坐标或数值变化则从原单元格扣减并累加到新单元格，同一事务内写成员表与单元格表；
+ *      事务提交后把同样的增量应用到内存副本。对账只依赖线索当前状态，事件重复、乱序投递都不会重复计数。
+ * 持久化：单元格表即立方体本身，重启只加载单元格，不扫描线索表；成员表为空时执行一次全量对账完成初始化。
+ * 多实例：事件只被一个实例消费，其他实例的内存副本由定期同步追上；各实例的事件对账与全量对账可能并发处理同一线索，
+ *      由成员记录行锁串行化，定时全量对账由分布式锁保证同一时刻只在一个实例执行。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class LeadCubeServiceImpl implements LeadCubeService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadCubeServiceImpl.class);
+
+    /** 计入立方体的线索状态：已发布 */
+    private static final int STATUS_PUBLISHED = 3;
+
+    private static final String RECONCILE_LOCK = "analytics:lead-cube-reconcile";
+
+    private final LeadCube leadCube;
+
+    private final LeadCubeMapper leadCubeMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DistributedLockService distributedLockService;
+
+    @Value("${app.analytics.cube.batch-size:500}")
+    private int batchSize;
+
+    private volatile boolean ready;
+
+    private volatile long reconciledLeads;
+
+    public LeadCubeServiceImpl(LeadCube leadCube, LeadCubeMapper leadCubeMapper,
+                               TransactionTemplate transactionTemplate, DistributedLockService distributedLockService) {
+        this.leadCube = leadCube;
+        this.leadCubeMapper = leadCubeMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.distributedLockService = distributedLockService;
+    }
+
+    /**
+     * 应用启动完成后加载立方体，首次运行时全量对账初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (leadCubeMapper.countMembers() == 0) {
+                log.info("线索立方体为空，开始全量对账初始化");
+                reconcileAll();
+            }
+            reload();
+        } catch (Exception e) {
+            log.error("线索立方体加载失败，将在下次同步时重试", e);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> query(QueryRequest request) {
+        if (!ready) {
+            throw new IllegalStateException("立方体数据加载中，请稍后再试");
+        }
+        return leadCube.query(request.toQuery());
+    }
+
+    @Override
+    public void reconcile(Collection<Long> leadIds) {
+        if (leadIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(leadIds);
+        transactionTemplate.executeWithoutResult(status -> reconcile(ids));
+    }
+
+    @Override
+    public void reconcileAll() {
+        long start = System.currentTimeMillis();
+        long afterId = 0L;
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = leadCubeMapper.findLeadIdsAfterId(afterId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Long> batch = ids;
+            transactionTemplate.executeWithoutResult(status -> reconcile(batch));
+            afterId = ids.get(ids.size() - 1);
+            total += ids.size();
+        } while (ids.size() == batchSize);
+        int removed = leadCubeMapper.deleteEmptyCells();
+        log.info("线索立方体全量对账完成: leads={}, emptyCellsRemoved={}, cost={}ms",
+                total, removed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 定时全量对账（修正评级重算等不产生事件的变更）
+     * 各实例同时触发，只有获得分布式锁的实例执行，其余实例由定期同步追上
+     */
+    @Scheduled(cron = "${app.analytics.cube.reconcile-cron:0 0 4 * * ?}")
+    public void scheduledReconcile() {
+        try (DistributedLockService.LockHandle lock =
+                     distributedLockService.tryLock(RECONCILE_LOCK, 0, 0, TimeUnit.MILLISECONDS)) {
+            if (lock == null) {
+                log.debug("其他实例正在执行线索立方体全量对账，跳过");
+                return;
+            }
+            reconcileAll();
+            reload();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("线索立方体全量对账失败", e);
+        }
+    }
+
+    /**
+     * 定时从数据库同步内存副本
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.analytics.cube.sync-interval:300000}",
+            initialDelayString = "${app.analytics.cube.sync-interval:300000}")
+    public void reload() {
+        try {
+            long version = leadCube.version();
+            List<LeadCubeCell> cells = leadCubeMapper.findCells();
+            if (leadCube.load(cells, version)) {
+                ready = true;
+                log.debug("线索立方体已同步: cells={}", cells.size());
+            } else {
+                log.debug("线索立方体同步期间有本地写入，跳过本次替换");
+            }
+        } catch (Exception e) {
+            log.error("线索立方体同步失败", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(leadCube.getStats());
+        stats.put("ready", ready);
+        stats.put("reconciledLeads", reconciledLeads);
+        return stats;
+    }
+
+    /**
+     * 在当前事务中对账一批线索
+     * 先锁定成员记录再读取线索状态：并发对账同一线索时后者等待前者提交，读到的状态不早于前者
+     *
+     * @param leadIds 线索ID（不存在的线索视为不计入）
+     */
+    private void reconcile(List<Long> leadIds) {
+        Map<Long, LeadCubeMember> members = new HashMap<>();
+        for (LeadCubeMember member : leadCubeMapper.findMembersForUpdate(leadIds)) {
+            members.put(member.getLeadId(), member);
+        }
+        Map<Long, Lead> states = new HashMap<>();
+        for (Lead lead : leadCubeMapper.findLeadStates(leadIds)) {
+            states.put(lead.getId(), lead);
+        }
+
+        // 按坐标排序写入，多行UPSERT加锁顺序一致
+        Map<String, LeadCubeCell> deltas = new TreeMap<>();
+        List<LeadCubeMember> upserts = new ArrayList<>();
+        List<Long> removals = new ArrayList<>();
+        for (Long leadId : leadIds) {
+            LeadCubeMember previous = members.get(leadId);
+            LeadCubeMember current = toMember(states.get(leadId));
+            if (previous == null && current == null
+                    || previous != null && current != null && previous.sameContribution(current)) {
+                continue;
+            }
+            if (previous != null) {
+                addDelta(deltas, previous, -1);
+            }
+            if (current != null) {
+                addDelta(deltas, current, 1);
+                upserts.add(current);
+            } else {
+                removals.add(leadId);
+            }
+        }
+        if (!upserts.isEmpty()) {
+            leadCubeMapper.upsertMembers(upserts);
+        }
+        if (!removals.isEmpty()) {
+            leadCubeMapper.deleteMembers(removals);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<LeadCubeCell> changes = new ArrayList<>(deltas.values());
+        leadCubeMapper.addToCells(changes);
+        TransactionUtils.afterCommit(() -> {
+            leadCube.apply(changes);
+            reconciledLeads += upserts.size() + removals.size();
+        });
+    }
+
+    /**
+     * 线索当前应计入的成员记录，不计入时返回null
+     */
+    private static LeadCubeMember toMember(Lead lead) {
+        if (lead == null || lead.getDeleted() != null && lead.getDeleted() != 0
+                || lead.getStatus() == null || lead.getStatus() != STATUS_PUBLISHED) {
+            return null;
+        }
+        LeadCubeMember member = new LeadCubeMember();
+        member.setLeadId(lead.getId());
+        member.setIndustry(lead.getIndustry() != null ? lead.getIndustry() : "");
+        member.setRegion(lead.getRegion() != null ? lead.getRegion() : "");
+        member.setRating(lead.getRating() != null ? lead.getRating() : "");
+        member.setStatDay(lead.getCreateTime() != null ? lead.getCreateTime().toLocalDate() : LocalDate.now());
+        member.setRatingScore(lead.getRatingScore() != null ? lead.getRatingScore() : 0);
+        member.setInvestmentAmount(lead.getInvestmentAmount() != null ? lead.getInvestmentAmount() : BigDecimal.ZERO);
+        return member;
+    }
+
+    private static void addDelta(Map<String, LeadCubeCell> deltas, LeadCubeMember member, int sign) {
+        String key = member.getStatDay() + "\u0000" + member.getIndustry() + "\u0000" + member.getRegion()
+                + "\u0000" + member.getRating();
+        LeadCubeCell delta = deltas.computeIfAbsent(key, k -> {
+            LeadCubeCell cell = new LeadCubeCell();
+            cell.setIndustry(member.getIndustry());
+            cell.setRegion(member.getRegion());
+            cell.setRating(member.getRating());
+            cell.setStatDay(member.getStatDay());
+            cell.setLeadCount(0L);
+            cell.setRatingScoreSum(0L);
+            cell.setInvestmentAmountSum(BigDecimal.ZERO);
+            return cell;
+        });
+        delta.setLeadCount(delta.getLeadCount() + sign);
+        delta.setRatingScoreSum(delta.getRatingScoreSum() + (long) sign * member.getRatingScore());
+        delta.setInvestmentAmountSum(sign > 0 ? delta.getInvestmentAmountSum().add(member.getInvestmentAmount())
+                : delta.getInvestmentAmountSum().subtract(member.getInvestmentAmount()));
+    }
+}
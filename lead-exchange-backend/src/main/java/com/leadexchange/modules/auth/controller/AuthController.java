@@ -1,14 +1,21 @@
 package com.leadexchange.modules.auth.controller;
 
 import com.leadexchange.common.result.Result;
+import com.leadexchange.common.security.AdmissionRejectedException;
+import com.leadexchange.common.security.JwtClaims;
 import com.leadexchange.common.security.JwtTokenProvider;
+import com.leadexchange.common.security.LoginAdmissionControl;
+import com.leadexchange.modules.user.service.LoginAttemptService;
 import lombok.Builder;
 import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -16,6 +23,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import java.util.HashMap;
@@ -46,6 +54,12 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private LoginAdmissionControl loginAdmissionControl;
+
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+
     // TODO: 注入用户服务
     // @Autowired
     // private UserService userService;
@@ -54,13 +68,26 @@ public class AuthController {
      * 用户登录
      * 
      * @param loginRequest 登录请求
+     * @param request HTTP请求
      * @return 登录响应，包含JWT令牌
      */
     @PostMapping("/login")
-    public ResponseEntity<Result<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<Result<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest,
+                                                       HttpServletRequest request) {
         try {
             log.info("用户登录请求，用户名: {}", loginRequest.getUsername());
             
+            // 准入控制：按IP与用户名限流，超限的请求不进入密码校验
+            loginAdmissionControl.admit(request.getRemoteAddr(), loginRequest.getUsername());
+            
+            // 已锁定的账户直接拒绝，不做密码校验
+            long lockRemaining = loginAttemptService.getLockRemainingMillis(loginRequest.getUsername());
+            if (lockRemaining > 0) {
+                log.warn("用户登录失败，账户已锁定，用户名: {}", loginRequest.getUsername());
+                return ResponseEntity.badRequest().body(Result.error(
+                        "账户已锁定，请" + Math.max(1, lockRemaining / 60000) + "分钟后重试"));
+            }
+            
             // 执行认证
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -73,6 +100,9 @@ public class AuthController {
             String accessToken = jwtTokenProvider.generateAccessToken(authentication);
             String refreshToken = jwtTokenProvider.generateRefreshToken(authentication.getName());
             
+            // 清除登录失败计数
+            loginAttemptService.recordSuccess(loginRequest.getUsername());
+            
             // 构建响应
             LoginResponse response = LoginResponse.builder()
                 .accessToken(accessToken)
@@ -85,6 +115,14 @@ public class AuthController {
             log.info("用户登录成功，用户名: {}", loginRequest.getUsername());
             return ResponseEntity.ok(Result.success("登录成功", response));
             
+        } catch (AdmissionRejectedException ex) {
+            log.warn("用户登录被限流，用户名: {}, 原因: {}", loginRequest.getUsername(), ex.getMessage());
+            return tooManyRequests(ex);
+        } catch (BadCredentialsException ex) {
+            int remaining = loginAttemptService.recordFailure(loginRequest.getUsername());
+            log.warn("用户登录失败，用户名: {}, 剩余尝试次数: {}", loginRequest.getUsername(), remaining);
+            return ResponseEntity.badRequest().body(Result.error(remaining > 0
+                    ? "用户名或密码错误" : "登录失败次数过多，账户已锁定"));
         } catch (AuthenticationException ex) {
             log.warn("用户登录失败，用户名: {}, 原因: {}", loginRequest.getUsername(), ex.getMessage());
             return ResponseEntity.badRequest().body(Result.error("用户名或密码错误"));
@@ -99,13 +137,18 @@ public class AuthController {
      * TODO: 实现用户注册逻辑
      * 
      * @param registerRequest 注册请求
+     * @param request HTTP请求
      * @return 注册响应
      */
     @PostMapping("/register")
-    public ResponseEntity<Result<RegisterResponse>> register(@Valid @RequestBody RegisterRequest registerRequest) {
+    public ResponseEntity<Result<RegisterResponse>> register(@Valid @RequestBody RegisterRequest registerRequest,
+                                                             HttpServletRequest request) {
         try {
             log.info("用户注册请求，用户名: {}, 邮箱: {}", registerRequest.getUsername(), registerRequest.getEmail());
             
+            // 注册同样需要一次密码哈希，按IP限流
+            loginAdmissionControl.admit(request.getRemoteAddr(), null);
+            
             // TODO: 实现用户注册逻辑
             // 1. 验证用户名和邮箱是否已存在
             // 2. 加密密码
@@ -125,6 +168,9 @@ public class AuthController {
             log.info("用户注册成功，用户名: {}", registerRequest.getUsername());
             return ResponseEntity.ok(Result.success("注册成功", response));
             
+        } catch (AdmissionRejectedException ex) {
+            log.warn("用户注册被限流，用户名: {}, 原因: {}", registerRequest.getUsername(), ex.getMessage());
+            return tooManyRequests(ex);
         } catch (Exception ex) {
             log.error("用户注册异常，用户名: {}, 错误: {}", registerRequest.getUsername(), ex.getMessage());
             return ResponseEntity.internalServerError().body(Result.error("注册失败，请稍后重试"));
@@ -142,18 +188,19 @@ public class AuthController {
         try {
             String refreshToken = refreshRequest.getRefreshToken();
             
-            // 验证刷新令牌
-            if (!jwtTokenProvider.validateToken(refreshToken)) {
+            // 验证刷新令牌（只解析一次）
+            JwtClaims claims = jwtTokenProvider.parseToken(refreshToken);
+            if (claims == null) {
                 return ResponseEntity.badRequest().body(Result.error("刷新令牌无效"));
             }
             
             // 检查是否为刷新令牌
-            if (!jwtTokenProvider.isRefreshToken(refreshToken)) {
+            if (!claims.isRefreshToken()) {
                 return ResponseEntity.badRequest().body(Result.error("令牌类型错误"));
             }
             
             // 从刷新令牌中获取用户名
-            String username = jwtTokenProvider.getUsernameFromToken(refreshToken);
+            String username = claims.getSubject();
             
             // TODO: 验证用户是否仍然有效
             // 可以检查用户是否被禁用、删除等
@@ -178,6 +225,18 @@ public class AuthController {
         }
     }
 
+    /**
+     * 构建429响应
+     * 
+     * @param ex 准入拒绝异常
+     * @return 带Retry-After头的响应
+     */
+    private <T> ResponseEntity<Result<T>> tooManyRequests(AdmissionRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Result.error(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage()));
+    }
+
     /**
      * 用户登出
      * 
@@ -187,11 +246,20 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<Result<String>> logout(@Valid @RequestBody LogoutRequest logoutRequest) {
         try {
-            // TODO: 实现登出逻辑
-            // 1. 将令牌加入黑名单
-            // 2. 清除相关缓存
+            // 吊销访问令牌与刷新令牌，所有节点经pub/sub同步后拒绝
+            String username = null;
+            JwtClaims accessClaims = jwtTokenProvider.parseToken(logoutRequest.getAccessToken());
+            if (accessClaims != null) {
+                jwtTokenProvider.revokeToken(accessClaims);
+                username = accessClaims.getSubject();
+            }
+            JwtClaims refreshClaims = jwtTokenProvider.parseToken(logoutRequest.getRefreshToken());
+            if (refreshClaims != null && refreshClaims.isRefreshToken()
+                    && (username == null || username.equals(refreshClaims.getSubject()))) {
+                jwtTokenProvider.revokeToken(refreshClaims);
+            }
             
-            log.info("用户登出成功");
+            log.info("用户登出成功，用户名: {}", username);
             return ResponseEntity.ok(Result.success("登出成功"));
             
         } catch (Exception ex) {
@@ -568,6 +636,7 @@ public class AuthController {
      */
     public static class LogoutRequest {
         private String accessToken;
+        private String refreshToken;
         
         // Getter和Setter方法
         public String getAccessToken() {
@@ -577,6 +646,14 @@ public class AuthController {
         public void setAccessToken(String accessToken) {
             this.accessToken = accessToken;
         }
+        
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+        
+        public void setRefreshToken(String refreshToken) {
+            this.refreshToken = refreshToken;
+        }
     }
 
     /**
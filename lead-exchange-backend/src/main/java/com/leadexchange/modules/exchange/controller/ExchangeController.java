@@ -1,20 +1,250 @@
 package com.leadexchange.modules.exchange.controller;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.leadexchange.common.result.Result;
+import com.leadexchange.common.security.SecurityUtils;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchingEngine;
+import com.leadexchange.modules.exchange.engine.ExchangeWantResult;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerEntry;
+import com.leadexchange.modules.exchange.service.ExchangeLedgerService;
+import com.leadexchange.modules.exchange.service.ExchangeService;
+import com.leadexchange.modules.exchange.service.ExchangeSettlementService;
+import com.leadexchange.modules.user.entity.User;
+import com.leadexchange.modules.user.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * 交换引擎控制器
  * 负责处理线索交换相关的HTTP请求
- * 
+ *
  * @author 系统
  * @version 1.0.0
  * @since 2024-01-01
  */
 @RestController
 @RequestMapping("/exchange")
+@Validated
 public class ExchangeController {
-    
-    // TODO: 实现交换引擎相关接口
-    
-}
\ No newline at end of file
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeController.class);
+
+    @Autowired
+    private ExchangeMatchingEngine exchangeMatchingEngine;
+
+    @Autowired
+    private ExchangeService exchangeService;
+
+    @Autowired
+    private ExchangeSettlementService exchangeSettlementService;
+
+    @Autowired
+    private ExchangeLedgerService exchangeLedgerService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 提交交换需求
+     * 按行业、地区、评级查找目标线索，并以当前用户已发布线索的价值进行撮合
+     *
+     * @param request 交换需求
+     * @return 提交结果
+     */
+    @PostMapping("/wants")
+    public CompletableFuture<Result<ExchangeWantResult>> submitWant(@Valid @RequestBody WantRequest request) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return CompletableFuture.completedFuture(Result.error(401, "用户未登录"));
+        }
+        try {
+            return exchangeMatchingEngine
+                    .submitWant(userId, request.getIndustry(), request.getRegion(), request.getRating())
+                    .thenApply(result -> Result.success(result.getMessage(), result));
+        } catch (RejectedExecutionException e) {
+            log.warn("交换引擎繁忙，拒绝交换需求: userId={}", userId);
+            return CompletableFuture.completedFuture(Result.error(503, "交换引擎繁忙，请稍后重试"));
+        }
+    }
+
+    /**
+     * 撤销等待中的交换需求
+     *
+     * @param wantId 需求ID
+     * @return 是否撤销成功
+     */
+    @DeleteMapping("/wants/{wantId}")
+    public CompletableFuture<Result<Boolean>> cancelWant(@PathVariable Long wantId) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return CompletableFuture.completedFuture(Result.error(401, "用户未登录"));
+        }
+        try {
+            return exchangeMatchingEngine.cancelWant(userId, wantId)
+                    .thenApply(cancelled -> cancelled
+                            ? Result.success("交换需求已撤销", true)
+                            : Result.<Boolean>error("交换需求不存在或已撮合"));
+        } catch (RejectedExecutionException e) {
+            log.warn("交换引擎繁忙，拒绝撤销请求: userId={}, wantId={}", userId, wantId);
+            return CompletableFuture.completedFuture(Result.error(503, "交换引擎繁忙，请稍后重试"));
+        }
+    }
+
+    /**
+     * 获取交换订单簿统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/book/stats")
+    public Result<Map<String, Object>> getBookStats() {
+        return Result.success(exchangeMatchingEngine.getStats());
+    }
+
+    /**
+     * 同意交换申请（目标线索持有者操作），同意后异步结算
+     *
+     * @param applicationId 申请ID
+     * @return 是否同意成功
+     */
+    @PostMapping("/applications/{applicationId}/approve")
+    public Result<Boolean> approveApplication(@PathVariable Long applicationId) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return exchangeService.approveApplication(applicationId, userId)
+                ? Result.success("交换申请已同意，正在结算", true)
+                : Result.error("交换申请不存在或已处理");
+    }
+
+    /**
+     * 拒绝交换申请（目标线索持有者操作）
+     *
+     * @param applicationId 申请ID
+     * @return 是否拒绝成功
+     */
+    @PostMapping("/applications/{applicationId}/reject")
+    public Result<Boolean> rejectApplication(@PathVariable Long applicationId) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return exchangeService.rejectApplication(applicationId, userId)
+                ? Result.success("交换申请已拒绝", true)
+                : Result.error("交换申请不存在或已处理");
+    }
+
+    /**
+     * 获取交换结算统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/settlement/stats")
+    public Result<Map<String, Object>> getSettlementStats() {
+        return Result.success(exchangeSettlementService.getStats());
+    }
+
+    /**
+     * 获取当前用户的交换价值余额
+     *
+     * @return 余额
+     */
+    @GetMapping("/ledger/balance")
+    public Result<ExchangeLedgerService.Balance> getLedgerBalance() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(exchangeLedgerService.getBalance(userId));
+    }
+
+    /**
+     * 分页查询当前用户的交换价值流水
+     *
+     * @param current 当前页
+     * @param size 每页大小
+     * @return 流水分页
+     */
+    @GetMapping("/ledger/entries")
+    public Result<IPage<ExchangeLedgerEntry>> getLedgerEntries(@RequestParam(defaultValue = "1") Long current,
+                                                               @RequestParam(defaultValue = "20") Long size) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(exchangeLedgerService.getEntries(userId, new Page<>(current, Math.min(size, 100))));
+    }
+
+    /**
+     * 获取当前登录用户ID：取自访问令牌，只有升级前签发、未携带用户ID的令牌才按用户名查询
+     */
+    private Long currentUserId() {
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId != null) {
+            return userId;
+        }
+        String username = SecurityUtils.getCurrentUsername();
+        if (username == null) {
+            return null;
+        }
+        User user = userService.findByUsername(username);
+        return user != null ? user.getId() : null;
+    }
+
+    /**
+     * 交换需求请求DTO
+     */
+    public static class WantRequest {
+        @NotBlank(message = "目标行业不能为空")
+        private String industry;
+
+        @NotBlank(message = "目标地区不能为空")
+        private String region;
+
+        @NotBlank(message = "目标评级不能为空")
+        @Pattern(regexp = "[ABCD]", message = "目标评级只能为A、B、C、D")
+        private String rating;
+
+        public String getIndustry() {
+            return industry;
+        }
+
+        public void setIndustry(String industry) {
+            this.industry = industry;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public String getRating() {
+            return rating;
+        }
+
+        public void setRating(String rating) {
+            this.rating = rating;
+        }
+    }
+}
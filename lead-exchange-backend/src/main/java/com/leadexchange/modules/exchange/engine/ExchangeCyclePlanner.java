@@ -0,0 +1,224 @@
+package com.leadexchange.modules.exchange.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 多方循环交换规划器
+ * 定期从交换引擎获取等待需求的需求图快照，按强连通分量划分后并行搜索
+ * 长度受限、价值平衡的交换环（A→B→C→A），并交回引擎原子提交。
+ * 两两交换无法满足的需求可以通过三方、四方交换成交。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class ExchangeCyclePlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeCyclePlanner.class);
+
+    private static final long ENGINE_TIMEOUT_SECONDS = 30;
+
+    private final ExchangeMatchingEngine exchangeMatchingEngine;
+
+    @Value("${app.business.exchange.auto-match:true}")
+    private boolean autoMatch;
+
+    @Value("${app.business.exchange.cycle.max-length:4}")
+    private int maxCycleLength;
+
+    @Value("${app.business.exchange.cycle.value-tolerance:0}")
+    private int valueTolerance;
+
+    @Value("${app.business.exchange.cycle.max-suppliers:16}")
+    private int maxSuppliers;
+
+    @Value("${app.business.exchange.cycle.search-budget:100000}")
+    private int searchBudget;
+
+    private final AtomicInteger graphNodes = new AtomicInteger();
+
+    private final AtomicInteger graphEdges = new AtomicInteger();
+
+    private final AtomicInteger graphPartitions = new AtomicInteger();
+
+    private final Timer solveTimer;
+
+    private final Counter committedCounter;
+
+    public ExchangeCyclePlanner(ExchangeMatchingEngine exchangeMatchingEngine, MeterRegistry meterRegistry) {
+        this.exchangeMatchingEngine = exchangeMatchingEngine;
+        meterRegistry.gauge("exchange.cycle.graph.nodes", graphNodes);
+        meterRegistry.gauge("exchange.cycle.graph.edges", graphEdges);
+        meterRegistry.gauge("exchange.cycle.graph.partitions", graphPartitions);
+        this.solveTimer = Timer.builder("exchange.cycle.solve")
+                .description("多方交换环搜索耗时")
+                .register(meterRegistry);
+        this.committedCounter = Counter.builder("exchange.cycle.committed")
+                .description("已提交的多方交换环数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定期规划多方交换
+     */
+    @Scheduled(fixedDelayString = "${app.business.exchange.cycle.interval:60000}",
+            initialDelayString = "${app.business.exchange.cycle.interval:60000}")
+    public void planCycles() {
+        if (!autoMatch) {
+            return;
+        }
+        try {
+            ExchangeWantGraph graph = exchangeMatchingEngine.snapshotWantGraph(maxSuppliers)
+                    .get(ENGINE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            graphNodes.set(graph.nodeCount());
+            graphEdges.set(graph.edgeCount());
+            if (graph.edgeCount() == 0) {
+                graphPartitions.set(0);
+                return;
+            }
+
+            List<MultiPartyExchange> proposals = solveTimer.record(() -> solve(graph));
+            if (proposals.isEmpty()) {
+                return;
+            }
+
+            List<MultiPartyExchange> committed = exchangeMatchingEngine.commitCycles(proposals)
+                    .get(ENGINE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            committedCounter.increment(committed.size());
+            log.info("多方交换规划完成: 节点={}, 边={}, 候选环={}, 已提交={}",
+                    graph.nodeCount(), graph.edgeCount(), proposals.size(), committed.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("多方交换规划失败", e);
+        }
+    }
+
+    /**
+     * 按强连通分量划分需求图并行求解，各分量节点互不相交，结果天然不冲突
+     */
+    List<MultiPartyExchange> solve(ExchangeWantGraph graph) {
+        int[] componentOf = new int[graph.nodeCount()];
+        List<int[]> components = graph.stronglyConnectedComponents(componentOf);
+        graphPartitions.set(components.size());
+        return components.parallelStream()
+                .flatMap(component -> new PartitionSolver(graph, component, componentOf).solve().stream())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 单个强连通分量内的交换环搜索
+     * 由短到长逐层搜索，每个环以其最小节点为起点避免重复；找到的环立即占用参与者（贪心不相交）
+     */
+    private final class PartitionSolver {
+
+        private final ExchangeWantGraph graph;
+        private final int[] component;
+        private final int[] componentOf;
+        private final int componentId;
+        private final Set<Integer> used = new HashSet<>();
+        private final Set<Integer> onPath = new HashSet<>();
+        private final int[] pathEdges;
+        private int steps;
+
+        PartitionSolver(ExchangeWantGraph graph, int[] component, int[] componentOf) {
+            this.graph = graph;
+            this.component = component;
+            this.componentOf = componentOf;
+            this.componentId = componentOf[component[0]];
+            this.pathEdges = new int[Math.max(2, maxCycleLength)];
+        }
+
+        List<MultiPartyExchange> solve() {
+            List<MultiPartyExchange> result = new ArrayList<>();
+            int maxLength = Math.min(maxCycleLength, component.length);
+            for (int length = 2; length <= maxLength && steps < searchBudget; length++) {
+                for (int start : component) {
+                    if (steps >= searchBudget) {
+                        break;
+                    }
+                    if (used.contains(start)) {
+                        continue;
+                    }
+                    onPath.clear();
+                    onPath.add(start);
+                    if (search(start, start, 0, length)) {
+                        result.add(toExchange(length));
+                        for (int i = 0; i < length; i++) {
+                            used.add(graph.edgeTarget(pathEdges[i]));
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private boolean search(int start, int node, int depth, int length) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                if (++steps > searchBudget) {
+                    return false;
+                }
+                int next = graph.edgeTarget(edge);
+                if (next < start || componentOf[next] != componentId || used.contains(next)) {
+                    continue;
+                }
+                if (depth > 0 && !balanced(pathEdges[depth - 1], edge)) {
+                    continue;
+                }
+                pathEdges[depth] = edge;
+                if (next == start) {
+                    if (depth + 1 == length && balanced(edge, pathEdges[0])) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (depth + 1 >= length || onPath.contains(next)) {
+                    continue;
+                }
+                onPath.add(next);
+                if (search(start, next, depth + 1, length)) {
+                    return true;
+                }
+                onPath.remove(next);
+            }
+            return false;
+        }
+
+        /**
+         * 相邻两条边共享一位参与者：前一条边是其付出的线索，后一条边是其收到的线索
+         */
+        private boolean balanced(int givenEdge, int receivedEdge) {
+            return Math.abs(graph.edgeValue(givenEdge) - graph.edgeValue(receivedEdge)) <= valueTolerance;
+        }
+
+        private MultiPartyExchange toExchange(int length) {
+            List<MultiPartyExchange.Leg> legs = new ArrayList<>(length);
+            int receiver = graph.edgeTarget(pathEdges[length - 1]);
+            for (int i = 0; i < length; i++) {
+                int edge = pathEdges[i];
+                int giver = graph.edgeTarget(edge);
+                legs.add(new MultiPartyExchange.Leg(graph.edgeWantId(edge), graph.userId(receiver),
+                        graph.userId(giver), graph.edgeLeadId(edge), graph.edgeValue(edge)));
+                receiver = giver;
+            }
+            return new MultiPartyExchange(UUID.randomUUID().toString(), legs, System.currentTimeMillis());
+        }
+    }
+}
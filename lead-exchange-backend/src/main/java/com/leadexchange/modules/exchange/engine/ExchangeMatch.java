@@ -0,0 +1,93 @@
+package com.leadexchange.modules.exchange.engine;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 交换撮合结果
+ * 描述一次撮合成功的双边交换：申请人以提供的线索换取目标线索
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ExchangeMatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 挂单ID */
+    private final long wantId;
+
+    /** 申请人ID */
+    private final long applicantId;
+
+    /** 目标线索ID */
+    private final long targetLeadId;
+
+    /** 目标线索持有者ID */
+    private final long targetOwnerId;
+
+    /** 目标线索价值 */
+    private final int targetValue;
+
+    /** 提供的线索ID列表 */
+    private final List<Long> offerLeadIds;
+
+    /** 提供线索总价值 */
+    private final int offerValue;
+
+    /** 撮合时间（毫秒时间戳） */
+    private final long matchedAt;
+
+    public ExchangeMatch(long wantId, long applicantId, long targetLeadId, long targetOwnerId,
+                         int targetValue, List<Long> offerLeadIds, int offerValue, long matchedAt) {
+        this.wantId = wantId;
+        this.applicantId = applicantId;
+        this.targetLeadId = targetLeadId;
+        this.targetOwnerId = targetOwnerId;
+        this.targetValue = targetValue;
+        this.offerLeadIds = Collections.unmodifiableList(offerLeadIds);
+        this.offerValue = offerValue;
+        this.matchedAt = matchedAt;
+    }
+
+    public long getWantId() {
+        return wantId;
+    }
+
+    public long getApplicantId() {
+        return applicantId;
+    }
+
+    public long getTargetLeadId() {
+        return targetLeadId;
+    }
+
+    public long getTargetOwnerId() {
+        return targetOwnerId;
+    }
+
+    public int getTargetValue() {
+        return targetValue;
+    }
+
+    public List<Long> getOfferLeadIds() {
+        return offerLeadIds;
+    }
+
+    public int getOfferValue() {
+        return offerValue;
+    }
+
+    public long getMatchedAt() {
+        return matchedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeMatch{wantId=" + wantId + ", applicantId=" + applicantId
+                + ", targetLeadId=" + targetLeadId + ", offerLeadIds=" + offerLeadIds
+                + ", targetValue=" + targetValue + ", offerValue=" + offerValue + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package com.leadexchange.modules.exchange.engine;
+
+/**
+ * 交换撮合监听器
+ * 在交换引擎事件循环线程上回调，实现类不得执行阻塞操作
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ExchangeMatchListener {
+
+    /**
+     * 撮合成功回调
+     *
+     * @param match 撮合结果
+     */
+    void onMatch(ExchangeMatch match);
+
+    /**
+     * 多方循环交换撮合成功回调
+     *
+     * @param exchange 多方交换
+     */
+    default void onMultiPartyExchange(MultiPartyExchange exchange) {
+    }
+}
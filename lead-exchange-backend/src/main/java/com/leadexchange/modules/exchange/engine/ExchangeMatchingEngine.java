@@ -0,0 +1,590 @@
+package com.leadexchange.modules.exchange.engine;
+
+import com.leadexchange.common.utils.StringDictionary;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 线索交换撮合引擎
+ * 在内存订单簿中维护可交换线索（挂单）与交换需求，按评级价值系数撮合：
+ * 申请人提供的线索价值总和需覆盖目标线索价值。
+ *
+ * 所有订单簿状态只由单个事件循环线程修改（单写者），无需加锁；
+ * 外部调用通过有界队列提交任务，并以CompletableFuture返回结果。
+ * 线索撤出走独立的无界撤出队列，事件循环执行每个任务前先排空，队列满时也不会丢失；
+ * 撤出前已入队的挂单事件按序号识别后跳过，避免撤出的线索被重新挂入。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class ExchangeMatchingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeMatchingEngine.class);
+
+    /** 新挂单到达时最多尝试的等待需求数量 */
+    private static final int MAX_WANT_SCAN = 64;
+
+    private final LeadValueCalculator valueCalculator;
+
+    private final LeadMapper leadMapper;
+
+    private final ObjectProvider<ExchangeMatchListener> listenerProvider;
+
+    @Value("${app.business.exchange.auto-match:true}")
+    private boolean autoMatch;
+
+    @Value("${app.business.exchange.match-timeout:24}")
+    private int matchTimeoutHours;
+
+    @Value("${app.business.exchange.engine.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final StringDictionary industryDictionary = new StringDictionary();
+
+    private final StringDictionary regionDictionary = new StringDictionary();
+
+    /** 挂单与撤出事件的入队序号 */
+    private final AtomicLong eventSequence = new AtomicLong();
+
+    /** 待执行的线索撤出，事件循环执行任何任务前先排空 */
+    private final ConcurrentLinkedQueue<Long> withdrawals = new ConcurrentLinkedQueue<>();
+
+    /** 线索最近一次撤出的序号，序号更早的挂单事件不再挂入 */
+    private final Map<Long, Long> withdrawnAt = new ConcurrentHashMap<>();
+
+    // ==================== 以下状态仅由事件循环线程访问 ====================
+
+    private final ExchangeOrderBook book = new ExchangeOrderBook();
+
+    /** 等待撮合的需求队列，键为 桶键 + 评级 */
+    private final Map<Long, ArrayDeque<Want>> wantQueues = new HashMap<>();
+
+    /** 等待撮合的需求索引 */
+    private final Map<Long, Want> openWants = new HashMap<>();
+
+    private int[] values;
+
+    private List<ExchangeMatchListener> listeners;
+
+    /** 上次清理时的事件序号，不晚于它的撤出记录在下次清理时移除 */
+    private long withdrawnPurgeMark;
+
+    // ==================== 统计信息（供其他线程读取） ====================
+
+    private final AtomicLong wantSequence = new AtomicLong();
+
+    private final AtomicLong matchedCount = new AtomicLong();
+
+    private volatile int offerCount;
+
+    private volatile int wantCount;
+
+    private volatile int bucketCount;
+
+    private volatile int ownerCount;
+
+    private ThreadPoolExecutor eventLoop;
+
+    public ExchangeMatchingEngine(LeadValueCalculator valueCalculator, LeadMapper leadMapper,
+                                  ObjectProvider<ExchangeMatchListener> listenerProvider) {
+        this.valueCalculator = valueCalculator;
+        this.leadMapper = leadMapper;
+        this.listenerProvider = listenerProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.values = valueCalculator.values();
+        this.eventLoop = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "exchange-engine");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        eventLoop.shutdown();
+        if (!eventLoop.awaitTermination(5, TimeUnit.SECONDS)) {
+            eventLoop.shutdownNow();
+        }
+    }
+
+    /**
+     * 应用启动完成后，从数据库加载已发布且已评级的线索预热订单簿
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long start = System.currentTimeMillis();
+            long seq = eventSequence.incrementAndGet();
+            List<Lead> leads = leadMapper.findExchangeableLeads();
+            execute(() -> {
+                int loaded = 0;
+                for (Lead lead : leads) {
+                    if (lead.getCreateBy() != null && !isWithdrawnSince(lead.getId(), seq) && addOffer(lead.getId(), lead.getCreateBy(),
+                            lead.getRating(), lead.getIndustry(), lead.getRegion())) {
+                        loaded++;
+                    }
+                }
+                log.info("交换订单簿预热完成: 挂单数={}, 耗时={}ms", loaded, System.currentTimeMillis() - start);
+            });
+        } catch (Exception e) {
+            log.error("交换订单簿预热失败", e);
+        }
+    }
+
+    /**
+     * 提交交换需求
+     * 立即在订单簿中查找目标线索并撮合；无匹配时，若开启自动撮合则挂单等待。
+     * 行业或地区从未出现在任何已发布线索中时直接返回无匹配
+     *
+     * @param applicantId 申请人ID
+     * @param industry 目标行业
+     * @param region 目标地区
+     * @param rating 目标评级
+     * @return 提交结果
+     * @throws RejectedExecutionException 引擎队列已满
+     */
+    public CompletableFuture<ExchangeWantResult> submitWant(long applicantId, String industry,
+                                                            String region, String rating) {
+        long wantId = wantSequence.incrementAndGet();
+        int ratingIndex = LeadValueCalculator.ratingIndex(rating);
+        if (ratingIndex == LeadValueCalculator.NO_RATING) {
+            return CompletableFuture.completedFuture(ExchangeWantResult.unmatched(wantId, "无效的线索评级"));
+        }
+        // 需求侧只查询不分配编码：字典只由线索发布扩充，不随用户输入增长
+        int industryCode = industryDictionary.lookup(industry);
+        int regionCode = regionDictionary.lookup(region);
+        if (industryCode < 0 || regionCode < 0) {
+            return CompletableFuture.completedFuture(ExchangeWantResult.unmatched(wantId, "暂无匹配线索"));
+        }
+        Want want = new Want(wantId, applicantId, industryCode, regionCode, ratingIndex, System.currentTimeMillis());
+        return submit(() -> processWant(want));
+    }
+
+    /**
+     * 撤销等待中的交换需求
+     *
+     * @param applicantId 申请人ID
+     * @param wantId 需求ID
+     * @return 是否撤销成功
+     */
+    public CompletableFuture<Boolean> cancelWant(long applicantId, long wantId) {
+        return submit(() -> {
+            Want want = openWants.get(wantId);
+            if (want == null || want.applicantId != applicantId) {
+                return false;
+            }
+            // 队列中的需求在下次扫描时惰性移除
+            want.cancelled = true;
+            openWants.remove(wantId);
+            return true;
+        });
+    }
+
+    /**
+     * 线索发布（审核通过）后挂入订单簿，并尝试撮合等待中的需求
+     *
+     * @param leadId 线索ID
+     * @param ownerId 持有者ID
+     * @param rating 评级
+     * @param industry 行业
+     * @param region 地区
+     */
+    public void onLeadPublished(long leadId, long ownerId, String rating, String industry, String region) {
+        long seq = eventSequence.incrementAndGet();
+        execute(() -> {
+            if (isWithdrawnSince(leadId, seq)) {
+                return;
+            }
+            if (addOffer(leadId, ownerId, rating, industry, region) && autoMatch) {
+                matchRestingWants(leadId);
+            }
+        });
+    }
+
+    /**
+     * 线索下架或进入交换流程后从订单簿撤出
+     * 撤出不可丢弃：先登记到撤出队列，再提交一个空任务尽快排空；
+     * 事件循环队列已满时空任务被拒绝，撤出由之后执行的任意任务排空
+     *
+     * @param leadId 线索ID
+     */
+    public void onLeadWithdrawn(long leadId) {
+        withdrawnAt.merge(leadId, eventSequence.incrementAndGet(), Math::max);
+        withdrawals.add(leadId);
+        try {
+            eventLoop.execute(this::runTask);
+        } catch (RejectedExecutionException e) {
+            log.debug("交换引擎队列已满，线索撤出等待下个任务排空: leadId={}", leadId);
+        }
+    }
+
+    /**
+     * 从数据库重新加载线索，仍处于已发布状态的重新挂入订单簿
+     * 用于撮合后预占失败或预占释放的线索
+     *
+     * @param leadIds 线索ID列表
+     */
+    public void reload(Collection<Long> leadIds) {
+        if (leadIds.isEmpty()) {
+            return;
+        }
+        for (Lead lead : leadMapper.selectBatchIds(leadIds)) {
+            if (Objects.equals(lead.getStatus(), 3) && lead.getRating() != null && lead.getCreateBy() != null) {
+                onLeadPublished(lead.getId(), lead.getCreateBy(), lead.getRating(), lead.getIndustry(), lead.getRegion());
+            }
+        }
+    }
+
+    /**
+     * 定期清理超时未撮合的需求
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void purgeExpiredWants() {
+        execute(() -> {
+            long deadline = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(matchTimeoutHours);
+            Iterator<Want> iterator = openWants.values().iterator();
+            while (iterator.hasNext()) {
+                Want want = iterator.next();
+                if (want.createdAt < deadline) {
+                    want.cancelled = true;
+                    iterator.remove();
+                }
+            }
+            wantQueues.values().removeIf(queue -> {
+                queue.removeIf(want -> want.cancelled);
+                return queue.isEmpty();
+            });
+            // 上个清理周期之前的撤出，早于它入队的挂单事件早已执行完毕
+            long purgeMark = withdrawnPurgeMark;
+            withdrawnAt.values().removeIf(seq -> seq <= purgeMark);
+            withdrawnPurgeMark = eventSequence.get();
+        });
+    }
+
+    /**
+     * 获取引擎统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openOffers", offerCount);
+        stats.put("openWants", wantCount);
+        stats.put("buckets", bucketCount);
+        stats.put("owners", ownerCount);
+        stats.put("matched", matchedCount.get());
+        stats.put("queued", eventLoop.getQueue().size());
+        stats.put("pendingWithdrawals", withdrawals.size());
+        stats.put("autoMatch", autoMatch);
+        return stats;
+    }
+
+    /**
+     * 在事件循环中构建等待需求的需求图快照，供多方交换规划使用
+     *
+     * @param maxSuppliersPerWant 每条需求最多连接的提供方数量
+     * @return 需求图快照
+     */
+    CompletableFuture<ExchangeWantGraph> snapshotWantGraph(int maxSuppliersPerWant) {
+        return submit(() -> {
+            long deadline = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(matchTimeoutHours);
+            ExchangeWantGraph.Builder builder = new ExchangeWantGraph.Builder();
+            int[] slots = new int[maxSuppliersPerWant * 4];
+            Set<Long> suppliers = new HashSet<>();
+            for (Want want : openWants.values()) {
+                if (want.cancelled || want.createdAt < deadline) {
+                    continue;
+                }
+                int count = book.collectSlots(want.industry, want.region, want.rating, want.applicantId, slots);
+                suppliers.clear();
+                for (int i = 0; i < count && suppliers.size() < maxSuppliersPerWant; i++) {
+                    long ownerId = book.ownerAt(slots[i]);
+                    if (suppliers.add(ownerId)) {
+                        builder.addEdge(want.applicantId, ownerId, want.id, book.leadIdAt(slots[i]),
+                                values[want.rating]);
+                    }
+                }
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * 在事件循环中原子提交多方交换：逐个交换环重新校验需求与线索仍然有效，
+     * 有效则整体移出订单簿，否则整体放弃
+     *
+     * @param proposals 规划出的交换环
+     * @return 实际提交成功的交换环
+     */
+    CompletableFuture<List<MultiPartyExchange>> commitCycles(List<MultiPartyExchange> proposals) {
+        return submit(() -> {
+            List<MultiPartyExchange> committed = new ArrayList<>();
+            for (MultiPartyExchange proposal : proposals) {
+                if (!isCycleValid(proposal)) {
+                    continue;
+                }
+                for (MultiPartyExchange.Leg leg : proposal.getLegs()) {
+                    book.removeOffer(leg.getLeadId());
+                    Want want = openWants.remove(leg.getWantId());
+                    want.cancelled = true;
+                }
+                matchedCount.addAndGet(proposal.size());
+                committed.add(proposal);
+                log.info("多方交换撮合成功: {}", proposal);
+                for (ExchangeMatchListener listener : listeners()) {
+                    try {
+                        listener.onMultiPartyExchange(proposal);
+                    } catch (Exception e) {
+                        log.error("交换撮合监听器执行失败: listener={}", listener.getClass().getSimpleName(), e);
+                    }
+                }
+            }
+            return committed;
+        });
+    }
+
+    // ==================== 事件循环内执行的方法 ====================
+
+    private boolean isCycleValid(MultiPartyExchange proposal) {
+        for (MultiPartyExchange.Leg leg : proposal.getLegs()) {
+            Want want = openWants.get(leg.getWantId());
+            if (want == null || want.cancelled || want.applicantId != leg.getReceiverId()) {
+                return false;
+            }
+            Long ownerId = book.ownerOf(leg.getLeadId());
+            if (ownerId == null || ownerId != leg.getGiverId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean addOffer(long leadId, long ownerId, String rating, String industry, String region) {
+        return book.addOffer(leadId, ownerId, LeadValueCalculator.ratingIndex(rating),
+                industryDictionary.encode(industry), regionDictionary.encode(region));
+    }
+
+    private ExchangeWantResult processWant(Want want) {
+        int slot = book.findTarget(want.industry, want.region, want.rating, want.applicantId);
+        if (slot != ExchangeOrderBook.NIL) {
+            ExchangeMatch match = tryMatch(want, slot);
+            return match != null
+                    ? ExchangeWantResult.matched(match)
+                    : ExchangeWantResult.unmatched(want.id, "可用于交换的线索价值不足");
+        }
+        if (!autoMatch) {
+            return ExchangeWantResult.unmatched(want.id, "暂无匹配线索");
+        }
+        wantQueues.computeIfAbsent(wantKey(want.industry, want.region, want.rating), k -> new ArrayDeque<>())
+                .addLast(want);
+        openWants.put(want.id, want);
+        return ExchangeWantResult.resting(want.id);
+    }
+
+    /**
+     * 新挂单到达后按先后顺序尝试撮合同桶同评级的等待需求
+     */
+    private void matchRestingWants(long leadId) {
+        int slot = book.slotOf(leadId);
+        long key = wantKey(book.industryAt(slot), book.regionAt(slot), book.ratingAt(slot));
+        ArrayDeque<Want> queue = wantQueues.get(key);
+        if (queue == null) {
+            return;
+        }
+        long ownerId = book.ownerAt(slot);
+        long deadline = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(matchTimeoutHours);
+        Iterator<Want> iterator = queue.iterator();
+        int scanned = 0;
+        while (iterator.hasNext() && scanned++ < MAX_WANT_SCAN) {
+            Want want = iterator.next();
+            if (want.cancelled || want.createdAt < deadline) {
+                iterator.remove();
+                openWants.remove(want.id);
+                continue;
+            }
+            if (want.applicantId == ownerId) {
+                continue;
+            }
+            if (tryMatch(want, slot) != null) {
+                iterator.remove();
+                openWants.remove(want.id);
+                break;
+            }
+        }
+        if (queue.isEmpty()) {
+            wantQueues.remove(key);
+        }
+    }
+
+    /**
+     * 以申请人的挂单覆盖目标线索价值，成功则从订单簿移除双方线索
+     */
+    private ExchangeMatch tryMatch(Want want, int slot) {
+        int targetValue = values[book.ratingAt(slot)];
+        long[] offer = book.selectCovering(want.applicantId, targetValue, values);
+        if (offer == null) {
+            return null;
+        }
+
+        long targetLeadId = book.leadIdAt(slot);
+        long targetOwnerId = book.ownerAt(slot);
+        List<Long> offerLeadIds = new ArrayList<>(offer.length);
+        int offerValue = 0;
+        for (long leadId : offer) {
+            offerValue += values[book.ratingOf(leadId)];
+            offerLeadIds.add(leadId);
+            book.removeOffer(leadId);
+        }
+        book.removeOffer(targetLeadId);
+
+        ExchangeMatch match = new ExchangeMatch(want.id, want.applicantId, targetLeadId, targetOwnerId,
+                targetValue, offerLeadIds, offerValue, System.currentTimeMillis());
+        matchedCount.incrementAndGet();
+        log.info("交换撮合成功: {}", match);
+        for (ExchangeMatchListener listener : listeners()) {
+            try {
+                listener.onMatch(match);
+            } catch (Exception e) {
+                log.error("交换撮合监听器执行失败: listener={}", listener.getClass().getSimpleName(), e);
+            }
+        }
+        return match;
+    }
+
+    private List<ExchangeMatchListener> listeners() {
+        if (listeners == null) {
+            listeners = listenerProvider.orderedStream().collect(Collectors.toList());
+        }
+        return listeners;
+    }
+
+    private void refreshStats() {
+        offerCount = book.size();
+        wantCount = openWants.size();
+        bucketCount = book.bucketCount();
+        ownerCount = book.ownerCount();
+    }
+
+    // ==================== 任务提交 ====================
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                drainWithdrawals();
+                return task.get();
+            } finally {
+                refreshStats();
+            }
+        }, eventLoop);
+    }
+
+    private void execute(Runnable task) {
+        try {
+            eventLoop.execute(() -> runTask(task));
+        } catch (RejectedExecutionException e) {
+            log.error("交换引擎队列已满，事件被丢弃: queueCapacity={}", queueCapacity);
+        }
+    }
+
+    private void runTask() {
+        runTask(() -> { });
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            drainWithdrawals();
+            task.run();
+        } catch (Exception e) {
+            log.error("交换引擎任务执行失败", e);
+        } finally {
+            refreshStats();
+        }
+    }
+
+    /**
+     * 在事件循环中执行所有待处理的线索撤出
+     */
+    private void drainWithdrawals() {
+        Long leadId;
+        while ((leadId = withdrawals.poll()) != null) {
+            book.removeOffer(leadId);
+        }
+    }
+
+    /**
+     * 线索在挂单事件入队之后是否被撤出过
+     */
+    private boolean isWithdrawnSince(long leadId, long seq) {
+        Long withdrawn = withdrawnAt.get(leadId);
+        return withdrawn != null && withdrawn > seq;
+    }
+
+    /**
+     * 需求队列键：桶键高位叠加评级（行业编码远小于2^29，不会冲突）
+     */
+    private static long wantKey(int industry, int region, int rating) {
+        return ExchangeOrderBook.bucketKey(industry, region) | ((long) rating << 61);
+    }
+
+    /**
+     * 交换需求（仅事件循环线程修改cancelled）
+     */
+    private static final class Want {
+        final long id;
+        final long applicantId;
+        final int industry;
+        final int region;
+        final int rating;
+        final long createdAt;
+        boolean cancelled;
+
+        Want(long id, long applicantId, int industry, int region, int rating, long createdAt) {
+            this.id = id;
+            this.applicantId = applicantId;
+            this.industry = industry;
+            this.region = region;
+            this.rating = rating;
+            this.createdAt = createdAt;
+        }
+    }
+}
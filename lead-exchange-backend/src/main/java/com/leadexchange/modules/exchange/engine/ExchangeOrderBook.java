@@ -0,0 +1,404 @@
+package com.leadexchange.modules.exchange.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 交换订单簿
+ * 按 行业 × 地区 × 评级 维护可交换线索（卖单），并按持有者维护同一批线索的索引
+ *
+ * 存储采用列式基本类型数组 + 槽位内嵌双向链表，单条线索约占40字节，
+ * 避免为每条挂单创建对象；同一桶内按挂单先后顺序（FIFO）撮合。
+ * 本类非线程安全，只允许交换引擎的事件循环线程访问。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class ExchangeOrderBook {
+
+    static final int NIL = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** 单次查找目标时最多跳过的同持有者线索数量 */
+    private static final int MAX_SCAN = 256;
+
+    private static final int R = LeadValueCalculator.RATING_COUNT;
+
+    // ==================== 列式存储 ====================
+
+    private long[] leadIds = new long[INITIAL_CAPACITY];
+    private long[] ownerIds = new long[INITIAL_CAPACITY];
+    private byte[] ratings = new byte[INITIAL_CAPACITY];
+    private int[] industries = new int[INITIAL_CAPACITY];
+    private int[] regions = new int[INITIAL_CAPACITY];
+
+    /** 桶内链表（空闲槽位复用bucketNext串联） */
+    private int[] bucketNext = new int[INITIAL_CAPACITY];
+    private int[] bucketPrev = new int[INITIAL_CAPACITY];
+
+    /** 持有者链表 */
+    private int[] ownerNext = new int[INITIAL_CAPACITY];
+    private int[] ownerPrev = new int[INITIAL_CAPACITY];
+
+    private int highWater;
+    private int freeHead = NIL;
+    private int size;
+
+    /** 线索ID -> 槽位 */
+    private final Map<Long, Integer> slotByLead = new HashMap<>();
+
+    /** 桶键 -> [head(A..D), tail(A..D)] */
+    private final Map<Long, int[]> buckets = new HashMap<>();
+
+    /** 持有者ID -> [head(A..D), tail(A..D), count(A..D)] */
+    private final Map<Long, int[]> owners = new HashMap<>();
+
+    /**
+     * 计算行业+地区的桶键
+     */
+    static long bucketKey(int industry, int region) {
+        return ((long) industry << 32) | (region & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 挂出线索（已存在时先撤销再重新挂出）
+     *
+     * @param leadId 线索ID
+     * @param ownerId 持有者ID
+     * @param rating 评级索引
+     * @param industry 行业编码
+     * @param region 地区编码
+     * @return 是否挂出成功
+     */
+    boolean addOffer(long leadId, long ownerId, int rating, int industry, int region) {
+        if (rating < 0 || rating >= R) {
+            return false;
+        }
+        removeOffer(leadId);
+
+        int slot = allocate();
+        leadIds[slot] = leadId;
+        ownerIds[slot] = ownerId;
+        ratings[slot] = (byte) rating;
+        industries[slot] = industry;
+        regions[slot] = region;
+
+        int[] bucket = buckets.computeIfAbsent(bucketKey(industry, region), k -> newList(2 * R));
+        link(bucket, rating, slot, bucketNext, bucketPrev);
+
+        int[] owner = owners.computeIfAbsent(ownerId, k -> newList(3 * R));
+        link(owner, rating, slot, ownerNext, ownerPrev);
+        owner[2 * R + rating]++;
+
+        slotByLead.put(leadId, slot);
+        size++;
+        return true;
+    }
+
+    /**
+     * 撤销线索挂单
+     *
+     * @param leadId 线索ID
+     * @return 是否存在并已撤销
+     */
+    boolean removeOffer(long leadId) {
+        Integer boxed = slotByLead.remove(leadId);
+        if (boxed == null) {
+            return false;
+        }
+        int slot = boxed;
+        int rating = ratings[slot];
+
+        long key = bucketKey(industries[slot], regions[slot]);
+        int[] bucket = buckets.get(key);
+        unlink(bucket, rating, slot, bucketNext, bucketPrev);
+        if (isEmpty(bucket)) {
+            buckets.remove(key);
+        }
+
+        long ownerId = ownerIds[slot];
+        int[] owner = owners.get(ownerId);
+        unlink(owner, rating, slot, ownerNext, ownerPrev);
+        owner[2 * R + rating]--;
+        if (isEmpty(owner)) {
+            owners.remove(ownerId);
+        }
+
+        release(slot);
+        size--;
+        return true;
+    }
+
+    boolean containsOffer(long leadId) {
+        return slotByLead.containsKey(leadId);
+    }
+
+    /**
+     * 查询挂单线索所在槽位
+     *
+     * @param leadId 线索ID
+     * @return 槽位，不存在返回NIL
+     */
+    int slotOf(long leadId) {
+        Integer slot = slotByLead.get(leadId);
+        return slot != null ? slot : NIL;
+    }
+
+    /**
+     * 查询挂单线索的持有者
+     *
+     * @param leadId 线索ID
+     * @return 持有者ID，不存在返回null
+     */
+    Long ownerOf(long leadId) {
+        Integer slot = slotByLead.get(leadId);
+        return slot != null ? ownerIds[slot] : null;
+    }
+
+    /**
+     * 查询挂单线索的评级索引
+     *
+     * @param leadId 线索ID
+     * @return 评级索引，不存在返回NO_RATING
+     */
+    int ratingOf(long leadId) {
+        Integer slot = slotByLead.get(leadId);
+        return slot != null ? ratings[slot] : LeadValueCalculator.NO_RATING;
+    }
+
+    /**
+     * 在指定桶中查找最早挂出、且不属于指定用户的线索
+     *
+     * @param industry 行业编码
+     * @param region 地区编码
+     * @param rating 评级索引
+     * @param excludeOwnerId 排除的持有者ID（申请人自己）
+     * @return 槽位，未找到返回NIL
+     */
+    int findTarget(int industry, int region, int rating, long excludeOwnerId) {
+        int[] bucket = buckets.get(bucketKey(industry, region));
+        if (bucket == null) {
+            return NIL;
+        }
+        int scanned = 0;
+        for (int slot = bucket[rating]; slot != NIL && scanned < MAX_SCAN; slot = bucketNext[slot], scanned++) {
+            if (ownerIds[slot] != excludeOwnerId) {
+                return slot;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * 按挂出顺序收集指定桶中不属于指定用户的线索槽位
+     *
+     * @param industry 行业编码
+     * @param region 地区编码
+     * @param rating 评级索引
+     * @param excludeOwnerId 排除的持有者ID
+     * @param out 输出槽位数组，最多收集其长度个
+     * @return 收集到的数量
+     */
+    int collectSlots(int industry, int region, int rating, long excludeOwnerId, int[] out) {
+        int[] bucket = buckets.get(bucketKey(industry, region));
+        if (bucket == null) {
+            return 0;
+        }
+        int count = 0;
+        int scanned = 0;
+        for (int slot = bucket[rating]; slot != NIL && count < out.length && scanned < MAX_SCAN;
+             slot = bucketNext[slot], scanned++) {
+            if (ownerIds[slot] != excludeOwnerId) {
+                out[count++] = slot;
+            }
+        }
+        return count;
+    }
+
+    long leadIdAt(int slot) {
+        return leadIds[slot];
+    }
+
+    long ownerAt(int slot) {
+        return ownerIds[slot];
+    }
+
+    int ratingAt(int slot) {
+        return ratings[slot];
+    }
+
+    int industryAt(int slot) {
+        return industries[slot];
+    }
+
+    int regionAt(int slot) {
+        return regions[slot];
+    }
+
+    /**
+     * 从持有者的挂单中选出价值总和不低于目标价值、且超出最少的线索组合
+     * 价值相同的组合优先选择线索数量更少的；同评级内优先选择最早挂出的线索
+     *
+     * @param ownerId 持有者ID
+     * @param targetValue 目标价值
+     * @param values 各评级价值系数
+     * @return 选中的线索ID，无法覆盖目标价值时返回null
+     */
+    long[] selectCovering(long ownerId, int targetValue, int[] values) {
+        int[] owner = owners.get(ownerId);
+        if (owner == null || targetValue <= 0) {
+            return null;
+        }
+
+        // 每个评级最多需要 ceil(target / value) 条，更多必然不是最优解
+        int[] usable = new int[R];
+        int maxValue = 0;
+        for (int r = 0; r < R; r++) {
+            if (values[r] > 0) {
+                usable[r] = Math.min(owner[2 * R + r], (targetValue + values[r] - 1) / values[r]);
+                maxValue = Math.max(maxValue, values[r]);
+            }
+        }
+        if (maxValue == 0) {
+            return null;
+        }
+
+        // 最优组合的总价值一定小于 target + maxValue
+        int limit = targetValue + maxValue;
+        int[] best = new int[limit];
+        int[] counts = new int[limit * R];
+        Arrays.fill(best, -1);
+        best[0] = 0;
+        for (int r = 0; r < R; r++) {
+            int v = values[r];
+            for (int k = 0; k < usable[r]; k++) {
+                for (int s = limit - 1; s >= v; s--) {
+                    int from = best[s - v];
+                    if (from >= 0 && (best[s] < 0 || from + 1 < best[s])) {
+                        best[s] = from + 1;
+                        System.arraycopy(counts, (s - v) * R, counts, s * R, R);
+                        counts[s * R + r]++;
+                    }
+                }
+            }
+        }
+
+        int chosen = -1;
+        for (int s = targetValue; s < limit; s++) {
+            if (best[s] >= 0) {
+                chosen = s;
+                break;
+            }
+        }
+        if (chosen < 0) {
+            return null;
+        }
+
+        long[] result = new long[best[chosen]];
+        int n = 0;
+        for (int r = 0; r < R; r++) {
+            int need = counts[chosen * R + r];
+            for (int slot = owner[r]; slot != NIL && need > 0; slot = ownerNext[slot], need--) {
+                result[n++] = leadIds[slot];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 持有者在指定评级下的挂单数量
+     */
+    int ownerCount(long ownerId, int rating) {
+        int[] owner = owners.get(ownerId);
+        return owner != null ? owner[2 * R + rating] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    int ownerCount() {
+        return owners.size();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static int[] newList(int length) {
+        int[] list = new int[length];
+        Arrays.fill(list, 0, 2 * R, NIL);
+        return list;
+    }
+
+    private static boolean isEmpty(int[] list) {
+        for (int r = 0; r < R; r++) {
+            if (list[r] != NIL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void link(int[] list, int rating, int slot, int[] next, int[] prev) {
+        int tail = list[R + rating];
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail != NIL) {
+            next[tail] = slot;
+        } else {
+            list[rating] = slot;
+        }
+        list[R + rating] = slot;
+    }
+
+    private static void unlink(int[] list, int rating, int slot, int[] next, int[] prev) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            list[rating] = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            list[R + rating] = p;
+        }
+    }
+
+    private int allocate() {
+        if (freeHead != NIL) {
+            int slot = freeHead;
+            freeHead = bucketNext[slot];
+            return slot;
+        }
+        if (highWater == leadIds.length) {
+            grow();
+        }
+        return highWater++;
+    }
+
+    private void release(int slot) {
+        bucketNext[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private void grow() {
+        int capacity = leadIds.length * 2;
+        leadIds = Arrays.copyOf(leadIds, capacity);
+        ownerIds = Arrays.copyOf(ownerIds, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        industries = Arrays.copyOf(industries, capacity);
+        regions = Arrays.copyOf(regions, capacity);
+        bucketNext = Arrays.copyOf(bucketNext, capacity);
+        bucketPrev = Arrays.copyOf(bucketPrev, capacity);
+        ownerNext = Arrays.copyOf(ownerNext, capacity);
+        ownerPrev = Arrays.copyOf(ownerPrev, capacity);
+    }
+}
@@ -0,0 +1,222 @@
+package com.leadexchange.modules.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 交换需求图快照
+ * 节点为用户，边 u -> v 表示 u 的某条等待需求可由 v 挂出的线索满足。
+ * 构建完成后不可变，以CSR（压缩邻接表）形式存储，可被多个线程并发读取。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class ExchangeWantGraph {
+
+    /** 节点 -> 用户ID */
+    private final long[] userIds;
+
+    /** 节点出边起始位置，长度为节点数+1 */
+    private final int[] edgeOffsets;
+
+    private final int[] edgeTargets;
+    private final long[] edgeWantIds;
+    private final long[] edgeLeadIds;
+    private final int[] edgeValues;
+
+    private ExchangeWantGraph(long[] userIds, int[] edgeOffsets, int[] edgeTargets,
+                              long[] edgeWantIds, long[] edgeLeadIds, int[] edgeValues) {
+        this.userIds = userIds;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeTargets = edgeTargets;
+        this.edgeWantIds = edgeWantIds;
+        this.edgeLeadIds = edgeLeadIds;
+        this.edgeValues = edgeValues;
+    }
+
+    int nodeCount() {
+        return userIds.length;
+    }
+
+    int edgeCount() {
+        return edgeTargets.length;
+    }
+
+    long userId(int node) {
+        return userIds[node];
+    }
+
+    int edgeStart(int node) {
+        return edgeOffsets[node];
+    }
+
+    int edgeEnd(int node) {
+        return edgeOffsets[node + 1];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    long edgeWantId(int edge) {
+        return edgeWantIds[edge];
+    }
+
+    long edgeLeadId(int edge) {
+        return edgeLeadIds[edge];
+    }
+
+    int edgeValue(int edge) {
+        return edgeValues[edge];
+    }
+
+    /**
+     * 计算强连通分量（迭代式Tarjan算法），交换环只可能出现在同一分量内
+     *
+     * @param componentOf 输出参数，节点所属分量编号（长度为节点数）
+     * @return 节点数不少于2的强连通分量
+     */
+    List<int[]> stronglyConnectedComponents(int[] componentOf) {
+        int n = nodeCount();
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] edgeCursor = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(componentOf, -1);
+
+        List<int[]> components = new ArrayList<>();
+        int counter = 0;
+        int sp = 0;
+        int componentId = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callStack[csp] = root;
+            edgeCursor[csp++] = edgeOffsets[root];
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (edgeCursor[csp - 1] < edgeOffsets[v + 1]) {
+                    int w = edgeTargets[edgeCursor[csp - 1]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callStack[csp] = w;
+                        edgeCursor[csp++] = edgeOffsets[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                csp--;
+                if (csp > 0) {
+                    int parent = callStack[csp - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int start = sp;
+                    do {
+                        start--;
+                    } while (stack[start] != v);
+                    int[] component = Arrays.copyOfRange(stack, start, sp);
+                    for (int node : component) {
+                        onStack[node] = false;
+                        componentOf[node] = componentId;
+                    }
+                    sp = start;
+                    componentId++;
+                    if (component.length >= 2) {
+                        Arrays.sort(component);
+                        components.add(component);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * 需求图构建器（仅由交换引擎事件循环线程使用）
+     */
+    static final class Builder {
+
+        private final Map<Long, Integer> nodeIndex = new HashMap<>();
+        private long[] users = new long[64];
+        private int[] from = new int[256];
+        private int[] to = new int[256];
+        private long[] wantIds = new long[256];
+        private long[] leadIds = new long[256];
+        private int[] values = new int[256];
+        private int edges;
+
+        void addEdge(long receiverId, long giverId, long wantId, long leadId, int value) {
+            if (edges == from.length) {
+                int capacity = edges * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                wantIds = Arrays.copyOf(wantIds, capacity);
+                leadIds = Arrays.copyOf(leadIds, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            from[edges] = node(receiverId);
+            to[edges] = node(giverId);
+            wantIds[edges] = wantId;
+            leadIds[edges] = leadId;
+            values[edges] = value;
+            edges++;
+        }
+
+        ExchangeWantGraph build() {
+            int n = nodeIndex.size();
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < edges; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, n);
+            int[] targets = new int[edges];
+            long[] edgeWants = new long[edges];
+            long[] edgeLeads = new long[edges];
+            int[] edgeValues = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                int pos = cursor[from[e]]++;
+                targets[pos] = to[e];
+                edgeWants[pos] = wantIds[e];
+                edgeLeads[pos] = leadIds[e];
+                edgeValues[pos] = values[e];
+            }
+            return new ExchangeWantGraph(Arrays.copyOf(users, n), offsets, targets,
+                    edgeWants, edgeLeads, edgeValues);
+        }
+
+        private int node(long userId) {
+            Integer existing = nodeIndex.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            int node = nodeIndex.size();
+            if (node == users.length) {
+                users = Arrays.copyOf(users, node * 2);
+            }
+            users[node] = userId;
+            nodeIndex.put(userId, node);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.leadexchange.modules.exchange.engine;
+
+import java.io.Serializable;
+
+/**
+ * 交换需求提交结果
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ExchangeWantResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 需求ID */
+    private final long wantId;
+
+    /** 是否已挂单等待自动撮合 */
+    private final boolean resting;
+
+    /** 撮合结果，未撮合时为null */
+    private final ExchangeMatch match;
+
+    /** 结果说明 */
+    private final String message;
+
+    private ExchangeWantResult(long wantId, boolean resting, ExchangeMatch match, String message) {
+        this.wantId = wantId;
+        this.resting = resting;
+        this.match = match;
+        this.message = message;
+    }
+
+    public static ExchangeWantResult matched(ExchangeMatch match) {
+        return new ExchangeWantResult(match.getWantId(), false, match, "撮合成功");
+    }
+
+    public static ExchangeWantResult resting(long wantId) {
+        return new ExchangeWantResult(wantId, true, null, "暂无匹配线索，已挂单等待自动撮合");
+    }
+
+    public static ExchangeWantResult unmatched(long wantId, String message) {
+        return new ExchangeWantResult(wantId, false, null, message);
+    }
+
+    public long getWantId() {
+        return wantId;
+    }
+
+    public boolean isResting() {
+        return resting;
+    }
+
+    public boolean isMatched() {
+        return match != null;
+    }
+
+    public ExchangeMatch getMatch() {
+        return match;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,86 @@
+package com.leadexchange.modules.exchange.engine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 线索价值计算器
+ * 根据评级价值系数（A=8，B=4，C=2，D=1）计算线索的交换价值
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadValueCalculator {
+
+    /** 评级数量（A、B、C、D） */
+    public static final int RATING_COUNT = 4;
+
+    /** 无效评级索引 */
+    public static final int NO_RATING = -1;
+
+    private static final String[] RATINGS = {"A", "B", "C", "D"};
+
+    private final int[] values;
+
+    public LeadValueCalculator(@Value("${app.business.rating.score.a:8}") int valueA,
+                               @Value("${app.business.rating.score.b:4}") int valueB,
+                               @Value("${app.business.rating.score.c:2}") int valueC,
+                               @Value("${app.business.rating.score.d:1}") int valueD) {
+        this.values = new int[]{valueA, valueB, valueC, valueD};
+    }
+
+    /**
+     * 将评级转换为索引（A=0，B=1，C=2，D=3）
+     *
+     * @param rating 评级
+     * @return 评级索引，无效评级返回NO_RATING
+     */
+    public static int ratingIndex(String rating) {
+        if (rating == null || rating.length() != 1) {
+            return NO_RATING;
+        }
+        int index = Character.toUpperCase(rating.charAt(0)) - 'A';
+        return index >= 0 && index < RATING_COUNT ? index : NO_RATING;
+    }
+
+    /**
+     * 将评级索引还原为评级
+     *
+     * @param ratingIndex 评级索引
+     * @return 评级
+     */
+    public static String ratingOf(int ratingIndex) {
+        return ratingIndex >= 0 && ratingIndex < RATING_COUNT ? RATINGS[ratingIndex] : null;
+    }
+
+    /**
+     * 计算评级对应的价值
+     *
+     * @param rating 评级
+     * @return 价值系数，无效评级返回0
+     */
+    public int valueOf(String rating) {
+        return valueOf(ratingIndex(rating));
+    }
+
+    /**
+     * 计算评级索引对应的价值
+     *
+     * @param ratingIndex 评级索引
+     * @return 价值系数，无效评级返回0
+     */
+    public int valueOf(int ratingIndex) {
+        return ratingIndex >= 0 && ratingIndex < RATING_COUNT ? values[ratingIndex] : 0;
+    }
+
+    /**
+     * 获取全部评级价值系数（按A、B、C、D顺序）
+     *
+     * @return 价值系数副本
+     */
+    public int[] values() {
+        return values.clone();
+    }
+}
@@ -0,0 +1,110 @@
+package com.leadexchange.modules.exchange.engine;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多方循环交换
+ * 参与者首尾相接：每位参与者从下一位获得目标线索，同时向上一位提供线索
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class MultiPartyExchange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 交换环ID */
+    private final String cycleId;
+
+    /** 交换环中的各笔转移，按环顺序排列 */
+    private final List<Leg> legs;
+
+    /** 撮合时间（毫秒时间戳） */
+    private final long matchedAt;
+
+    public MultiPartyExchange(String cycleId, List<Leg> legs, long matchedAt) {
+        this.cycleId = cycleId;
+        this.legs = Collections.unmodifiableList(legs);
+        this.matchedAt = matchedAt;
+    }
+
+    public String getCycleId() {
+        return cycleId;
+    }
+
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    public long getMatchedAt() {
+        return matchedAt;
+    }
+
+    public int size() {
+        return legs.size();
+    }
+
+    @Override
+    public String toString() {
+        return "MultiPartyExchange{cycleId=" + cycleId + ", legs=" + legs + "}";
+    }
+
+    /**
+     * 交换环中的一笔线索转移：giver 将 leadId 转给 receiver，满足 receiver 的需求 wantId
+     */
+    public static class Leg implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 需求ID */
+        private final long wantId;
+
+        /** 接收方（需求方）用户ID */
+        private final long receiverId;
+
+        /** 提供方用户ID */
+        private final long giverId;
+
+        /** 转移的线索ID */
+        private final long leadId;
+
+        /** 线索价值 */
+        private final int value;
+
+        public Leg(long wantId, long receiverId, long giverId, long leadId, int value) {
+            this.wantId = wantId;
+            this.receiverId = receiverId;
+            this.giverId = giverId;
+            this.leadId = leadId;
+            this.value = value;
+        }
+
+        public long getWantId() {
+            return wantId;
+        }
+
+        public long getReceiverId() {
+            return receiverId;
+        }
+
+        public long getGiverId() {
+            return giverId;
+        }
+
+        public long getLeadId() {
+            return leadId;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return giverId + "->" + receiverId + ":" + leadId + "(" + value + ")";
+        }
+    }
+}
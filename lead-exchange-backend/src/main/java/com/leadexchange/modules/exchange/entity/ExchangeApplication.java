@@ -0,0 +1,188 @@
+package com.leadexchange.modules.exchange.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 交换申请实体类
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_exchange_application")
+public class ExchangeApplication extends BaseEntity {
+
+    /**
+     * 申请人ID
+     */
+    @TableField("applicant_id")
+    private Long applicantId;
+
+    /**
+     * 目标线索ID
+     */
+    @TableField("target_lead_id")
+    private Long targetLeadId;
+
+    /**
+     * 目标线索持有者ID
+     */
+    @TableField("target_owner_id")
+    private Long targetOwnerId;
+
+    /**
+     * 提供的线索ID（逗号分隔）
+     */
+    @TableField("offer_lead_ids")
+    private String offerLeadIds;
+
+    /**
+     * 目标线索价值
+     */
+    @TableField("target_value")
+    private Integer targetValue;
+
+    /**
+     * 提供线索总价值
+     */
+    @TableField("offer_value")
+    private Integer offerValue;
+
+    /**
+     * 多方交换环ID（两两交换为空）
+     */
+    @TableField("cycle_id")
+    private String cycleId;
+
+    /**
+     * 申请状态（1：待确认，2：已同意，3：已拒绝，4：已过期，5：已完成）
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 线索预占防护令牌
+     */
+    @TableField("reserve_token")
+    private Long reserveToken;
+
+    /**
+     * 申请到期时间
+     */
+    @TableField("expire_time")
+    private LocalDateTime expireTime;
+
+    /**
+     * 处理时间
+     */
+    @TableField("process_time")
+    private LocalDateTime processTime;
+
+    /**
+     * 备注
+     */
+    @TableField("remark")
+    private String remark;
+
+    // Getter and Setter methods
+    public Long getApplicantId() {
+        return applicantId;
+    }
+
+    public void setApplicantId(Long applicantId) {
+        this.applicantId = applicantId;
+    }
+
+    public Long getTargetLeadId() {
+        return targetLeadId;
+    }
+
+    public void setTargetLeadId(Long targetLeadId) {
+        this.targetLeadId = targetLeadId;
+    }
+
+    public Long getTargetOwnerId() {
+        return targetOwnerId;
+    }
+
+    public void setTargetOwnerId(Long targetOwnerId) {
+        this.targetOwnerId = targetOwnerId;
+    }
+
+    public String getOfferLeadIds() {
+        return offerLeadIds;
+    }
+
+    public void setOfferLeadIds(String offerLeadIds) {
+        this.offerLeadIds = offerLeadIds;
+    }
+
+    public Integer getTargetValue() {
+        return targetValue;
+    }
+
+    public void setTargetValue(Integer targetValue) {
+        this.targetValue = targetValue;
+    }
+
+    public Integer getOfferValue() {
+        return offerValue;
+    }
+
+    public void setOfferValue(Integer offerValue) {
+        this.offerValue = offerValue;
+    }
+
+    public String getCycleId() {
+        return cycleId;
+    }
+
+    public void setCycleId(String cycleId) {
+        this.cycleId = cycleId;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Long getReserveToken() {
+        return reserveToken;
+    }
+
+    public void setReserveToken(Long reserveToken) {
+        this.reserveToken = reserveToken;
+    }
+
+    public LocalDateTime getExpireTime() {
+        return expireTime;
+    }
+
+    public void setExpireTime(LocalDateTime expireTime) {
+        this.expireTime = expireTime;
+    }
+
+    public LocalDateTime getProcessTime() {
+        return processTime;
+    }
+
+    public void setProcessTime(LocalDateTime processTime) {
+        this.processTime = processTime;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.leadexchange.modules.exchange.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+/**
+ * 交换历史实体类
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_exchange_history")
+public class ExchangeHistory extends BaseEntity {
+
+    /**
+     * 交换申请ID
+     */
+    @TableField("exchange_id")
+    private Long exchangeId;
+
+    /**
+     * 操作用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 操作类型（CREATE、ACCEPT、REJECT、CANCEL、COMPLETE、MODIFY）
+     */
+    @TableField("action")
+    private String action;
+
+    /**
+     * 操作描述
+     */
+    @TableField("description")
+    private String description;
+
+    /**
+     * 扩展信息（JSON）
+     */
+    @TableField("metadata")
+    private String metadata;
+
+    // Getter and Setter methods
+    public Long getExchangeId() {
+        return exchangeId;
+    }
+
+    public void setExchangeId(Long exchangeId) {
+        this.exchangeId = exchangeId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+}
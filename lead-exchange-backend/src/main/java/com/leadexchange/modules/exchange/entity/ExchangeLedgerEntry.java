@@ -0,0 +1,115 @@
+package com.leadexchange.modules.exchange.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+/**
+ * 交换价值账本流水实体类（只追加，不修改）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_exchange_ledger")
+public class ExchangeLedgerEntry extends BaseEntity {
+
+    /**
+     * 账户用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 用户内流水序号（按提交顺序连续递增，见 biz_exchange_ledger_sequence）
+     */
+    @TableField("user_seq")
+    private Long userSeq;
+
+    /**
+     * 交易对方用户ID
+     */
+    @TableField("counterparty_id")
+    private Long counterpartyId;
+
+    /**
+     * 交换申请ID
+     */
+    @TableField("exchange_id")
+    private Long exchangeId;
+
+    /**
+     * 流水类型（1：贷记-转出线索，2：借记-转入线索）
+     */
+    @TableField("entry_type")
+    private Integer entryType;
+
+    /**
+     * 变动价值（贷记为正，借记为负）
+     */
+    @TableField("amount")
+    private Integer amount;
+
+    /**
+     * 备注
+     */
+    @TableField("remark")
+    private String remark;
+
+    // Getter and Setter methods
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserSeq() {
+        return userSeq;
+    }
+
+    public void setUserSeq(Long userSeq) {
+        this.userSeq = userSeq;
+    }
+
+    public Long getCounterpartyId() {
+        return counterpartyId;
+    }
+
+    public void setCounterpartyId(Long counterpartyId) {
+        this.counterpartyId = counterpartyId;
+    }
+
+    public Long getExchangeId() {
+        return exchangeId;
+    }
+
+    public void setExchangeId(Long exchangeId) {
+        this.exchangeId = exchangeId;
+    }
+
+    public Integer getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(Integer entryType) {
+        this.entryType = entryType;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public String getRemark() {
+        return remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+}
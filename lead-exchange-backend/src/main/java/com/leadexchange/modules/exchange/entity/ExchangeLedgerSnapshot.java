@@ -0,0 +1,74 @@
+package com.leadexchange.modules.exchange.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+/**
+ * 交换价值账本快照实体类
+ * 记录某用户截至流水序号 lastSeq（含）的累计余额，余额 = 快照余额 + 之后流水之和
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_exchange_ledger_snapshot")
+public class ExchangeLedgerSnapshot extends BaseEntity {
+
+    /**
+     * 账户用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 累计余额
+     */
+    @TableField("balance")
+    private Long balance;
+
+    /**
+     * 快照覆盖的最后一条流水的用户内序号
+     */
+    @TableField("last_seq")
+    private Long lastSeq;
+
+    /**
+     * 快照覆盖的流水条数
+     */
+    @TableField("entry_count")
+    private Long entryCount;
+
+    // Getter and Setter methods
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Long balance) {
+        this.balance = balance;
+    }
+
+    public Long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(Long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    public Long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(Long entryCount) {
+        this.entryCount = entryCount;
+    }
+}
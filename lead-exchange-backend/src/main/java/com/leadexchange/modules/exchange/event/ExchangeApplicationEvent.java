@@ -0,0 +1,50 @@
+package com.leadexchange.modules.exchange.event;
+
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.lead.event.LeadEvent;
+
+import java.util.Locale;
+
+/**
+ * 交换申请事件（以目标线索为聚合，与该线索的其他事件保持顺序）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class ExchangeApplicationEvent extends LeadEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 操作类型（CREATE、ACCEPT、REJECT、COMPLETE） */
+    private String action;
+
+    private ExchangeApplication application;
+
+    public ExchangeApplicationEvent(String action, ExchangeApplication application, Long userId) {
+        super(application.getTargetLeadId(), userId);
+        this.action = action;
+        this.application = application;
+    }
+
+    @Override
+    public String getEventType() {
+        return "exchange.application." + action.toLowerCase(Locale.ROOT);
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public ExchangeApplication getApplication() {
+        return application;
+    }
+
+    public void setApplication(ExchangeApplication application) {
+        this.application = application;
+    }
+}
@@ -0,0 +1,109 @@
+package com.leadexchange.modules.exchange.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 交换申请Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface ExchangeApplicationMapper extends BaseMapper<ExchangeApplication> {
+
+    /**
+     * 查询已到期但仍未处理完成的申请
+     *
+     * @param currentTime 当前时间
+     * @param limit 限制数量
+     * @return 申请列表
+     */
+    @Select("SELECT * FROM biz_exchange_application " +
+            "WHERE status IN (1, 2) AND expire_time < #{currentTime} AND deleted = 0 " +
+            "ORDER BY expire_time LIMIT #{limit}")
+    List<ExchangeApplication> findExpiredApplications(@Param("currentTime") LocalDateTime currentTime,
+                                                      @Param("limit") Integer limit);
+
+    /**
+     * 将同一预占令牌下未处理完成的申请标记为已过期
+     *
+     * @param reserveToken 预占令牌
+     * @return 更新数量
+     */
+    @Update("UPDATE biz_exchange_application SET status = 4, process_time = NOW(), update_time = NOW() " +
+            "WHERE reserve_token = #{reserveToken} AND status IN (1, 2) AND deleted = 0")
+    int expireByReserveToken(@Param("reserveToken") Long reserveToken);
+
+    /**
+     * 目标线索持有者同意申请：待确认 -> 已同意
+     *
+     * @param id 申请ID
+     * @param ownerId 目标线索持有者ID
+     * @return 更新数量
+     */
+    @Update("UPDATE biz_exchange_application SET status = 2, process_time = NOW(), update_time = NOW(), " +
+            "update_by = #{ownerId}, version = version + 1 " +
+            "WHERE id = #{id} AND target_owner_id = #{ownerId} AND status = 1 AND expire_time > NOW() AND deleted = 0")
+    int approveApplication(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    /**
+     * 目标线索持有者拒绝申请：待确认 -> 已拒绝
+     *
+     * @param id 申请ID
+     * @param ownerId 目标线索持有者ID
+     * @return 更新数量
+     */
+    @Update("UPDATE biz_exchange_application SET status = 3, process_time = NOW(), update_time = NOW(), " +
+            "update_by = #{ownerId}, version = version + 1 " +
+            "WHERE id = #{id} AND target_owner_id = #{ownerId} AND status = 1 AND deleted = 0")
+    int rejectApplication(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    /**
+     * 批量完成申请：已同意 -> 已完成
+     *
+     * @param ids 申请ID列表
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE biz_exchange_application SET status = 5, process_time = NOW(), update_time = NOW(), " +
+            "version = version + 1 WHERE status = 2 AND deleted = 0 AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int completeApplications(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询已同意、尚未到期、等待结算的申请ID
+     *
+     * @param currentTime 当前时间
+     * @param limit 限制数量
+     * @return 申请ID列表
+     */
+    @Select("SELECT id FROM biz_exchange_application " +
+            "WHERE status = 2 AND expire_time > #{currentTime} AND deleted = 0 " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Long> findSettleableApplicationIds(@Param("currentTime") LocalDateTime currentTime,
+                                            @Param("limit") Integer limit);
+
+    /**
+     * 查询以指定线索为目标、仍在进行中（待确认、已同意）的申请人
+     * 只返回目标线索ID与申请人ID，用于线索删除或下架时通知交换对手方
+     *
+     * @param leadIds 目标线索ID列表
+     * @return 申请列表
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT target_lead_id, applicant_id FROM biz_exchange_application " +
+            "WHERE status IN (1, 2) AND deleted = 0 AND target_lead_id IN " +
+            "<foreach collection='leadIds' item='leadId' open='(' separator=',' close=')'>#{leadId}</foreach>" +
+            "</script>")
+    List<ExchangeApplication> findOpenApplicants(@Param("leadIds") List<Long> leadIds);
+}
@@ -0,0 +1,36 @@
+package com.leadexchange.modules.exchange.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.exchange.entity.ExchangeHistory;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 交换历史Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface ExchangeHistoryMapper extends BaseMapper<ExchangeHistory> {
+
+    /**
+     * 批量插入交换历史（单条多行INSERT，审计字段不经过自动填充，需显式写入）
+     *
+     * @param histories 交换历史列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO biz_exchange_history (exchange_id, user_id, action, description, metadata, " +
+            "create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='histories' item='item' separator=','>" +
+            "(#{item.exchangeId}, #{item.userId}, #{item.action}, #{item.description}, #{item.metadata}, " +
+            "NOW(), NOW(), #{item.createBy}, #{item.createBy}, 0, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("histories") List<ExchangeHistory> histories);
+}
@@ -0,0 +1,85 @@
+package com.leadexchange.modules.exchange.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerEntry;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerSnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 交换价值账本流水Mapper接口
+ * 每个用户的流水带有连续的用户内序号（user_seq），序号由 biz_exchange_ledger_sequence 计数行分配：
+ * 分配时对计数行加行锁直到事务提交，同一用户的序号因此按提交顺序可见，回滚时计数一并回滚，序号没有空洞
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface ExchangeLedgerMapper extends BaseMapper<ExchangeLedgerEntry> {
+
+    /**
+     * 批量追加流水（单条多行INSERT，审计字段不经过自动填充，需显式写入）
+     *
+     * @param entries 流水列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO biz_exchange_ledger (user_id, user_seq, counterparty_id, exchange_id, entry_type, amount, remark, " +
+            "create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='entries' item='item' separator=','>" +
+            "(#{item.userId}, #{item.userSeq}, #{item.counterpartyId}, #{item.exchangeId}, #{item.entryType}, #{item.amount}, " +
+            "#{item.remark}, NOW(), NOW(), #{item.createBy}, #{item.createBy}, 0, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("entries") List<ExchangeLedgerEntry> entries);
+
+    /**
+     * 为用户预留连续的流水序号（计数行加行锁，持有到事务提交）
+     *
+     * @param userId 用户ID
+     * @param count 预留数量
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO biz_exchange_ledger_sequence (user_id, last_seq) VALUES (#{userId}, #{count}) " +
+            "ON DUPLICATE KEY UPDATE last_seq = last_seq + #{count}")
+    int reserveSequence(@Param("userId") Long userId, @Param("count") Integer count);
+
+    /**
+     * 查询用户已分配的最大流水序号（在 reserveSequence 之后、同一事务内调用）
+     *
+     * @param userId 用户ID
+     * @return 最大序号
+     */
+    @Select("SELECT last_seq FROM biz_exchange_ledger_sequence WHERE user_id = #{userId}")
+    Long selectLastSequence(@Param("userId") Long userId);
+
+    /**
+     * 汇总某用户在指定序号之后的增量（走 user_id + user_seq 唯一索引的范围扫描）
+     *
+     * @param userId 用户ID
+     * @param afterSeq 起始流水序号（不含）
+     * @return 增量（balance为变动合计，lastSeq为最后一条流水序号，entryCount为流水条数）
+     */
+    @Select("SELECT #{userId} AS user_id, COALESCE(SUM(amount), 0) AS balance, " +
+            "COALESCE(MAX(user_seq), #{afterSeq}) AS last_seq, COUNT(*) AS entry_count " +
+            "FROM biz_exchange_ledger WHERE user_id = #{userId} AND user_seq > #{afterSeq} AND deleted = 0")
+    ExchangeLedgerSnapshot sumTail(@Param("userId") Long userId, @Param("afterSeq") Long afterSeq);
+
+    /**
+     * 查询快照之后积累流水较多、需要生成新快照的用户
+     *
+     * @param threshold 流水条数阈值
+     * @param limit 限制数量
+     * @return 用户ID列表
+     */
+    @Select("SELECT l.user_id FROM biz_exchange_ledger l " +
+            "LEFT JOIN biz_exchange_ledger_snapshot s ON s.user_id = l.user_id AND s.deleted = 0 " +
+            "WHERE l.user_seq > COALESCE(s.last_seq, 0) AND l.deleted = 0 " +
+            "GROUP BY l.user_id HAVING COUNT(*) >= #{threshold} LIMIT #{limit}")
+    List<Long> findSnapshotCandidates(@Param("threshold") Integer threshold, @Param("limit") Integer limit);
+}
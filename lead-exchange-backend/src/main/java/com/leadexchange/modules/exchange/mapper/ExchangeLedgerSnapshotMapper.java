@@ -0,0 +1,40 @@
+package com.leadexchange.modules.exchange.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 交换价值账本快照Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface ExchangeLedgerSnapshotMapper extends BaseMapper<ExchangeLedgerSnapshot> {
+
+    /**
+     * 根据用户ID查询快照
+     *
+     * @param userId 用户ID
+     * @return 快照，不存在时返回null
+     */
+    @Select("SELECT * FROM biz_exchange_ledger_snapshot WHERE user_id = #{userId} AND deleted = 0")
+    ExchangeLedgerSnapshot selectByUserId(@Param("userId") Long userId);
+
+    /**
+     * 推进快照，只允许向更大的流水序号推进（并发生成快照时旧结果不会覆盖新结果）
+     *
+     * @param snapshot 新快照
+     * @return 更新数量
+     */
+    @Update("UPDATE biz_exchange_ledger_snapshot SET balance = #{snapshot.balance}, " +
+            "last_seq = #{snapshot.lastSeq}, entry_count = #{snapshot.entryCount}, " +
+            "update_time = NOW(), version = version + 1 " +
+            "WHERE user_id = #{snapshot.userId} AND last_seq < #{snapshot.lastSeq} AND deleted = 0")
+    int advanceSnapshot(@Param("snapshot") ExchangeLedgerSnapshot snapshot);
+}
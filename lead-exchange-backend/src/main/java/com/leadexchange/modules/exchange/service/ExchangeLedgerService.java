@@ -0,0 +1,96 @@
+package com.leadexchange.modules.exchange.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerEntry;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 交换价值账本服务接口
+ * 每次交换按线索价值（A=8，B=4，C=2，D=1）记账：转出线索贷记，转入线索借记。
+ * 流水只追加；余额 = 最近快照 + 快照之后的流水，查询耗时与交易历史长度无关。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ExchangeLedgerService {
+
+    /**
+     * 为一批已结算的交换申请追加流水（单条多行INSERT，需在结算事务内调用）
+     *
+     * @param applications 已结算的交换申请
+     * @return 追加的流水条数
+     */
+    int recordSettlement(List<ExchangeApplication> applications);
+
+    /**
+     * 查询用户的交换价值余额
+     *
+     * @param userId 用户ID
+     * @return 余额
+     */
+    Balance getBalance(Long userId);
+
+    /**
+     * 分页查询用户的账本流水（按时间倒序）
+     *
+     * @param userId 用户ID
+     * @param page 分页参数
+     * @return 流水分页
+     */
+    IPage<ExchangeLedgerEntry> getEntries(Long userId, Page<ExchangeLedgerEntry> page);
+
+    /**
+     * 为快照之后积累流水较多的用户生成新快照
+     *
+     * @return 生成的快照数量
+     */
+    int compactSnapshots();
+
+    /**
+     * 交换价值余额
+     */
+    class Balance implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 用户ID */
+        private final long userId;
+
+        /** 余额（累计转出价值 - 累计转入价值） */
+        private final long balance;
+
+        /** 累计流水条数 */
+        private final long entryCount;
+
+        /** 计算余额时重放的快照之后流水条数 */
+        private final long replayedCount;
+
+        public Balance(long userId, long balance, long entryCount, long replayedCount) {
+            this.userId = userId;
+            this.balance = balance;
+            this.entryCount = entryCount;
+            this.replayedCount = replayedCount;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public long getBalance() {
+            return balance;
+        }
+
+        public long getEntryCount() {
+            return entryCount;
+        }
+
+        public long getReplayedCount() {
+            return replayedCount;
+        }
+    }
+}
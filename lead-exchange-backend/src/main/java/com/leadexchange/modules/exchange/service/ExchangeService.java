@@ -0,0 +1,60 @@
+package com.leadexchange.modules.exchange.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.leadexchange.modules.exchange.engine.ExchangeMatch;
+import com.leadexchange.modules.exchange.engine.MultiPartyExchange;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+
+import java.util.List;
+
+/**
+ * 交换申请服务接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ExchangeService extends IService<ExchangeApplication> {
+
+    /**
+     * 根据两两撮合结果创建交换申请，并预占双方线索
+     *
+     * @param match 撮合结果
+     * @return 交换申请，线索预占失败时返回null
+     */
+    ExchangeApplication createApplication(ExchangeMatch match);
+
+    /**
+     * 根据多方交换环创建交换申请（每笔转移一条），整环线索一次性预占
+     * 多方交换中每位参与者都得到了自己需求的线索，申请直接处于已同意状态
+     *
+     * @param exchange 多方交换
+     * @return 交换申请列表，线索预占失败时返回空列表
+     */
+    List<ExchangeApplication> createCycleApplications(MultiPartyExchange exchange);
+
+    /**
+     * 处理已到期的交换申请：释放线索预占并标记为已过期
+     *
+     * @return 过期的申请数量
+     */
+    int expireApplications();
+
+    /**
+     * 目标线索持有者同意交换申请，同意后进入结算队列
+     *
+     * @param applicationId 申请ID
+     * @param ownerId 目标线索持有者ID
+     * @return 是否同意成功（申请不存在、非本人线索、已处理或已到期时返回false）
+     */
+    boolean approveApplication(Long applicationId, Long ownerId);
+
+    /**
+     * 目标线索持有者拒绝交换申请，并释放线索预占
+     *
+     * @param applicationId 申请ID
+     * @param ownerId 目标线索持有者ID
+     * @return 是否拒绝成功
+     */
+    boolean rejectApplication(Long applicationId, Long ownerId);
+}
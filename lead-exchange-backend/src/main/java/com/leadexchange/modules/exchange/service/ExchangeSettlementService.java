@@ -0,0 +1,31 @@
+package com.leadexchange.modules.exchange.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 交换结算服务接口
+ * 已同意的交换申请进入结算队列，由结算线程合批执行线索归属转移、状态更新与历史记录
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface ExchangeSettlementService {
+
+    /**
+     * 提交待结算的交换申请
+     * 多方交换环中任一申请提交即可，结算时整环一起处理
+     *
+     * @param applicationIds 申请ID列表
+     * @return 是否全部进入结算队列，队列已满时返回false（未入队的申请由定时补偿任务重新提交）
+     */
+    boolean submit(Collection<Long> applicationIds);
+
+    /**
+     * 获取结算统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
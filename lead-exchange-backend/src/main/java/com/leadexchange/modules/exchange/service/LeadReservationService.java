@@ -0,0 +1,103 @@
+package com.leadexchange.modules.exchange.service;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 线索预占服务接口
+ * 交换申请期间把参与交换的线索从"已发布"切换为"交换中"，防止同一线索被多个交换同时占用
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface LeadReservationService {
+
+    /**
+     * 预占一组线索，全部成功或全部失败
+     *
+     * @param holderId 预占发起人ID
+     * @param leadIds 线索ID列表
+     * @return 预占结果，任一线索已被占用或状态不符时返回null
+     */
+    Reservation reserve(Long holderId, Collection<Long> leadIds);
+
+    /**
+     * 释放预占，仅释放仍由该令牌持有的线索
+     *
+     * @param token 防护令牌
+     * @param leadIds 线索ID列表
+     * @return 实际释放的线索数量
+     */
+    int release(Long token, Collection<Long> leadIds);
+
+    /**
+     * 交换结算完成后释放Redis租约（数据库中的线索状态已由结算更新）
+     *
+     * @param token 防护令牌
+     * @param leadIds 线索ID列表
+     */
+    void releaseLeases(Long token, Collection<Long> leadIds);
+
+    /**
+     * 校验线索当前仍由该令牌持有（写入前的防护检查）
+     *
+     * @param token 防护令牌
+     * @param leadIds 线索ID列表
+     * @return 是否全部持有
+     */
+    boolean isHeld(Long token, Collection<Long> leadIds);
+
+    /**
+     * 释放已到期的预占
+     *
+     * @return 释放的线索数量
+     */
+    int releaseExpired();
+
+    /**
+     * 线索预占结果
+     */
+    class Reservation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 防护令牌（全局单调递增） */
+        private final long token;
+
+        /** 预占发起人ID */
+        private final long holderId;
+
+        /** 已预占的线索ID（升序） */
+        private final List<Long> leadIds;
+
+        /** 到期时间 */
+        private final LocalDateTime expireTime;
+
+        public Reservation(long token, long holderId, List<Long> leadIds, LocalDateTime expireTime) {
+            this.token = token;
+            this.holderId = holderId;
+            this.leadIds = Collections.unmodifiableList(leadIds);
+            this.expireTime = expireTime;
+        }
+
+        public long getToken() {
+            return token;
+        }
+
+        public long getHolderId() {
+            return holderId;
+        }
+
+        public List<Long> getLeadIds() {
+            return leadIds;
+        }
+
+        public LocalDateTime getExpireTime() {
+            return expireTime;
+        }
+    }
+}
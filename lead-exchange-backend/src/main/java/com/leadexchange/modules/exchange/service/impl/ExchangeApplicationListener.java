@@ -0,0 +1,62 @@
+package com.leadexchange.modules.exchange.service.impl;
+
+import com.leadexchange.modules.exchange.engine.ExchangeMatch;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchListener;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchingEngine;
+import com.leadexchange.modules.exchange.engine.MultiPartyExchange;
+import com.leadexchange.modules.exchange.service.ExchangeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 撮合结果监听器
+ * 撮合成功后异步创建交换申请并预占线索，避免数据库与Redis操作阻塞交换引擎事件循环
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class ExchangeApplicationListener implements ExchangeMatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeApplicationListener.class);
+
+    @Autowired
+    private ExchangeService exchangeService;
+
+    @Autowired
+    private ExchangeMatchingEngine exchangeMatchingEngine;
+
+    @Async
+    @Override
+    public void onMatch(ExchangeMatch match) {
+        try {
+            exchangeService.createApplication(match);
+        } catch (Exception e) {
+            log.error("创建交换申请失败: {}", match, e);
+            List<Long> leadIds = new ArrayList<>(match.getOfferLeadIds());
+            leadIds.add(match.getTargetLeadId());
+            exchangeMatchingEngine.reload(leadIds);
+        }
+    }
+
+    @Async
+    @Override
+    public void onMultiPartyExchange(MultiPartyExchange exchange) {
+        try {
+            exchangeService.createCycleApplications(exchange);
+        } catch (Exception e) {
+            log.error("创建多方交换申请失败: {}", exchange, e);
+            exchangeMatchingEngine.reload(exchange.getLegs().stream()
+                    .map(MultiPartyExchange.Leg::getLeadId)
+                    .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.leadexchange.modules.exchange.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerEntry;
+import com.leadexchange.modules.exchange.entity.ExchangeLedgerSnapshot;
+import com.leadexchange.modules.exchange.mapper.ExchangeLedgerMapper;
+import com.leadexchange.modules.exchange.mapper.ExchangeLedgerSnapshotMapper;
+import com.leadexchange.modules.exchange.service.ExchangeLedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 交换价值账本服务实现类
+ *
+ * 快照以用户内流水序号为水位：序号在结算事务内从计数行分配，计数行的行锁持有到提交，
+ * 同一用户的序号按提交顺序可见且没有空洞，快照读到的最大序号之前不会再出现晚提交的流水。
+ * 查询余额时重放快照之后的全部流水，因此余额始终包含最新流水。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class ExchangeLedgerServiceImpl implements ExchangeLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeLedgerServiceImpl.class);
+
+    private static final int ENTRY_TYPE_CREDIT = 1;
+
+    private static final int ENTRY_TYPE_DEBIT = 2;
+
+    private static final int COMPACT_BATCH_SIZE = 500;
+
+    @Autowired
+    private ExchangeLedgerMapper exchangeLedgerMapper;
+
+    @Autowired
+    private ExchangeLedgerSnapshotMapper exchangeLedgerSnapshotMapper;
+
+    @Value("${app.business.exchange.ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    @Override
+    public int recordSettlement(List<ExchangeApplication> applications) {
+        List<ExchangeLedgerEntry> entries = new ArrayList<>(applications.size() * 4);
+        for (ExchangeApplication application : applications) {
+            Long applicantId = application.getApplicantId();
+            Long ownerId = application.getTargetOwnerId();
+            int targetValue = valueOf(application.getTargetValue());
+            // 目标线索：原持有者转出，申请人转入
+            entries.add(entry(ownerId, applicantId, application, ENTRY_TYPE_CREDIT, targetValue,
+                    "转出线索" + application.getTargetLeadId()));
+            entries.add(entry(applicantId, ownerId, application, ENTRY_TYPE_DEBIT, -targetValue,
+                    "转入线索" + application.getTargetLeadId()));
+            // 多方交换中提供的线索由另一笔申请记账，只有两两交换需要记录反向转移
+            if (application.getCycleId() == null) {
+                int offerValue = valueOf(application.getOfferValue());
+                entries.add(entry(applicantId, ownerId, application, ENTRY_TYPE_CREDIT, offerValue,
+                        "转出线索" + application.getOfferLeadIds()));
+                entries.add(entry(ownerId, applicantId, application, ENTRY_TYPE_DEBIT, -offerValue,
+                        "转入线索" + application.getOfferLeadIds()));
+            }
+        }
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        assignSequences(entries);
+        return exchangeLedgerMapper.insertBatch(entries);
+    }
+
+    @Override
+    public Balance getBalance(Long userId) {
+        ExchangeLedgerSnapshot snapshot = exchangeLedgerSnapshotMapper.selectByUserId(userId);
+        long afterSeq = snapshot != null ? snapshot.getLastSeq() : 0L;
+        ExchangeLedgerSnapshot tail = exchangeLedgerMapper.sumTail(userId, afterSeq);
+
+        long balance = tail.getBalance() + (snapshot != null ? snapshot.getBalance() : 0L);
+        long entryCount = tail.getEntryCount() + (snapshot != null ? snapshot.getEntryCount() : 0L);
+        if (tail.getEntryCount() >= snapshotInterval) {
+            takeSnapshot(userId, snapshot);
+        }
+        return new Balance(userId, balance, entryCount, tail.getEntryCount());
+    }
+
+    @Override
+    public IPage<ExchangeLedgerEntry> getEntries(Long userId, Page<ExchangeLedgerEntry> page) {
+        LambdaQueryWrapper<ExchangeLedgerEntry> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ExchangeLedgerEntry::getUserId, userId)
+                .orderByDesc(ExchangeLedgerEntry::getId);
+        return exchangeLedgerMapper.selectPage(page, queryWrapper);
+    }
+
+    @Override
+    @Scheduled(fixedDelay = 300000, initialDelay = 60000)
+    public int compactSnapshots() {
+        try {
+            List<Long> userIds = exchangeLedgerMapper.findSnapshotCandidates(snapshotInterval, COMPACT_BATCH_SIZE);
+            int count = 0;
+            for (Long userId : userIds) {
+                if (takeSnapshot(userId, exchangeLedgerSnapshotMapper.selectByUserId(userId))) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                log.info("账本快照生成完成: count={}", count);
+            }
+            return count;
+        } catch (Exception e) {
+            log.error("账本快照生成失败", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 按用户ID升序为流水分配用户内序号（固定加锁顺序，避免并发结算互相死锁）
+     */
+    private void assignSequences(List<ExchangeLedgerEntry> entries) {
+        Map<Long, List<ExchangeLedgerEntry>> byUser = new TreeMap<>();
+        for (ExchangeLedgerEntry entry : entries) {
+            byUser.computeIfAbsent(entry.getUserId(), key -> new ArrayList<>()).add(entry);
+        }
+        for (Map.Entry<Long, List<ExchangeLedgerEntry>> group : byUser.entrySet()) {
+            List<ExchangeLedgerEntry> userEntries = group.getValue();
+            exchangeLedgerMapper.reserveSequence(group.getKey(), userEntries.size());
+            long seq = exchangeLedgerMapper.selectLastSequence(group.getKey()) - userEntries.size();
+            for (ExchangeLedgerEntry entry : userEntries) {
+                entry.setUserSeq(++seq);
+            }
+        }
+    }
+
+    /**
+     * 在已有快照基础上汇总之后已提交的流水，生成新快照
+     */
+    private boolean takeSnapshot(Long userId, ExchangeLedgerSnapshot base) {
+        try {
+            long afterSeq = base != null ? base.getLastSeq() : 0L;
+            ExchangeLedgerSnapshot delta = exchangeLedgerMapper.sumTail(userId, afterSeq);
+            if (delta.getEntryCount() == 0) {
+                return false;
+            }
+
+            ExchangeLedgerSnapshot snapshot = new ExchangeLedgerSnapshot();
+            snapshot.setUserId(userId);
+            snapshot.setBalance(delta.getBalance() + (base != null ? base.getBalance() : 0L));
+            snapshot.setLastSeq(delta.getLastSeq());
+            snapshot.setEntryCount(delta.getEntryCount() + (base != null ? base.getEntryCount() : 0L));
+            if (base != null) {
+                return exchangeLedgerSnapshotMapper.advanceSnapshot(snapshot) > 0;
+            }
+            snapshot.setCreateBy(userId);
+            try {
+                return exchangeLedgerSnapshotMapper.insert(snapshot) > 0;
+            } catch (DuplicateKeyException e) {
+                // 并发创建首个快照，对方已写入，按推进规则覆盖
+                return exchangeLedgerSnapshotMapper.advanceSnapshot(snapshot) > 0;
+            }
+        } catch (Exception e) {
+            // 快照只是读优化，失败不影响余额正确性
+            log.warn("账本快照生成失败: userId={}", userId, e);
+            return false;
+        }
+    }
+
+    private static ExchangeLedgerEntry entry(Long userId, Long counterpartyId, ExchangeApplication application,
+                                             int entryType, int amount, String remark) {
+        ExchangeLedgerEntry entry = new ExchangeLedgerEntry();
+        entry.setUserId(userId);
+        entry.setCounterpartyId(counterpartyId);
+        entry.setExchangeId(application.getId());
+        entry.setEntryType(entryType);
+        entry.setAmount(amount);
+        entry.setRemark(remark);
+        entry.setCreateBy(userId);
+        return entry;
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,232 @@
+package com.leadexchange.modules.exchange.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.leadexchange.common.utils.TransactionUtils;
+import com.leadexchange.modules.exchange.engine.ExchangeMatch;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchingEngine;
+import com.leadexchange.modules.exchange.engine.MultiPartyExchange;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.exchange.event.ExchangeApplicationEvent;
+import com.leadexchange.modules.exchange.mapper.ExchangeApplicationMapper;
+import com.leadexchange.modules.exchange.service.ExchangeService;
+import com.leadexchange.modules.exchange.service.ExchangeSettlementService;
+import com.leadexchange.modules.exchange.service.LeadReservationService;
+import com.leadexchange.modules.exchange.service.LeadReservationService.Reservation;
+import com.leadexchange.modules.outbox.service.OutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 交换申请服务实现类
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class ExchangeServiceImpl extends ServiceImpl<ExchangeApplicationMapper, ExchangeApplication>
+        implements ExchangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeServiceImpl.class);
+
+    private static final int SWEEP_BATCH_SIZE = 200;
+
+    @Autowired
+    private ExchangeApplicationMapper exchangeApplicationMapper;
+
+    @Autowired
+    private LeadReservationService leadReservationService;
+
+    @Autowired
+    private ExchangeMatchingEngine exchangeMatchingEngine;
+
+    @Autowired
+    private ExchangeSettlementService exchangeSettlementService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public ExchangeApplication createApplication(ExchangeMatch match) {
+        List<Long> leadIds = new ArrayList<>(match.getOfferLeadIds());
+        leadIds.add(match.getTargetLeadId());
+
+        Reservation reservation = leadReservationService.reserve(match.getApplicantId(), leadIds);
+        if (reservation == null) {
+            log.info("交换申请创建失败，线索预占失败: {}", match);
+            // 撮合时已从订单簿移除，仍可交换的线索需要重新挂出
+            exchangeMatchingEngine.reload(leadIds);
+            return null;
+        }
+
+        ExchangeApplication application = new ExchangeApplication();
+        application.setApplicantId(match.getApplicantId());
+        application.setTargetLeadId(match.getTargetLeadId());
+        application.setTargetOwnerId(match.getTargetOwnerId());
+        application.setOfferLeadIds(joinIds(match.getOfferLeadIds()));
+        application.setTargetValue(match.getTargetValue());
+        application.setOfferValue(match.getOfferValue());
+        application.setStatus(1);
+        application.setReserveToken(reservation.getToken());
+        application.setExpireTime(reservation.getExpireTime());
+        application.setCreateBy(match.getApplicantId());
+        this.save(application);
+        outboxService.append(new ExchangeApplicationEvent("CREATE", application, match.getApplicantId()));
+
+        log.info("交换申请创建成功: applicationId={}, applicantId={}, targetLeadId={}, token={}",
+                application.getId(), match.getApplicantId(), match.getTargetLeadId(), reservation.getToken());
+        return application;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<ExchangeApplication> createCycleApplications(MultiPartyExchange exchange) {
+        List<Long> leadIds = exchange.getLegs().stream()
+                .map(MultiPartyExchange.Leg::getLeadId)
+                .collect(Collectors.toList());
+
+        Set<Long> participants = new LinkedHashSet<>();
+        exchange.getLegs().forEach(leg -> participants.add(leg.getReceiverId()));
+        Reservation reservation = leadReservationService.reserve(participants.iterator().next(), leadIds);
+        if (reservation == null) {
+            log.info("多方交换申请创建失败，线索预占失败: {}", exchange);
+            exchangeMatchingEngine.reload(leadIds);
+            return Collections.emptyList();
+        }
+
+        // 每位参与者付出的线索即为上一笔转移的线索
+        List<MultiPartyExchange.Leg> legs = exchange.getLegs();
+        List<ExchangeApplication> applications = new ArrayList<>(legs.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < legs.size(); i++) {
+            MultiPartyExchange.Leg leg = legs.get(i);
+            MultiPartyExchange.Leg given = legs.get((i + legs.size() - 1) % legs.size());
+            ExchangeApplication application = new ExchangeApplication();
+            application.setApplicantId(leg.getReceiverId());
+            application.setTargetLeadId(leg.getLeadId());
+            application.setTargetOwnerId(leg.getGiverId());
+            application.setOfferLeadIds(String.valueOf(given.getLeadId()));
+            application.setTargetValue(leg.getValue());
+            application.setOfferValue(given.getValue());
+            application.setCycleId(exchange.getCycleId());
+            application.setStatus(2);
+            application.setReserveToken(reservation.getToken());
+            application.setExpireTime(reservation.getExpireTime());
+            application.setProcessTime(now);
+            application.setCreateBy(leg.getReceiverId());
+            applications.add(application);
+        }
+        this.saveBatch(applications);
+        outboxService.appendAll(applications.stream()
+                .map(application -> new ExchangeApplicationEvent("CREATE", application, application.getApplicantId()))
+                .collect(Collectors.toList()));
+        List<Long> applicationIds = applications.stream()
+                .map(ExchangeApplication::getId)
+                .collect(Collectors.toList());
+        TransactionUtils.afterCommit(() -> exchangeSettlementService.submit(applicationIds));
+
+        log.info("多方交换申请创建成功: cycleId={}, participants={}, token={}",
+                exchange.getCycleId(), participants, reservation.getToken());
+        return applications;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean approveApplication(Long applicationId, Long ownerId) {
+        if (exchangeApplicationMapper.approveApplication(applicationId, ownerId) == 0) {
+            log.info("交换申请同意失败，申请不存在或状态不符: applicationId={}, ownerId={}", applicationId, ownerId);
+            return false;
+        }
+        outboxService.append(new ExchangeApplicationEvent("ACCEPT", this.getById(applicationId), ownerId));
+        TransactionUtils.afterCommit(() -> exchangeSettlementService.submit(Collections.singletonList(applicationId)));
+        log.info("交换申请已同意: applicationId={}, ownerId={}", applicationId, ownerId);
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean rejectApplication(Long applicationId, Long ownerId) {
+        ExchangeApplication application = this.getById(applicationId);
+        if (application == null || exchangeApplicationMapper.rejectApplication(applicationId, ownerId) == 0) {
+            log.info("交换申请拒绝失败，申请不存在或状态不符: applicationId={}, ownerId={}", applicationId, ownerId);
+            return false;
+        }
+        if (application.getReserveToken() != null) {
+            leadReservationService.release(application.getReserveToken(), leadIdsOf(application));
+        }
+        application.setStatus(3);
+        outboxService.append(new ExchangeApplicationEvent("REJECT", application, ownerId));
+        log.info("交换申请已拒绝: applicationId={}, ownerId={}", applicationId, ownerId);
+        return true;
+    }
+
+    @Override
+    @Scheduled(fixedDelay = 60000)
+    public int expireApplications() {
+        try {
+            List<ExchangeApplication> expired = exchangeApplicationMapper.findExpiredApplications(
+                    LocalDateTime.now(), SWEEP_BATCH_SIZE);
+            int count = 0;
+            Set<Long> handledTokens = new LinkedHashSet<>();
+            for (ExchangeApplication application : expired) {
+                Long token = application.getReserveToken();
+                if (token == null || !handledTokens.add(token)) {
+                    continue;
+                }
+                List<Long> leadIds = expired.stream()
+                        .filter(item -> token.equals(item.getReserveToken()))
+                        .flatMap(item -> leadIdsOf(item).stream())
+                        .distinct()
+                        .collect(Collectors.toList());
+                count += exchangeApplicationMapper.expireByReserveToken(token);
+                leadReservationService.release(token, leadIds);
+            }
+            if (count > 0) {
+                log.info("交换申请过期处理完成: count={}", count);
+            }
+            return count;
+        } catch (Exception e) {
+            log.error("交换申请过期处理失败", e);
+            return 0;
+        }
+    }
+
+    /**
+     * 申请涉及的全部线索（提供的线索 + 目标线索）
+     */
+    static List<Long> leadIdsOf(ExchangeApplication application) {
+        List<Long> leadIds = splitIds(application.getOfferLeadIds());
+        leadIds.add(application.getTargetLeadId());
+        return leadIds;
+    }
+
+    static String joinIds(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    static List<Long> splitIds(String ids) {
+        List<Long> result = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        for (String id : ids.split(",")) {
+            if (!id.trim().isEmpty()) {
+                result.add(Long.valueOf(id.trim()));
+            }
+        }
+        return result;
+    }
+}
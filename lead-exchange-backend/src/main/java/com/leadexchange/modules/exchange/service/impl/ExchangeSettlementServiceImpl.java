@@ -0,0 +1,482 @@
+package com.leadexchange.modules.exchange.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.exchange.entity.ExchangeHistory;
+import com.leadexchange.modules.exchange.event.ExchangeApplicationEvent;
+import com.leadexchange.modules.exchange.mapper.ExchangeApplicationMapper;
+import com.leadexchange.modules.exchange.mapper.ExchangeHistoryMapper;
+import com.leadexchange.modules.exchange.service.ExchangeLedgerService;
+import com.leadexchange.modules.exchange.service.ExchangeSettlementService;
+import com.leadexchange.modules.exchange.service.LeadReservationService;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadMapper;
+import com.leadexchange.modules.notification.service.NotificationInboxService;
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+import com.leadexchange.modules.outbox.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 交换结算服务实现类
+ *
+ * 结算线程从队列中合批取出已同意的申请（最多 batch-size 条，最长等待 linger-ms），整批在一个事务内完成：
+ * 1. 一条多行UPDATE转移全部线索归属并置为已成交（按行校验防护令牌）；
+ * 2. 一条UPDATE将申请置为已完成；
+ * 3. 一条多行INSERT写入交换历史；
+ * 4. 一条多行INSERT追加交换价值账本流水。
+ * 每批固定四次数据库往返，吞吐随批量增大而提升。整批失败时逐笔单独事务重试，个别申请的失败不影响同批其他申请。
+ * 线索预占已失效的交换不可能再结算，直接将申请置为已过期并释放令牌仍持有的线索，不再被补偿提交反复入队。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class ExchangeSettlementServiceImpl implements ExchangeSettlementService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeSettlementServiceImpl.class);
+
+    private static final String ACTION_COMPLETE = "COMPLETE";
+
+    private static final int RECOVER_BATCH_SIZE = 1000;
+
+    private final ExchangeApplicationMapper exchangeApplicationMapper;
+
+    private final ExchangeHistoryMapper exchangeHistoryMapper;
+
+    private final LeadMapper leadMapper;
+
+    private final LeadReservationService leadReservationService;
+
+    private final ExchangeLedgerService exchangeLedgerService;
+
+    private final NotificationInboxService notificationInboxService;
+
+    private final OutboxService outboxService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.business.exchange.settlement.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.business.exchange.settlement.linger-ms:20}")
+    private long lingerMillis;
+
+    @Value("${app.business.exchange.settlement.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Long> queue;
+
+    /** 已在队列中的申请ID，避免重复入队 */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final Timer batchTimer;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Counter settledCounter;
+
+    private final Counter failedCounter;
+
+    public ExchangeSettlementServiceImpl(ExchangeApplicationMapper exchangeApplicationMapper,
+                                         ExchangeHistoryMapper exchangeHistoryMapper,
+                                         LeadMapper leadMapper,
+                                         LeadReservationService leadReservationService,
+                                         ExchangeLedgerService exchangeLedgerService,
+                                         NotificationInboxService notificationInboxService,
+                                         OutboxService outboxService,
+                                         TransactionTemplate transactionTemplate,
+                                         MeterRegistry meterRegistry) {
+        this.exchangeApplicationMapper = exchangeApplicationMapper;
+        this.exchangeHistoryMapper = exchangeHistoryMapper;
+        this.leadMapper = leadMapper;
+        this.leadReservationService = leadReservationService;
+        this.exchangeLedgerService = exchangeLedgerService;
+        this.notificationInboxService = notificationInboxService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = transactionTemplate;
+        meterRegistry.gauge("exchange.settlement.queue.size", queued, Set::size);
+        this.batchTimer = Timer.builder("exchange.settlement.batch")
+                .description("交换结算批次耗时")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("exchange.settlement.batch.size")
+                .description("交换结算批次大小（交换笔数）")
+                .register(meterRegistry);
+        this.settledCounter = Counter.builder("exchange.settlement.settled")
+                .description("已结算的交换笔数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("exchange.settlement.failed")
+                .description("结算失败的交换笔数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.running = true;
+        this.worker = new Thread(this::runWorker, "exchange-settlement");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public boolean submit(Collection<Long> applicationIds) {
+        boolean accepted = true;
+        for (Long applicationId : applicationIds) {
+            if (queued.add(applicationId) && !queue.offer(applicationId)) {
+                queued.remove(applicationId);
+                accepted = false;
+            }
+        }
+        if (!accepted) {
+            log.warn("结算队列已满，部分申请等待补偿提交: applicationIds={}", applicationIds);
+        }
+        return accepted;
+    }
+
+    /**
+     * 补偿提交：重启前未结算、入队失败或结算失败的已同意申请，在到期前定期重新入队
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 10000)
+    public void recoverPending() {
+        try {
+            List<Long> ids = exchangeApplicationMapper.findSettleableApplicationIds(
+                    LocalDateTime.now(), RECOVER_BATCH_SIZE);
+            if (!ids.isEmpty()) {
+                submit(ids);
+                log.info("补偿提交待结算申请: count={}", ids.size());
+            }
+        } catch (Exception e) {
+            log.error("补偿提交待结算申请失败", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.size());
+        stats.put("batchSize", batchSize);
+        stats.put("lingerMs", lingerMillis);
+        stats.put("batches", batchTimer.count());
+        stats.put("settled", (long) settledCounter.count());
+        stats.put("failed", (long) failedCounter.count());
+        stats.put("meanBatchSize", batchSizeSummary.mean());
+        stats.put("meanBatchMillis", batchTimer.mean(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    /**
+     * 结算线程：阻塞等待第一条申请，随后在 linger 时间内尽量凑满一批
+     */
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Long next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queued.removeAll(batch);
+                long start = System.nanoTime();
+                settleBatch(batch);
+                batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("交换结算批次处理失败: applicationIds={}", batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 结算一批申请
+     */
+    void settleBatch(List<Long> applicationIds) {
+        List<Settlement> settlements = loadSettlements(applicationIds);
+        if (settlements.isEmpty()) {
+            return;
+        }
+        batchSizeSummary.record(settlements.size());
+
+        List<Settlement> settled;
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(settlements));
+            settled = settlements;
+        } catch (RuntimeException e) {
+            log.warn("交换批量结算失败，逐笔重试: size={}, error={}", settlements.size(), e.getMessage());
+            settled = new ArrayList<>(settlements.size());
+            for (Settlement settlement : settlements) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(Collections.singletonList(settlement)));
+                    settled.add(settlement);
+                } catch (RuntimeException ex) {
+                    failedCounter.increment();
+                    log.error("交换结算失败: {}", settlement, ex);
+                }
+            }
+        }
+
+        for (Settlement settlement : settled) {
+            leadReservationService.releaseLeases(settlement.token, settlement.leadIds());
+            notifyCompleted(settlement);
+        }
+        settledCounter.increment(settled.size());
+        log.info("交换结算完成: exchanges={}, settled={}", settlements.size(), settled.size());
+    }
+
+    /**
+     * 在当前事务内执行结算，任一语句影响行数不符即抛出异常回滚
+     */
+    private void apply(List<Settlement> settlements) {
+        List<Lead> transfers = new ArrayList<>();
+        List<ExchangeApplication> applications = new ArrayList<>();
+        List<Long> applicationIds = new ArrayList<>();
+        List<ExchangeHistory> histories = new ArrayList<>();
+        for (Settlement settlement : settlements) {
+            transfers.addAll(settlement.transfers());
+            applications.addAll(settlement.applications);
+            for (ExchangeApplication application : settlement.applications) {
+                applicationIds.add(application.getId());
+                histories.add(completeHistory(application));
+            }
+        }
+
+        int leadsUpdated = leadMapper.settleLeads(transfers);
+        if (leadsUpdated != transfers.size()) {
+            throw new IllegalStateException("线索结算数量不一致: expected=" + transfers.size() + ", actual=" + leadsUpdated);
+        }
+        int completed = exchangeApplicationMapper.completeApplications(applicationIds);
+        if (completed != applicationIds.size()) {
+            throw new IllegalStateException("申请完成数量不一致: expected=" + applicationIds.size() + ", actual=" + completed);
+        }
+        exchangeHistoryMapper.insertBatch(histories);
+        exchangeLedgerService.recordSettlement(applications);
+        outboxService.appendAll(applications.stream()
+                .map(application -> new ExchangeApplicationEvent(ACTION_COMPLETE, application, null))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 加载申请并按交换分组（多方交换整环为一笔），丢弃状态不符或预占已失效的交换
+     */
+    private List<Settlement> loadSettlements(List<Long> applicationIds) {
+        Map<Long, ExchangeApplication> applications = exchangeApplicationMapper.selectBatchIds(applicationIds).stream()
+                .collect(Collectors.toMap(ExchangeApplication::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        Set<String> cycleIds = applications.values().stream()
+                .map(ExchangeApplication::getCycleId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (!cycleIds.isEmpty()) {
+            LambdaQueryWrapper<ExchangeApplication> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.in(ExchangeApplication::getCycleId, cycleIds);
+            exchangeApplicationMapper.selectList(queryWrapper)
+                    .forEach(application -> applications.putIfAbsent(application.getId(), application));
+        }
+
+        Map<String, List<ExchangeApplication>> groups = applications.values().stream()
+                .collect(Collectors.groupingBy(
+                        application -> application.getCycleId() != null
+                                ? application.getCycleId() : "application:" + application.getId(),
+                        LinkedHashMap::new, Collectors.toList()));
+        List<Settlement> settlements = new ArrayList<>(groups.size());
+        for (Map.Entry<String, List<ExchangeApplication>> entry : groups.entrySet()) {
+            List<ExchangeApplication> group = entry.getValue();
+            Long token = group.get(0).getReserveToken();
+            boolean ready = token != null && group.stream().allMatch(application ->
+                    Objects.equals(application.getStatus(), 2) && token.equals(application.getReserveToken()));
+            if (ready) {
+                settlements.add(new Settlement(entry.getKey(), token, group));
+            } else {
+                log.debug("交换不满足结算条件，跳过: key={}", entry.getKey());
+            }
+        }
+        return filterHeld(settlements);
+    }
+
+    /**
+     * 一次查询校验整批线索仍由各自的令牌持有，预占已失效的交换不进入批次（避免拖累整批回滚）并取消
+     */
+    private List<Settlement> filterHeld(List<Settlement> settlements) {
+        if (settlements.isEmpty()) {
+            return settlements;
+        }
+        List<Long> leadIds = settlements.stream()
+                .flatMap(settlement -> settlement.leadIds().stream())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Lead> states = leadMapper.selectReservationState(leadIds).stream()
+                .collect(Collectors.toMap(Lead::getId, Function.identity()));
+        List<Settlement> held = new ArrayList<>(settlements.size());
+        for (Settlement settlement : settlements) {
+            boolean valid = settlement.leadIds().stream().allMatch(leadId -> {
+                Lead state = states.get(leadId);
+                return state != null && Objects.equals(state.getStatus(), 4)
+                        && Objects.equals(state.getReserveToken(), settlement.token);
+            });
+            if (valid) {
+                held.add(settlement);
+            } else {
+                failedCounter.increment();
+                cancel(settlement);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * 取消预占已失效的交换：令牌不会重新持有线索，将申请置为已过期并释放令牌仍持有的部分线索；
+     * 取消失败时申请仍为已同意，由下次补偿提交重试
+     */
+    private void cancel(Settlement settlement) {
+        try {
+            int expired = exchangeApplicationMapper.expireByReserveToken(settlement.token);
+            int released = leadReservationService.release(settlement.token, settlement.leadIds());
+            log.warn("线索预占已失效，交换已取消: {}, expired={}, released={}", settlement, expired, released);
+        } catch (Exception e) {
+            log.error("线索预占已失效，取消交换失败，等待补偿重试: {}", settlement, e);
+        }
+    }
+
+    /**
+     * 通知交换双方（多方交换为全部参与者）交换已完成
+     */
+    private void notifyCompleted(Settlement settlement) {
+        for (ExchangeApplication application : settlement.applications) {
+            try {
+                notificationInboxService.deliver(application.getApplicantId(), new PushMessage("EXCHANGE", "交换已完成",
+                        "您已获得线索" + application.getTargetLeadId(), application.getId(), "EXCHANGE_APPLICATION"));
+                if (application.getCycleId() == null) {
+                    notificationInboxService.deliver(application.getTargetOwnerId(), new PushMessage("EXCHANGE", "交换已完成",
+                            "您已获得线索" + application.getOfferLeadIds(), application.getId(), "EXCHANGE_APPLICATION"));
+                }
+            } catch (Exception e) {
+                // 通知失败不影响结算结果
+                log.warn("交换完成通知失败: applicationId={}", application.getId(), e);
+            }
+        }
+    }
+
+    private static ExchangeHistory completeHistory(ExchangeApplication application) {
+        List<Long> offerLeadIds = ExchangeServiceImpl.splitIds(application.getOfferLeadIds());
+        ExchangeHistory history = new ExchangeHistory();
+        history.setExchangeId(application.getId());
+        history.setUserId(application.getApplicantId());
+        history.setAction(ACTION_COMPLETE);
+        history.setDescription(application.getCycleId() != null
+                ? "多方交换完成，获得线索" + application.getTargetLeadId()
+                : "交换完成，获得线索" + application.getTargetLeadId() + "，提供线索" + application.getOfferLeadIds());
+        history.setMetadata("{\"targetLeadId\":" + application.getTargetLeadId()
+                + ",\"targetOwnerId\":" + application.getTargetOwnerId()
+                + ",\"offerLeadIds\":" + offerLeadIds
+                + ",\"cycleId\":" + (application.getCycleId() != null ? "\"" + application.getCycleId() + "\"" : "null")
+                + ",\"reserveToken\":" + application.getReserveToken() + "}");
+        history.setCreateBy(application.getApplicantId());
+        return history;
+    }
+
+    /**
+     * 一笔待结算的交换：两两交换为单个申请，多方交换为整环申请
+     */
+    private static final class Settlement {
+
+        private final String key;
+        private final Long token;
+        private final List<ExchangeApplication> applications;
+
+        Settlement(String key, Long token, List<ExchangeApplication> applications) {
+            this.key = key;
+            this.token = token;
+            this.applications = applications;
+        }
+
+        /**
+         * 线索归属转移：目标线索归申请人；两两交换中提供的线索归目标线索原持有者
+         * （多方交换中每条线索恰好是某一笔转移的目标线索，无需重复处理）
+         */
+        List<Lead> transfers() {
+            List<Lead> transfers = new ArrayList<>();
+            for (ExchangeApplication application : applications) {
+                transfers.add(transfer(application.getTargetLeadId(), application.getApplicantId()));
+                if (application.getCycleId() == null) {
+                    for (Long offerLeadId : ExchangeServiceImpl.splitIds(application.getOfferLeadIds())) {
+                        transfers.add(transfer(offerLeadId, application.getTargetOwnerId()));
+                    }
+                }
+            }
+            return transfers;
+        }
+
+        List<Long> leadIds() {
+            return transfers().stream().map(Lead::getId).collect(Collectors.toList());
+        }
+
+        private Lead transfer(Long leadId, Long newOwnerId) {
+            Lead lead = new Lead();
+            lead.setId(leadId);
+            lead.setCreateBy(newOwnerId);
+            lead.setReserveToken(token);
+            return lead;
+        }
+
+        @Override
+        public String toString() {
+            return "Settlement{key=" + key + ", token=" + token + ", applications="
+                    + applications.stream().map(ExchangeApplication::getId).collect(Collectors.toList()) + "}";
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.leadexchange.modules.exchange.service.impl;
+
+import com.leadexchange.common.utils.TransactionUtils;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchingEngine;
+import com.leadexchange.modules.exchange.service.LeadReservationService;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 线索预占服务实现类
+ *
+ * 预占分两层：
+ * 1. Redis租约（SET NX PX）：每条线索一个键，冲突的申请在这里快速失败，不会打到数据库行锁；
+ * 2. 数据库条件更新：以乐观锁版本号 + 防护令牌（全局INCR单调递增）作为最终裁决，
+ *    旧令牌持有者（如租约过期后才恢复的进程）的写入会被拒绝。
+ * 线索按ID升序逐一获取租约，不存在全局锁，不同线索的申请可以完全并行。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class LeadReservationServiceImpl implements LeadReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadReservationServiceImpl.class);
+
+    private static final String FENCE_KEY = "exchange:reserve:fence";
+
+    private static final String LEASE_KEY_PREFIX = "exchange:reserve:lead:";
+
+    private static final int SWEEP_BATCH_SIZE = 200;
+
+    /** 仅当租约仍属于该令牌时才删除 */
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private LeadMapper leadMapper;
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Autowired
+    private ExchangeMatchingEngine exchangeMatchingEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.business.exchange.match-timeout:24}")
+    private int matchTimeoutHours;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Reservation reserve(Long holderId, Collection<Long> leadIds) {
+        List<Long> sortedIds = leadIds.stream().distinct().sorted().collect(Collectors.toList());
+        if (sortedIds.isEmpty()) {
+            return null;
+        }
+
+        Long token = stringRedisTemplate.opsForValue().increment(FENCE_KEY);
+        if (token == null) {
+            log.warn("获取线索预占令牌失败: holderId={}", holderId);
+            return null;
+        }
+        String tokenValue = String.valueOf(token);
+        Duration lease = Duration.ofHours(matchTimeoutHours);
+
+        List<Long> leased = new ArrayList<>(sortedIds.size());
+        try {
+            for (Long leadId : sortedIds) {
+                Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(leaseKey(leadId), tokenValue, lease);
+                if (!Boolean.TRUE.equals(acquired)) {
+                    log.info("线索已被其他交换预占: leadId={}, holderId={}", leadId, holderId);
+                    releaseLeases(leased, tokenValue);
+                    return null;
+                }
+                leased.add(leadId);
+            }
+
+            List<Lead> states = leadMapper.selectReservationState(sortedIds);
+            boolean reservable = states.size() == sortedIds.size()
+                    && states.stream().allMatch(lead -> Objects.equals(lead.getStatus(), 3)
+                    && (lead.getReserveToken() == null || lead.getReserveToken() < token));
+            if (!reservable) {
+                log.info("线索状态不允许预占: leadIds={}, holderId={}", sortedIds, holderId);
+                releaseLeases(leased, tokenValue);
+                return null;
+            }
+
+            LocalDateTime expireTime = LocalDateTime.now().plusHours(matchTimeoutHours);
+            int updated = leadMapper.reserveLeads(states, token, expireTime, holderId);
+            if (updated != sortedIds.size()) {
+                // 部分线索在读取后被并发修改，撤销本令牌已写入的部分
+                log.info("线索预占冲突: leadIds={}, updated={}, token={}", sortedIds, updated, token);
+                leadMapper.releaseLeads(sortedIds, token);
+                releaseLeases(leased, tokenValue);
+                return null;
+            }
+
+            // 外层事务回滚时数据库预占随之撤销，租约也要同步释放
+            TransactionUtils.afterRollback(() -> releaseLeases(sortedIds, tokenValue));
+            TransactionUtils.afterCommit(() -> sortedIds.forEach(exchangeMatchingEngine::onLeadWithdrawn));
+            log.info("线索预占成功: leadIds={}, token={}, holderId={}", sortedIds, token, holderId);
+            return new Reservation(token, holderId, sortedIds, expireTime);
+        } catch (RuntimeException e) {
+            releaseLeases(leased, tokenValue);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int release(Long token, Collection<Long> leadIds) {
+        List<Long> ids = new ArrayList<>(leadIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int released = leadMapper.releaseLeads(ids, token);
+        TransactionUtils.afterCommit(() -> {
+            releaseLeases(ids, String.valueOf(token));
+            exchangeMatchingEngine.reload(ids);
+        });
+        log.info("释放线索预占: leadIds={}, token={}, released={}", ids, token, released);
+        return released;
+    }
+
+    @Override
+    public void releaseLeases(Long token, Collection<Long> leadIds) {
+        releaseLeases(new ArrayList<>(leadIds), String.valueOf(token));
+    }
+
+    @Override
+    public boolean isHeld(Long token, Collection<Long> leadIds) {
+        List<Long> ids = new ArrayList<>(leadIds);
+        if (ids.isEmpty()) {
+            return true;
+        }
+        List<Lead> states = leadMapper.selectReservationState(ids);
+        return states.size() == ids.size()
+                && states.stream().allMatch(lead -> Objects.equals(lead.getStatus(), 4)
+                && Objects.equals(lead.getReserveToken(), token));
+    }
+
+    @Override
+    @Scheduled(fixedDelay = 60000)
+    public int releaseExpired() {
+        try {
+            List<Lead> expired = leadMapper.findExpiredReservations(LocalDateTime.now(), SWEEP_BATCH_SIZE);
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            Map<Long, List<Long>> byToken = expired.stream()
+                    .filter(lead -> lead.getReserveToken() != null)
+                    .collect(Collectors.groupingBy(Lead::getReserveToken,
+                            Collectors.mapping(Lead::getId, Collectors.toList())));
+            int released = 0;
+            for (Map.Entry<Long, List<Long>> entry : byToken.entrySet()) {
+                // 自调用不经过事务代理，每个令牌的释放显式放在独立事务中
+                Integer count = transactionTemplate.execute(status -> release(entry.getKey(), entry.getValue()));
+                released += count == null ? 0 : count;
+            }
+            log.info("释放到期线索预占: count={}", released);
+            return released;
+        } catch (Exception e) {
+            log.error("释放到期线索预占失败", e);
+            return 0;
+        }
+    }
+
+    private void releaseLeases(List<Long> leadIds, String tokenValue) {
+        for (Long leadId : leadIds) {
+            try {
+                stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, Collections.singletonList(leaseKey(leadId)), tokenValue);
+            } catch (Exception e) {
+                // 租约带有过期时间，释放失败最多延迟到期
+                log.warn("释放线索租约失败: leadId={}, token={}", leadId, tokenValue, e);
+            }
+        }
+    }
+
+    private static String leaseKey(Long leadId) {
+        return LEASE_KEY_PREFIX + leadId;
+    }
+}
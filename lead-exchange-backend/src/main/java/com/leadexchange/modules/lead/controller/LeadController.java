@@ -1,12 +1,21 @@
 package com.leadexchange.modules.lead.controller;
 
+import com.leadexchange.common.result.Result;
+import com.leadexchange.modules.lead.search.LeadSuggester;
+import com.leadexchange.modules.lead.search.LeadSuggester.Suggestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 线索管理控制器
  * 负责处理线索相关的HTTP请求
- * 
+ *
  * @author 系统
  * @version 1.0.0
  * @since 2024-01-01
@@ -14,7 +23,32 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/lead")
 public class LeadController {
-    
+
+    @Autowired
+    private LeadSuggester leadSuggester;
+
     // TODO: 实现线索管理相关接口
-    
-}
\ No newline at end of file
+
+    /**
+     * 搜索框联想（支持企业名称、标题、行业、标签的原文、全拼与首字母前缀）
+     *
+     * @param q 输入前缀
+     * @param limit 数量
+     * @return 联想词
+     */
+    @GetMapping("/suggest")
+    public Result<List<Suggestion>> suggest(@RequestParam("q") String q,
+                                            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(leadSuggester.suggest(q, Math.max(1, Math.min(limit, 50))));
+    }
+
+    /**
+     * 搜索联想词典统计
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/suggest/stats")
+    public Result<Map<String, Object>> getSuggestStats() {
+        return Result.success(leadSuggester.getStats());
+    }
+}
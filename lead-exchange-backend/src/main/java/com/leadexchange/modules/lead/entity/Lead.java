@@ -221,6 +221,18 @@ public class Lead extends BaseEntity {
     @TableField("remark")
     private String remark;
 
+    /**
+     * 交换预占的防护令牌（单调递增，旧令牌的写入会被拒绝）
+     */
+    @TableField("reserve_token")
+    private Long reserveToken;
+
+    /**
+     * 交换预占到期时间
+     */
+    @TableField("reserve_expire_time")
+    private LocalDateTime reserveExpireTime;
+
     // Getter and Setter methods
     public String getTitle() {
         return title;
@@ -478,4 +490,20 @@ public class Lead extends BaseEntity {
         this.remark = remark;
     }
 
-}
\ No newline at end of file
+    public Long getReserveToken() {
+        return reserveToken;
+    }
+
+    public void setReserveToken(Long reserveToken) {
+        this.reserveToken = reserveToken;
+    }
+
+    public LocalDateTime getReserveExpireTime() {
+        return reserveExpireTime;
+    }
+
+    public void setReserveExpireTime(LocalDateTime reserveExpireTime) {
+        this.reserveExpireTime = reserveExpireTime;
+    }
+
+}
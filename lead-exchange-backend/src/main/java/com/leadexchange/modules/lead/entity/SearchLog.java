@@ -0,0 +1,76 @@
+package com.leadexchange.modules.lead.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 搜索日志实体类
+ * 按（关键词, 日期）汇总搜索次数，(keyword, search_date) 唯一
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_search_log")
+public class SearchLog extends BaseEntity {
+
+    /**
+     * 搜索关键词（已规范化）
+     */
+    @TableField("keyword")
+    private String keyword;
+
+    /**
+     * 搜索日期
+     */
+    @TableField("search_date")
+    private LocalDate searchDate;
+
+    /**
+     * 搜索次数
+     */
+    @TableField("search_count")
+    private Long searchCount;
+
+    /**
+     * 最近一次搜索时间
+     */
+    @TableField("last_search_time")
+    private LocalDateTime lastSearchTime;
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public LocalDate getSearchDate() {
+        return searchDate;
+    }
+
+    public void setSearchDate(LocalDate searchDate) {
+        this.searchDate = searchDate;
+    }
+
+    public Long getSearchCount() {
+        return searchCount;
+    }
+
+    public void setSearchCount(Long searchCount) {
+        this.searchCount = searchCount;
+    }
+
+    public LocalDateTime getLastSearchTime() {
+        return lastSearchTime;
+    }
+
+    public void setLastSearchTime(LocalDateTime lastSearchTime) {
+        this.lastSearchTime = lastSearchTime;
+    }
+}
@@ -0,0 +1,35 @@
+package com.leadexchange.modules.lead.event;
+
+import com.leadexchange.modules.lead.entity.Lead;
+
+/**
+ * 线索创建事件
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LeadCreatedEvent extends LeadEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private Lead lead;
+
+    public LeadCreatedEvent(Lead lead) {
+        super(lead.getId(), lead.getCreateBy());
+        this.lead = lead;
+    }
+
+    @Override
+    public String getEventType() {
+        return "lead.created";
+    }
+
+    public Lead getLead() {
+        return lead;
+    }
+
+    public void setLead(Lead lead) {
+        this.lead = lead;
+    }
+}
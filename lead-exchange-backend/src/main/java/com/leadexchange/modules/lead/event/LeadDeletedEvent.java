@@ -0,0 +1,36 @@
+package com.leadexchange.modules.lead.event;
+
+import java.util.List;
+
+/**
+ * 线索删除事件
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LeadDeletedEvent extends LeadEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 受影响的用户（仍有进行中交换申请的申请人） */
+    private List<Long> affectedUserIds;
+
+    public LeadDeletedEvent(Long leadId, Long userId, List<Long> affectedUserIds) {
+        super(leadId, userId);
+        this.affectedUserIds = affectedUserIds;
+    }
+
+    @Override
+    public String getEventType() {
+        return "lead.deleted";
+    }
+
+    public List<Long> getAffectedUserIds() {
+        return affectedUserIds;
+    }
+
+    public void setAffectedUserIds(List<Long> affectedUserIds) {
+        this.affectedUserIds = affectedUserIds;
+    }
+}
@@ -0,0 +1,89 @@
+package com.leadexchange.modules.lead.event;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 线索相关事件
+ * 事件通过发件箱与业务数据在同一事务内写入，由中继异步投递到消息队列；
+ * 同一线索的事件按写入顺序投递
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public abstract class LeadEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 事件ID（消费端幂等去重） */
+    private String eventId;
+
+    /** 线索ID */
+    private Long leadId;
+
+    /** 触发事件的用户ID */
+    private Long userId;
+
+    /** 事件时间 */
+    private LocalDateTime timestamp;
+
+    protected LeadEvent(Long leadId, Long userId) {
+        this.eventId = UUID.randomUUID().toString();
+        this.leadId = leadId;
+        this.userId = userId;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    /**
+     * 事件类型，同时作为消息路由键
+     */
+    public abstract String getEventType();
+
+    /**
+     * 聚合类型，与聚合ID一起决定投递顺序
+     */
+    public String getAggregateType() {
+        return "LEAD";
+    }
+
+    /**
+     * 聚合ID
+     */
+    public Long getAggregateId() {
+        return leadId;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public Long getLeadId() {
+        return leadId;
+    }
+
+    public void setLeadId(Long leadId) {
+        this.leadId = leadId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,78 @@
+package com.leadexchange.modules.lead.event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 线索状态变更事件（发布、审核、下架、批量变更）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LeadStatusChangedEvent extends LeadEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 变更前状态，未知时为空 */
+    private Integer fromStatus;
+
+    /** 变更后状态 */
+    private Integer toStatus;
+
+    /** 变更原因 */
+    private String reason;
+
+    /** 受影响的用户（下架时仍有进行中交换申请的申请人） */
+    private List<Long> affectedUserIds;
+
+    public LeadStatusChangedEvent(Long leadId, Long userId, Integer fromStatus, Integer toStatus, String reason) {
+        this(leadId, userId, fromStatus, toStatus, reason, Collections.emptyList());
+    }
+
+    public LeadStatusChangedEvent(Long leadId, Long userId, Integer fromStatus, Integer toStatus, String reason,
+                                  List<Long> affectedUserIds) {
+        super(leadId, userId);
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.reason = reason;
+        this.affectedUserIds = affectedUserIds;
+    }
+
+    @Override
+    public String getEventType() {
+        return "lead.status.changed";
+    }
+
+    public Integer getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(Integer fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public Integer getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(Integer toStatus) {
+        this.toStatus = toStatus;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public List<Long> getAffectedUserIds() {
+        return affectedUserIds;
+    }
+
+    public void setAffectedUserIds(List<Long> affectedUserIds) {
+        this.affectedUserIds = affectedUserIds;
+    }
+}
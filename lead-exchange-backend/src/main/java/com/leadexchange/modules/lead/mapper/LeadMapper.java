@@ -378,4 +378,72 @@ public interface LeadMapper extends BaseMapper<Lead> {
      */
     int cleanExpiredLeads(@Param("currentTime") LocalDateTime currentTime);
 
-}
\ No newline at end of file
+    /**
+     * 查询可交换线索（已发布且已评级），仅返回撮合所需字段
+     * 用于交换引擎启动时预热订单簿
+     *
+     * @return 线索列表（id、create_by、rating、industry、region）
+     */
+    @Select("SELECT id, create_by, rating, industry, region FROM biz_lead " +
+            "WHERE status = 3 AND deleted = 0 AND rating IS NOT NULL ORDER BY id")
+    List<Lead> findExchangeableLeads();
+
+    /**
+     * 查询线索的预占相关状态
+     *
+     * @param leadIds 线索ID列表
+     * @return 线索列表（id、status、version、reserve_token、create_by）
+     */
+    @Select("<script>" +
+            "SELECT id, status, version, reserve_token, create_by FROM biz_lead WHERE deleted = 0 AND id IN " +
+            "<foreach collection='leadIds' item='leadId' open='(' separator=',' close=')'>#{leadId}</foreach>" +
+            "</script>")
+    List<Lead> selectReservationState(@Param("leadIds") List<Long> leadIds);
+
+    /**
+     * 预占线索：已发布 -> 交换中
+     * 同时校验乐观锁版本号与防护令牌，旧令牌或已被修改的线索不会被更新
+     *
+     * @param leads 线索列表（需包含id与version）
+     * @param token 防护令牌
+     * @param expireTime 预占到期时间
+     * @param updateBy 更新人
+     * @return 更新数量
+     */
+    int reserveLeads(@Param("leads") List<Lead> leads,
+                     @Param("token") Long token,
+                     @Param("expireTime") LocalDateTime expireTime,
+                     @Param("updateBy") Long updateBy);
+
+    /**
+     * 释放线索预占：交换中 -> 已发布，仅释放仍由该令牌持有的线索
+     *
+     * @param leadIds 线索ID列表
+     * @param token 防护令牌
+     * @return 更新数量
+     */
+    int releaseLeads(@Param("leadIds") List<Long> leadIds, @Param("token") Long token);
+
+    /**
+     * 查询预占已到期的线索
+     *
+     * @param currentTime 当前时间
+     * @param limit 限制数量
+     * @return 线索列表（id、reserve_token）
+     */
+    @Select("SELECT id, reserve_token FROM biz_lead " +
+            "WHERE status = 4 AND reserve_expire_time < #{currentTime} AND deleted = 0 " +
+            "ORDER BY reserve_expire_time LIMIT #{limit}")
+    List<Lead> findExpiredReservations(@Param("currentTime") LocalDateTime currentTime,
+                                       @Param("limit") Integer limit);
+
+    /**
+     * 批量结算交换：交换中 -> 已成交，同时转移线索归属并累加交换次数
+     * 每条线索按各自的新持有者与防护令牌单独校验，一条多行UPDATE完成整批结算
+     *
+     * @param leads 线索列表（需包含id、createBy为新持有者、reserveToken为结算令牌）
+     * @return 更新数量
+     */
+    int settleLeads(@Param("leads") List<Lead> leads);
+
+}
@@ -0,0 +1,62 @@
+package com.leadexchange.modules.lead.mapper;
+
+import com.leadexchange.modules.lead.entity.Lead;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 线索搜索索引同步Mapper接口
+ * 只读取搜索文档所需的列
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface LeadSearchMapper {
+
+    String DOCUMENT_COLUMNS = "id, title, description, company_name, contact_name, tags, lead_type, industry, region, " +
+            "rating, rating_score, investment_amount, status, create_by, is_top, is_recommend, create_time, update_time, deleted";
+
+    /**
+     * 按 (update_time, id) 顺序分页读取变更的线索ID（含已逻辑删除的线索）
+     *
+     * @param since 起始更新时间
+     * @param afterId 与since相同更新时间的上一页最后一个ID
+     * @param limit 数量
+     * @return 线索（仅 id、update_time）
+     */
+    @Select("SELECT id, update_time FROM biz_lead " +
+            "WHERE update_time > #{since} OR (update_time = #{since} AND id > #{afterId}) " +
+            "ORDER BY update_time, id LIMIT #{limit}")
+    List<Lead> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                @Param("limit") Integer limit);
+
+    /**
+     * 按ID读取线索（含已逻辑删除的线索，用于从索引中删除）
+     *
+     * @param ids 线索ID
+     * @return 线索列表
+     */
+    @Select("<script>" +
+            "SELECT " + DOCUMENT_COLUMNS + " FROM biz_lead WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Lead> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID顺序分页读取未删除的线索（全量重建）
+     *
+     * @param afterId 上一页最后一个ID
+     * @param limit 数量
+     * @return 线索列表
+     */
+    @Select("SELECT " + DOCUMENT_COLUMNS + " FROM biz_lead " +
+            "WHERE deleted = 0 AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Lead> findAfterId(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+}
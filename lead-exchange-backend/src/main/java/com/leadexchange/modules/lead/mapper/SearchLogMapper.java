@@ -0,0 +1,37 @@
+package com.leadexchange.modules.lead.mapper;
+
+import com.leadexchange.modules.lead.entity.SearchLog;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 搜索日志Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface SearchLogMapper {
+
+    /**
+     * 批量累加搜索次数（单条多行INSERT，不存在时创建；审计字段显式写入）
+     *
+     * @param logs 汇总后的搜索日志（search_count 为增量）
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO biz_search_log (keyword, search_date, search_count, last_search_time, " +
+            "create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='logs' item='item' separator=','>" +
+            "(#{item.keyword}, #{item.searchDate}, #{item.searchCount}, #{item.lastSearchTime}, " +
+            "NOW(), NOW(), 0, 0, 0, 0)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE search_count = search_count + VALUES(search_count), " +
+            "last_search_time = GREATEST(last_search_time, VALUES(last_search_time)), update_time = NOW()" +
+            "</script>")
+    int upsertBatch(@Param("logs") Collection<SearchLog> logs);
+}
@@ -0,0 +1,188 @@
+package com.leadexchange.modules.lead.search;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Elasticsearch 线索搜索索引
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchLeadSearchIndex implements LeadSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ElasticsearchLeadSearchIndex.class);
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private static final IndexCoordinates ALIAS = IndexCoordinates.of(LeadDocument.ALIAS);
+
+    private final ElasticsearchOperations operations;
+
+    public ElasticsearchLeadSearchIndex(ElasticsearchOperations operations) {
+        this.operations = operations;
+    }
+
+    @Override
+    public boolean exists() {
+        return operations.indexOps(ALIAS).exists();
+    }
+
+    @Override
+    public String createIndex() {
+        String index = LeadDocument.ALIAS + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+        IndexOperations indexOps = operations.indexOps(IndexCoordinates.of(index));
+        indexOps.create(indexOps.createSettings(LeadDocument.class), indexOps.createMapping(LeadDocument.class));
+        log.info("创建线索搜索索引: {}", index);
+        return index;
+    }
+
+    @Override
+    public void deleteIndex(String index) {
+        operations.indexOps(IndexCoordinates.of(index)).delete();
+    }
+
+    @Override
+    public void switchAlias(String index) {
+        Set<String> previous = new HashSet<>();
+        if (exists()) {
+            Map<String, Set<AliasData>> aliases = operations.indexOps(ALIAS).getAliases(LeadDocument.ALIAS);
+            previous.addAll(aliases.keySet());
+            previous.remove(index);
+        }
+        List<AliasAction> actions = new ArrayList<>();
+        actions.add(new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(index).withAliases(LeadDocument.ALIAS).build()));
+        if (!previous.isEmpty()) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(previous.toArray(new String[0])).withAliases(LeadDocument.ALIAS).build()));
+        }
+        operations.indexOps(IndexCoordinates.of(index)).alias(new AliasActions(actions.toArray(new AliasAction[0])));
+        log.info("线索搜索别名切换: {} -> {}, 旧索引={}", LeadDocument.ALIAS, index, previous);
+
+        for (String old : previous) {
+            try {
+                operations.indexOps(IndexCoordinates.of(old)).delete();
+            } catch (Exception e) {
+                log.warn("删除旧线索搜索索引失败: {}", old, e);
+            }
+        }
+    }
+
+    @Override
+    public Set<Long> bulk(String index, List<LeadDocument> documents, Collection<Long> deletedIds) {
+        IndexCoordinates coordinates = IndexCoordinates.of(index);
+        Set<Long> failed = new HashSet<>();
+        if (!documents.isEmpty()) {
+            List<IndexQuery> queries = new ArrayList<>(documents.size());
+            for (LeadDocument document : documents) {
+                queries.add(new IndexQueryBuilder()
+                        .withId(String.valueOf(document.getId()))
+                        .withObject(document)
+                        .build());
+            }
+            try {
+                operations.bulkIndex(queries, coordinates);
+            } catch (BulkFailureException e) {
+                for (String id : e.getFailedDocuments().keySet()) {
+                    failed.add(Long.valueOf(id));
+                }
+            }
+        }
+        if (!deletedIds.isEmpty()) {
+            NativeSearchQuery query = new NativeSearchQueryBuilder()
+                    .withQuery(QueryBuilders.termsQuery("id", deletedIds))
+                    .build();
+            ByQueryResponse response = operations.delete(query, LeadDocument.class, coordinates);
+            if (response.getFailures() != null && !response.getFailures().isEmpty()) {
+                // 按查询删除不返回逐条结果，整组重试（删除是幂等的）
+                failed.addAll(deletedIds);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public SearchResult search(SearchCriteria criteria) {
+        BoolQueryBuilder query = QueryBuilders.boolQuery();
+        if (StringUtils.hasText(criteria.getKeyword())) {
+            String keyword = criteria.getKeyword().trim();
+            query.must(QueryBuilders.boolQuery()
+                    .should(QueryBuilders.multiMatchQuery(keyword, "title^3", "companyName^2", "tags^2", "description")
+                            .operator(Operator.AND))
+                    .should(QueryBuilders.termQuery("companyName.keyword", keyword).boost(5))
+                    .should(QueryBuilders.termQuery("contactName", keyword))
+                    .minimumShouldMatch(1));
+        }
+        if (criteria.getLeadType() != null) {
+            query.filter(QueryBuilders.termQuery("leadType", criteria.getLeadType()));
+        }
+        if (criteria.getStatus() != null) {
+            query.filter(QueryBuilders.termQuery("status", criteria.getStatus()));
+        }
+        if (StringUtils.hasText(criteria.getRating())) {
+            query.filter(QueryBuilders.termQuery("rating", criteria.getRating()));
+        }
+        if (StringUtils.hasText(criteria.getIndustry())) {
+            query.filter(QueryBuilders.termQuery("industry", criteria.getIndustry()));
+        }
+        if (StringUtils.hasText(criteria.getRegion())) {
+            query.filter(QueryBuilders.termQuery("region.keyword", criteria.getRegion()));
+        }
+
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder()
+                .withQuery(query)
+                .withSorts(SortBuilders.fieldSort("isTop").order(SortOrder.DESC).missing("_last"),
+                        SortBuilders.fieldSort("isRecommend").order(SortOrder.DESC).missing("_last"),
+                        SortBuilders.scoreSort().order(SortOrder.DESC),
+                        SortBuilders.fieldSort("ratingScore").order(SortOrder.DESC).missing("_last"),
+                        SortBuilders.fieldSort("createdAt").order(SortOrder.DESC).missing("_last"))
+                .withPageable(PageRequest.of(criteria.getOffset() / criteria.getSize(), criteria.getSize()))
+                .withSourceFilter(new FetchSourceFilter(new String[]{"id"}, null))
+                .withTrackTotalHits(true)
+                .build();
+        SearchHits<LeadDocument> hits = operations.search(searchQuery, LeadDocument.class, ALIAS);
+        List<Long> ids = new ArrayList<>(hits.getSearchHits().size());
+        for (SearchHit<LeadDocument> hit : hits.getSearchHits()) {
+            ids.add(Long.valueOf(hit.getId()));
+        }
+        return new SearchResult(ids, hits.getTotalHits());
+    }
+}
@@ -0,0 +1,534 @@
+package com.leadexchange.modules.lead.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leadexchange.common.utils.CountMinSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门搜索关键词跟踪器
+ *
+ * 按时间分桶（默认每小时一桶），每桶一个 Count-Min Sketch 估计关键词频次，外加一个容量为K的最小堆
+ * 保留该桶估计频次最高的关键词。查询时把区间内各桶的候选累加后取前N，只访问 K × 桶数 个条目。
+ * 跨节点：桶结束后各节点把本地草图与候选写入Redis，定期合并其他节点同一桶的数据（草图逐格相加，
+ * 候选取并集后按合并草图重新估计）；当前桶只包含本节点数据。桶发布后仍有计数落入（搜索日志延迟写入）时
+ * 整桶重新发布。每个桶另有一个只含各节点版本号的小哈希，同步时只读取版本号，
+ * 只有版本变化的节点才拉取其快照；最近几个桶缓存已拉取的快照，更早的桶变化时再补拉。
+ * 桶只保存在内存中，节点重启后只完整覆盖启动之后的时间，更早的区间由调用方回退到搜索日志表。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class HotKeywordTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeywordTracker.class);
+
+    private static final String BUCKET_KEY_PREFIX = "search:hot:bucket:";
+
+    private static final String VERSION_KEY_PREFIX = "search:hot:version:";
+
+    /** 缓存其他节点快照的最近已结束桶数量，更早的桶很少再变化 */
+    private static final int SNAPSHOT_CACHE_BUCKETS = 2;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final long bucketMillis;
+
+    private final long retentionMillis;
+
+    private final int topK;
+
+    private final int sketchDepth;
+
+    private final int sketchWidth;
+
+    private final int maxKeywordLength;
+
+    /** 本节点各桶，键为桶起始时间（毫秒） */
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    /** 已结束的桶合并其他节点数据后的视图 */
+    private final ConcurrentHashMap<Long, Bucket> clusterBuckets = new ConcurrentHashMap<>();
+
+    /** 各桶最近一次合并时的各节点版本与快照，仅由同步线程访问 */
+    private final Map<Long, MergeState> mergeStates = new ConcurrentHashMap<>();
+
+    /** 本节点开始计数的时间，之前的搜索不在内存桶中 */
+    private final long startedAt = System.currentTimeMillis();
+
+    public HotKeywordTracker(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> stringRedisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${app.search.hot-keywords.bucket-minutes:60}") long bucketMinutes,
+                             @Value("${app.search.hot-keywords.retention-hours:168}") long retentionHours,
+                             @Value("${app.search.hot-keywords.top-k:100}") int topK,
+                             @Value("${app.search.hot-keywords.sketch-depth:4}") int sketchDepth,
+                             @Value("${app.search.hot-keywords.sketch-width:2048}") int sketchWidth,
+                             @Value("${app.search.hot-keywords.max-keyword-length:64}") int maxKeywordLength) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.bucketMillis = TimeUnit.MINUTES.toMillis(bucketMinutes);
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        this.topK = topK;
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+        this.maxKeywordLength = maxKeywordLength;
+    }
+
+    /**
+     * 记录搜索（可批量计数）
+     *
+     * @param keyword 搜索关键词
+     * @param count 次数
+     * @param timestamp 搜索时间（毫秒）
+     */
+    public void record(String keyword, long count, long timestamp) {
+        String normalized = normalize(keyword);
+        if (normalized == null || count <= 0) {
+            return;
+        }
+        long start = timestamp - Math.floorMod(timestamp, bucketMillis);
+        buckets.computeIfAbsent(start, this::newBucket).add(normalized, count, timestamp);
+    }
+
+    /**
+     * 查询时间区间内的热门关键词
+     *
+     * @param startTime 开始时间（为空表示保留期起点）
+     * @param endTime 结束时间（为空表示当前）
+     * @param limit 数量
+     * @return 按次数降序的热门关键词
+     */
+    public List<HotKeyword> top(LocalDateTime startTime, LocalDateTime endTime, int limit) {
+        long from = startTime != null ? toMillis(startTime) : Long.MIN_VALUE;
+        long to = endTime != null ? toMillis(endTime) : Long.MAX_VALUE;
+        long firstBucket = from == Long.MIN_VALUE ? Long.MIN_VALUE : from - Math.floorMod(from, bucketMillis);
+        Map<String, HotKeyword> totals = new HashMap<>();
+        for (Bucket local : buckets.subMap(firstBucket, true, to, true).values()) {
+            Bucket bucket = clusterBuckets.getOrDefault(local.start, local);
+            for (HotKeyword hitter : bucket.candidates()) {
+                HotKeyword total = totals.computeIfAbsent(hitter.keyword, k -> new HotKeyword(k, 0, 0));
+                total.count += hitter.count;
+                total.lastSearchTime = Math.max(total.lastSearchTime, hitter.lastSearchTime);
+            }
+        }
+        List<HotKeyword> result = new ArrayList<>(totals.values());
+        result.sort(Comparator.comparingLong((HotKeyword hitter) -> hitter.count).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 是否完整覆盖指定时间：早于保留期的数据已淘汰，早于本节点启动时间的数据不在内存中
+     *
+     * @param startTime 开始时间（为空表示保留期起点）
+     * @return 是否覆盖
+     */
+    public boolean covers(LocalDateTime startTime) {
+        long retentionStart = System.currentTimeMillis() - retentionMillis;
+        long from = startTime != null ? toMillis(startTime) : retentionStart;
+        return from >= retentionStart && from >= startedAt;
+    }
+
+    /**
+     * 淘汰过期桶，发布已结束的本地桶并合并其他节点的数据
+     */
+    @Scheduled(fixedDelayString = "${app.search.hot-keywords.sync-interval:60000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        long current = now - Math.floorMod(now, bucketMillis);
+        long expired = now - retentionMillis;
+        // 本节点在上一时段没有搜索时也发布空桶，保证查询能看到其他节点该时段的数据
+        buckets.computeIfAbsent(current - bucketMillis, this::newBucket);
+        buckets.headMap(expired - bucketMillis).keySet().forEach(start -> {
+            buckets.remove(start);
+            clusterBuckets.remove(start);
+            mergeStates.remove(start);
+        });
+        for (Bucket bucket : buckets.headMap(current).values()) {
+            try {
+                publish(bucket);
+                mergeRemote(bucket);
+            } catch (Exception e) {
+                bucket.markUnpublished();
+                log.warn("热门关键词桶同步失败: bucket={}, error={}", bucket.start, e.getMessage());
+            }
+        }
+        long cacheFrom = current - SNAPSHOT_CACHE_BUCKETS * bucketMillis;
+        mergeStates.forEach((start, state) -> {
+            if (start < cacheFrom) {
+                state.snapshots.clear();
+            }
+        });
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("buckets", buckets.size());
+        stats.put("clusterBuckets", clusterBuckets.size());
+        stats.put("searches", buckets.values().stream().mapToLong(Bucket::total).sum());
+        return stats;
+    }
+
+    /**
+     * 发布本地桶；自上次发布以来没有新计数时跳过。整桶覆盖本节点的字段，重复发布是幂等的。
+     * 先写快照再写版本号，读到新版本号的节点一定能读到不旧于该版本的快照
+     */
+    private void publish(Bucket bucket) throws Exception {
+        BucketSnapshot snapshot = bucket.snapshotIfChanged();
+        if (snapshot == null) {
+            return;
+        }
+        String key = BUCKET_KEY_PREFIX + bucket.start;
+        String versionKey = VERSION_KEY_PREFIX + bucket.start;
+        long ttl = retentionMillis + bucketMillis;
+        stringRedisTemplate.opsForHash().put(key, nodeId, objectMapper.writeValueAsString(snapshot));
+        stringRedisTemplate.opsForHash().put(versionKey, nodeId, String.valueOf(snapshot.getVersion()));
+        stringRedisTemplate.expire(key, ttl, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.expire(versionKey, ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 合并其他节点同一桶的数据：先比较版本号，本地与各节点版本都未变化时不访问快照；
+     * 只拉取版本变化或未缓存的节点快照，再以本地桶为基础重新合并
+     */
+    private void mergeRemote(Bucket bucket) throws Exception {
+        Map<String, String> versions = new HashMap<>();
+        stringRedisTemplate.opsForHash().entries(VERSION_KEY_PREFIX + bucket.start)
+                .forEach((node, version) -> versions.put((String) node, (String) version));
+        versions.remove(nodeId);
+        if (versions.isEmpty()) {
+            return;
+        }
+        long localVersion = bucket.currentVersion();
+        MergeState state = mergeStates.computeIfAbsent(bucket.start, start -> new MergeState());
+        if (state.localVersion == localVersion && state.versions.equals(versions)) {
+            return;
+        }
+        state.snapshots.keySet().retainAll(versions.keySet());
+        List<Object> fetch = new ArrayList<>();
+        versions.forEach((node, version) -> {
+            if (!version.equals(state.versions.get(node)) || !state.snapshots.containsKey(node)) {
+                fetch.add(node);
+            }
+        });
+        if (!fetch.isEmpty()) {
+            List<Object> values = stringRedisTemplate.opsForHash().multiGet(BUCKET_KEY_PREFIX + bucket.start, fetch);
+            for (int i = 0; i < fetch.size(); i++) {
+                Object value = values.get(i);
+                if (value != null) {
+                    state.snapshots.put((String) fetch.get(i),
+                            objectMapper.readValue((String) value, BucketSnapshot.class));
+                }
+            }
+        }
+        Bucket merged = bucket.copy();
+        for (BucketSnapshot snapshot : state.snapshots.values()) {
+            merged.merge(snapshot);
+        }
+        clusterBuckets.put(bucket.start, merged);
+        state.versions = versions;
+        state.localVersion = localVersion;
+    }
+
+    private Bucket newBucket(long start) {
+        return new Bucket(start, new CountMinSketch(sketchDepth, sketchWidth), topK);
+    }
+
+    /**
+     * 关键词规范化：去除首尾空白、转小写、截断超长部分
+     *
+     * @param keyword 原始关键词
+     * @return 规范化后的关键词，空白时返回null
+     */
+    public String normalize(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String normalized = keyword.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return normalized.length() > maxKeywordLength ? normalized.substring(0, maxKeywordLength) : normalized;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 时间桶：频次草图 + 前K候选最小堆
+     */
+    private static final class Bucket {
+
+        final long start;
+
+        final CountMinSketch sketch;
+
+        final int capacity;
+
+        final Map<String, HotKeyword> hitters = new HashMap<>();
+
+        final PriorityQueue<HotKeyword> heap = new PriorityQueue<>(Comparator.comparingLong(hitter -> hitter.count));
+
+        /** 本地计数的版本号，每次记录递增 */
+        long version;
+
+        /** 最近一次发布的版本号，-1表示未发布 */
+        long publishedVersion = -1;
+
+        Bucket(long start, CountMinSketch sketch, int capacity) {
+            this.start = start;
+            this.sketch = sketch;
+            this.capacity = capacity;
+        }
+
+        synchronized void add(String keyword, long count, long timestamp) {
+            version++;
+            offer(keyword, sketch.add(keyword, count), timestamp);
+        }
+
+        synchronized void merge(BucketSnapshot snapshot) {
+            sketch.merge(CountMinSketch.of(snapshot.getDepth(), snapshot.getWidth(), snapshot.getCounters(),
+                    snapshot.getTotal()));
+            Map<String, Long> candidates = new HashMap<>();
+            for (HotKeyword hitter : hitters.values()) {
+                candidates.put(hitter.keyword, hitter.lastSearchTime);
+            }
+            for (HotKeyword hitter : snapshot.getHitters()) {
+                candidates.merge(hitter.keyword, hitter.lastSearchTime, Math::max);
+            }
+            candidates.forEach((keyword, lastSearchTime) -> offer(keyword, sketch.estimate(keyword), lastSearchTime));
+        }
+
+        private void offer(String keyword, long estimate, long timestamp) {
+            HotKeyword hitter = hitters.get(keyword);
+            if (hitter != null) {
+                heap.remove(hitter);
+                hitter.count = estimate;
+                hitter.lastSearchTime = Math.max(hitter.lastSearchTime, timestamp);
+                heap.add(hitter);
+                return;
+            }
+            if (heap.size() >= capacity) {
+                if (estimate <= heap.peek().count) {
+                    return;
+                }
+                hitters.remove(heap.poll().keyword);
+            }
+            hitter = new HotKeyword(keyword, estimate, timestamp);
+            hitters.put(keyword, hitter);
+            heap.add(hitter);
+        }
+
+        synchronized List<HotKeyword> candidates() {
+            List<HotKeyword> copy = new ArrayList<>(hitters.size());
+            for (HotKeyword hitter : hitters.values()) {
+                copy.add(new HotKeyword(hitter.keyword, hitter.count, hitter.lastSearchTime));
+            }
+            return copy;
+        }
+
+        synchronized long total() {
+            return sketch.getTotal();
+        }
+
+        synchronized Bucket copy() {
+            Bucket copy = new Bucket(start, sketch.copy(), capacity);
+            for (HotKeyword hitter : hitters.values()) {
+                copy.offer(hitter.keyword, hitter.count, hitter.lastSearchTime);
+            }
+            return copy;
+        }
+
+        /**
+         * 自上次发布以来有新计数时返回快照并记为已发布，否则返回null
+         */
+        synchronized BucketSnapshot snapshotIfChanged() {
+            if (publishedVersion == version) {
+                return null;
+            }
+            publishedVersion = version;
+            return snapshot();
+        }
+
+        synchronized void markUnpublished() {
+            publishedVersion = -1;
+        }
+
+        synchronized long currentVersion() {
+            return version;
+        }
+
+        synchronized BucketSnapshot snapshot() {
+            BucketSnapshot snapshot = new BucketSnapshot();
+            snapshot.setVersion(version);
+            snapshot.setDepth(sketch.getDepth());
+            snapshot.setWidth(sketch.getWidth());
+            snapshot.setCounters(sketch.getCounters().clone());
+            snapshot.setTotal(sketch.getTotal());
+            snapshot.setHitters(candidates());
+            return snapshot;
+        }
+    }
+
+    /**
+     * 桶的合并状态：合并时各节点的版本号、本地版本号与已拉取的快照
+     */
+    private static final class MergeState {
+
+        Map<String, String> versions = new HashMap<>();
+
+        long localVersion = -1;
+
+        final Map<String, BucketSnapshot> snapshots = new HashMap<>();
+    }
+
+    /**
+     * 热门关键词
+     */
+    public static class HotKeyword {
+
+        private String keyword;
+
+        private long count;
+
+        private long lastSearchTime;
+
+        public HotKeyword() {
+        }
+
+        public HotKeyword(String keyword, long count, long lastSearchTime) {
+            this.keyword = keyword;
+            this.count = count;
+            this.lastSearchTime = lastSearchTime;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public void setKeyword(String keyword) {
+            this.keyword = keyword;
+        }
+
+        /**
+         * 搜索次数（估计值，不小于真实值）
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        /**
+         * 最近一次搜索时间（毫秒）
+         */
+        public long getLastSearchTime() {
+            return lastSearchTime;
+        }
+
+        public void setLastSearchTime(long lastSearchTime) {
+            this.lastSearchTime = lastSearchTime;
+        }
+    }
+
+    /**
+     * 桶快照（跨节点交换）
+     */
+    public static class BucketSnapshot {
+
+        private long version;
+
+        private int depth;
+
+        private int width;
+
+        private long[] counters;
+
+        private long total;
+
+        private Collection<HotKeyword> hitters;
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public void setDepth(int depth) {
+            this.depth = depth;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public long[] getCounters() {
+            return counters;
+        }
+
+        public void setCounters(long[] counters) {
+            this.counters = counters;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public Collection<HotKeyword> getHitters() {
+            return hitters;
+        }
+
+        public void setHitters(Collection<HotKeyword> hitters) {
+            this.hitters = hitters;
+        }
+    }
+}
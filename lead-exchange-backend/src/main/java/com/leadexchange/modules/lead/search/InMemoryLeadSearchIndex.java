@@ -0,0 +1,192 @@
+package com.leadexchange.modules.lead.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存版线索搜索索引（本地Elasticsearch替身）
+ * 配置 app.search.engine=memory 时启用，无需Elasticsearch即可在本地验证增量同步、全量重建与别名切换；
+ * 关键词按子串匹配（不分词）。可通过 setAvailable 模拟集群不可用、failNext 模拟逐条写入失败，验证重试与回退数据库查询
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "memory")
+public class InMemoryLeadSearchIndex implements LeadSearchIndex {
+
+    private static final Comparator<LeadDocument> ORDER = Comparator
+            .comparing(LeadDocument::getIsTop, Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+            .thenComparing(LeadDocument::getIsRecommend, Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+            .thenComparing(LeadDocument::getRatingScore, Comparator.nullsLast(Comparator.<Integer>reverseOrder()))
+            .thenComparing(LeadDocument::getCreatedAt, Comparator.nullsLast(Comparator.<Long>reverseOrder()));
+
+    private final Map<String, Map<Long, LeadDocument>> indices = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile String aliasTarget;
+
+    private volatile boolean available = true;
+
+    @Override
+    public boolean exists() {
+        checkAvailable();
+        return aliasTarget != null;
+    }
+
+    @Override
+    public String createIndex() {
+        checkAvailable();
+        String index = LeadDocument.ALIAS + "_v" + versions.incrementAndGet();
+        indices.put(index, new ConcurrentHashMap<>());
+        return index;
+    }
+
+    @Override
+    public void deleteIndex(String index) {
+        checkAvailable();
+        indices.remove(index);
+    }
+
+    @Override
+    public synchronized void switchAlias(String index) {
+        checkAvailable();
+        if (!indices.containsKey(index)) {
+            throw new IllegalArgumentException("索引不存在: " + index);
+        }
+        String previous = aliasTarget;
+        aliasTarget = index;
+        if (previous != null && !previous.equals(index)) {
+            indices.remove(previous);
+        }
+    }
+
+    @Override
+    public Set<Long> bulk(String index, List<LeadDocument> documents, Collection<Long> deletedIds) {
+        checkAvailable();
+        Map<Long, LeadDocument> target = resolve(index);
+        Set<Long> failed = new HashSet<>();
+        for (LeadDocument document : documents) {
+            if (failures.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+                failed.add(document.getId());
+            } else {
+                target.put(document.getId(), document);
+            }
+        }
+        for (Long id : deletedIds) {
+            target.remove(id);
+        }
+        return failed;
+    }
+
+    @Override
+    public SearchResult search(SearchCriteria criteria) {
+        checkAvailable();
+        Map<Long, LeadDocument> target = resolve(LeadDocument.ALIAS);
+        String keyword = StringUtils.hasText(criteria.getKeyword())
+                ? criteria.getKeyword().trim().toLowerCase(Locale.ROOT) : null;
+        List<LeadDocument> matched = new ArrayList<>();
+        for (LeadDocument document : target.values()) {
+            if (matches(document, criteria, keyword)) {
+                matched.add(document);
+            }
+        }
+        matched.sort(ORDER);
+        List<Long> ids = new ArrayList<>();
+        for (int i = criteria.getOffset(); i < matched.size() && ids.size() < criteria.getSize(); i++) {
+            ids.add(matched.get(i).getId());
+        }
+        return new SearchResult(ids, matched.size());
+    }
+
+    /**
+     * 模拟集群可用或不可用
+     *
+     * @param available 是否可用
+     */
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    /**
+     * 让接下来写入的若干个文档逐条失败
+     *
+     * @param count 失败文档数
+     */
+    public void failNext(int count) {
+        failures.set(count);
+    }
+
+    /**
+     * 别名当前指向的索引中的文档数
+     *
+     * @return 文档数
+     */
+    public int size() {
+        String index = aliasTarget;
+        return index == null ? 0 : indices.getOrDefault(index, Map.of()).size();
+    }
+
+    private Map<Long, LeadDocument> resolve(String index) {
+        String name = LeadDocument.ALIAS.equals(index) ? aliasTarget : index;
+        Map<Long, LeadDocument> target = name == null ? null : indices.get(name);
+        if (target == null) {
+            throw new IllegalStateException("索引不存在: " + index);
+        }
+        return target;
+    }
+
+    private void checkAvailable() {
+        if (!available) {
+            throw new IllegalStateException("模拟搜索集群不可用");
+        }
+    }
+
+    private static boolean matches(LeadDocument document, SearchCriteria criteria, String keyword) {
+        if (criteria.getLeadType() != null && !criteria.getLeadType().equals(document.getLeadType())) {
+            return false;
+        }
+        if (criteria.getStatus() != null && !criteria.getStatus().equals(document.getStatus())) {
+            return false;
+        }
+        if (StringUtils.hasText(criteria.getRating()) && !criteria.getRating().equals(document.getRating())) {
+            return false;
+        }
+        if (StringUtils.hasText(criteria.getIndustry()) && !criteria.getIndustry().equals(document.getIndustry())) {
+            return false;
+        }
+        if (StringUtils.hasText(criteria.getRegion()) && !criteria.getRegion().equals(document.getRegion())) {
+            return false;
+        }
+        if (keyword == null) {
+            return true;
+        }
+        return contains(document.getTitle(), keyword)
+                || contains(document.getCompanyName(), keyword)
+                || contains(document.getTags(), keyword)
+                || contains(document.getDescription(), keyword)
+                || Objects.equals(document.getContactName(), criteria.getKeyword().trim());
+    }
+
+    private static boolean contains(String text, String keyword) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(keyword);
+    }
+}
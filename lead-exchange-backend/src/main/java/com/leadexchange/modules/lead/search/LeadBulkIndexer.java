@@ -0,0 +1,539 @@
+package com.leadexchange.modules.lead.search;
+
+import com.leadexchange.common.service.DistributedLockService;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadSearchMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线索搜索索引批量同步器
+ *
+ * 集群内通过分布式锁选出唯一的同步节点（与发件箱中继相同），每批之前检查锁租约，租约丢失或剩余不足时
+ * 让出并重新竞选，重新成为同步节点时从Redis重新读取水位。按 (update_time, id) 水位分页读取变更的线索，
+ * 整批以一次bulk写入别名索引，已逻辑删除或不存在的线索从索引中删除。水位保存在Redis，切换节点后继续。
+ * 逐条失败的文档按指数退避重试，超过 max-attempts 后放弃并计数，由下一次全量重建修复；
+ * 整个请求失败（集群不可用）时不推进水位，退避后重读同一批。
+ * 追上变更后水位停在回看窗口起点，update_time 早于提交时间的长事务写入不会被跳过（重复写入是幂等的）。
+ *
+ * 全量重建：新建版本索引，按ID分页流式读取 biz_lead，多线程并行bulk写入，全部成功后切换别名并删除旧索引，
+ * 再把水位回退到重建开始时间，补上重建期间写入旧索引的变更。首次启动（别名不存在或没有水位）时自动执行。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadBulkIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadBulkIndexer.class);
+
+    private static final String LEADER_LOCK = "search:lead-indexer";
+
+    private static final String WATERMARK_KEY = "search:lead-index:watermark";
+
+    private final LeadSearchIndex leadSearchIndex;
+
+    private final LeadSearchMapper leadSearchMapper;
+
+    private final DistributedLockService distributedLockService;
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    @Value("${app.search.index.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.search.index.poll-interval:1000}")
+    private long pollInterval;
+
+    @Value("${app.search.index.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.search.index.retry-backoff:1000}")
+    private long retryBackoff;
+
+    @Value("${app.search.index.max-backoff:60000}")
+    private long maxBackoff;
+
+    @Value("${app.search.index.lookback-seconds:5}")
+    private long lookbackSeconds;
+
+    @Value("${app.search.index.reindex-page-size:1000}")
+    private int reindexPageSize;
+
+    @Value("${app.search.index.reindex-parallelism:4}")
+    private int reindexParallelism;
+
+    /** 同步锁剩余租期不足该值（毫秒）时让出，应大于一批同步的最长耗时 */
+    @Value("${app.search.index.lease-margin:10000}")
+    private long leaseMargin;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private volatile boolean leader;
+
+    private volatile boolean reindexRequested;
+
+    /** 增量同步水位，仅后台线程写入 */
+    private volatile LocalDateTime watermarkTime;
+
+    private long watermarkId;
+
+    private boolean initialized;
+
+    private int consecutiveFailures;
+
+    /** 等待重试的文档，仅后台线程写入 */
+    private final Map<Long, RetryState> retries = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastReindexTime;
+
+    private final Timer reindexTimer;
+
+    private final Counter indexedCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter droppedCounter;
+
+    public LeadBulkIndexer(LeadSearchIndex leadSearchIndex, LeadSearchMapper leadSearchMapper,
+                           DistributedLockService distributedLockService,
+                           @Qualifier("customStringRedisTemplate") RedisTemplate<String, String> stringRedisTemplate,
+                           MeterRegistry meterRegistry) {
+        this.leadSearchIndex = leadSearchIndex;
+        this.leadSearchMapper = leadSearchMapper;
+        this.distributedLockService = distributedLockService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        meterRegistry.gauge("search.index.retry.pending", retries, Map::size);
+        this.reindexTimer = Timer.builder("search.index.reindex")
+                .description("线索搜索索引全量重建耗时")
+                .register(meterRegistry);
+        this.indexedCounter = Counter.builder("search.index.indexed")
+                .description("同步到搜索索引的线索数量")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("search.index.retried")
+                .description("写入失败进入重试的线索数量")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("search.index.dropped")
+                .description("超过重试次数被放弃的线索数量")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        worker = new Thread(this::run, "lead-bulk-indexer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        wakeUp.release();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 请求全量重建（由同步节点的后台线程执行）
+     */
+    public void requestReindex() {
+        reindexRequested = true;
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    /**
+     * 定时全量重建，修复放弃重试的文档并整理索引
+     */
+    @Scheduled(cron = "${app.search.index.reindex-cron:0 0 4 ? * SUN}")
+    public void scheduledReindex() {
+        if (leader) {
+            requestReindex();
+        }
+    }
+
+    /**
+     * 当前节点是否为同步节点
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    private void run() {
+        DistributedLockService.LockHandle lock = null;
+        try {
+            while (running) {
+                try {
+                    if (lock == null) {
+                        lock = distributedLockService.tryLock(LEADER_LOCK, 0, 0, TimeUnit.MILLISECONDS);
+                        leader = lock != null;
+                        if (lock == null) {
+                            // 其他节点正在同步
+                            wakeUp.tryAcquire(pollInterval * 5, TimeUnit.MILLISECONDS);
+                            continue;
+                        }
+                        log.info("当前节点成为线索搜索索引同步节点");
+                    }
+                    if (!lock.isHeld(leaseMargin)) {
+                        log.warn("线索搜索索引同步锁租约已丢失或即将到期，退出同步并重新竞选");
+                        leader = false;
+                        releaseQuietly(lock);
+                        lock = null;
+                        // 期间其他节点可能推进了水位，重新成为同步节点时从Redis重新读取
+                        initialized = false;
+                        continue;
+                    }
+                    if (!initialized) {
+                        loadWatermark();
+                        initialized = true;
+                    }
+                    if (reindexRequested || watermarkTime == null) {
+                        reindexRequested = false;
+                        try {
+                            reindex(lock);
+                        } catch (Exception e) {
+                            reindexRequested = true;
+                            throw e;
+                        }
+                    }
+                    int changed = syncBatch();
+                    consecutiveFailures = 0;
+                    if (changed < batchSize) {
+                        wakeUp.tryAcquire(pollInterval, TimeUnit.MILLISECONDS);
+                        wakeUp.drainPermits();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    consecutiveFailures++;
+                    long delay = backoff(consecutiveFailures);
+                    log.warn("线索搜索索引同步失败，{}毫秒后重试: failures={}", delay, consecutiveFailures, e);
+                    wakeUp.tryAcquire(delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            leader = false;
+            if (lock != null) {
+                releaseQuietly(lock);
+            }
+        }
+    }
+
+    private void releaseQuietly(DistributedLockService.LockHandle lock) {
+        try {
+            lock.close();
+        } catch (Exception e) {
+            log.warn("释放线索搜索索引同步锁失败", e);
+        }
+    }
+
+    /**
+     * 同步一批变更
+     *
+     * @return 本批读取的变更数量
+     */
+    int syncBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Lead> changes = leadSearchMapper.findChangedSince(watermarkTime, watermarkId, batchSize);
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Lead lead : changes) {
+            ids.add(lead.getId());
+        }
+        long nowMillis = System.currentTimeMillis();
+        for (Map.Entry<Long, RetryState> entry : retries.entrySet()) {
+            if (ids.size() >= batchSize * 2) {
+                break;
+            }
+            if (entry.getValue().dueAt <= nowMillis) {
+                ids.add(entry.getKey());
+            }
+        }
+        if (!ids.isEmpty()) {
+            // 整个请求失败时抛出，水位与重试状态保持不变
+            Set<Long> failed = indexByIds(LeadDocument.ALIAS, ids);
+            for (Long id : ids) {
+                if (failed.contains(id)) {
+                    scheduleRetry(id);
+                } else {
+                    retries.remove(id);
+                }
+            }
+        }
+
+        if (changes.size() >= batchSize) {
+            // 整页变更：必须推进到本页末尾，否则回看窗口内的变更超过一页时无法前进
+            Lead last = changes.get(changes.size() - 1);
+            watermarkTime = last.getUpdateTime();
+            watermarkId = last.getId();
+        } else {
+            LocalDateTime horizon = now.minusSeconds(lookbackSeconds);
+            Lead last = changes.isEmpty() ? null : changes.get(changes.size() - 1);
+            if (last != null && !last.getUpdateTime().isAfter(horizon)) {
+                watermarkTime = last.getUpdateTime();
+                watermarkId = last.getId();
+            } else if (watermarkTime.isAfter(horizon) || last != null) {
+                watermarkTime = horizon;
+                watermarkId = 0;
+            }
+        }
+        if (!changes.isEmpty()) {
+            saveWatermark();
+        }
+        return changes.size();
+    }
+
+    /**
+     * 全量重建索引，每页读取前与切换别名前检查同步锁租约，丢失时中断且不切换别名
+     *
+     * @param lock 同步锁
+     */
+    void reindex(DistributedLockService.LockHandle lock) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+        String index = leadSearchIndex.createIndex();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(reindexParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "lead-reindex-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 限制在途页数，读库速度快于写入时不会把整张表读进内存
+        Semaphore inFlight = new Semaphore(reindexParallelism * 2);
+        List<Future<Integer>> futures = new ArrayList<>();
+        long total = 0;
+        boolean switched = false;
+        try {
+            long afterId = 0;
+            while (running) {
+                checkLease(lock);
+                List<Lead> page = leadSearchMapper.findAfterId(afterId, reindexPageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).getId();
+                List<LeadDocument> documents = new ArrayList<>(page.size());
+                for (Lead lead : page) {
+                    documents.add(LeadDocument.from(lead));
+                }
+                inFlight.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return bulkWithRetry(index, documents);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                total += documents.size();
+                if (page.size() < reindexPageSize) {
+                    break;
+                }
+            }
+            int failed = 0;
+            for (Future<Integer> future : futures) {
+                failed += future.get();
+            }
+            if (!running) {
+                throw new IllegalStateException("应用停止，全量重建中断");
+            }
+            if (failed > 0) {
+                throw new IllegalStateException("全量重建有文档写入失败: failed=" + failed);
+            }
+            checkLease(lock);
+            leadSearchIndex.switchAlias(index);
+            switched = true;
+        } finally {
+            executor.shutdownNow();
+            if (!switched) {
+                try {
+                    leadSearchIndex.deleteIndex(index);
+                } catch (Exception e) {
+                    log.warn("清理未完成的线索搜索索引失败: {}", index, e);
+                }
+            }
+        }
+
+        // 重建期间的变更写入了旧索引，从重建开始时间重放
+        watermarkTime = startedAt.minusSeconds(lookbackSeconds);
+        watermarkId = 0;
+        saveWatermark();
+        retries.clear();
+        lastReindexTime = startedAt;
+        reindexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("线索搜索索引全量重建完成: index={}, documents={}, pages={}, elapsed={}ms",
+                index, total, futures.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void checkLease(DistributedLockService.LockHandle lock) {
+        if (!lock.isHeld(leaseMargin)) {
+            throw new IllegalStateException("线索搜索索引同步锁租约已丢失，全量重建中断");
+        }
+    }
+
+    /**
+     * 写入一页文档，逐条失败的文档退避后重试
+     *
+     * @return 最终仍失败的文档数
+     */
+    private int bulkWithRetry(String index, List<LeadDocument> documents) throws InterruptedException {
+        List<LeadDocument> pending = documents;
+        for (int attempt = 1; ; attempt++) {
+            Set<Long> failed;
+            try {
+                failed = leadSearchIndex.bulk(index, pending, Collections.emptyList());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("全量重建批量写入失败，等待重试: size={}, attempt={}", pending.size(), attempt, e);
+                failed = new HashSet<>();
+                for (LeadDocument document : pending) {
+                    failed.add(document.getId());
+                }
+            }
+            if (failed.isEmpty()) {
+                indexedCounter.increment(pending.size());
+                return 0;
+            }
+            indexedCounter.increment(pending.size() - failed.size());
+            if (attempt >= maxAttempts) {
+                return failed.size();
+            }
+            List<LeadDocument> retry = new ArrayList<>(failed.size());
+            for (LeadDocument document : pending) {
+                if (failed.contains(document.getId())) {
+                    retry.add(document);
+                }
+            }
+            pending = retry;
+            retriedCounter.increment(pending.size());
+            Thread.sleep(backoff(attempt));
+        }
+    }
+
+    /**
+     * 按ID读取线索并写入索引，已删除或不存在的线索从索引中删除
+     *
+     * @return 失败的线索ID
+     */
+    private Set<Long> indexByIds(String index, Set<Long> ids) {
+        List<Lead> leads = leadSearchMapper.findByIds(ids);
+        List<LeadDocument> documents = new ArrayList<>(leads.size());
+        Set<Long> deletedIds = new HashSet<>(ids);
+        for (Lead lead : leads) {
+            if (lead.getDeleted() == null || lead.getDeleted() == 0) {
+                documents.add(LeadDocument.from(lead));
+                deletedIds.remove(lead.getId());
+            }
+        }
+        Set<Long> failed = leadSearchIndex.bulk(index, documents, deletedIds);
+        indexedCounter.increment(ids.size() - failed.size());
+        return failed;
+    }
+
+    private void scheduleRetry(Long id) {
+        RetryState state = retries.computeIfAbsent(id, key -> new RetryState());
+        state.attempts++;
+        if (state.attempts >= maxAttempts) {
+            retries.remove(id);
+            droppedCounter.increment();
+            log.error("线索搜索文档多次写入失败，放弃重试，等待全量重建修复: leadId={}, attempts={}", id, state.attempts);
+            return;
+        }
+        state.dueAt = System.currentTimeMillis() + backoff(state.attempts);
+        retriedCounter.increment();
+    }
+
+    private long backoff(int attempt) {
+        return Math.min(maxBackoff, retryBackoff << Math.min(attempt - 1, 20));
+    }
+
+    private void loadWatermark() {
+        watermarkTime = null;
+        watermarkId = 0;
+        if (!leadSearchIndex.exists()) {
+            log.info("线索搜索索引不存在，执行全量重建");
+            return;
+        }
+        String value = stringRedisTemplate.opsForValue().get(WATERMARK_KEY);
+        if (value == null) {
+            log.info("线索搜索索引同步水位不存在，执行全量重建");
+            return;
+        }
+        String[] parts = value.split(":");
+        watermarkTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[0])), ZoneId.systemDefault());
+        watermarkId = Long.parseLong(parts[1]);
+        log.info("线索搜索索引从水位继续同步: {}, id={}", watermarkTime, watermarkId);
+    }
+
+    private void saveWatermark() {
+        long millis = watermarkTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        stringRedisTemplate.opsForValue().set(WATERMARK_KEY, millis + ":" + watermarkId);
+    }
+
+    /**
+     * 获取同步统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leader", leader);
+        stats.put("watermark", watermarkTime);
+        stats.put("pendingRetries", retries.size());
+        stats.put("indexed", (long) indexedCounter.count());
+        stats.put("retried", (long) retriedCounter.count());
+        stats.put("dropped", (long) droppedCounter.count());
+        stats.put("reindexes", reindexTimer.count());
+        stats.put("lastReindexTime", lastReindexTime);
+        return stats;
+    }
+
+    /**
+     * 重试状态
+     */
+    private static final class RetryState {
+
+        int attempts;
+
+        long dueAt;
+    }
+}
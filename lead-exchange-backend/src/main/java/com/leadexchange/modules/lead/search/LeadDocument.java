@@ -0,0 +1,247 @@
+package com.leadexchange.modules.lead.search;
+
+import com.leadexchange.modules.lead.entity.Lead;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 线索搜索文档
+ * 映射与设置见 elasticsearch/lead-mapping.json、lead-settings.json；索引由 LeadSearchIndex 按版本创建并通过别名访问，
+ * 这里的 indexName 即别名。时间字段以毫秒时间戳存储
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Document(indexName = LeadDocument.ALIAS, createIndex = false)
+@Setting(settingPath = "elasticsearch/lead-settings.json")
+@Mapping(mappingPath = "elasticsearch/lead-mapping.json")
+public class LeadDocument {
+
+    /**
+     * 索引别名
+     */
+    public static final String ALIAS = "lead";
+
+    @Id
+    private Long id;
+
+    private String title;
+
+    private String description;
+
+    private String companyName;
+
+    private String contactName;
+
+    private String tags;
+
+    private Integer leadType;
+
+    private String industry;
+
+    private String region;
+
+    private String rating;
+
+    private Integer ratingScore;
+
+    private Double investmentAmount;
+
+    private Integer status;
+
+    /**
+     * 线索所有者（发布人）
+     */
+    private Long ownerId;
+
+    private Integer isTop;
+
+    private Integer isRecommend;
+
+    private Long createdAt;
+
+    private Long updatedAt;
+
+    /**
+     * 由线索构建搜索文档
+     *
+     * @param lead 线索
+     * @return 搜索文档
+     */
+    public static LeadDocument from(Lead lead) {
+        LeadDocument document = new LeadDocument();
+        document.setId(lead.getId());
+        document.setTitle(lead.getTitle());
+        document.setDescription(lead.getDescription());
+        document.setCompanyName(lead.getCompanyName());
+        document.setContactName(lead.getContactName());
+        document.setTags(lead.getTags());
+        document.setLeadType(lead.getLeadType());
+        document.setIndustry(lead.getIndustry());
+        document.setRegion(lead.getRegion());
+        document.setRating(lead.getRating());
+        document.setRatingScore(lead.getRatingScore());
+        document.setInvestmentAmount(lead.getInvestmentAmount() == null ? null : lead.getInvestmentAmount().doubleValue());
+        document.setStatus(lead.getStatus());
+        document.setOwnerId(lead.getCreateBy());
+        document.setIsTop(lead.getIsTop());
+        document.setIsRecommend(lead.getIsRecommend());
+        document.setCreatedAt(toEpochMilli(lead.getCreateTime()));
+        document.setUpdatedAt(toEpochMilli(lead.getUpdateTime()));
+        return document;
+    }
+
+    private static Long toEpochMilli(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+    }
+
+    public String getContactName() {
+        return contactName;
+    }
+
+    public void setContactName(String contactName) {
+        this.contactName = contactName;
+    }
+
+    public String getTags() {
+        return tags;
+    }
+
+    public void setTags(String tags) {
+        this.tags = tags;
+    }
+
+    public Integer getLeadType() {
+        return leadType;
+    }
+
+    public void setLeadType(Integer leadType) {
+        this.leadType = leadType;
+    }
+
+    public String getIndustry() {
+        return industry;
+    }
+
+    public void setIndustry(String industry) {
+        this.industry = industry;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getRating() {
+        return rating;
+    }
+
+    public void setRating(String rating) {
+        this.rating = rating;
+    }
+
+    public Integer getRatingScore() {
+        return ratingScore;
+    }
+
+    public void setRatingScore(Integer ratingScore) {
+        this.ratingScore = ratingScore;
+    }
+
+    public Double getInvestmentAmount() {
+        return investmentAmount;
+    }
+
+    public void setInvestmentAmount(Double investmentAmount) {
+        this.investmentAmount = investmentAmount;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Integer getIsTop() {
+        return isTop;
+    }
+
+    public void setIsTop(Integer isTop) {
+        this.isTop = isTop;
+    }
+
+    public Integer getIsRecommend() {
+        return isRecommend;
+    }
+
+    public void setIsRecommend(Integer isRecommend) {
+        this.isRecommend = isRecommend;
+    }
+
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
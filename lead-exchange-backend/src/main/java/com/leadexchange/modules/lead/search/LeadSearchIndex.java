@@ -0,0 +1,173 @@
+package com.leadexchange.modules.lead.search;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 线索搜索索引
+ * 物理索引按版本创建（lead_v{时间戳}），读写均通过别名 {@link LeadDocument#ALIAS}；
+ * 全量重建写入新索引后原子切换别名。实现：Elasticsearch（默认）与内存替身（app.search.engine=memory）
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface LeadSearchIndex {
+
+    /**
+     * 别名是否已指向某个索引
+     *
+     * @return 是否存在
+     */
+    boolean exists();
+
+    /**
+     * 按映射创建新版本的物理索引（不挂别名）
+     *
+     * @return 索引名
+     */
+    String createIndex();
+
+    /**
+     * 删除物理索引（全量重建失败时清理）
+     *
+     * @param index 索引名
+     */
+    void deleteIndex(String index);
+
+    /**
+     * 将别名原子切换到指定索引，并删除别名原先指向的旧索引
+     *
+     * @param index 新索引名
+     */
+    void switchAlias(String index);
+
+    /**
+     * 批量写入与删除
+     * 整个请求失败（连接失败、超时等）时抛出异常；逐条失败的文档以返回值给出，由调用方重试
+     *
+     * @param index 索引名或别名
+     * @param documents 写入（覆盖）的文档
+     * @param deletedIds 删除的文档ID
+     * @return 写入或删除失败的文档ID
+     */
+    Set<Long> bulk(String index, List<LeadDocument> documents, Collection<Long> deletedIds);
+
+    /**
+     * 搜索线索，排序与数据库查询一致：置顶、推荐、相关度、评级分数、创建时间
+     *
+     * @param criteria 搜索条件
+     * @return 命中的线索ID（按排序）与总数
+     */
+    SearchResult search(SearchCriteria criteria);
+
+    /**
+     * 搜索条件
+     */
+    class SearchCriteria {
+
+        private String keyword;
+
+        private Integer leadType;
+
+        private Integer status;
+
+        private String rating;
+
+        private String industry;
+
+        private String region;
+
+        private int offset;
+
+        private int size;
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public void setKeyword(String keyword) {
+            this.keyword = keyword;
+        }
+
+        public Integer getLeadType() {
+            return leadType;
+        }
+
+        public void setLeadType(Integer leadType) {
+            this.leadType = leadType;
+        }
+
+        public Integer getStatus() {
+            return status;
+        }
+
+        public void setStatus(Integer status) {
+            this.status = status;
+        }
+
+        public String getRating() {
+            return rating;
+        }
+
+        public void setRating(String rating) {
+            this.rating = rating;
+        }
+
+        public String getIndustry() {
+            return industry;
+        }
+
+        public void setIndustry(String industry) {
+            this.industry = industry;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    class SearchResult {
+
+        private final List<Long> ids;
+
+        private final long total;
+
+        public SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
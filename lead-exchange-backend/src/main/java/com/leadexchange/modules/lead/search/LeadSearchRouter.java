@@ -0,0 +1,110 @@
+package com.leadexchange.modules.lead.search;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 线索关键词搜索路由
+ * 关键词查询先到搜索索引取得命中的线索ID，再按ID从数据库加载线索（保持索引排序）；
+ * 索引查询失败时在 fallback-cooldown 内直接返回null，由调用方回退数据库查询，冷却结束后再次尝试索引
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadSearchRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadSearchRouter.class);
+
+    private final LeadSearchIndex leadSearchIndex;
+
+    private final LeadMapper leadMapper;
+
+    @Value("${app.search.fallback-cooldown:30000}")
+    private long fallbackCooldown;
+
+    /** 索引不可用时，此时间之前不再尝试 */
+    private volatile long unavailableUntil;
+
+    private final Counter routedCounter;
+
+    private final Counter fallbackCounter;
+
+    public LeadSearchRouter(LeadSearchIndex leadSearchIndex, LeadMapper leadMapper, MeterRegistry meterRegistry) {
+        this.leadSearchIndex = leadSearchIndex;
+        this.leadMapper = leadMapper;
+        this.routedCounter = Counter.builder("search.lead.routed")
+                .description("由搜索索引完成的线索关键词查询数量")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("search.lead.fallback")
+                .description("回退数据库的线索关键词查询数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 通过搜索索引分页查询线索
+     *
+     * @return 分页结果，索引不可用时返回null
+     */
+    public IPage<Lead> search(Integer page, Integer size, Integer leadType, Integer status,
+                              String rating, String industry, String region, String keyword) {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            fallbackCounter.increment();
+            return null;
+        }
+        LeadSearchIndex.SearchCriteria criteria = new LeadSearchIndex.SearchCriteria();
+        criteria.setKeyword(keyword);
+        criteria.setLeadType(leadType);
+        criteria.setStatus(status);
+        criteria.setRating(rating);
+        criteria.setIndustry(industry);
+        criteria.setRegion(region);
+        criteria.setOffset((int) Math.max(0, ((long) page - 1) * size));
+        criteria.setSize(size);
+
+        LeadSearchIndex.SearchResult result;
+        try {
+            result = leadSearchIndex.search(criteria);
+        } catch (Exception e) {
+            unavailableUntil = System.currentTimeMillis() + fallbackCooldown;
+            fallbackCounter.increment();
+            log.warn("线索搜索索引查询失败，{}毫秒内回退数据库查询", fallbackCooldown, e);
+            return null;
+        }
+        routedCounter.increment();
+
+        Page<Lead> pageResult = new Page<>(page, size, result.getTotal());
+        if (result.getIds().isEmpty()) {
+            pageResult.setRecords(new ArrayList<>());
+            return pageResult;
+        }
+        Map<Long, Lead> leads = new HashMap<>();
+        for (Lead lead : leadMapper.selectBatchIds(result.getIds())) {
+            leads.put(lead.getId(), lead);
+        }
+        List<Lead> records = new ArrayList<>(result.getIds().size());
+        for (Long id : result.getIds()) {
+            Lead lead = leads.get(id);
+            // 索引尚未同步的删除不返回
+            if (lead != null) {
+                records.add(lead);
+            }
+        }
+        pageResult.setRecords(records);
+        return pageResult;
+    }
+}
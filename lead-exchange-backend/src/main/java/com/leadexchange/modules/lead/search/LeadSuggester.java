@@ -0,0 +1,496 @@
+package com.leadexchange.modules.lead.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leadexchange.common.utils.PinyinUtils;
+import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.mapper.LeadSearchMapper;
+import com.leadexchange.modules.lead.search.HotKeywordTracker.HotKeyword;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 线索搜索联想
+ *
+ * 词条只来自已发布线索的企业名称、标题、行业、标签；每个词条以原文、全拼、首字母三类键
+ * 写入压缩前缀树，节点预存前K个条目，按前缀查询不扫描词条。
+ * 权重 = 引用该词条的线索数 + 热门搜索次数 × hot-boost。热门搜索关键词是用户输入，只用于给同名词条加权，
+ * 不单独作为联想词。
+ * 增量维护：按 (update_time, id) 水位读取变更的线索，替换该线索贡献的词条引用计数，词典有变化时标记待重建，
+ * 后台最多每 min-rebuild-interval 重建一次前缀树并整体替换，连续的小变更合并为一次重建。
+ * 查询始终读取不可变快照，不加锁。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class LeadSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadSuggester.class);
+
+    private static final int PUBLISHED = 3;
+
+    private static final int MAX_KEY_LENGTH = 32;
+
+    private static final char SEPARATOR = '\u0000';
+
+    public static final String TYPE_COMPANY = "company";
+
+    public static final String TYPE_TITLE = "title";
+
+    public static final String TYPE_INDUSTRY = "industry";
+
+    public static final String TYPE_TAG = "tag";
+
+    private final LeadSearchMapper leadSearchMapper;
+
+    private final HotKeywordTracker hotKeywordTracker;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.search.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${app.search.suggest.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.search.suggest.lookback-seconds:5}")
+    private long lookbackSeconds;
+
+    @Value("${app.search.suggest.hot-boost:10}")
+    private long hotBoost;
+
+    @Value("${app.search.suggest.hot-window-hours:24}")
+    private long hotWindowHours;
+
+    @Value("${app.search.suggest.hot-limit:1000}")
+    private int hotLimit;
+
+    @Value("${app.search.suggest.max-pinyin-variants:4}")
+    private int maxPinyinVariants;
+
+    @Value("${app.search.suggest.min-rebuild-interval:60000}")
+    private long minRebuildInterval;
+
+    /** 词条（类型 + 原文 -> 词条），以下状态均由 this 保护 */
+    private final Map<String, Term> terms = new HashMap<>();
+
+    /** 线索贡献的词条 */
+    private final Map<Long, String[]> contributions = new HashMap<>();
+
+    private Map<String, Long> hotCounts = Collections.emptyMap();
+
+    private LocalDateTime watermark;
+
+    private boolean dirty;
+
+    private volatile boolean ready;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private volatile long lastBuildMillis;
+
+    private long lastBuildAt;
+
+    private volatile LocalDateTime lastBuildTime;
+
+    public LeadSuggester(LeadSearchMapper leadSearchMapper, HotKeywordTracker hotKeywordTracker,
+                         ObjectMapper objectMapper) {
+        this.leadSearchMapper = leadSearchMapper;
+        this.hotKeywordTracker = hotKeywordTracker;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 应用启动完成后全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("搜索联想词典初始加载失败，将在下次刷新时重试", e);
+        }
+    }
+
+    /**
+     * 查询联想词
+     *
+     * @param prefix 输入前缀（原文、全拼或首字母）
+     * @param limit 数量（不超过 top-k）
+     * @return 按权重降序的联想词，同一文本只返回一次
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = PinyinUtils.normalize(prefix);
+        if (normalized.isEmpty() || normalized.length() > MAX_KEY_LENGTH) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        int[] entries = current.trie.lookup(normalized);
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, entries.length));
+        Set<String> seen = new HashSet<>();
+        for (int entry : entries) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            if (seen.add(current.texts[entry])) {
+                suggestions.add(new Suggestion(current.texts[entry], current.types[entry], current.weights[entry]));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * 全量重新加载词典
+     */
+    public synchronized void reload() {
+        LocalDateTime start = LocalDateTime.now();
+        terms.clear();
+        contributions.clear();
+        long afterId = 0L;
+        List<Lead> page;
+        do {
+            page = leadSearchMapper.findAfterId(afterId, pageSize);
+            for (Lead lead : page) {
+                apply(lead.getId(), extract(lead));
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+        watermark = start;
+        hotCounts = loadHotCounts();
+        rebuild();
+        ready = true;
+        log.info("搜索联想词典加载完成: terms={}, leads={}", terms.size(), contributions.size());
+    }
+
+    /**
+     * 定时增量刷新，初始加载失败时改为全量加载
+     */
+    @Scheduled(fixedDelayString = "${app.search.suggest.refresh-interval:10000}")
+    public synchronized void refresh() {
+        if (!ready) {
+            warmUp();
+            return;
+        }
+        try {
+            LocalDateTime since = watermark.minusSeconds(lookbackSeconds);
+            long afterId = 0L;
+            LocalDateTime maxSeen = watermark;
+            List<Lead> page;
+            do {
+                page = leadSearchMapper.findChangedSince(since, afterId, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                Set<Long> ids = new HashSet<>();
+                for (Lead changed : page) {
+                    ids.add(changed.getId());
+                }
+                for (Lead lead : leadSearchMapper.findByIds(ids)) {
+                    ids.remove(lead.getId());
+                    apply(lead.getId(), extract(lead));
+                }
+                for (Long missing : ids) {
+                    apply(missing, null);
+                }
+                Lead last = page.get(page.size() - 1);
+                since = last.getUpdateTime();
+                afterId = last.getId();
+                if (since.isAfter(maxSeen)) {
+                    maxSeen = since;
+                }
+            } while (page.size() == pageSize);
+            watermark = maxSeen;
+            rebuildIfDue();
+        } catch (Exception e) {
+            log.error("搜索联想词典增量刷新失败: watermark={}", watermark, e);
+        }
+    }
+
+    /**
+     * 定时更新热门搜索权重
+     */
+    @Scheduled(fixedDelayString = "${app.search.suggest.hot-refresh-interval:300000}")
+    public synchronized void refreshHotWeights() {
+        if (!ready) {
+            return;
+        }
+        try {
+            Map<String, Long> counts = loadHotCounts();
+            if (!counts.equals(hotCounts)) {
+                hotCounts = counts;
+                dirty = true;
+            }
+            rebuildIfDue();
+        } catch (Exception e) {
+            log.error("搜索联想热门权重更新失败", e);
+        }
+    }
+
+    /**
+     * 获取联想词典统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("pendingRebuild", dirty);
+        stats.put("entries", current.texts.length);
+        stats.put("keys", current.keyCount);
+        stats.put("nodes", current.trie.nodeCount());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("lastBuildTime", lastBuildTime);
+        return stats;
+    }
+
+    /**
+     * 提取线索贡献的词条（未发布或已删除的线索不贡献）
+     */
+    private String[] extract(Lead lead) {
+        if ((lead.getDeleted() != null && lead.getDeleted() != 0) || lead.getStatus() == null
+                || lead.getStatus() != PUBLISHED) {
+            return null;
+        }
+        Set<String> keys = new TreeSet<>();
+        addTerm(keys, TYPE_COMPANY, lead.getCompanyName());
+        addTerm(keys, TYPE_TITLE, lead.getTitle());
+        addTerm(keys, TYPE_INDUSTRY, lead.getIndustry());
+        for (String tag : parseTags(lead.getTags())) {
+            addTerm(keys, TYPE_TAG, tag);
+        }
+        return keys.isEmpty() ? null : keys.toArray(new String[0]);
+    }
+
+    private static void addTerm(Set<String> keys, String type, String text) {
+        if (text != null && !text.trim().isEmpty()) {
+            keys.add(type + SEPARATOR + text.trim());
+        }
+    }
+
+    private List<String> parseTags(String tags) {
+        if (tags == null || tags.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(tags, new TypeReference<List<String>>() { });
+        } catch (Exception e) {
+            // 兼容逗号分隔的旧数据
+            return Arrays.asList(tags.split("[,，]"));
+        }
+    }
+
+    /**
+     * 用线索的新词条替换旧词条
+     */
+    private void apply(Long leadId, String[] keys) {
+        String[] previous = keys == null ? contributions.remove(leadId) : contributions.put(leadId, keys);
+        if (Arrays.equals(previous, keys)) {
+            return;
+        }
+        if (previous != null) {
+            for (String key : previous) {
+                Term term = terms.get(key);
+                if (term != null && --term.refCount <= 0) {
+                    terms.remove(key);
+                }
+            }
+        }
+        if (keys != null) {
+            for (String key : keys) {
+                terms.computeIfAbsent(key, this::newTerm).refCount++;
+            }
+        }
+        dirty = true;
+    }
+
+    private Term newTerm(String key) {
+        int separator = key.indexOf(SEPARATOR);
+        String text = key.substring(separator + 1);
+        return new Term(text, key.substring(0, separator), hotKeywordTracker.normalize(text), searchKeys(text));
+    }
+
+    private String[] searchKeys(String text) {
+        Set<String> keys = new TreeSet<>();
+        keys.add(truncate(PinyinUtils.normalize(text)));
+        for (String key : PinyinUtils.keys(text, maxPinyinVariants)) {
+            keys.add(truncate(key));
+        }
+        keys.remove("");
+        return keys.toArray(new String[0]);
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * 读取热门搜索次数，只保留与线索词条同名的关键词
+     */
+    private Map<String, Long> loadHotCounts() {
+        Set<String> normalizedTexts = new HashSet<>(terms.size());
+        for (Term term : terms.values()) {
+            normalizedTexts.add(term.normalized);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> counts = new HashMap<>();
+        for (HotKeyword hot : hotKeywordTracker.top(now.minusHours(hotWindowHours), now, hotLimit)) {
+            if (normalizedTexts.contains(hot.getKeyword())) {
+                counts.put(hot.getKeyword(), hot.getCount());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 词典有变化且距上次重建超过 min-rebuild-interval 时重建，否则留到下次刷新
+     */
+    private void rebuildIfDue() {
+        if (dirty && System.currentTimeMillis() - lastBuildAt >= minRebuildInterval) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由当前词典构建新的前缀树快照并替换
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        List<String> texts = new ArrayList<>(terms.size());
+        List<String> types = new ArrayList<>(terms.size());
+        List<Long> weights = new ArrayList<>(terms.size());
+        List<String> keys = new ArrayList<>();
+        List<Integer> entries = new ArrayList<>();
+        for (Term term : terms.values()) {
+            long weight = term.refCount + hotBoost * hotCounts.getOrDefault(term.normalized, 0L);
+            int entry = texts.size();
+            texts.add(term.text);
+            types.add(term.type);
+            weights.add(weight);
+            for (String key : term.keys) {
+                keys.add(key);
+                entries.add(entry);
+            }
+        }
+        long[] weightArray = new long[weights.size()];
+        for (int i = 0; i < weightArray.length; i++) {
+            weightArray[i] = weights.get(i);
+        }
+        int[] entryArray = new int[entries.size()];
+        for (int i = 0; i < entryArray.length; i++) {
+            entryArray[i] = entries.get(i);
+        }
+        SuggestTrie trie = SuggestTrie.build(keys.toArray(new String[0]), entryArray, weightArray, topK);
+        snapshot = new Snapshot(trie, texts.toArray(new String[0]), types.toArray(new String[0]), weightArray,
+                keys.size());
+        dirty = false;
+        lastBuildAt = System.currentTimeMillis();
+        lastBuildMillis = lastBuildAt - start;
+        lastBuildTime = LocalDateTime.now();
+        log.debug("搜索联想前缀树重建: entries={}, keys={}, nodes={}, elapsed={}ms",
+                texts.size(), keys.size(), trie.nodeCount(), lastBuildMillis);
+    }
+
+    /**
+     * 词条
+     */
+    private static final class Term {
+
+        final String text;
+
+        final String type;
+
+        /** 规范化文本，与热门搜索关键词比较 */
+        final String normalized;
+
+        /** 检索键（原文、全拼、首字母） */
+        final String[] keys;
+
+        int refCount;
+
+        Term(String text, String type, String normalized, String[] keys) {
+            this.text = text;
+            this.type = type;
+            this.normalized = normalized;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * 不可变查询快照
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(
+                SuggestTrie.build(new String[0], new int[0], new long[0], 1), new String[0], new String[0], new long[0], 0);
+
+        final SuggestTrie trie;
+
+        final String[] texts;
+
+        final String[] types;
+
+        final long[] weights;
+
+        final int keyCount;
+
+        Snapshot(SuggestTrie trie, String[] texts, String[] types, long[] weights, int keyCount) {
+            this.trie = trie;
+            this.texts = texts;
+            this.types = types;
+            this.weights = weights;
+            this.keyCount = keyCount;
+        }
+    }
+
+    /**
+     * 联想词
+     */
+    public static class Suggestion {
+
+        private final String text;
+
+        private final String type;
+
+        private final long weight;
+
+        public Suggestion(String text, String type, long weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+    }
+}
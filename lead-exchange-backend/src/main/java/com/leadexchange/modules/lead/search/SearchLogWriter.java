@@ -0,0 +1,240 @@
+package com.leadexchange.modules.lead.search;
+
+import com.leadexchange.common.utils.MpscRingBuffer;
+import com.leadexchange.modules.lead.entity.SearchLog;
+import com.leadexchange.modules.lead.mapper.SearchLogMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 搜索日志异步写入器
+ *
+ * 请求线程只把搜索事件写入无锁环形缓冲区，缓冲区满时丢弃并计数，不阻塞请求；
+ * 单个后台线程批量取出事件，更新热门关键词跟踪器，并按（关键词, 日期）在内存中汇总，
+ * 每个刷新周期（默认一分钟）以多行UPSERT写入搜索日志表。写入失败的汇总保留到下个周期重试。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class SearchLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchLogWriter.class);
+
+    private static final int DRAIN_LIMIT = 1024;
+
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final SearchLogMapper searchLogMapper;
+
+    private final HotKeywordTracker hotKeywordTracker;
+
+    private final MpscRingBuffer<SearchEvent> buffer;
+
+    @Value("${app.search.log.flush-interval:60000}")
+    private long flushIntervalMillis;
+
+    @Value("${app.search.log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.search.log.max-pending-keys:100000}")
+    private int maxPendingKeys;
+
+    /** 待写入的汇总，仅后台线程访问 */
+    private final Map<String, SearchLog> pending = new HashMap<>();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final Counter acceptedCounter;
+
+    private final Counter droppedCounter;
+
+    private final Counter writtenCounter;
+
+    public SearchLogWriter(SearchLogMapper searchLogMapper, HotKeywordTracker hotKeywordTracker,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.search.log.buffer-size:65536}") int bufferSize) {
+        this.searchLogMapper = searchLogMapper;
+        this.hotKeywordTracker = hotKeywordTracker;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        meterRegistry.gauge("search.log.buffer.size", buffer, MpscRingBuffer::size);
+        this.acceptedCounter = Counter.builder("search.log.accepted")
+                .description("写入缓冲区的搜索事件数量")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("search.log.dropped")
+                .description("缓冲区满被丢弃的搜索事件数量")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("search.log.written")
+                .description("写入搜索日志表的汇总行数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        worker = new Thread(this::run, "search-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 记录一次搜索（请求线程调用，不阻塞）
+     *
+     * @param keyword 搜索关键词
+     * @return 是否已接收，缓冲区满时返回false
+     */
+    public boolean record(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return false;
+        }
+        if (buffer.offer(new SearchEvent(keyword, System.currentTimeMillis()))) {
+            acceptedCounter.increment();
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 获取写入器统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buffered", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("accepted", (long) acceptedCounter.count());
+        stats.put("dropped", (long) droppedCounter.count());
+        stats.put("written", (long) writtenCounter.count());
+        return stats;
+    }
+
+    private void run() {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+        long parkNanos = 0;
+        while (running) {
+            int drained = 0;
+            try {
+                drained = buffer.drain(this::aggregate, DRAIN_LIMIT);
+                if (System.currentTimeMillis() >= nextFlush) {
+                    flush();
+                    nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+                }
+            } catch (Exception e) {
+                log.error("搜索日志处理失败", e);
+            }
+            if (drained > 0) {
+                parkNanos = 0;
+            } else {
+                // 空闲时逐步延长休眠，最长10毫秒
+                parkNanos = Math.min(MAX_IDLE_PARK_NANOS, Math.max(TimeUnit.MICROSECONDS.toNanos(50), parkNanos * 2));
+                LockSupport.parkNanos(this, parkNanos);
+            }
+        }
+        try {
+            while (buffer.drain(this::aggregate, DRAIN_LIMIT) > 0) {
+                // 停止前取完缓冲区
+            }
+            flush();
+        } catch (Exception e) {
+            log.error("停止时写入搜索日志失败: pending={}", pending.size(), e);
+        }
+    }
+
+    private void aggregate(SearchEvent event) {
+        String keyword = hotKeywordTracker.normalize(event.keyword);
+        if (keyword == null) {
+            return;
+        }
+        hotKeywordTracker.record(keyword, 1, event.timestamp);
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestamp), ZoneId.systemDefault());
+        LocalDate date = time.toLocalDate();
+        String key = date + "\u0000" + keyword;
+        SearchLog aggregated = pending.get(key);
+        if (aggregated == null) {
+            if (pending.size() >= maxPendingKeys) {
+                droppedCounter.increment();
+                return;
+            }
+            aggregated = new SearchLog();
+            aggregated.setKeyword(keyword);
+            aggregated.setSearchDate(date);
+            aggregated.setSearchCount(0L);
+            aggregated.setLastSearchTime(time);
+            pending.put(key, aggregated);
+        }
+        aggregated.setSearchCount(aggregated.getSearchCount() + 1);
+        if (time.isAfter(aggregated.getLastSearchTime())) {
+            aggregated.setLastSearchTime(time);
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<SearchLog> logs = new ArrayList<>(pending.values());
+        // 按（关键词, 日期）排序写入，多行UPSERT加锁顺序一致
+        logs.sort((a, b) -> {
+            int compare = a.getKeyword().compareTo(b.getKeyword());
+            return compare != 0 ? compare : a.getSearchDate().compareTo(b.getSearchDate());
+        });
+        for (int from = 0; from < logs.size(); from += batchSize) {
+            List<SearchLog> batch = logs.subList(from, Math.min(from + batchSize, logs.size()));
+            try {
+                searchLogMapper.upsertBatch(batch);
+                for (SearchLog written : batch) {
+                    pending.remove(written.getSearchDate() + "\u0000" + written.getKeyword());
+                }
+                writtenCounter.increment(batch.size());
+            } catch (Exception e) {
+                log.error("搜索日志批量写入失败，保留到下个周期重试: size={}", batch.size(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 搜索事件
+     */
+    private static final class SearchEvent {
+
+        final String keyword;
+
+        final long timestamp;
+
+        SearchEvent(String keyword, long timestamp) {
+            this.keyword = keyword;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.leadexchange.modules.lead.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 搜索联想压缩前缀树（不可变）
+ * 由排序后的检索键一次性构建：单分支链合并为一条边，每个节点预先保存子树内权重最高的前K个条目，
+ * 查询只需沿前缀走到对应节点，耗时与前缀长度成正比，与词条数量无关。
+ * 同一条目可以有多个检索键（原文、全拼、首字母），节点内按条目去重
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+final class SuggestTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Node root;
+
+    private final int nodeCount;
+
+    private SuggestTrie(Node root, int nodeCount) {
+        this.root = root;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * 构建前缀树
+     *
+     * @param keys 检索键
+     * @param entries 检索键对应的条目编号（与keys一一对应）
+     * @param weights 条目权重（按条目编号索引）
+     * @param topK 每个节点保留的条目数
+     * @return 前缀树
+     */
+    static SuggestTrie build(String[] keys, int[] entries, long[] weights, int topK) {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> keys[i]));
+        String[] sortedKeys = new String[keys.length];
+        int[] sortedEntries = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedEntries[i] = entries[order[i]];
+        }
+        Builder builder = new Builder(sortedKeys, sortedEntries, weights, topK);
+        Node root = builder.build(new char[0], 0, sortedKeys.length, 0);
+        return new SuggestTrie(root, builder.nodeCount);
+    }
+
+    /**
+     * 查询前缀下权重最高的条目
+     *
+     * @param prefix 规范化后的前缀
+     * @return 条目编号（按权重降序，最多K个）
+     */
+    int[] lookup(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = Arrays.binarySearch(node.firsts, prefix.charAt(i));
+            if (index < 0) {
+                return EMPTY;
+            }
+            Node child = node.children[index];
+            char[] label = child.label;
+            for (int j = 0; j < label.length && i < prefix.length(); j++, i++) {
+                if (label[j] != prefix.charAt(i)) {
+                    return EMPTY;
+                }
+            }
+            node = child;
+        }
+        return node.top;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+
+        /** 父节点到本节点的边 */
+        final char[] label;
+
+        /** 子节点边的首字符（升序） */
+        final char[] firsts;
+
+        final Node[] children;
+
+        /** 子树内权重最高的前K个条目 */
+        final int[] top;
+
+        Node(char[] label, char[] firsts, Node[] children, int[] top) {
+            this.label = label;
+            this.firsts = firsts;
+            this.children = children;
+            this.top = top;
+        }
+    }
+
+    /**
+     * 按排序区间递归构建：区间内的键共享长度为depth的前缀
+     */
+    private static final class Builder {
+
+        private final String[] keys;
+
+        private final int[] entries;
+
+        private final long[] weights;
+
+        private final int topK;
+
+        private int nodeCount;
+
+        Builder(String[] keys, int[] entries, long[] weights, int topK) {
+            this.keys = keys;
+            this.entries = entries;
+            this.weights = weights;
+            this.topK = topK;
+        }
+
+        Node build(char[] label, int from, int to, int depth) {
+            nodeCount++;
+            List<Integer> candidates = new ArrayList<>();
+            int i = from;
+            // 恰好在本节点结束的键排在区间最前
+            while (i < to && keys[i].length() == depth) {
+                candidates.add(entries[i]);
+                i++;
+            }
+            List<Character> firsts = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            while (i < to) {
+                char first = keys[i].charAt(depth);
+                int end = i + 1;
+                while (end < to && keys[end].charAt(depth) == first) {
+                    end++;
+                }
+                // 有序区间内首尾两个键的公共前缀即整组的公共前缀
+                int common = commonPrefix(keys[i], keys[end - 1], depth);
+                Node child = build(keys[i].substring(depth, common).toCharArray(), i, end, common);
+                firsts.add(first);
+                children.add(child);
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+                i = end;
+            }
+            char[] firstChars = new char[firsts.size()];
+            for (int c = 0; c < firstChars.length; c++) {
+                firstChars[c] = firsts.get(c);
+            }
+            return new Node(label, firstChars, children.toArray(new Node[0]), top(candidates));
+        }
+
+        private int[] top(List<Integer> candidates) {
+            if (candidates.isEmpty()) {
+                return EMPTY;
+            }
+            candidates.sort((a, b) -> {
+                int compare = Long.compare(weights[b], weights[a]);
+                return compare != 0 ? compare : Integer.compare(a, b);
+            });
+            int[] top = new int[Math.min(topK, candidates.size())];
+            int size = 0;
+            int previous = -1;
+            for (int entry : candidates) {
+                if (size == top.length) {
+                    break;
+                }
+                // 排序后同一条目相邻
+                if (entry != previous) {
+                    top[size++] = entry;
+                    previous = entry;
+                }
+            }
+            return size == top.length ? top : Arrays.copyOf(top, size);
+        }
+
+        private static int commonPrefix(String a, String b, int from) {
+            int limit = Math.min(a.length(), b.length());
+            int i = from;
+            while (i < limit && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
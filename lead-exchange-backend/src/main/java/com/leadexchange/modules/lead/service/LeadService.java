@@ -168,6 +168,25 @@ public interface LeadService extends IService<Lead> {
      */
     boolean offlineLead(Long leadId, String reason);
 
+    /**
+     * 创建线索
+     * 线索以草稿状态保存，同一事务内写入线索创建事件
+     * 
+     * @param lead 线索信息（createBy为创建者）
+     * @return 是否成功
+     */
+    boolean createLead(Lead lead);
+
+    /**
+     * 删除线索（逻辑删除）
+     * 同一事务内写入线索删除事件，并撤出交换订单簿
+     * 
+     * @param leadId 线索ID
+     * @param userId 操作人ID
+     * @return 是否成功
+     */
+    boolean deleteLead(Long leadId, Long userId);
+
     /**
      * 置顶线索
      * 
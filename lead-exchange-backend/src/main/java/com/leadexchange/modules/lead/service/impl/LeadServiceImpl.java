@@ -5,9 +5,21 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.leadexchange.common.utils.TransactionUtils;
+import com.leadexchange.modules.exchange.engine.ExchangeMatchingEngine;
+import com.leadexchange.modules.exchange.entity.ExchangeApplication;
+import com.leadexchange.modules.exchange.mapper.ExchangeApplicationMapper;
 import com.leadexchange.modules.lead.entity.Lead;
+import com.leadexchange.modules.lead.event.LeadCreatedEvent;
+import com.leadexchange.modules.lead.event.LeadDeletedEvent;
+import com.leadexchange.modules.lead.event.LeadStatusChangedEvent;
 import com.leadexchange.modules.lead.mapper.LeadMapper;
+import com.leadexchange.modules.lead.search.HotKeywordTracker;
+import com.leadexchange.modules.lead.search.HotKeywordTracker.HotKeyword;
+import com.leadexchange.modules.lead.search.LeadSearchRouter;
+import com.leadexchange.modules.lead.search.SearchLogWriter;
 import com.leadexchange.modules.lead.service.LeadService;
+import com.leadexchange.modules.outbox.service.OutboxService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -15,7 +27,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -31,14 +45,37 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
 
     private static final Logger log = LoggerFactory.getLogger(LeadServiceImpl.class);
     private final LeadMapper leadMapper;
-
-    public LeadServiceImpl(LeadMapper leadMapper) {
+    private final ExchangeMatchingEngine exchangeMatchingEngine;
+    private final OutboxService outboxService;
+    private final HotKeywordTracker hotKeywordTracker;
+    private final SearchLogWriter searchLogWriter;
+    private final LeadSearchRouter leadSearchRouter;
+    private final ExchangeApplicationMapper exchangeApplicationMapper;
+
+    public LeadServiceImpl(LeadMapper leadMapper, ExchangeMatchingEngine exchangeMatchingEngine,
+                           OutboxService outboxService, HotKeywordTracker hotKeywordTracker,
+                           SearchLogWriter searchLogWriter, LeadSearchRouter leadSearchRouter,
+                           ExchangeApplicationMapper exchangeApplicationMapper) {
         this.leadMapper = leadMapper;
+        this.exchangeMatchingEngine = exchangeMatchingEngine;
+        this.outboxService = outboxService;
+        this.hotKeywordTracker = hotKeywordTracker;
+        this.searchLogWriter = searchLogWriter;
+        this.leadSearchRouter = leadSearchRouter;
+        this.exchangeApplicationMapper = exchangeApplicationMapper;
     }
 
     @Override
     public IPage<Lead> getLeadPage(Integer page, Integer size, Integer leadType, Integer status,
                                   String rating, String industry, String region, String keyword) {
+        if (StringUtils.hasText(keyword)) {
+            searchLogWriter.record(keyword);
+            // 关键词查询走搜索索引，索引不可用时回退数据库
+            IPage<Lead> result = leadSearchRouter.search(page, size, leadType, status, rating, industry, region, keyword);
+            if (result != null) {
+                return result;
+            }
+        }
         Page<Lead> pageParam = new Page<>(page, size);
         return leadMapper.selectLeadPage(pageParam, leadType, status, rating, industry, region, keyword);
     }
@@ -123,6 +160,7 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
 
             boolean result = this.update(wrapper);
             if (result) {
+                outboxService.append(new LeadStatusChangedEvent(leadId, lead.getCreateBy(), 1, 2, null));
                 log.info("线索发布成功: {}", leadId);
             }
             return result;
@@ -163,7 +201,14 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
 
             boolean result = this.update(wrapper);
             if (result) {
+                outboxService.append(new LeadStatusChangedEvent(leadId, auditBy, 2, auditResult ? 3 : 6, auditRemark));
                 log.info("线索审核完成: leadId={}, result={}, rating={}", leadId, auditResult, rating);
+                String finalRating = StringUtils.hasText(rating) ? rating : lead.getRating();
+                if (auditResult && StringUtils.hasText(finalRating) && lead.getCreateBy() != null) {
+                    // 事务提交后再挂入交换订单簿，避免回滚导致内存与数据库不一致
+                    TransactionUtils.afterCommit(() -> exchangeMatchingEngine.onLeadPublished(
+                            leadId, lead.getCreateBy(), finalRating, lead.getIndustry(), lead.getRegion()));
+                }
             }
             return result;
         } catch (Exception e) {
@@ -183,7 +228,11 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
 
             boolean result = this.update(wrapper);
             if (result) {
+                List<Long> affectedUserIds = findAffectedUsers(Collections.singletonList(leadId))
+                        .getOrDefault(leadId, Collections.emptyList());
+                outboxService.append(new LeadStatusChangedEvent(leadId, null, null, 6, reason, affectedUserIds));
                 log.info("线索下架成功: leadId={}, reason={}", leadId, reason);
+                TransactionUtils.afterCommit(() -> exchangeMatchingEngine.onLeadWithdrawn(leadId));
             }
             return result;
         } catch (Exception e) {
@@ -192,6 +241,45 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean createLead(Lead lead) {
+        try {
+            if (lead.getStatus() == null) {
+                lead.setStatus(1);
+            }
+            boolean result = this.save(lead);
+            if (result) {
+                outboxService.append(new LeadCreatedEvent(lead));
+                log.info("线索创建成功: leadId={}, createBy={}", lead.getId(), lead.getCreateBy());
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("创建线索失败: title={}", lead.getTitle(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deleteLead(Long leadId, Long userId) {
+        try {
+            boolean result = this.removeById(leadId);
+            if (result) {
+                // 暂无收藏表，受影响用户取仍有进行中交换申请的申请人
+                List<Long> affectedUserIds = findAffectedUsers(Collections.singletonList(leadId))
+                        .getOrDefault(leadId, Collections.emptyList());
+                outboxService.append(new LeadDeletedEvent(leadId, userId, affectedUserIds));
+                log.info("线索删除成功: leadId={}, userId={}", leadId, userId);
+                TransactionUtils.afterCommit(() -> exchangeMatchingEngine.onLeadWithdrawn(leadId));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("删除线索失败: leadId={}", leadId, e);
+            throw e;
+        }
+    }
+
     @Override
     public boolean setTopLead(Long leadId, boolean isTop) {
         LambdaUpdateWrapper<Lead> wrapper = new LambdaUpdateWrapper<Lead>()
@@ -229,7 +317,23 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
         if (leadIds == null || leadIds.isEmpty()) {
             return 0;
         }
-        return leadMapper.batchUpdateStatus(leadIds, status, updateBy);
+        int count = leadMapper.batchUpdateStatus(leadIds, status, updateBy);
+        if (count > 0) {
+            Map<Long, List<Long>> affectedUsers = Objects.equals(status, 6)
+                    ? findAffectedUsers(leadIds) : Collections.emptyMap();
+            List<LeadStatusChangedEvent> events = new ArrayList<>(leadIds.size());
+            for (Long leadId : leadIds) {
+                events.add(new LeadStatusChangedEvent(leadId, updateBy, null, status, null,
+                        affectedUsers.getOrDefault(leadId, Collections.emptyList())));
+            }
+            outboxService.appendAll(events);
+            if (!Objects.equals(status, 3)) {
+                // 离开已发布状态的线索在事务提交后从订单簿撤出，未挂单的线索撤出为空操作
+                List<Long> withdrawn = new ArrayList<>(leadIds);
+                TransactionUtils.afterCommit(() -> withdrawn.forEach(exchangeMatchingEngine::onLeadWithdrawn));
+            }
+        }
+        return count;
     }
 
     @Override
@@ -264,7 +368,20 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
 
     @Override
     public List<Map<String, Object>> getHotSearchKeywords(LocalDateTime startDate, LocalDateTime endDate, Integer limit) {
-        return leadMapper.getHotSearchKeywords(startDate, endDate, limit);
+        // 保留期内由内存跟踪器回答，更早的区间回退到搜索日志表
+        if (!hotKeywordTracker.covers(startDate)) {
+            return leadMapper.getHotSearchKeywords(startDate, endDate, limit);
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (HotKeyword hotKeyword : hotKeywordTracker.top(startDate, endDate, limit)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("keyword", hotKeyword.getKeyword());
+            item.put("search_count", hotKeyword.getCount());
+            item.put("last_search_time", LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(hotKeyword.getLastSearchTime()), ZoneId.systemDefault()));
+            result.add(item);
+        }
+        return result;
     }
 
     @Override
@@ -439,4 +556,15 @@ public class LeadServiceImpl extends ServiceImpl<LeadMapper, Lead> implements Le
         return dp[m][n];
     }
 
-}
\ No newline at end of file
+    /**
+     * 按目标线索分组查询仍有进行中交换申请的申请人，线索删除或下架时通知这些交换对手方
+     */
+    private Map<Long, List<Long>> findAffectedUsers(List<Long> leadIds) {
+        Map<Long, List<Long>> result = new HashMap<>();
+        for (ExchangeApplication application : exchangeApplicationMapper.findOpenApplicants(leadIds)) {
+            result.computeIfAbsent(application.getTargetLeadId(), k -> new ArrayList<>())
+                    .add(application.getApplicantId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,36 @@
+package com.leadexchange.modules.notification.channel;
+
+import com.leadexchange.modules.notification.service.NotificationDigestService.Digest;
+import com.leadexchange.modules.notification.service.NotificationInboxService;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 站内信渠道：写入用户收件箱并实时推送
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class InAppNotificationChannel implements NotificationChannel {
+
+    private final NotificationInboxService notificationInboxService;
+
+    public InAppNotificationChannel(NotificationInboxService notificationInboxService) {
+        this.notificationInboxService = notificationInboxService;
+    }
+
+    @Override
+    public String getName() {
+        return IN_APP;
+    }
+
+    @Override
+    public void send(List<Digest> digests) {
+        for (Digest digest : digests) {
+            notificationInboxService.deliver(digest.getRecipientId(), digest.toMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.leadexchange.modules.notification.channel;
+
+import com.leadexchange.modules.notification.service.NotificationDigestService.Digest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地模拟渠道
+ * 未接入邮件、短信服务商时使用：只记录日志并保留最近发送的摘要，供本地联调与测试检查
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public class LocalNotificationChannel implements NotificationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalNotificationChannel.class);
+
+    private static final int MAX_RECORDS = 1000;
+
+    private final String name;
+
+    private final ArrayDeque<Digest> sent = new ArrayDeque<>();
+
+    public LocalNotificationChannel(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void send(List<Digest> digests) {
+        synchronized (sent) {
+            for (Digest digest : digests) {
+                if (sent.size() >= MAX_RECORDS) {
+                    sent.pollFirst();
+                }
+                sent.addLast(digest);
+            }
+        }
+        log.info("模拟{}渠道发送通知摘要: count={}", name, digests.size());
+    }
+
+    /**
+     * 最近发送的摘要（按发送顺序）
+     */
+    public List<Digest> getSent() {
+        synchronized (sent) {
+            return new ArrayList<>(sent);
+        }
+    }
+
+    /**
+     * 清空发送记录
+     */
+    public void clear() {
+        synchronized (sent) {
+            sent.clear();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.leadexchange.modules.notification.channel;
+
+import com.leadexchange.modules.notification.service.NotificationDigestService.Digest;
+
+import java.util.List;
+
+/**
+ * 通知渠道
+ * 每个渠道以Bean形式注册，按名称被摘要分发器选用；分发器负责限流与并发控制，渠道只负责批量发送
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface NotificationChannel {
+
+    /** 站内信 */
+    String IN_APP = "in-app";
+
+    /** 邮件 */
+    String EMAIL = "email";
+
+    /** 短信 */
+    String SMS = "sms";
+
+    /**
+     * 渠道名称
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 批量发送摘要
+     *
+     * @param digests 摘要列表
+     * @throws Exception 发送失败
+     */
+    void send(List<Digest> digests) throws Exception;
+}
@@ -1,7 +1,27 @@
 package com.leadexchange.modules.notification.controller;
 
+import com.leadexchange.common.result.Result;
+import com.leadexchange.common.security.SecurityUtils;
+import com.leadexchange.modules.notification.service.NotificationDigestService;
+import com.leadexchange.modules.notification.service.NotificationInboxService;
+import com.leadexchange.modules.notification.service.NotificationInboxService.InboxPage;
+import com.leadexchange.modules.notification.service.NotificationPushService;
+import com.leadexchange.modules.user.entity.User;
+import com.leadexchange.modules.user.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 通知服务控制器
@@ -14,7 +34,134 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/notification")
 public class NotificationController {
-    
-    // TODO: 实现通知服务相关接口
-    
-}
\ No newline at end of file
+
+    @Autowired
+    private NotificationPushService notificationPushService;
+
+    @Autowired
+    private NotificationInboxService notificationInboxService;
+
+    @Autowired
+    private NotificationDigestService notificationDigestService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 建立通知推送连接（Server-Sent Events）
+     * 事件：connected（连接建立）、notifications（合并推送的通知列表）、resync（消息溢出，客户端需重新拉取）
+     *
+     * @return SSE连接
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(notificationPushService.subscribe(userId));
+    }
+
+    /**
+     * 分页查询收件箱（按消息ID倒序）
+     *
+     * @param before 上一页返回的next，首页为空
+     * @param size 每页数量
+     * @return 收件箱分页结果
+     */
+    @GetMapping("/inbox")
+    public Result<InboxPage> getInbox(@RequestParam(required = false) String before,
+                                      @RequestParam(defaultValue = "20") Integer size) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        try {
+            return Result.success(notificationInboxService.list(userId, before, size));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取未读通知数量
+     *
+     * @return 未读数量
+     */
+    @GetMapping("/inbox/unread-count")
+    public Result<Long> getUnreadCount() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(notificationInboxService.getUnreadCount(userId));
+    }
+
+    /**
+     * 批量标记已读
+     *
+     * @param ids 消息ID列表
+     * @return 由未读变为已读的数量
+     */
+    @PostMapping("/inbox/read")
+    public Result<Integer> markRead(@RequestBody List<String> ids) {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(notificationInboxService.markRead(userId, ids));
+    }
+
+    /**
+     * 全部标记已读
+     *
+     * @return 由未读变为已读的数量
+     */
+    @PostMapping("/inbox/read-all")
+    public Result<Long> markAllRead() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return Result.error(401, "用户未登录");
+        }
+        return Result.success(notificationInboxService.markAllRead(userId));
+    }
+
+    /**
+     * 获取本节点推送统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/push/stats")
+    public Result<Map<String, Object>> getPushStats() {
+        return Result.success(notificationPushService.getStats());
+    }
+
+    /**
+     * 获取本节点通知摘要分发统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/digest/stats")
+    public Result<Map<String, Object>> getDigestStats() {
+        return Result.success(notificationDigestService.getStats());
+    }
+
+    /**
+     * 获取当前登录用户ID：取自访问令牌，只有升级前签发、未携带用户ID的令牌才按用户名查询
+     */
+    private Long currentUserId() {
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId != null) {
+            return userId;
+        }
+        String username = SecurityUtils.getCurrentUsername();
+        if (username == null) {
+            return null;
+        }
+        User user = userService.findByUsername(username);
+        return user != null ? user.getId() : null;
+    }
+}
@@ -0,0 +1,184 @@
+package com.leadexchange.modules.notification.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知实体类（收件箱归档）
+ * 近期通知保存在用户收件箱（Redis Stream）中，超出保留数量的旧通知批量归档到此表
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("biz_notification")
+public class Notification extends BaseEntity {
+
+    /**
+     * 接收用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 收件箱消息ID的时间戳部分（与stream_seq共同确定唯一消息及排序）
+     */
+    @TableField("stream_ms")
+    private Long streamMs;
+
+    /**
+     * 收件箱消息ID的序号部分
+     */
+    @TableField("stream_seq")
+    private Long streamSeq;
+
+    /**
+     * 通知类型（SYSTEM、EXCHANGE、LEAD、USER）
+     */
+    @TableField("type")
+    private String type;
+
+    /**
+     * 标题
+     */
+    @TableField("title")
+    private String title;
+
+    /**
+     * 内容
+     */
+    @TableField("content")
+    private String content;
+
+    /**
+     * 关联业务ID
+     */
+    @TableField("related_id")
+    private Long relatedId;
+
+    /**
+     * 关联业务类型
+     */
+    @TableField("related_type")
+    private String relatedType;
+
+    /**
+     * 阅读状态（0：未读，1：已读）
+     */
+    @TableField("read_status")
+    private Integer readStatus;
+
+    /**
+     * 发送时间
+     */
+    @TableField("send_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime sendTime;
+
+    /**
+     * 阅读时间
+     */
+    @TableField("read_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime readTime;
+
+    // Getter and Setter methods
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getStreamMs() {
+        return streamMs;
+    }
+
+    public void setStreamMs(Long streamMs) {
+        this.streamMs = streamMs;
+    }
+
+    public Long getStreamSeq() {
+        return streamSeq;
+    }
+
+    public void setStreamSeq(Long streamSeq) {
+        this.streamSeq = streamSeq;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Long getRelatedId() {
+        return relatedId;
+    }
+
+    public void setRelatedId(Long relatedId) {
+        this.relatedId = relatedId;
+    }
+
+    public String getRelatedType() {
+        return relatedType;
+    }
+
+    public void setRelatedType(String relatedType) {
+        this.relatedType = relatedType;
+    }
+
+    public Integer getReadStatus() {
+        return readStatus;
+    }
+
+    public void setReadStatus(Integer readStatus) {
+        this.readStatus = readStatus;
+    }
+
+    public LocalDateTime getSendTime() {
+        return sendTime;
+    }
+
+    public void setSendTime(LocalDateTime sendTime) {
+        this.sendTime = sendTime;
+    }
+
+    public LocalDateTime getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(LocalDateTime readTime) {
+        this.readTime = readTime;
+    }
+
+    /**
+     * 收件箱消息ID
+     */
+    public String getStreamId() {
+        return streamMs + "-" + streamSeq;
+    }
+}
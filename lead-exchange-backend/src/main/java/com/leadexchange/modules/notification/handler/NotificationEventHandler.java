@@ -0,0 +1,129 @@
+package com.leadexchange.modules.notification.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leadexchange.modules.notification.channel.NotificationChannel;
+import com.leadexchange.modules.notification.service.NotificationDigestService;
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通知事件处理器
+ * 消费发件箱投递的领域事件，转换为通知后交给摘要服务聚合发送
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sender", havingValue = "rabbit", matchIfMissing = true)
+public class NotificationEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationEventHandler.class);
+
+    private static final String LEAD_DELETED = "lead.deleted";
+
+    private static final String LEAD_STATUS_CHANGED = "lead.status.changed";
+
+    /** 线索状态：已下架 */
+    private static final int STATUS_OFFLINE = 6;
+
+    private static final String APPLICATION_CREATED = "exchange.application.create";
+
+    private final NotificationDigestService notificationDigestService;
+
+    private final ObjectMapper objectMapper;
+
+    public NotificationEventHandler(NotificationDigestService notificationDigestService, ObjectMapper objectMapper) {
+        this.notificationDigestService = notificationDigestService;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(bindings = @QueueBinding(
+            value = @Queue(value = "${app.notification.digest.queue:notification.domain-events}", durable = "true"),
+            exchange = @Exchange(value = "${app.outbox.exchange:lead-exchange.events}", type = ExchangeTypes.TOPIC),
+            key = {LEAD_DELETED, LEAD_STATUS_CHANGED, APPLICATION_CREATED}))
+    public void onEvent(Message message, Channel channel) throws IOException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        String eventType = message.getMessageProperties().getReceivedRoutingKey();
+        try {
+            JsonNode event = objectMapper.readTree(message.getBody());
+            if (LEAD_DELETED.equals(eventType)) {
+                handleLeadDeleted(event);
+            } else if (LEAD_STATUS_CHANGED.equals(eventType)) {
+                handleLeadStatusChanged(event);
+            } else if (APPLICATION_CREATED.equals(eventType)) {
+                handleApplicationCreated(event);
+            }
+            channel.basicAck(deliveryTag, false);
+        } catch (Exception e) {
+            // 通知可丢弃，不重新入队以免毒消息反复投递
+            log.error("处理通知事件失败: eventType={}, messageId={}", eventType,
+                    message.getMessageProperties().getMessageId(), e);
+            channel.basicNack(deliveryTag, false, false);
+        }
+    }
+
+    /**
+     * 线索删除：通知仍在申请交换该线索的用户（高扇出，同一用户窗口内的多条合并）
+     */
+    private void handleLeadDeleted(JsonNode event) {
+        long leadId = event.path("leadId").asLong();
+        notifyLeadOffline(event, "您申请交换的线索" + leadId + "已被删除");
+    }
+
+    /**
+     * 线索下架：同删除，只处理变更为已下架的事件
+     */
+    private void handleLeadStatusChanged(JsonNode event) {
+        if (event.path("toStatus").asInt() != STATUS_OFFLINE) {
+            return;
+        }
+        long leadId = event.path("leadId").asLong();
+        notifyLeadOffline(event, "您申请交换的线索" + leadId + "已下架");
+    }
+
+    private void notifyLeadOffline(JsonNode event, String content) {
+        List<Long> recipients = new ArrayList<>();
+        for (JsonNode userId : event.path("affectedUserIds")) {
+            recipients.add(userId.asLong());
+        }
+        if (recipients.isEmpty()) {
+            return;
+        }
+        long leadId = event.path("leadId").asLong();
+        PushMessage message = new PushMessage("LEAD", "申请交换的线索已下架", content, leadId, "LEAD");
+        notificationDigestService.submitAll(recipients, "LEAD_OFFLINE", message, NotificationChannel.IN_APP);
+    }
+
+    /**
+     * 收到交换申请：通知线索持有者（热门线索高扇入，同一持有者窗口内的多条合并）
+     * 多方交换的申请创建即已同意，不通知
+     */
+    private void handleApplicationCreated(JsonNode event) {
+        JsonNode application = event.path("application");
+        if (!application.path("cycleId").isNull() && !application.path("cycleId").isMissingNode()) {
+            return;
+        }
+        long ownerId = application.path("targetOwnerId").asLong();
+        long leadId = application.path("targetLeadId").asLong();
+        PushMessage message = new PushMessage("EXCHANGE", "收到线索交换申请", "用户申请交换您的线索" + leadId,
+                application.path("id").asLong(), "EXCHANGE_APPLICATION");
+        notificationDigestService.submit(ownerId, "EXCHANGE_APPLICATION", message,
+                NotificationChannel.IN_APP, NotificationChannel.EMAIL);
+    }
+}
@@ -0,0 +1,87 @@
+package com.leadexchange.modules.notification.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.notification.entity.Notification;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 通知归档Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface NotificationMapper extends BaseMapper<Notification> {
+
+    /**
+     * 批量归档通知（单条多行INSERT，审计字段不经过自动填充，需显式写入）
+     * (user_id, stream_ms, stream_seq) 唯一，归档中断后重试不会产生重复记录
+     *
+     * @param notifications 通知列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO biz_notification (user_id, stream_ms, stream_seq, type, title, content, " +
+            "related_id, related_type, read_status, send_time, read_time, " +
+            "create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='notifications' item='item' separator=','>" +
+            "(#{item.userId}, #{item.streamMs}, #{item.streamSeq}, #{item.type}, #{item.title}, #{item.content}, " +
+            "#{item.relatedId}, #{item.relatedType}, #{item.readStatus}, #{item.sendTime}, #{item.readTime}, " +
+            "NOW(), NOW(), #{item.userId}, #{item.userId}, 0, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("notifications") List<Notification> notifications);
+
+    /**
+     * 按收件箱消息ID倒序分页查询归档通知
+     *
+     * @param userId 用户ID
+     * @param beforeMs 起始消息ID时间戳部分（不含），为空表示从最新开始
+     * @param beforeSeq 起始消息ID序号部分
+     * @param limit 数量
+     * @return 归档通知列表
+     */
+    @Select("<script>" +
+            "SELECT * FROM biz_notification WHERE user_id = #{userId} AND deleted = 0 " +
+            "<if test='beforeMs != null'>" +
+            "AND (stream_ms &lt; #{beforeMs} OR (stream_ms = #{beforeMs} AND stream_seq &lt; #{beforeSeq})) " +
+            "</if>" +
+            "ORDER BY stream_ms DESC, stream_seq DESC LIMIT #{limit}" +
+            "</script>")
+    List<Notification> findArchived(@Param("userId") Long userId, @Param("beforeMs") Long beforeMs,
+                                    @Param("beforeSeq") Long beforeSeq, @Param("limit") Integer limit);
+
+    /**
+     * 将指定归档通知标记为已读
+     *
+     * @param userId 用户ID
+     * @param keys 通知（仅使用 streamMs、streamSeq）
+     * @return 由未读变为已读的数量
+     */
+    @Update("<script>" +
+            "UPDATE biz_notification SET read_status = 1, read_time = NOW(), update_time = NOW() " +
+            "WHERE user_id = #{userId} AND read_status = 0 AND deleted = 0 AND (" +
+            "<foreach collection='keys' item='item' separator=' OR '>" +
+            "(stream_ms = #{item.streamMs} AND stream_seq = #{item.streamSeq})" +
+            "</foreach>" +
+            ")" +
+            "</script>")
+    int markRead(@Param("userId") Long userId, @Param("keys") List<Notification> keys);
+
+    /**
+     * 将用户全部归档通知标记为已读
+     *
+     * @param userId 用户ID
+     * @return 由未读变为已读的数量
+     */
+    @Update("UPDATE biz_notification SET read_status = 1, read_time = NOW(), update_time = NOW() " +
+            "WHERE user_id = #{userId} AND read_status = 0 AND deleted = 0")
+    int markAllRead(@Param("userId") Long userId);
+}
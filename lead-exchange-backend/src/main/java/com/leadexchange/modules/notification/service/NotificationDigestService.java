@@ -0,0 +1,149 @@
+package com.leadexchange.modules.notification.service;
+
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 通知摘要服务接口
+ * 同一接收人、同一类型的通知在合并窗口内聚合为一条摘要，窗口结束后按渠道批量分发；
+ * 用于线索下架、热门线索收到大量申请等高扇出/高扇入场景，避免逐条发送
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface NotificationDigestService {
+
+    /**
+     * 提交一条通知
+     *
+     * @param recipientId 接收用户ID
+     * @param digestType 摘要类型（聚合键的一部分）
+     * @param message 通知内容
+     * @param channels 发送渠道，为空时仅站内信
+     */
+    void submit(Long recipientId, String digestType, PushMessage message, String... channels);
+
+    /**
+     * 向多个接收人提交同一条通知
+     *
+     * @param recipientIds 接收用户ID
+     * @param digestType 摘要类型
+     * @param message 通知内容
+     * @param channels 发送渠道，为空时仅站内信
+     */
+    void submitAll(Collection<Long> recipientIds, String digestType, PushMessage message, String... channels);
+
+    /**
+     * 获取摘要分发统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * 通知摘要
+     */
+    class Digest implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long recipientId;
+
+        private final String digestType;
+
+        /** 合并的通知数量 */
+        private final int count;
+
+        /** 通知样例（最早的若干条） */
+        private final List<PushMessage> samples;
+
+        private final Set<String> channels;
+
+        /** 第一条通知时间（毫秒时间戳） */
+        private final long firstTime;
+
+        /** 最后一条通知时间（毫秒时间戳） */
+        private final long lastTime;
+
+        public Digest(Long recipientId, String digestType, int count, List<PushMessage> samples,
+                      Set<String> channels, long firstTime, long lastTime) {
+            this.recipientId = recipientId;
+            this.digestType = digestType;
+            this.count = count;
+            this.samples = Collections.unmodifiableList(samples);
+            this.channels = Collections.unmodifiableSet(channels);
+            this.firstTime = firstTime;
+            this.lastTime = lastTime;
+        }
+
+        public Long getRecipientId() {
+            return recipientId;
+        }
+
+        public String getDigestType() {
+            return digestType;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<PushMessage> getSamples() {
+            return samples;
+        }
+
+        public Set<String> getChannels() {
+            return channels;
+        }
+
+        public long getFirstTime() {
+            return firstTime;
+        }
+
+        public long getLastTime() {
+            return lastTime;
+        }
+
+        /**
+         * 标题：单条通知保持原标题，多条时注明合并数量
+         */
+        public String getTitle() {
+            String title = samples.get(0).getTitle();
+            return count == 1 ? title : title + "（共" + count + "条）";
+        }
+
+        /**
+         * 内容：单条通知保持原内容，多条时列出样例
+         */
+        public String getContent() {
+            if (count == 1) {
+                return samples.get(0).getContent();
+            }
+            String content = samples.stream().map(PushMessage::getContent).collect(Collectors.joining("；"));
+            return count > samples.size() ? content + "……等" + count + "条" : content;
+        }
+
+        /**
+         * 转换为推送消息：单条通知保留关联业务，多条时只保留关联类型
+         */
+        public PushMessage toMessage() {
+            PushMessage first = samples.get(0);
+            return new PushMessage(first.getType(), getTitle(), getContent(),
+                    count == 1 ? first.getRelatedId() : null, first.getRelatedType());
+        }
+
+        @Override
+        public String toString() {
+            return "Digest{recipientId=" + recipientId + ", digestType=" + digestType + ", count=" + count
+                    + ", channels=" + channels + "}";
+        }
+    }
+}
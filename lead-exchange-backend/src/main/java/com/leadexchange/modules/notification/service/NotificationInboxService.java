@@ -0,0 +1,186 @@
+package com.leadexchange.modules.notification.service;
+
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 通知收件箱服务接口
+ * 每个用户一个有容量上限的Redis Stream，未读数与阅读游标随写入、已读操作原子维护，读取未读数为O(1)；
+ * 超出保留数量的旧通知异步批量归档到数据库
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface NotificationInboxService {
+
+    /**
+     * 投递通知：写入收件箱并实时推送给在线连接
+     *
+     * @param userId 接收用户ID
+     * @param message 通知消息（写入后回填消息ID）
+     * @return 收件箱消息ID，写入失败时为null
+     */
+    String deliver(Long userId, PushMessage message);
+
+    /**
+     * 按消息ID倒序分页查询收件箱（收件箱翻到底后继续查询归档）
+     *
+     * @param userId 用户ID
+     * @param before 起始消息ID（不含），为空表示从最新开始
+     * @param size 每页数量
+     * @return 分页结果
+     */
+    InboxPage list(Long userId, String before, int size);
+
+    /**
+     * 获取未读数量
+     *
+     * @param userId 用户ID
+     * @return 未读数量
+     */
+    long getUnreadCount(Long userId);
+
+    /**
+     * 批量标记已读
+     *
+     * @param userId 用户ID
+     * @param ids 消息ID列表
+     * @return 由未读变为已读的数量
+     */
+    int markRead(Long userId, List<String> ids);
+
+    /**
+     * 全部标记已读
+     *
+     * @param userId 用户ID
+     * @return 由未读变为已读的数量
+     */
+    long markAllRead(Long userId);
+
+    /**
+     * 收件箱消息
+     */
+    class InboxEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 消息ID */
+        private String id;
+
+        private String type;
+
+        private String title;
+
+        private String content;
+
+        private Long relatedId;
+
+        private String relatedType;
+
+        /** 产生时间（毫秒时间戳） */
+        private long timestamp;
+
+        /** 是否已读 */
+        private boolean read;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+
+        public Long getRelatedId() {
+            return relatedId;
+        }
+
+        public void setRelatedId(Long relatedId) {
+            this.relatedId = relatedId;
+        }
+
+        public String getRelatedType() {
+            return relatedType;
+        }
+
+        public void setRelatedType(String relatedType) {
+            this.relatedType = relatedType;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public boolean isRead() {
+            return read;
+        }
+
+        public void setRead(boolean read) {
+            this.read = read;
+        }
+    }
+
+    /**
+     * 收件箱分页结果
+     */
+    class InboxPage implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<InboxEntry> entries;
+
+        /** 下一页起始消息ID，没有更多时为null */
+        private final String next;
+
+        private final long unread;
+
+        public InboxPage(List<InboxEntry> entries, String next, long unread) {
+            this.entries = entries;
+            this.next = next;
+            this.unread = unread;
+        }
+
+        public List<InboxEntry> getEntries() {
+            return entries;
+        }
+
+        public String getNext() {
+            return next;
+        }
+
+        public long getUnread() {
+            return unread;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.leadexchange.modules.notification.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 通知实时推送服务接口
+ * 客户端通过SSE长连接接收通知；消息经Redis发布/订阅分发到持有该用户连接的节点
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface NotificationPushService {
+
+    /**
+     * 为当前节点注册一个用户推送连接
+     *
+     * @param userId 用户ID
+     * @return SSE连接
+     */
+    SseEmitter subscribe(Long userId);
+
+    /**
+     * 向指定用户推送通知（该用户在任意节点上的全部连接都会收到）
+     *
+     * @param userId 用户ID
+     * @param message 通知消息
+     */
+    void push(Long userId, PushMessage message);
+
+    /**
+     * 向全部在线用户推送通知
+     *
+     * @param message 通知消息
+     */
+    void broadcast(PushMessage message);
+
+    /**
+     * 获取本节点推送统计信息
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * 推送消息
+     */
+    class PushMessage implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 收件箱消息ID（Redis Stream ID），未写入收件箱的推送为空 */
+        private String id;
+
+        /** 通知类型（SYSTEM、EXCHANGE、LEAD、USER） */
+        private String type;
+
+        /** 标题 */
+        private String title;
+
+        /** 内容 */
+        private String content;
+
+        /** 关联业务ID */
+        private Long relatedId;
+
+        /** 关联业务类型 */
+        private String relatedType;
+
+        /** 产生时间（毫秒时间戳） */
+        private long timestamp;
+
+        public PushMessage() {
+        }
+
+        public PushMessage(String type, String title, String content, Long relatedId, String relatedType) {
+            this.type = type;
+            this.title = title;
+            this.content = content;
+            this.relatedId = relatedId;
+            this.relatedType = relatedType;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+
+        public Long getRelatedId() {
+            return relatedId;
+        }
+
+        public void setRelatedId(Long relatedId) {
+            this.relatedId = relatedId;
+        }
+
+        public String getRelatedType() {
+            return relatedType;
+        }
+
+        public void setRelatedType(String relatedType) {
+            this.relatedType = relatedType;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return "PushMessage{id=" + id + ", type=" + type + ", title=" + title + ", relatedId=" + relatedId + "}";
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.leadexchange.modules.notification.service.impl;
+
+import com.leadexchange.common.utils.TokenBucket;
+import com.leadexchange.modules.notification.channel.NotificationChannel;
+import com.leadexchange.modules.notification.service.NotificationDigestService;
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通知摘要服务实现类
+ *
+ * 聚合：以（接收人, 摘要类型）为键，首条通知到达时开启窗口，窗口内的后续通知只累加计数并保留少量样例，
+ *      窗口从首条通知起计算，持续到达的通知不会无限推迟发送。
+ * 分发：到期的摘要由单个线程取出，按渠道分批交给该渠道的有界线程池；每个渠道独立令牌桶限流，
+ *      慢渠道（短信）不会阻塞快渠道（站内信）。线程池队列满时批次转入该渠道自己的有界积压队列，
+ *      由该渠道的工作线程在空闲时继续发送；积压队列也满时丢弃并计数。分发线程从不执行发送，
+ *      一个渠道堵塞不会拖慢其他渠道的分发。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class NotificationDigestServiceImpl implements NotificationDigestService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDigestServiceImpl.class);
+
+    private static final String CHANNEL_PROPERTY_PREFIX = "app.notification.digest.channels.";
+
+    private static final String[] DEFAULT_CHANNELS = {NotificationChannel.IN_APP};
+
+    private final Map<String, NotificationChannel> channels = new LinkedHashMap<>();
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.notification.digest.window-ms:5000}")
+    private long windowMillis;
+
+    @Value("${app.notification.digest.max-samples:5}")
+    private int maxSamples;
+
+    @Value("${app.notification.digest.batch-size:200}")
+    private int batchSize;
+
+    /** 聚合中的摘要 */
+    private final ConcurrentHashMap<DigestKey, DigestBuffer> pending = new ConcurrentHashMap<>();
+
+    /** 按窗口结束时间排序的待发送摘要 */
+    private final DelayQueue<DigestBuffer> expiries = new DelayQueue<>();
+
+    private final Map<String, ChannelLane> lanes = new LinkedHashMap<>();
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    private final Counter receivedCounter;
+
+    private final Counter digestCounter;
+
+    public NotificationDigestServiceImpl(List<NotificationChannel> channelBeans, Environment environment,
+                                         MeterRegistry meterRegistry) {
+        for (NotificationChannel channel : channelBeans) {
+            this.channels.put(channel.getName(), channel);
+        }
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("notification.digest.pending", pending, Map::size);
+        this.receivedCounter = Counter.builder("notification.digest.received")
+                .description("提交到摘要聚合的通知数量")
+                .register(meterRegistry);
+        this.digestCounter = Counter.builder("notification.digest.digests")
+                .description("生成的通知摘要数量")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        for (NotificationChannel channel : channels.values()) {
+            lanes.put(channel.getName(), new ChannelLane(channel));
+        }
+        running = true;
+        dispatcher = new Thread(this::run, "notification-digest");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("通知摘要分发启动: channels={}, windowMs={}", lanes.keySet(), windowMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        // 未到期的摘要立即发送
+        expiries.clear();
+        dispatch(new ArrayList<>(pending.values()));
+        for (ChannelLane lane : lanes.values()) {
+            lane.executor.shutdown();
+        }
+        for (ChannelLane lane : lanes.values()) {
+            lane.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void submit(Long recipientId, String digestType, PushMessage message, String... channelNames) {
+        Set<String> targets = resolveChannels(channelNames);
+        if (recipientId != null && !targets.isEmpty()) {
+            aggregate(recipientId, digestType, message, targets);
+        }
+    }
+
+    @Override
+    public void submitAll(Collection<Long> recipientIds, String digestType, PushMessage message, String... channelNames) {
+        Set<String> targets = resolveChannels(channelNames);
+        if (targets.isEmpty()) {
+            return;
+        }
+        for (Long recipientId : recipientIds) {
+            if (recipientId != null) {
+                aggregate(recipientId, digestType, message, targets);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("received", (long) receivedCounter.count());
+        stats.put("digests", (long) digestCounter.count());
+        Map<String, Object> channelStats = new LinkedHashMap<>();
+        for (ChannelLane lane : lanes.values()) {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("sent", (long) lane.sentCounter.count());
+            laneStats.put("failed", (long) lane.failedCounter.count());
+            laneStats.put("queued", lane.executor.getQueue().size());
+            laneStats.put("backlog", lane.backlog.size());
+            laneStats.put("dropped", (long) lane.droppedCounter.count());
+            laneStats.put("active", lane.executor.getActiveCount());
+            laneStats.put("tokens", lane.bucket.available());
+            channelStats.put(lane.channel.getName(), laneStats);
+        }
+        stats.put("channels", channelStats);
+        return stats;
+    }
+
+    private Set<String> resolveChannels(String[] channelNames) {
+        String[] names = channelNames == null || channelNames.length == 0 ? DEFAULT_CHANNELS : channelNames;
+        Set<String> targets = new LinkedHashSet<>(names.length);
+        for (String name : names) {
+            if (channels.containsKey(name)) {
+                targets.add(name);
+            } else {
+                log.warn("通知渠道不存在，已忽略: {}", name);
+            }
+        }
+        return targets;
+    }
+
+    private void aggregate(Long recipientId, String digestType, PushMessage message, Set<String> targets) {
+        receivedCounter.increment();
+        long now = System.currentTimeMillis();
+        pending.compute(new DigestKey(recipientId, digestType), (key, buffer) -> {
+            if (buffer == null) {
+                buffer = new DigestBuffer(key, now + windowMillis);
+                expiries.add(buffer);
+            }
+            buffer.add(message, targets, now, maxSamples);
+            return buffer;
+        });
+    }
+
+    private void run() {
+        List<DigestBuffer> expired = new ArrayList<>();
+        while (running) {
+            try {
+                expired.add(expiries.take());
+                expiries.drainTo(expired, batchSize * 10);
+                dispatch(expired);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("通知摘要分发异常", e);
+            } finally {
+                expired.clear();
+            }
+        }
+    }
+
+    /**
+     * 结束窗口并按渠道分批发送
+     */
+    private void dispatch(List<DigestBuffer> buffers) {
+        Map<String, List<Digest>> byChannel = new LinkedHashMap<>();
+        for (DigestBuffer buffer : buffers) {
+            // 移出后新到的通知开启新窗口；移出前完成的累加对此处可见
+            if (!pending.remove(buffer.key, buffer)) {
+                continue;
+            }
+            Digest digest = buffer.toDigest();
+            digestCounter.increment();
+            for (String channel : digest.getChannels()) {
+                byChannel.computeIfAbsent(channel, name -> new ArrayList<>()).add(digest);
+            }
+        }
+        for (Map.Entry<String, List<Digest>> entry : byChannel.entrySet()) {
+            lanes.get(entry.getKey()).dispatch(entry.getValue());
+        }
+    }
+
+    /**
+     * 单个渠道的发送通道：有界线程池 + 积压队列 + 令牌桶
+     */
+    private final class ChannelLane {
+
+        private final NotificationChannel channel;
+
+        private final TokenBucket bucket;
+
+        private final ThreadPoolExecutor executor;
+
+        /** 线程池队列满时的积压批次，只由本渠道的工作线程取出发送 */
+        private final ArrayBlockingQueue<List<Digest>> backlog;
+
+        private final Counter sentCounter;
+
+        private final Counter failedCounter;
+
+        private final Counter droppedCounter;
+
+        private ChannelLane(NotificationChannel channel) {
+            String prefix = CHANNEL_PROPERTY_PREFIX + channel.getName() + ".";
+            double rate = environment.getProperty(prefix + "rate", Double.class, 100.0);
+            int burst = environment.getProperty(prefix + "burst", Integer.class, (int) Math.max(1, rate));
+            int workers = environment.getProperty(prefix + "workers", Integer.class, 2);
+            int queueCapacity = environment.getProperty(prefix + "queue-capacity", Integer.class, 100);
+            int backlogCapacity = environment.getProperty(prefix + "backlog-capacity", Integer.class, queueCapacity);
+
+            this.channel = channel;
+            this.bucket = new TokenBucket(rate, burst);
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "notification-" + channel.getName() + "-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.backlog = new ArrayBlockingQueue<>(Math.max(1, backlogCapacity));
+            this.sentCounter = Counter.builder("notification.digest.sent")
+                    .tag("channel", channel.getName())
+                    .description("已发送的通知摘要数量")
+                    .register(meterRegistry);
+            this.failedCounter = Counter.builder("notification.digest.failed")
+                    .tag("channel", channel.getName())
+                    .description("发送失败的通知摘要数量")
+                    .register(meterRegistry);
+            this.droppedCounter = Counter.builder("notification.digest.dropped")
+                    .tag("channel", channel.getName())
+                    .description("渠道积压已满而丢弃的通知摘要数量")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 提交批次，不在调用线程（分发线程）上发送：线程池队列满时转入积压队列，积压队列也满时丢弃
+         */
+        private void dispatch(List<Digest> digests) {
+            for (int from = 0; from < digests.size(); from += batchSize) {
+                List<Digest> chunk = digests.subList(from, Math.min(from + batchSize, digests.size()));
+                try {
+                    executor.execute(() -> sendAndDrain(chunk));
+                } catch (RejectedExecutionException e) {
+                    if (!backlog.offer(chunk)) {
+                        droppedCounter.increment(chunk.size());
+                        log.warn("通知渠道积压已满，丢弃摘要: channel={}, count={}", channel.getName(), chunk.size());
+                    }
+                }
+            }
+        }
+
+        /**
+         * 发送批次后继续发送积压的批次；线程池队列满时总有排队的任务，积压批次会被它们取走
+         */
+        private void sendAndDrain(List<Digest> chunk) {
+            send(chunk);
+            List<Digest> next;
+            while ((next = backlog.poll()) != null) {
+                send(next);
+            }
+        }
+
+        private void send(List<Digest> chunk) {
+            try {
+                bucket.acquire(chunk.size());
+                channel.send(chunk);
+                sentCounter.increment(chunk.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedCounter.increment(chunk.size());
+            } catch (Exception e) {
+                failedCounter.increment(chunk.size());
+                log.error("通知摘要发送失败: channel={}, count={}", channel.getName(), chunk.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 聚合键
+     */
+    private static final class DigestKey {
+
+        private final Long recipientId;
+
+        private final String digestType;
+
+        private DigestKey(Long recipientId, String digestType) {
+            this.recipientId = recipientId;
+            this.digestType = digestType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DigestKey)) {
+                return false;
+            }
+            DigestKey other = (DigestKey) o;
+            return recipientId.equals(other.recipientId) && Objects.equals(digestType, other.digestType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * recipientId.hashCode() + Objects.hashCode(digestType);
+        }
+    }
+
+    /**
+     * 聚合中的摘要，只在 ConcurrentHashMap.compute 内修改
+     */
+    private static final class DigestBuffer implements Delayed {
+
+        private final DigestKey key;
+
+        private final long deadline;
+
+        private final List<PushMessage> samples = new ArrayList<>();
+
+        private final Set<String> channels = new LinkedHashSet<>();
+
+        private int count;
+
+        private long firstTime;
+
+        private long lastTime;
+
+        private DigestBuffer(DigestKey key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        private void add(PushMessage message, Set<String> targets, long now, int maxSamples) {
+            if (count == 0) {
+                firstTime = now;
+            }
+            count++;
+            lastTime = now;
+            if (samples.size() < maxSamples) {
+                samples.add(message);
+            }
+            channels.addAll(targets);
+        }
+
+        private Digest toDigest() {
+            return new Digest(key.recipientId, key.digestType, count, new ArrayList<>(samples),
+                    new LinkedHashSet<>(channels), firstTime, lastTime);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return other instanceof DigestBuffer
+                    ? Long.compare(deadline, ((DigestBuffer) other).deadline)
+                    : Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package com.leadexchange.modules.notification.service.impl;
+
+import com.leadexchange.modules.notification.entity.Notification;
+import com.leadexchange.modules.notification.mapper.NotificationMapper;
+import com.leadexchange.modules.notification.service.NotificationInboxService;
+import com.leadexchange.modules.notification.service.NotificationPushService;
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 通知收件箱服务实现类
+ *
+ * 存储：每个用户一个Stream（notification:inbox:{userId}），旁边的Hash保存未读数（unread）、已归档未读数（archived）
+ *      和阅读游标（cursor，游标及之前的消息均为已读），游标之后单独标记已读的消息ID记录在Set中。
+ * 写入、已读、归档均在Lua脚本内同时修改Stream与计数，计数与消息状态始终一致，读取未读数只需一次HMGET。
+ * 容量：超过保留数量的旧消息由定时任务跨用户合并为多行INSERT归档到数据库后再从Stream删除；
+ *      消息只在写入数据库之后才会从Stream删除。归档滞后、Stream达到硬上限时，写入方同步归档该用户，
+ *      数据库不可用时消息继续保留在Stream中（短时间超过硬上限），不会未经归档被丢弃。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class NotificationInboxServiceImpl implements NotificationInboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationInboxServiceImpl.class);
+
+    private static final String INBOX_PREFIX = "notification:inbox:";
+
+    private static final String META_SUFFIX = ":meta";
+
+    private static final String READ_SUFFIX = ":read";
+
+    /** 待归档用户集合 */
+    private static final String ARCHIVE_PENDING_KEY = "notification:inbox:archive:pending";
+
+    private static final Pattern STREAM_ID = Pattern.compile("\\d{1,19}-\\d{1,19}");
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_MARK_READ = 500;
+
+    /**
+     * 公共函数：消息ID比较与已读判断
+     * KEYS: Stream, 元数据Hash, 已读Set, 待归档Set
+     */
+    private static final String SCRIPT_PREFIX =
+            "local cursor = redis.call('hget', KEYS[2], 'cursor') or '0-0' " +
+            "local function after(a, b) " +
+            "  local am, as = string.match(a, '^(%d+)-(%d+)$') " +
+            "  local bm, bs = string.match(b, '^(%d+)-(%d+)$') " +
+            "  am = tonumber(am) bm = tonumber(bm) " +
+            "  if am ~= bm then return am > bm end " +
+            "  return tonumber(as) > tonumber(bs) " +
+            "end " +
+            "local function isRead(id) " +
+            "  return (not after(id, cursor)) or redis.call('sismember', KEYS[3], id) == 1 " +
+            "end " +
+            "local function row(e) " +
+            "  local r = {e[1], isRead(e[1]) and '1' or '0'} " +
+            "  for _, v in ipairs(e[2]) do r[#r + 1] = v end " +
+            "  return r " +
+            "end ";
+
+    /**
+     * 写入消息，超过归档阈值时登记待归档（不删除任何消息，删除只在归档写入数据库之后进行）
+     * ARGV: 归档阈值, 用户ID, 字段名/值...
+     * 返回: [消息ID, 写入后的Stream长度]
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DELIVER_SCRIPT = new DefaultRedisScript<>(
+            "local id = redis.call('xadd', KEYS[1], '*', unpack(ARGV, 3)) " +
+            "local len = redis.call('xlen', KEYS[1]) " +
+            "redis.call('hincrby', KEYS[2], 'unread', 1) " +
+            "if len >= tonumber(ARGV[1]) then redis.call('sadd', KEYS[4], ARGV[2]) end " +
+            "return {id, len}",
+            List.class);
+
+    /** 同步归档失败后的退避时间，期间写入不再同步归档 */
+    private static final long SYNC_ARCHIVE_BACKOFF_MILLIS = 5000;
+
+    /**
+     * 倒序分页
+     * ARGV: 起始消息ID（含，结果中排除）或 '+', 数量
+     * 返回: [[消息ID, 是否已读, 字段名/值...], ...]
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PAGE_SCRIPT = new DefaultRedisScript<>(
+            SCRIPT_PREFIX +
+            "local limit = tonumber(ARGV[2]) " +
+            "local entries = redis.call('xrevrange', KEYS[1], ARGV[1], '-', 'COUNT', limit + 1) " +
+            "local rows = {} " +
+            "for _, e in ipairs(entries) do " +
+            "  if e[1] ~= ARGV[1] and #rows < limit then rows[#rows + 1] = row(e) end " +
+            "end " +
+            "return rows",
+            List.class);
+
+    /**
+     * 批量已读：Stream中的消息加入已读Set并扣减未读数；早于Stream最旧消息的ID视为已归档，原样返回由调用方更新数据库
+     * ARGV: 消息ID...
+     * 返回: [新标记数量, 已归档消息ID...]
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> MARK_READ_SCRIPT = new DefaultRedisScript<>(
+            SCRIPT_PREFIX +
+            "local marked = 0 " +
+            "local archived = {} " +
+            "local oldest = redis.call('xrange', KEYS[1], '-', '+', 'COUNT', 1)[1] " +
+            "for i = 1, #ARGV do " +
+            "  local id = ARGV[i] " +
+            "  if #redis.call('xrange', KEYS[1], id, id) > 0 then " +
+            "    if not isRead(id) then " +
+            "      redis.call('sadd', KEYS[3], id) " +
+            "      marked = marked + 1 " +
+            "    end " +
+            "  elseif oldest == nil or after(oldest[1], id) then " +
+            "    archived[#archived + 1] = id " +
+            "  end " +
+            "end " +
+            "if marked > 0 then redis.call('hincrby', KEYS[2], 'unread', -marked) end " +
+            "table.insert(archived, 1, marked) " +
+            "return archived",
+            List.class);
+
+    /**
+     * 全部已读：游标移到最新消息，清空已读Set与未读数
+     * 返回: 原未读数
+     */
+    private static final RedisScript<Long> MARK_ALL_READ_SCRIPT = new DefaultRedisScript<>(
+            "local last = redis.call('xrevrange', KEYS[1], '+', '-', 'COUNT', 1) " +
+            "if #last > 0 then redis.call('hset', KEYS[2], 'cursor', last[1][1]) end " +
+            "local unread = tonumber(redis.call('hget', KEYS[2], 'unread') or '0') " +
+            "redis.call('hset', KEYS[2], 'unread', 0) " +
+            "redis.call('del', KEYS[3]) " +
+            "return unread",
+            Long.class);
+
+    /**
+     * 归档快照：取出超出保留数量的最旧消息（不删除）
+     * ARGV: 保留数量, 单用户单次最大数量
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ARCHIVE_SNAPSHOT_SCRIPT = new DefaultRedisScript<>(
+            SCRIPT_PREFIX +
+            "local n = redis.call('xlen', KEYS[1]) - tonumber(ARGV[1]) " +
+            "if n > tonumber(ARGV[2]) then n = tonumber(ARGV[2]) end " +
+            "local rows = {} " +
+            "if n <= 0 then return rows end " +
+            "for _, e in ipairs(redis.call('xrange', KEYS[1], '-', '+', 'COUNT', n)) do rows[#rows + 1] = row(e) end " +
+            "return rows",
+            List.class);
+
+    /**
+     * 归档提交：消息已写入数据库后从Stream删除，其中未读的计入已归档未读数；仍超过归档阈值时重新登记
+     * ARGV: 归档阈值, 用户ID, 消息ID...
+     * 返回: 提交时已为已读的消息ID（快照之后才被标记已读的，需要同步到数据库）
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ARCHIVE_COMMIT_SCRIPT = new DefaultRedisScript<>(
+            SCRIPT_PREFIX +
+            "local moved = 0 " +
+            "local read = {} " +
+            "for i = 3, #ARGV do " +
+            "  local id = ARGV[i] " +
+            "  if #redis.call('xrange', KEYS[1], id, id) > 0 then " +
+            "    if isRead(id) then read[#read + 1] = id else moved = moved + 1 end " +
+            "    redis.call('srem', KEYS[3], id) " +
+            "    redis.call('xdel', KEYS[1], id) " +
+            "  end " +
+            "end " +
+            "if moved > 0 then " +
+            "  redis.call('hincrby', KEYS[2], 'unread', -moved) " +
+            "  redis.call('hincrby', KEYS[2], 'archived', moved) " +
+            "end " +
+            "if redis.call('xlen', KEYS[1]) >= tonumber(ARGV[1]) then redis.call('sadd', KEYS[4], ARGV[2]) end " +
+            "return read",
+            List.class);
+
+    /**
+     * 扣减已归档未读数（不小于0）
+     * ARGV: 扣减数量
+     */
+    private static final RedisScript<Long> DECREMENT_ARCHIVED_SCRIPT = new DefaultRedisScript<>(
+            "local v = tonumber(redis.call('hget', KEYS[2], 'archived') or '0') - tonumber(ARGV[1]) " +
+            "if v < 0 then v = 0 end " +
+            "redis.call('hset', KEYS[2], 'archived', v) " +
+            "return v",
+            Long.class);
+
+    @Autowired
+    @Qualifier("customStringRedisTemplate")
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private NotificationPushService notificationPushService;
+
+    @Value("${app.notification.inbox.max-length:1000}")
+    private int maxLength;
+
+    @Value("${app.notification.inbox.retain:200}")
+    private int retain;
+
+    @Value("${app.notification.inbox.archive-chunk:100}")
+    private int archiveChunk;
+
+    @Value("${app.notification.inbox.archive-batch-size:1000}")
+    private int archiveBatchSize;
+
+    @Value("${app.notification.inbox.archive-users:100}")
+    private int archiveUsers;
+
+    private volatile long syncArchiveFailedAt;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String deliver(Long userId, PushMessage message) {
+        try {
+            List<String> args = new ArrayList<>(16);
+            args.add(String.valueOf(archiveThreshold()));
+            args.add(String.valueOf(userId));
+            addField(args, "type", message.getType());
+            addField(args, "title", message.getTitle());
+            addField(args, "content", message.getContent());
+            addField(args, "relatedId", message.getRelatedId());
+            addField(args, "relatedType", message.getRelatedType());
+            addField(args, "ts", message.getTimestamp());
+            List<Object> result = stringRedisTemplate.execute(DELIVER_SCRIPT, keys(userId), args.toArray());
+            message.setId(result.get(0).toString());
+            if (((Number) result.get(1)).longValue() > maxLength) {
+                archiveOverflow(userId);
+            }
+        } catch (Exception e) {
+            log.error("写入通知收件箱失败，仅实时推送: userId={}, message={}", userId, message, e);
+        }
+        notificationPushService.push(userId, message);
+        return message.getId();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public InboxPage list(Long userId, String before, int size) {
+        if (before != null && !STREAM_ID.matcher(before).matches()) {
+            throw new IllegalArgumentException("消息ID格式不正确: " + before);
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Object> rows = stringRedisTemplate.execute(PAGE_SCRIPT, keys(userId),
+                before != null ? before : "+", String.valueOf(limit));
+
+        List<InboxEntry> entries = new ArrayList<>(limit);
+        for (Object row : rows) {
+            entries.add(toEntry((List<Object>) row));
+        }
+        if (entries.size() < limit) {
+            // 收件箱已翻到底，继续查询归档
+            String from = entries.isEmpty() ? before : entries.get(entries.size() - 1).getId();
+            long[] parsed = from != null ? parseId(from) : null;
+            List<Notification> archived = notificationMapper.findArchived(userId,
+                    parsed != null ? parsed[0] : null, parsed != null ? parsed[1] : null, limit - entries.size());
+            for (Notification notification : archived) {
+                entries.add(toEntry(notification));
+            }
+        }
+        String next = entries.size() == limit ? entries.get(entries.size() - 1).getId() : null;
+        return new InboxPage(entries, next, getUnreadCount(userId));
+    }
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        List<Object> values = stringRedisTemplate.opsForHash()
+                .multiGet(metaKey(userId), Arrays.asList("unread", "archived"));
+        long unread = 0;
+        for (Object value : values) {
+            if (value != null) {
+                unread += Long.parseLong(value.toString());
+            }
+        }
+        return Math.max(unread, 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int markRead(Long userId, List<String> ids) {
+        Set<String> valid = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && STREAM_ID.matcher(id).matches() && valid.size() < MAX_MARK_READ) {
+                valid.add(id);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        List<Object> result = stringRedisTemplate.execute(MARK_READ_SCRIPT, keys(userId), valid.toArray());
+        int marked = ((Number) result.get(0)).intValue();
+        if (result.size() > 1) {
+            List<Notification> archivedKeys = new ArrayList<>(result.size() - 1);
+            for (Object id : result.subList(1, result.size())) {
+                archivedKeys.add(toKey(userId, id.toString()));
+            }
+            int affected = notificationMapper.markRead(userId, archivedKeys);
+            if (affected > 0) {
+                stringRedisTemplate.execute(DECREMENT_ARCHIVED_SCRIPT, keys(userId), String.valueOf(affected));
+            }
+            marked += affected;
+        }
+        return marked;
+    }
+
+    @Override
+    public long markAllRead(Long userId) {
+        Long unread = stringRedisTemplate.execute(MARK_ALL_READ_SCRIPT, keys(userId));
+        int affected = notificationMapper.markAllRead(userId);
+        if (affected > 0) {
+            stringRedisTemplate.execute(DECREMENT_ARCHIVED_SCRIPT, keys(userId), String.valueOf(affected));
+        }
+        return (unread != null ? unread : 0) + affected;
+    }
+
+    /**
+     * 归档：取出待归档用户，跨用户合并为多行INSERT写入数据库，写入成功后再从各自的Stream删除
+     * 写入失败时用户重新登记，下次重试（唯一键保证重复写入被忽略）
+     */
+    @Scheduled(fixedDelayString = "${app.notification.inbox.archive-interval:5000}")
+    public void archive() {
+        List<String> userIds;
+        try {
+            userIds = stringRedisTemplate.opsForSet().pop(ARCHIVE_PENDING_KEY, archiveUsers);
+        } catch (Exception e) {
+            log.warn("获取待归档收件箱失败", e);
+            return;
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        archiveUsers(userIds);
+    }
+
+    /**
+     * Stream超过硬上限（定时归档滞后）时由写入方同步归档该用户；失败时退避一段时间，消息保留在Stream中
+     */
+    private void archiveOverflow(Long userId) {
+        if (System.currentTimeMillis() - syncArchiveFailedAt < SYNC_ARCHIVE_BACKOFF_MILLIS) {
+            return;
+        }
+        log.warn("通知收件箱超过硬上限，同步归档: userId={}, maxLength={}", userId, maxLength);
+        if (!archiveUsers(Collections.singletonList(Long.toString(userId)))) {
+            syncArchiveFailedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 归档一批用户
+     *
+     * @return 数据库写入是否成功（没有需要归档的消息也视为成功）
+     */
+    @SuppressWarnings("unchecked")
+    private boolean archiveUsers(List<String> userIds) {
+        Map<Long, List<Notification>> snapshots = new LinkedHashMap<>();
+        List<Notification> records = new ArrayList<>();
+        for (String value : userIds) {
+            Long userId = Long.valueOf(value);
+            try {
+                List<Object> rows = stringRedisTemplate.execute(ARCHIVE_SNAPSHOT_SCRIPT, keys(userId),
+                        String.valueOf(retain), String.valueOf(archiveBatchSize));
+                List<Notification> snapshot = new ArrayList<>(rows.size());
+                for (Object row : rows) {
+                    snapshot.add(toNotification(userId, toEntry((List<Object>) row)));
+                }
+                if (!snapshot.isEmpty()) {
+                    snapshots.put(userId, snapshot);
+                    records.addAll(snapshot);
+                }
+            } catch (Exception e) {
+                log.warn("读取待归档通知失败: userId={}", userId, e);
+                requeue(Long.toString(userId));
+            }
+        }
+        if (records.isEmpty()) {
+            return true;
+        }
+
+        try {
+            for (int from = 0; from < records.size(); from += archiveBatchSize) {
+                notificationMapper.insertBatch(records.subList(from, Math.min(from + archiveBatchSize, records.size())));
+            }
+        } catch (Exception e) {
+            log.error("通知归档写入失败，稍后重试: users={}, count={}", snapshots.size(), records.size(), e);
+            snapshots.keySet().forEach(userId -> requeue(Long.toString(userId)));
+            return false;
+        }
+
+        for (Map.Entry<Long, List<Notification>> entry : snapshots.entrySet()) {
+            commitArchive(entry.getKey(), entry.getValue());
+        }
+        log.info("通知归档完成: users={}, count={}", snapshots.size(), records.size());
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void commitArchive(Long userId, List<Notification> snapshot) {
+        try {
+            List<Object> args = new ArrayList<>(snapshot.size() + 2);
+            args.add(String.valueOf(archiveThreshold()));
+            args.add(String.valueOf(userId));
+            Set<String> unreadIds = new HashSet<>();
+            for (Notification notification : snapshot) {
+                args.add(notification.getStreamId());
+                if (notification.getReadStatus() == 0) {
+                    unreadIds.add(notification.getStreamId());
+                }
+            }
+            List<Object> readIds = stringRedisTemplate.execute(ARCHIVE_COMMIT_SCRIPT, keys(userId), args.toArray());
+            // 快照之后才被标记已读的消息，数据库中仍为未读
+            List<Notification> stale = new ArrayList<>();
+            for (Object id : readIds) {
+                if (unreadIds.contains(id.toString())) {
+                    stale.add(toKey(userId, id.toString()));
+                }
+            }
+            if (!stale.isEmpty()) {
+                notificationMapper.markRead(userId, stale);
+            }
+        } catch (Exception e) {
+            // 已写入数据库的消息仍留在Stream中，下次归档时重复写入会被忽略
+            log.warn("通知归档提交失败: userId={}", userId, e);
+            requeue(Long.toString(userId));
+        }
+    }
+
+    private void requeue(String userId) {
+        try {
+            stringRedisTemplate.opsForSet().add(ARCHIVE_PENDING_KEY, userId);
+        } catch (Exception e) {
+            log.warn("重新登记待归档收件箱失败: userId={}", userId, e);
+        }
+    }
+
+    private int archiveThreshold() {
+        return retain + archiveChunk;
+    }
+
+    private static List<String> keys(Long userId) {
+        String stream = streamKey(userId);
+        return Arrays.asList(stream, stream + META_SUFFIX, stream + READ_SUFFIX, ARCHIVE_PENDING_KEY);
+    }
+
+    private static String streamKey(Long userId) {
+        return INBOX_PREFIX + "{" + userId + "}";
+    }
+
+    private static String metaKey(Long userId) {
+        return streamKey(userId) + META_SUFFIX;
+    }
+
+    private static void addField(List<String> args, String name, Object value) {
+        if (value != null) {
+            args.add(name);
+            args.add(value.toString());
+        }
+    }
+
+    private static long[] parseId(String id) {
+        int dash = id.indexOf('-');
+        return new long[] {Long.parseLong(id.substring(0, dash)), Long.parseLong(id.substring(dash + 1))};
+    }
+
+    private static InboxEntry toEntry(List<Object> row) {
+        InboxEntry entry = new InboxEntry();
+        entry.setId(row.get(0).toString());
+        entry.setRead("1".equals(row.get(1).toString()));
+        for (int i = 2; i + 1 < row.size(); i += 2) {
+            String value = row.get(i + 1).toString();
+            switch (row.get(i).toString()) {
+                case "type":
+                    entry.setType(value);
+                    break;
+                case "title":
+                    entry.setTitle(value);
+                    break;
+                case "content":
+                    entry.setContent(value);
+                    break;
+                case "relatedId":
+                    entry.setRelatedId(Long.valueOf(value));
+                    break;
+                case "relatedType":
+                    entry.setRelatedType(value);
+                    break;
+                case "ts":
+                    entry.setTimestamp(Long.parseLong(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return entry;
+    }
+
+    private static InboxEntry toEntry(Notification notification) {
+        InboxEntry entry = new InboxEntry();
+        entry.setId(notification.getStreamId());
+        entry.setType(notification.getType());
+        entry.setTitle(notification.getTitle());
+        entry.setContent(notification.getContent());
+        entry.setRelatedId(notification.getRelatedId());
+        entry.setRelatedType(notification.getRelatedType());
+        entry.setTimestamp(notification.getSendTime() != null
+                ? notification.getSendTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : notification.getStreamMs());
+        entry.setRead(Integer.valueOf(1).equals(notification.getReadStatus()));
+        return entry;
+    }
+
+    private static Notification toNotification(Long userId, InboxEntry entry) {
+        Notification notification = toKey(userId, entry.getId());
+        notification.setType(entry.getType());
+        notification.setTitle(entry.getTitle());
+        notification.setContent(entry.getContent());
+        notification.setRelatedId(entry.getRelatedId());
+        notification.setRelatedType(entry.getRelatedType());
+        notification.setReadStatus(entry.isRead() ? 1 : 0);
+        long timestamp = entry.getTimestamp() > 0 ? entry.getTimestamp() : notification.getStreamMs();
+        notification.setSendTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()));
+        if (entry.isRead()) {
+            notification.setReadTime(LocalDateTime.now());
+        }
+        return notification;
+    }
+
+    private static Notification toKey(Long userId, String id) {
+        long[] parsed = parseId(id);
+        Notification notification = new Notification();
+        notification.setUserId(userId);
+        notification.setStreamMs(parsed[0]);
+        notification.setStreamSeq(parsed[1]);
+        return notification;
+    }
+}
@@ -0,0 +1,420 @@
+package com.leadexchange.modules.notification.service.impl;
+
+import com.leadexchange.modules.notification.service.NotificationPushService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知实时推送服务实现类
+ *
+ * 连接：SSE基于Servlet异步请求，空闲连接不占用线程，单节点可保持数万连接（受 server.tomcat.max-connections 限制）。
+ * 分发：每个用户一个Redis频道，节点只订阅本节点有连接的用户频道，消息只会到达持有连接的节点。
+ *      订阅状态按用户加锁维护：用户的第一个连接订阅频道、最后一个连接断开时退订，
+ *      订阅与退订的Redis往返只阻塞同一用户的注册与注销。
+ * 发送：调度线程只负责合并窗口计时，写出在独立的写出线程池执行；同一连接在合并窗口内到达的多条消息合并为一次写出，
+ *      同一连接同一时刻最多一个写出任务，阻塞的写出只占用它自己的线程。
+ *      每个连接的待发送队列有界，慢客户端溢出后丢弃旧消息并通知客户端重新拉取。
+ * 慢连接：单次写出超过 slow-threshold 的连接标记为慢连接，之后只在少量慢连接线程上写出，不再占用普通写出线程；
+ *      单次写出超过 send-timeout 的连接直接断开，阻塞中的线程在容器写超时后释放。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class NotificationPushServiceImpl implements NotificationPushService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPushServiceImpl.class);
+
+    private static final String USER_CHANNEL_PREFIX = "notification:user:";
+
+    private static final String BROADCAST_CHANNEL = "notification:broadcast";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.notification.push.timeout:1800000}")
+    private long connectionTimeout;
+
+    @Value("${app.notification.push.coalesce-ms:50}")
+    private long coalesceMillis;
+
+    @Value("${app.notification.push.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.notification.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.notification.push.flush-threads:4}")
+    private int flushThreads;
+
+    @Value("${app.notification.push.max-writer-threads:64}")
+    private int maxWriterThreads;
+
+    @Value("${app.notification.push.slow-writer-threads:2}")
+    private int slowWriterThreads;
+
+    @Value("${app.notification.push.slow-threshold:1000}")
+    private long slowThreshold;
+
+    @Value("${app.notification.push.send-timeout:5000}")
+    private long sendTimeout;
+
+    /** 本节点的用户连接 */
+    private final ConcurrentHashMap<Long, UserConnections> connections = new ConcurrentHashMap<>();
+
+    private final AtomicLong connectionSequence = new AtomicLong();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong slowCount = new AtomicLong();
+
+    private final AtomicLong disconnectedCount = new AtomicLong();
+
+    private final MessageListener messageListener = this::onMessage;
+
+    /** 合并窗口计时，只做调度，不执行写出 */
+    private ScheduledThreadPoolExecutor flusher;
+
+    /** 普通连接写出：不排队，阻塞的写出不影响其他连接（线程数有上限） */
+    private ThreadPoolExecutor writers;
+
+    /** 慢连接写出：少量线程 + 有界队列 */
+    private ThreadPoolExecutor slowWriters;
+
+    @PostConstruct
+    public void init() {
+        this.flusher = new ScheduledThreadPoolExecutor(1, threadFactory("notification-push-timer"));
+        this.flusher.setRemoveOnCancelPolicy(true);
+        this.writers = new ThreadPoolExecutor(flushThreads, Math.max(flushThreads, maxWriterThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory("notification-push"));
+        this.slowWriters = new ThreadPoolExecutor(slowWriterThreads, slowWriterThreads,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), threadFactory("notification-push-slow"));
+        redisMessageListenerContainer.addMessageListener(messageListener, new ChannelTopic(BROADCAST_CHANNEL));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        redisMessageListenerContainer.removeMessageListener(messageListener);
+        connections.values().forEach(user -> user.list.forEach(SseConnection::close));
+        flusher.shutdownNow();
+        writers.shutdownNow();
+        slowWriters.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(connectionTimeout);
+        SseConnection connection = new SseConnection(connectionSequence.incrementAndGet(), userId, emitter, queueCapacity);
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(connection::close);
+        emitter.onError(error -> connection.close());
+
+        register(connection);
+        try {
+            // 立即写出响应头，客户端据此确认连接建立
+            emitter.send(SseEmitter.event().name("connected").data(connection.getId()));
+        } catch (IOException e) {
+            connection.close();
+        }
+        return emitter;
+    }
+
+    @Override
+    public void push(Long userId, PushMessage message) {
+        try {
+            redisTemplate.convertAndSend(USER_CHANNEL_PREFIX + userId, message);
+        } catch (Exception e) {
+            log.warn("发布推送消息失败，仅投递本节点连接: userId={}", userId, e);
+            deliverLocal(userId, message);
+        }
+    }
+
+    @Override
+    public void broadcast(PushMessage message) {
+        redisTemplate.convertAndSend(BROADCAST_CHANNEL, message);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionCount.get());
+        stats.put("users", connections.size());
+        stats.put("delivered", deliveredCount.get());
+        stats.put("flushes", flushCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("slowConnections", slowCount.get());
+        stats.put("slowDisconnected", disconnectedCount.get());
+        stats.put("writerThreads", writers.getPoolSize());
+        stats.put("slowWriterQueue", slowWriters.getQueue().size());
+        return stats;
+    }
+
+    /**
+     * 心跳：空闲连接发送注释行保活（防止代理断开空闲连接）
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.heartbeat-interval:25000}")
+    public void heartbeat() {
+        for (UserConnections user : connections.values()) {
+            for (SseConnection connection : user.list) {
+                if (connection.offerHeartbeat()) {
+                    scheduleFlush(connection, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * 慢连接检查：写出超过 slow-threshold 的标记为慢连接，超过 send-timeout 的断开
+     */
+    @Scheduled(fixedDelayString = "${app.notification.push.slow-check-interval:1000}")
+    public void checkSlowConnections() {
+        long now = System.currentTimeMillis();
+        for (UserConnections user : connections.values()) {
+            for (SseConnection connection : user.list) {
+                if (connection.isStalled(now, sendTimeout)) {
+                    log.info("推送连接写出超时，断开慢连接: userId={}, connectionId={}, pending={}",
+                            connection.getUserId(), connection.getId(), connection.getPendingCount());
+                    disconnectedCount.incrementAndGet();
+                    connection.close();
+                } else if (!connection.isSlow() && connection.isStalled(now, slowThreshold)) {
+                    slowCount.incrementAndGet();
+                    connection.markSlow();
+                }
+            }
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        try {
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (!(body instanceof PushMessage)) {
+                return;
+            }
+            if (BROADCAST_CHANNEL.equals(channel)) {
+                for (Long userId : connections.keySet()) {
+                    deliverLocal(userId, (PushMessage) body);
+                }
+            } else if (channel.startsWith(USER_CHANNEL_PREFIX)) {
+                deliverLocal(Long.valueOf(channel.substring(USER_CHANNEL_PREFIX.length())), (PushMessage) body);
+            }
+        } catch (Exception e) {
+            log.warn("处理推送消息失败", e);
+        }
+    }
+
+    private void deliverLocal(Long userId, PushMessage message) {
+        UserConnections user = connections.get(userId);
+        if (user == null) {
+            return;
+        }
+        for (SseConnection connection : user.list) {
+            if (connection.offer(message)) {
+                scheduleFlush(connection, coalesceMillis);
+            }
+        }
+    }
+
+    private void scheduleFlush(SseConnection connection, long delayMillis) {
+        if (delayMillis <= 0) {
+            dispatchFlush(connection);
+            return;
+        }
+        try {
+            flusher.schedule(() -> dispatchFlush(connection), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // 节点关闭中
+            connection.close();
+        }
+    }
+
+    /**
+     * 把写出交给写出线程，慢连接只使用慢连接线程
+     */
+    private void dispatchFlush(SseConnection connection) {
+        try {
+            (connection.isSlow() ? slowWriters : writers).execute(() -> flush(connection));
+        } catch (RejectedExecutionException e) {
+            // 写出线程耗尽（大量连接同时阻塞）或慢连接积压，断开该连接，客户端重连后重新拉取
+            log.info("推送写出线程已满，断开连接: userId={}, connectionId={}, slow={}",
+                    connection.getUserId(), connection.getId(), connection.isSlow());
+            disconnectedCount.incrementAndGet();
+            connection.close();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 写出一个连接上积累的全部消息
+     */
+    private void flush(SseConnection connection) {
+        SseConnection.Flush flush = connection.beginFlush();
+        try {
+            SseEmitter emitter = connection.getEmitter();
+            if (flush.overflowed) {
+                emitter.send(SseEmitter.event().name("resync").data("overflow"));
+            }
+            if (!flush.messages.isEmpty()) {
+                emitter.send(SseEmitter.event().name("notifications")
+                        .data(new ArrayList<>(flush.messages), MediaType.APPLICATION_JSON));
+                deliveredCount.addAndGet(flush.messages.size());
+            } else if (flush.heartbeat) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            flushCount.incrementAndGet();
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            connection.close();
+        } finally {
+            if (connection.endFlush()) {
+                scheduleFlush(connection, 0);
+            }
+        }
+    }
+
+    /**
+     * 注册与注销在用户自己的锁内维护该用户的频道订阅，避免同一用户并发连接与断开时订阅状态错乱；
+     * 不同用户互不阻塞。已移除的用户条目不再复用，注册时重新创建
+     */
+    private void register(SseConnection connection) {
+        Long userId = connection.getUserId();
+        SseConnection evicted = null;
+        while (true) {
+            UserConnections user = connections.computeIfAbsent(userId, id -> new UserConnections());
+            synchronized (user) {
+                if (user.removed) {
+                    continue;
+                }
+                if (!user.subscribed) {
+                    subscribe(userId, user);
+                }
+                if (user.list.size() >= maxConnectionsPerUser) {
+                    evicted = user.list.remove(0);
+                }
+                user.list.add(connection);
+            }
+            break;
+        }
+        connectionCount.incrementAndGet();
+        if (evicted != null) {
+            connectionCount.decrementAndGet();
+            droppedCount.addAndGet(evicted.getDropped());
+            evicted.close();
+        }
+    }
+
+    private void unregister(SseConnection connection) {
+        Long userId = connection.getUserId();
+        UserConnections user = connections.get(userId);
+        if (user == null) {
+            return;
+        }
+        synchronized (user) {
+            if (!user.list.remove(connection)) {
+                return;
+            }
+            if (user.list.isEmpty()) {
+                remove(userId, user);
+            }
+        }
+        connectionCount.decrementAndGet();
+        droppedCount.addAndGet(connection.getDropped());
+    }
+
+    /**
+     * 订阅用户频道（调用方持有该用户的锁）；订阅失败且没有连接时移除用户条目
+     */
+    private void subscribe(Long userId, UserConnections user) {
+        try {
+            redisMessageListenerContainer.addMessageListener(messageListener,
+                    new ChannelTopic(USER_CHANNEL_PREFIX + userId));
+            user.subscribed = true;
+        } catch (RuntimeException e) {
+            if (user.list.isEmpty()) {
+                remove(userId, user);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 移除没有连接的用户条目并退订频道（调用方持有该用户的锁）
+     */
+    private void remove(Long userId, UserConnections user) {
+        user.removed = true;
+        connections.remove(userId, user);
+        if (!user.subscribed) {
+            return;
+        }
+        user.subscribed = false;
+        try {
+            redisMessageListenerContainer.removeMessageListener(messageListener,
+                    new ChannelTopic(USER_CHANNEL_PREFIX + userId));
+        } catch (RuntimeException e) {
+            log.warn("退订用户推送频道失败: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 本节点某个用户的连接与频道订阅状态，字段在该对象的锁内修改
+     */
+    private static final class UserConnections {
+
+        /** 连接列表，列表长度即频道的引用计数 */
+        final CopyOnWriteArrayList<SseConnection> list = new CopyOnWriteArrayList<>();
+
+        /** 是否已订阅用户频道 */
+        boolean subscribed;
+
+        /** 是否已从连接表移除 */
+        boolean removed;
+    }
+}
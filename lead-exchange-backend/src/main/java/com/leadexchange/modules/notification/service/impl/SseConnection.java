@@ -0,0 +1,194 @@
+package com.leadexchange.modules.notification.service.impl;
+
+import com.leadexchange.modules.notification.service.NotificationPushService.PushMessage;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个SSE连接的发送状态
+ *
+ * 待发送消息进入有界队列，同一连接同一时刻最多只有一个刷新任务，刷新时把队列中的消息合并为一次写出。
+ * 队列满时丢弃最旧的消息并标记溢出，下一次刷新通知客户端重新拉取，慢客户端不会无限占用内存。
+ * 写出耗时过长的连接被标记为慢连接，之后的刷新改由慢连接专用线程执行。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class SseConnection {
+
+    private final long id;
+
+    private final Long userId;
+
+    private final SseEmitter emitter;
+
+    private final int capacity;
+
+    private final ArrayDeque<PushMessage> pending;
+
+    /** 已安排或正在执行刷新任务 */
+    private boolean scheduled;
+
+    private boolean overflowed;
+
+    private boolean heartbeat;
+
+    /** 当前刷新开始时间，0表示未在刷新 */
+    private long flushStartedAt;
+
+    private long dropped;
+
+    private volatile boolean closed;
+
+    private volatile boolean slow;
+
+    SseConnection(long id, Long userId, SseEmitter emitter, int capacity) {
+        this.id = id;
+        this.userId = userId;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.pending = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    long getId() {
+        return id;
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    boolean isSlow() {
+        return slow;
+    }
+
+    void markSlow() {
+        slow = true;
+    }
+
+    /**
+     * 加入待发送消息
+     *
+     * @return 是否需要由调用方安排刷新任务
+     */
+    synchronized boolean offer(PushMessage message) {
+        if (closed) {
+            return false;
+        }
+        if (pending.size() >= capacity) {
+            pending.pollFirst();
+            overflowed = true;
+            dropped++;
+        }
+        pending.addLast(message);
+        return schedule();
+    }
+
+    /**
+     * 请求发送心跳（已有待发送消息时无需心跳）
+     *
+     * @return 是否需要由调用方安排刷新任务
+     */
+    synchronized boolean offerHeartbeat() {
+        if (closed || scheduled) {
+            return false;
+        }
+        heartbeat = true;
+        return schedule();
+    }
+
+    private boolean schedule() {
+        if (scheduled) {
+            return false;
+        }
+        scheduled = true;
+        return true;
+    }
+
+    /**
+     * 开始刷新：取出全部待发送消息
+     */
+    synchronized Flush beginFlush() {
+        Flush flush = new Flush(new ArrayList<>(pending), overflowed, heartbeat);
+        pending.clear();
+        overflowed = false;
+        heartbeat = false;
+        flushStartedAt = System.currentTimeMillis();
+        return flush;
+    }
+
+    /**
+     * 结束刷新
+     *
+     * @return 刷新期间又有新消息到达，需要继续刷新
+     */
+    synchronized boolean endFlush() {
+        flushStartedAt = 0;
+        if (!closed && !pending.isEmpty()) {
+            return true;
+        }
+        scheduled = false;
+        return false;
+    }
+
+    /**
+     * 刷新（写出）是否已阻塞超过指定时间
+     */
+    synchronized boolean isStalled(long now, long stallMillis) {
+        return flushStartedAt > 0 && now - flushStartedAt > stallMillis;
+    }
+
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 关闭连接并丢弃待发送消息
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+        }
+        try {
+            emitter.complete();
+        } catch (Exception ignored) {
+            // 连接已断开
+        }
+    }
+
+    /**
+     * 一次刷新的内容
+     */
+    static final class Flush {
+
+        final List<PushMessage> messages;
+        final boolean overflowed;
+        final boolean heartbeat;
+
+        Flush(List<PushMessage> messages, boolean overflowed, boolean heartbeat) {
+            this.messages = messages;
+            this.overflowed = overflowed;
+            this.heartbeat = heartbeat;
+        }
+    }
+}
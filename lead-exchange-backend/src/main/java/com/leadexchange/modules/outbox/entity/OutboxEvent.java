@@ -0,0 +1,146 @@
+package com.leadexchange.modules.outbox.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.leadexchange.common.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发件箱事件实体类
+ * 与业务数据在同一事务内写入，由中继异步投递，ID即投递顺序
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@TableName("sys_outbox_event")
+public class OutboxEvent extends BaseEntity {
+
+    /**
+     * 事件ID（消息ID，消费端幂等去重）
+     */
+    @TableField("event_id")
+    private String eventId;
+
+    /**
+     * 聚合类型
+     */
+    @TableField("aggregate_type")
+    private String aggregateType;
+
+    /**
+     * 聚合ID（同一聚合的事件按ID顺序投递）
+     */
+    @TableField("aggregate_id")
+    private Long aggregateId;
+
+    /**
+     * 事件类型（消息路由键）
+     */
+    @TableField("event_type")
+    private String eventType;
+
+    /**
+     * 事件内容（JSON）
+     */
+    @TableField("payload")
+    private String payload;
+
+    /**
+     * 投递状态（0：待投递，1：已投递，2：超过重试次数已搁置，需人工处理）
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 投递失败次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 下次重试时间
+     */
+    @TableField("next_retry_time")
+    private LocalDateTime nextRetryTime;
+
+    /**
+     * 投递成功时间
+     */
+    @TableField("publish_time")
+    private LocalDateTime publishTime;
+
+    // Getter and Setter methods
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextRetryTime() {
+        return nextRetryTime;
+    }
+
+    public void setNextRetryTime(LocalDateTime nextRetryTime) {
+        this.nextRetryTime = nextRetryTime;
+    }
+
+    public LocalDateTime getPublishTime() {
+        return publishTime;
+    }
+
+    public void setPublishTime(LocalDateTime publishTime) {
+        this.publishTime = publishTime;
+    }
+}
@@ -0,0 +1,118 @@
+package com.leadexchange.modules.outbox.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 发件箱事件Mapper接口
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Mapper
+public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
+
+    /**
+     * 批量写入事件（单条多行INSERT，审计字段不经过自动填充，需显式写入）
+     *
+     * @param events 事件列表
+     * @return 插入数量
+     */
+    @Insert("<script>" +
+            "INSERT INTO sys_outbox_event (event_id, aggregate_type, aggregate_id, event_type, payload, status, attempts, " +
+            "create_time, update_time, create_by, update_by, deleted, version) VALUES " +
+            "<foreach collection='events' item='item' separator=','>" +
+            "(#{item.eventId}, #{item.aggregateType}, #{item.aggregateId}, #{item.eventType}, #{item.payload}, 0, 0, " +
+            "NOW(), NOW(), #{item.createBy}, #{item.createBy}, 0, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("events") List<OutboxEvent> events);
+
+    /**
+     * 按ID顺序查询待投递事件
+     * 同一聚合存在更早的、仍在重试等待中的事件时，其后的事件不会被取出，保证聚合内顺序
+     *
+     * @param currentTime 当前时间
+     * @param limit 限制数量
+     * @return 事件列表
+     */
+    @Select("SELECT o.* FROM sys_outbox_event o " +
+            "WHERE o.status = 0 AND o.deleted = 0 " +
+            "AND (o.next_retry_time IS NULL OR o.next_retry_time <= #{currentTime}) " +
+            "AND NOT EXISTS (SELECT 1 FROM sys_outbox_event p WHERE p.status = 0 AND p.deleted = 0 " +
+            "AND p.aggregate_type = o.aggregate_type AND p.aggregate_id = o.aggregate_id " +
+            "AND p.id < o.id AND p.next_retry_time > #{currentTime}) " +
+            "ORDER BY o.id LIMIT #{limit}")
+    List<OutboxEvent> findPending(@Param("currentTime") LocalDateTime currentTime, @Param("limit") Integer limit);
+
+    /**
+     * 批量标记为已投递
+     *
+     * @param ids 事件ID列表
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE sys_outbox_event SET status = 1, publish_time = NOW(), update_time = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markPublished(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量标记为等待重试
+     *
+     * @param ids 事件ID列表
+     * @param nextRetryTime 下次重试时间
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE sys_outbox_event SET attempts = attempts + 1, next_retry_time = #{nextRetryTime}, " +
+            "update_time = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markRetry(@Param("ids") List<Long> ids, @Param("nextRetryTime") LocalDateTime nextRetryTime);
+
+    /**
+     * 批量推迟投递，不计失败次数（同批中排在失败事件之后、为保证聚合内顺序而暂缓的事件）
+     *
+     * @param ids 事件ID列表
+     * @param nextRetryTime 下次投递时间
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE sys_outbox_event SET next_retry_time = #{nextRetryTime}, update_time = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deferEvents(@Param("ids") List<Long> ids, @Param("nextRetryTime") LocalDateTime nextRetryTime);
+
+    /**
+     * 批量搁置超过重试次数的事件（status = 2，不再投递，也不再阻塞同一聚合的后续事件）
+     *
+     * @param ids 事件ID列表
+     * @return 更新数量
+     */
+    @Update("<script>" +
+            "UPDATE sys_outbox_event SET status = 2, attempts = attempts + 1, update_time = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markParked(@Param("ids") List<Long> ids);
+
+    /**
+     * 清理已投递的历史事件
+     *
+     * @param before 投递时间早于该时间
+     * @param limit 单次清理数量
+     * @return 删除数量
+     */
+    @Delete("DELETE FROM sys_outbox_event WHERE status = 1 AND publish_time < #{before} LIMIT #{limit}")
+    int deletePublished(@Param("before") LocalDateTime before, @Param("limit") Integer limit);
+}
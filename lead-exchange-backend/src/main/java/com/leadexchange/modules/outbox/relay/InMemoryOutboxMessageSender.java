@@ -0,0 +1,70 @@
+package com.leadexchange.modules.outbox.relay;
+
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内存版发件箱消息发送器（本地代理替身）
+ * 配置 app.outbox.sender=memory 时启用，无需RabbitMQ即可在本地验证发件箱写入、中继批量投递与顺序；
+ * 可通过 failNext 模拟代理拒绝确认，验证重试与聚合内顺序
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sender", havingValue = "memory")
+public class InMemoryOutboxMessageSender implements OutboxMessageSender {
+
+    private static final int MAX_RETAINED = 10000;
+
+    private final ConcurrentLinkedQueue<OutboxEvent> delivered = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger retained = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public CompletableFuture<Void> send(OutboxEvent event) {
+        if (failures.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+            return CompletableFuture.failedFuture(new IllegalStateException("模拟代理拒绝确认"));
+        }
+        delivered.add(event);
+        if (retained.incrementAndGet() > MAX_RETAINED) {
+            delivered.poll();
+            retained.decrementAndGet();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 让接下来的若干次发送被拒绝确认
+     *
+     * @param count 拒绝次数
+     */
+    public void failNext(int count) {
+        failures.set(count);
+    }
+
+    /**
+     * 取出已投递的消息（按投递顺序）
+     *
+     * @return 消息列表
+     */
+    public List<OutboxEvent> drain() {
+        List<OutboxEvent> events = new ArrayList<>();
+        OutboxEvent event;
+        while ((event = delivered.poll()) != null) {
+            retained.decrementAndGet();
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,24 @@
+package com.leadexchange.modules.outbox.relay;
+
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 发件箱消息发送器
+ * 发送为异步操作，消息被代理确认后完成，未确认或不可路由时异常完成
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface OutboxMessageSender {
+
+    /**
+     * 发送事件
+     *
+     * @param event 发件箱事件
+     * @return 代理确认结果
+     */
+    CompletableFuture<Void> send(OutboxEvent event);
+}
@@ -0,0 +1,303 @@
+package com.leadexchange.modules.outbox.relay;
+
+import com.leadexchange.common.service.DistributedLockService;
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+import com.leadexchange.modules.outbox.mapper.OutboxEventMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 发件箱中继
+ *
+ * 集群内通过分布式锁选出唯一的中继节点，按ID顺序批量取出待投递事件，整批异步发送后统一等待代理确认，
+ * 再用一条UPDATE批量标记已投递。业务事务提交后会唤醒中继，空闲时按 poll-interval 轮询。
+ * 聚合内顺序：某事件投递失败时，同批中同一聚合的后续事件一并进入重试，且重试等待期间该聚合的新事件不会被取出。
+ * 投递语义为至少一次，消息头携带事件ID与发件箱序号，消费端据此去重。
+ * 领导权：每批开始前确认锁租约仍有效且剩余租期覆盖一批的最长耗时，否则释放锁退出中继并重新竞选，
+ * 租约丢失后不会与新的中继节点同时投递。
+ * 失败上限：失败次数达到 max-attempts 的事件被搁置（status = 2）并记录错误，不再阻塞所属聚合。
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String LEADER_LOCK = "outbox:relay";
+
+    private static final int CLEANUP_BATCH_SIZE = 5000;
+
+    private final OutboxEventMapper outboxEventMapper;
+
+    private final OutboxMessageSender outboxMessageSender;
+
+    private final DistributedLockService distributedLockService;
+
+    @Value("${app.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.poll-interval:1000}")
+    private long pollInterval;
+
+    @Value("${app.outbox.confirm-timeout:10000}")
+    private long confirmTimeout;
+
+    @Value("${app.outbox.retry-delay:5000}")
+    private long retryDelay;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private volatile boolean leader;
+
+    private final Timer batchTimer;
+
+    private final Counter publishedCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter parkedCounter;
+
+    public OutboxRelay(OutboxEventMapper outboxEventMapper, OutboxMessageSender outboxMessageSender,
+                       DistributedLockService distributedLockService, MeterRegistry meterRegistry) {
+        this.outboxEventMapper = outboxEventMapper;
+        this.outboxMessageSender = outboxMessageSender;
+        this.distributedLockService = distributedLockService;
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("发件箱批量投递耗时")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("已投递的发件箱事件数量")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("outbox.relay.retried")
+                .description("投递失败进入重试的发件箱事件数量")
+                .register(meterRegistry);
+        this.parkedCounter = Counter.builder("outbox.relay.parked")
+                .description("超过重试次数被搁置的发件箱事件数量")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        wakeUp.release();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 唤醒中继（业务事务提交后调用）
+     */
+    public void wakeUp() {
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    /**
+     * 当前节点是否为中继节点
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    private void run() {
+        DistributedLockService.LockHandle lock = null;
+        try {
+            while (running) {
+                try {
+                    if (lock == null) {
+                        lock = distributedLockService.tryLock(LEADER_LOCK, 0, 0, TimeUnit.MILLISECONDS);
+                        leader = lock != null;
+                        if (lock == null) {
+                            // 其他节点正在中继
+                            wakeUp.tryAcquire(pollInterval * 5, TimeUnit.MILLISECONDS);
+                            continue;
+                        }
+                        log.info("当前节点成为发件箱中继");
+                    }
+                    // 一批最长耗时约为确认超时，剩余租期不足时先让出，避免与新中继节点重叠投递
+                    if (!lock.isHeld(confirmTimeout * 2)) {
+                        log.warn("发件箱中继锁租约已丢失或即将到期，退出中继并重新竞选");
+                        leader = false;
+                        releaseQuietly(lock);
+                        lock = null;
+                        continue;
+                    }
+                    if (relayBatch() < batchSize) {
+                        wakeUp.tryAcquire(pollInterval, TimeUnit.MILLISECONDS);
+                        wakeUp.drainPermits();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("发件箱中继异常", e);
+                    wakeUp.tryAcquire(pollInterval, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            leader = false;
+            if (lock != null) {
+                releaseQuietly(lock);
+            }
+        }
+    }
+
+    private void releaseQuietly(DistributedLockService.LockHandle lock) {
+        try {
+            lock.close();
+        } catch (Exception e) {
+            log.warn("释放发件箱中继锁失败", e);
+        }
+    }
+
+    /**
+     * 投递一批事件
+     *
+     * @return 本批取出的事件数量
+     */
+    int relayBatch() throws InterruptedException {
+        List<OutboxEvent> batch = outboxEventMapper.findPending(LocalDateTime.now(), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            confirms.add(outboxMessageSender.send(event));
+        }
+        try {
+            CompletableFuture.allOf(confirms.toArray(new CompletableFuture[0]))
+                    .get(confirmTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // 逐条检查确认结果
+        }
+
+        List<Long> published = new ArrayList<>(batch.size());
+        List<Long> retry = new ArrayList<>();
+        List<Long> deferred = new ArrayList<>();
+        List<Long> parked = new ArrayList<>();
+        Set<String> blockedAggregates = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            CompletableFuture<Void> confirm = confirms.get(i);
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            boolean confirmed = confirm.isDone() && !confirm.isCompletedExceptionally();
+            if (blockedAggregates.contains(aggregate)) {
+                // 前序事件失败，本事件无论是否确认都推迟，保证聚合内顺序
+                deferred.add(event.getId());
+            } else if (confirmed) {
+                published.add(event.getId());
+            } else if (event.getAttempts() != null && event.getAttempts() + 1 >= maxAttempts) {
+                parked.add(event.getId());
+                log.error("发件箱事件超过重试次数，已搁置: id={}, eventId={}, aggregate={}, attempts={}",
+                        event.getId(), event.getEventId(), aggregate, event.getAttempts() + 1);
+            } else {
+                retry.add(event.getId());
+                blockedAggregates.add(aggregate);
+            }
+        }
+
+        if (!published.isEmpty()) {
+            outboxEventMapper.markPublished(published);
+            publishedCounter.increment(published.size());
+        }
+        if (!parked.isEmpty()) {
+            outboxEventMapper.markParked(parked);
+            parkedCounter.increment(parked.size());
+        }
+        LocalDateTime nextRetryTime = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryDelay));
+        if (!retry.isEmpty()) {
+            outboxEventMapper.markRetry(retry, nextRetryTime);
+            retriedCounter.increment(retry.size());
+            log.warn("发件箱事件投递失败，等待重试: count={}, aggregates={}", retry.size(), blockedAggregates.size());
+        }
+        if (!deferred.isEmpty()) {
+            outboxEventMapper.deferEvents(deferred, nextRetryTime);
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return batch.size();
+    }
+
+    /**
+     * 清理已投递的历史事件
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void cleanupPublished() {
+        if (!leader) {
+            return;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+            int total = 0;
+            int deleted;
+            do {
+                deleted = outboxEventMapper.deletePublished(before, CLEANUP_BATCH_SIZE);
+                total += deleted;
+            } while (deleted == CLEANUP_BATCH_SIZE);
+            log.info("清理已投递发件箱事件: count={}", total);
+        } catch (Exception e) {
+            log.error("清理已投递发件箱事件失败", e);
+        }
+    }
+
+    /**
+     * 获取中继统计信息
+     *
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leader", leader);
+        stats.put("batches", batchTimer.count());
+        stats.put("published", (long) publishedCounter.count());
+        stats.put("retried", (long) retriedCounter.count());
+        stats.put("parked", (long) parkedCounter.count());
+        stats.put("meanBatchMillis", batchTimer.mean(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+}
@@ -0,0 +1,68 @@
+package com.leadexchange.modules.outbox.relay;
+
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于RabbitMQ的发件箱消息发送器
+ * 使用关联发布确认（publisher-confirm-type: correlated）异步等待代理确认，不逐条阻塞；
+ * 模板开启 mandatory，不可路由的消息会被退回并判定为投递失败
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sender", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitOutboxMessageSender implements OutboxMessageSender {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${app.outbox.exchange:lead-exchange.events}")
+    private String exchange;
+
+    public RabbitOutboxMessageSender(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(OutboxEvent event) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(event.getEventId());
+        properties.setType(event.getEventType());
+        properties.setHeader("aggregateType", event.getAggregateType());
+        properties.setHeader("aggregateId", event.getAggregateId());
+        // 发件箱ID单调递增，消费端可据此丢弃同一聚合的过期消息
+        properties.setHeader("sequence", event.getId());
+        Message message = new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+
+        CorrelationData correlationData = new CorrelationData(String.valueOf(event.getId()));
+        try {
+            rabbitTemplate.send(exchange, event.getEventType(), message, correlationData);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return correlationData.getFuture().completable().thenApply(confirm -> {
+            if (!confirm.isAck()) {
+                throw new IllegalStateException("消息未被确认: " + confirm.getReason());
+            }
+            if (correlationData.getReturned() != null) {
+                throw new IllegalStateException("消息不可路由: " + correlationData.getReturned().getReplyText());
+            }
+            return null;
+        });
+    }
+}
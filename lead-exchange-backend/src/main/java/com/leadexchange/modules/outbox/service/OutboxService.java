@@ -0,0 +1,30 @@
+package com.leadexchange.modules.outbox.service;
+
+import com.leadexchange.modules.lead.event.LeadEvent;
+
+import java.util.List;
+
+/**
+ * 发件箱服务接口
+ * 领域事件与业务数据在同一事务内写入发件箱，事务提交后由中继投递到消息队列
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface OutboxService {
+
+    /**
+     * 写入单个事件，必须在业务事务内调用
+     *
+     * @param event 领域事件
+     */
+    void append(LeadEvent event);
+
+    /**
+     * 批量写入事件（单条多行INSERT），必须在业务事务内调用
+     *
+     * @param events 领域事件列表
+     */
+    void appendAll(List<? extends LeadEvent> events);
+}
@@ -0,0 +1,74 @@
+package com.leadexchange.modules.outbox.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leadexchange.common.utils.TransactionUtils;
+import com.leadexchange.modules.lead.event.LeadEvent;
+import com.leadexchange.modules.outbox.entity.OutboxEvent;
+import com.leadexchange.modules.outbox.mapper.OutboxEventMapper;
+import com.leadexchange.modules.outbox.relay.OutboxRelay;
+import com.leadexchange.modules.outbox.service.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 发件箱服务实现类
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    @Autowired
+    private OutboxEventMapper outboxEventMapper;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(LeadEvent event) {
+        appendAll(Collections.singletonList(event));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<? extends LeadEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> records = new ArrayList<>(events.size());
+        for (LeadEvent event : events) {
+            OutboxEvent record = new OutboxEvent();
+            record.setEventId(event.getEventId());
+            record.setAggregateType(event.getAggregateType());
+            record.setAggregateId(event.getAggregateId());
+            record.setEventType(event.getEventType());
+            record.setPayload(toJson(event));
+            record.setCreateBy(event.getUserId());
+            records.add(record);
+        }
+        outboxEventMapper.insertBatch(records);
+        // 提交后立即唤醒中继，不必等待下一次轮询
+        TransactionUtils.afterCommit(outboxRelay::wakeUp);
+    }
+
+    private String toJson(LeadEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("事件序列化失败: " + event.getEventType(), e);
+        }
+    }
+}
@@ -176,8 +176,8 @@ public class CacheTestController {
                 Thread.sleep(1000);
                 
                 // 释放锁
-                cacheService.releaseLock(lockKey);
-                result.put("lockReleased", true);
+                boolean lockReleased = cacheService.releaseLock(lockKey, lockValue);
+                result.put("lockReleased", lockReleased);
             }
             
             result.put("success", true);
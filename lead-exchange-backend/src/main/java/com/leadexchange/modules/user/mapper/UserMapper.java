@@ -7,7 +7,9 @@ import com.leadexchange.modules.user.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,6 +32,15 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT * FROM sys_user WHERE username = #{username} AND deleted = 0")
     User findByUsername(@Param("username") String username);
 
+    /**
+     * 根据用户名查询密码哈希（认证时使用，密码不进入共享缓存）
+     * 
+     * @param username 用户名
+     * @return 密码哈希，用户不存在时返回null
+     */
+    @Select("SELECT password FROM sys_user WHERE username = #{username} AND deleted = 0")
+    String findPasswordByUsername(@Param("username") String username);
+
     /**
      * 根据邮箱查询用户
      * 
@@ -103,4 +114,20 @@ public interface UserMapper extends BaseMapper<User> {
             "</script>")
     Long countUsers(@Param("userType") Integer userType, @Param("status") Integer status);
 
-}
\ No newline at end of file
+    /**
+     * 批量回写登录失败次数与锁定时间（单条UPDATE，按用户名匹配）
+     * 
+     * @param users 用户名、失败次数、锁定时间（null表示未锁定）
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE sys_user SET login_fail_count = CASE username " +
+            "<foreach collection='users' item='item'>WHEN #{item.username} THEN #{item.loginFailCount} </foreach>" +
+            "END, lock_time = CASE username " +
+            "<foreach collection='users' item='item'>WHEN #{item.username} THEN #{item.lockTime,jdbcType=TIMESTAMP} </foreach>" +
+            "END, update_time = NOW() WHERE deleted = 0 AND username IN " +
+            "<foreach collection='users' item='item' open='(' separator=',' close=')'>#{item.username}</foreach>" +
+            "</script>")
+    int updateLoginStateBatch(@Param("users") Collection<User> users);
+
+}
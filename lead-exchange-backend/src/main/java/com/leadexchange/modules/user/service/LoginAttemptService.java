@@ -0,0 +1,50 @@
+package com.leadexchange.modules.user.service;
+
+/**
+ * 登录失败计数与账户锁定服务
+ * 计数与锁定状态以Redis为准，数据库中的 login_fail_count / lock_time 异步批量回写
+ * 
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+public interface LoginAttemptService {
+
+    /**
+     * 账户剩余锁定时间
+     * 
+     * @param username 用户名
+     * @return 剩余锁定毫秒数，未锁定时为0
+     */
+    long getLockRemainingMillis(String username);
+
+    /**
+     * 记录一次登录失败，达到次数上限时锁定账户
+     * 
+     * @param username 用户名
+     * @return 剩余可尝试次数，0表示已锁定
+     */
+    int recordFailure(String username);
+
+    /**
+     * 记录登录成功，清除失败计数
+     * 
+     * @param username 用户名
+     */
+    void recordSuccess(String username);
+
+    /**
+     * 锁定账户
+     * 
+     * @param username 用户名
+     * @param lockMillis 锁定时长（毫秒）
+     */
+    void lock(String username, long lockMillis);
+
+    /**
+     * 解除锁定并清除失败计数
+     * 
+     * @param username 用户名
+     */
+    void unlock(String username);
+}
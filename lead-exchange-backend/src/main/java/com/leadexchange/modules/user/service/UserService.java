@@ -183,7 +183,7 @@ public interface UserService extends IService<User> {
      * 锁定用户账户
      * 
      * @param userId 用户ID
-     * @param lockMinutes 锁定时长（分钟）
+     * @param lockMinutes 锁定时长（分钟），为空或不大于0时使用配置的默认时长
      * @return 锁定结果
      */
     boolean lockUser(Long userId, Integer lockMinutes);
@@ -0,0 +1,242 @@
+package com.leadexchange.modules.user.service.impl;
+
+import com.leadexchange.modules.user.entity.User;
+import com.leadexchange.modules.user.mapper.UserMapper;
+import com.leadexchange.modules.user.service.LoginAttemptService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录失败计数与账户锁定服务实现
+ * 
+ * 失败计数、达到上限后锁定由Lua脚本在Redis中原子完成：计数键在锁定时长的窗口内有效，锁定键的TTL即锁定时长，
+ * 已锁定的账户不再计数。登录热路径上不写数据库：状态变化只记入按用户名合并的待写集合，
+ * 定时以单条批量UPDATE回写 sys_user，同一账户被持续撞库时每个周期最多写一行。
+ * Redis键中的用户名与登录准入控制一致地转为小写，大小写不同的用户名共享同一计数与锁定
+ * 
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+@Service
+public class LoginAttemptServiceImpl implements LoginAttemptService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginAttemptServiceImpl.class);
+
+    private static final String FAIL_KEY_PREFIX = "login:fail:";
+
+    private static final String LOCK_KEY_PREFIX = "login:lock:";
+
+    /**
+     * 记录失败
+     * KEYS: 计数键, 锁定键; ARGV: 次数上限, 锁定时长ms
+     * 返回: >0 当前失败次数（未锁定）; 0 本次失败触发锁定; <0 此前已锁定，绝对值为剩余锁定时间ms
+     */
+    private static final RedisScript<Long> FAILURE_SCRIPT = new DefaultRedisScript<>(
+            "local locked = redis.call('pttl', KEYS[2]) " +
+            "if locked > 0 then return -locked end " +
+            "local count = redis.call('incr', KEYS[1]) " +
+            "if count == 1 then redis.call('pexpire', KEYS[1], ARGV[2]) end " +
+            "if count >= tonumber(ARGV[1]) then " +
+            "  redis.call('set', KEYS[2], count, 'PX', ARGV[2]) " +
+            "  redis.call('del', KEYS[1]) " +
+            "  return 0 " +
+            "end " +
+            "return count",
+            Long.class);
+
+    /**
+     * 清除计数：有计数时删除并返回1，无计数返回0（无需回写数据库）
+     * KEYS: 计数键
+     */
+    private static final RedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('del', KEYS[1])",
+            Long.class);
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    private final UserMapper userMapper;
+
+    private final Counter failureCounter;
+
+    private final Counter lockedCounter;
+
+    /** 待回写的状态：用户名 -> 最新状态 */
+    private final Map<String, PendingState> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.security.login-attempts:5}")
+    private int maxAttempts;
+
+    /** 锁定时长（分钟） */
+    @Value("${app.security.lock-time:30}")
+    private long lockMinutes;
+
+    @Value("${app.security.login-state.batch-size:500}")
+    private int batchSize;
+
+    public LoginAttemptServiceImpl(@Qualifier("customStringRedisTemplate") RedisTemplate<String, String> stringRedisTemplate,
+                                   UserMapper userMapper,
+                                   MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.userMapper = userMapper;
+        this.failureCounter = Counter.builder("login.failure")
+                .description("登录失败次数")
+                .register(meterRegistry);
+        this.lockedCounter = Counter.builder("login.locked")
+                .description("因连续失败被锁定的次数")
+                .register(meterRegistry);
+        meterRegistry.gauge("login.state.pending", pending, Map::size);
+    }
+
+    @Override
+    public long getLockRemainingMillis(String username) {
+        Long ttl = stringRedisTemplate.getExpire(lockKey(username), TimeUnit.MILLISECONDS);
+        return ttl == null || ttl < 0 ? 0 : ttl;
+    }
+
+    @Override
+    public int recordFailure(String username) {
+        long lockMillis = TimeUnit.MINUTES.toMillis(lockMinutes);
+        Long result = stringRedisTemplate.execute(FAILURE_SCRIPT,
+                Arrays.asList(failKey(username), lockKey(username)),
+                String.valueOf(maxAttempts), String.valueOf(lockMillis));
+        failureCounter.increment();
+        if (result == null || result <= 0) {
+            if (result != null && result == 0) {
+                lockedCounter.increment();
+                pending.put(username, new PendingState(maxAttempts, System.currentTimeMillis() + lockMillis));
+                log.warn("连续登录失败，账户已锁定: username={}, lockMinutes={}", username, lockMinutes);
+            }
+            return 0;
+        }
+        int count = result.intValue();
+        pending.put(username, new PendingState(count, null));
+        return Math.max(0, maxAttempts - count);
+    }
+
+    @Override
+    public void recordSuccess(String username) {
+        Long deleted = stringRedisTemplate.execute(RESET_SCRIPT,
+                Collections.singletonList(failKey(username)));
+        if (deleted != null && deleted > 0) {
+            pending.put(username, new PendingState(0, null));
+        }
+    }
+
+    @Override
+    public void lock(String username, long lockMillis) {
+        stringRedisTemplate.opsForValue().set(lockKey(username), String.valueOf(maxAttempts),
+                lockMillis, TimeUnit.MILLISECONDS);
+        stringRedisTemplate.delete(failKey(username));
+        log.info("账户已锁定: username={}, lockMillis={}", username, lockMillis);
+    }
+
+    @Override
+    public void unlock(String username) {
+        stringRedisTemplate.delete(Arrays.asList(lockKey(username), failKey(username)));
+        // 管理操作已直接写库，丢弃尚未回写的旧状态
+        pending.remove(username);
+        log.info("账户已解锁: username={}", username);
+    }
+
+    /**
+     * 定期批量回写数据库
+     */
+    @Scheduled(fixedDelayString = "${app.security.login-state.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<User> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        List<PendingState> states = new ArrayList<>(batch.size());
+        for (Map.Entry<String, PendingState> entry : pending.entrySet()) {
+            // 仅当状态未被更新时才移出，写入失败再放回
+            if (!pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            batch.add(entry.getValue().toUser(entry.getKey()));
+            states.add(entry.getValue());
+            if (batch.size() >= batchSize) {
+                write(batch, states);
+                batch = new ArrayList<>(batchSize);
+                states = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, states);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void write(List<User> batch, List<PendingState> states) {
+        try {
+            userMapper.updateLoginStateBatch(batch);
+            log.debug("登录状态回写完成: size={}", batch.size());
+        } catch (Exception e) {
+            log.error("登录状态回写失败，下个周期重试: size={}", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                pending.putIfAbsent(batch.get(i).getUsername(), states.get(i));
+            }
+        }
+    }
+
+    private static String failKey(String username) {
+        return FAIL_KEY_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String lockKey(String username) {
+        return LOCK_KEY_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 待回写的登录状态
+     */
+    private static final class PendingState {
+
+        final int failCount;
+
+        /** 锁定截止时间（毫秒），未锁定为null */
+        final Long lockUntil;
+
+        PendingState(int failCount, Long lockUntil) {
+            this.failCount = failCount;
+            this.lockUntil = lockUntil;
+        }
+
+        User toUser(String username) {
+            User user = new User();
+            user.setUsername(username);
+            user.setLoginFailCount(failCount);
+            if (lockUntil != null) {
+                user.setLockTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(lockUntil), ZoneId.systemDefault()));
+            }
+            return user;
+        }
+    }
+}
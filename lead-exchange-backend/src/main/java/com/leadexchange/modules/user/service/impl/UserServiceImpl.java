@@ -5,12 +5,17 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.leadexchange.common.security.AdmissionRejectedException;
+import com.leadexchange.common.security.CustomUserDetailsService;
+import com.leadexchange.common.utils.TransactionUtils;
 import com.leadexchange.modules.user.entity.User;
 import com.leadexchange.modules.user.mapper.UserMapper;
+import com.leadexchange.modules.user.service.LoginAttemptService;
 import com.leadexchange.modules.user.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +23,7 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 用户服务实现类
@@ -38,6 +44,16 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+
+    /** 默认锁定时长（分钟），与登录失败自动锁定一致 */
+    @Value("${app.security.lock-time:30}")
+    private long defaultLockMinutes;
+
     @Override
     public User findByUsername(String username) {
         if (!StringUtils.hasText(username)) {
@@ -100,6 +116,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             }
             
             return result;
+        } catch (AdmissionRejectedException e) {
+            // 密码哈希线程池已满，交由调用方返回429
+            throw e;
         } catch (Exception e) {
             log.error("用户注册异常", e);
             return false;
@@ -109,6 +128,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public User login(String username, String password) {
         try {
+            // 锁定状态以Redis为准，已锁定时不查库也不校验密码
+            if (loginAttemptService.getLockRemainingMillis(username) > 0) {
+                log.warn("用户登录失败：账户已锁定 - {}", username);
+                return null;
+            }
+
             // 查询用户
             User user = findByUsername(username);
             if (user == null) {
@@ -132,15 +157,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             if (!passwordEncoder.matches(password, user.getPassword())) {
                 log.warn("用户登录失败：密码错误 - {}", username);
                 // 增加登录失败次数
-                incrementLoginFailCount(user.getId());
+                loginAttemptService.recordFailure(username);
                 return null;
             }
 
             // 登录成功，重置登录失败次数
-            resetLoginFailCount(user.getId());
+            loginAttemptService.recordSuccess(username);
             
             log.info("用户登录成功：{}", username);
             return user;
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("用户登录异常", e);
             return null;
@@ -163,9 +190,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Override
     public boolean updateStatus(Long userId, Integer status) {
-        // TODO: 实现更新状态逻辑
-        log.info("更新用户状态：userId={}, status={}", userId, status);
-        return true;
+        LambdaUpdateWrapper<User> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(User::getId, userId)
+                .set(User::getStatus, status);
+        boolean result = update(updateWrapper);
+        if (result) {
+            evictUserDetails(getById(userId));
+        }
+        log.info("更新用户状态：userId={}, status={}, result={}", userId, status, result);
+        return result;
     }
 
     @Override
@@ -248,30 +281,88 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Override
     public boolean incrementLoginFailCount(Long userId) {
-        // TODO: 实现增加登录失败次数逻辑
-        log.info("增加登录失败次数：userId={}", userId);
+        User user = getById(userId);
+        if (user == null) {
+            return false;
+        }
+        int remaining = loginAttemptService.recordFailure(user.getUsername());
+        log.info("增加登录失败次数：userId={}, remainingAttempts={}", userId, remaining);
         return true;
     }
 
     @Override
     public boolean resetLoginFailCount(Long userId) {
-        // TODO: 实现重置登录失败次数逻辑
+        User user = getById(userId);
+        if (user == null) {
+            return false;
+        }
+        loginAttemptService.recordSuccess(user.getUsername());
         log.info("重置登录失败次数：userId={}", userId);
         return true;
     }
 
     @Override
     public boolean lockUser(Long userId, Integer lockMinutes) {
-        // TODO: 实现锁定用户逻辑
-        log.info("锁定用户：userId={}, lockMinutes={}", userId, lockMinutes);
-        return true;
+        long minutes = lockMinutes != null && lockMinutes > 0 ? lockMinutes : defaultLockMinutes;
+        LambdaUpdateWrapper<User> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(User::getId, userId)
+                .set(User::getLockTime, LocalDateTime.now().plusMinutes(minutes));
+        boolean result = update(updateWrapper);
+        User user = result ? getById(userId) : null;
+        if (user != null) {
+            // 登录时以Redis锁定键为准
+            TransactionUtils.afterCommit(() -> loginAttemptService.lock(user.getUsername(),
+                    TimeUnit.MINUTES.toMillis(minutes)));
+            evictUserDetails(user);
+        }
+        log.info("锁定用户：userId={}, lockMinutes={}, result={}", userId, minutes, result);
+        return result;
     }
 
     @Override
     public boolean unlockUser(Long userId) {
-        // TODO: 实现解锁用户逻辑
-        log.info("解锁用户：userId={}", userId);
-        return true;
+        LambdaUpdateWrapper<User> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.eq(User::getId, userId)
+                .set(User::getLockTime, null)
+                .set(User::getLoginFailCount, 0);
+        boolean result = update(updateWrapper);
+        User user = result ? getById(userId) : null;
+        if (user != null) {
+            TransactionUtils.afterCommit(() -> loginAttemptService.unlock(user.getUsername()));
+            evictUserDetails(user);
+        }
+        log.info("解锁用户：userId={}, result={}", userId, result);
+        return result;
+    }
+
+    /**
+     * 更新用户（用户类型决定角色，资料修改可能涉及角色变更，统一清除认证缓存）
+     */
+    @Override
+    public boolean updateById(User user) {
+        User before = getById(user.getId());
+        boolean result = super.updateById(user);
+        if (result && before != null) {
+            // 用户名可能被修改，按修改前的用户名清除
+            Long userId = before.getId();
+            String username = before.getUsername();
+            TransactionUtils.afterCommit(() -> customUserDetailsService.evictUser(userId, username));
+        }
+        return result;
+    }
+
+    /**
+     * 事务提交后清除用户认证缓存，避免提交前被并发登录以旧数据回填
+     * 
+     * @param user 用户，为null时忽略
+     */
+    private void evictUserDetails(User user) {
+        if (user == null) {
+            return;
+        }
+        Long userId = user.getId();
+        String username = user.getUsername();
+        TransactionUtils.afterCommit(() -> customUserDetailsService.evictUser(userId, username));
     }
 
 }
\ No newline at end of file
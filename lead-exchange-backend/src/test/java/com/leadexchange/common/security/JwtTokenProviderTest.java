@@ -0,0 +1,118 @@
+package com.leadexchange.common.security;
+
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JWT令牌提供者缓存行为测试
+ * 校验只有验证通过的令牌进入已验证缓存，缓存命中的令牌仍检查吊销
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class JwtTokenProviderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+
+    private JwtTokenProvider provider;
+
+    private SecretKey secretKey;
+
+    @BeforeEach
+    void setUp() {
+        provider = new JwtTokenProvider(meterRegistry, 100, 300_000);
+        ReflectionTestUtils.setField(provider, "tokenRevocationService", tokenRevocationService);
+        secretKey = (SecretKey) ReflectionTestUtils.getField(provider, "secretKey");
+    }
+
+    @Test
+    void validTokenIsCachedAndReused() {
+        String token = token(System.currentTimeMillis() + 60_000);
+
+        assertNotNull(provider.parseToken(token));
+        assertNotNull(provider.parseToken(token));
+
+        assertEquals(1, cache().size());
+        assertEquals(1.0, meterRegistry.counter("jwt.verified.cache.miss").count());
+        assertEquals(1.0, meterRegistry.counter("jwt.verified.cache.hit").count());
+    }
+
+    @Test
+    void expiredTokenIsNeverCached() {
+        String token = token(System.currentTimeMillis() - 1_000);
+
+        assertNull(provider.parseToken(token));
+        assertNull(provider.parseToken(token));
+
+        assertEquals(0, cache().size());
+        assertEquals(2.0, meterRegistry.counter("jwt.verified.cache.miss").count());
+    }
+
+    @Test
+    void tamperedTokenIsNeverCached() {
+        String token = token(System.currentTimeMillis() + 60_000);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(provider.parseToken(tampered));
+        assertNull(provider.parseToken("not-a-token"));
+
+        assertEquals(0, cache().size());
+    }
+
+    @Test
+    void cachedTokenIsStillCheckedForRevocation() {
+        String token = token(System.currentTimeMillis() + 60_000);
+        assertNotNull(provider.parseToken(token));
+
+        when(tokenRevocationService.isRevoked(anyString())).thenReturn(true);
+
+        assertNull(provider.parseToken(token));
+        assertEquals(1.0, meterRegistry.counter("jwt.verified.cache.hit").count());
+    }
+
+    @Test
+    void undecodableAuthorityClaimsAreRejected() {
+        String token = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("user")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .claim(JwtClaims.CLAIM_AUTHORITY_VERSION, 999)
+                .claim(JwtClaims.CLAIM_AUTHORITY_MASK, 1)
+                .signWith(secretKey)
+                .compact();
+
+        assertNull(provider.parseToken(token));
+        assertEquals(0, cache().size());
+    }
+
+    private String token(long expiration) {
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("user")
+                .setIssuedAt(new Date(expiration - 120_000))
+                .setExpiration(new Date(expiration))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    private VerifiedTokenCache cache() {
+        return (VerifiedTokenCache) ReflectionTestUtils.getField(provider, "verifiedTokenCache");
+    }
+}
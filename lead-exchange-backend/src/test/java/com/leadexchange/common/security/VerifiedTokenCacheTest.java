@@ -0,0 +1,110 @@
+package com.leadexchange.common.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 已验证令牌缓存测试
+ * 校验条目不晚于令牌过期失效、TTL上限、容量有界以及已过期声明不被缓存
+ *
+ * @author 系统
+ * @version 1.0.0
+ * @since 2024-01-01
+ */
+class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void entryExpiresWithToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 60_000);
+        JwtClaims claims = claims(NOW + 1_000);
+        cache.put("k", claims, NOW);
+
+        assertSame(claims, cache.get("k", NOW + 999));
+        assertNull(cache.get("k", NOW + 1_000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void entryExpiresWithCacheTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 500);
+        cache.put("k", claims(NOW + 3_600_000), NOW);
+
+        assertNotNull(cache.get("k", NOW + 499));
+        assertNull(cache.get("k", NOW + 500));
+    }
+
+    @Test
+    void expiredClaimsAreNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 60_000);
+        cache.put("expired", claims(NOW - 1), NOW);
+        cache.put("expiring", claims(NOW), NOW);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("expired", NOW));
+    }
+
+    @Test
+    void sizeIsBounded() {
+        int maxSize = 100;
+        VerifiedTokenCache cache = new VerifiedTokenCache(maxSize, 60_000);
+        for (int i = 0; i < maxSize * 20; i++) {
+            cache.put("k" + i, claims(NOW + 60_000), NOW);
+            assertTrue(cache.size() <= maxSize, "size=" + cache.size());
+        }
+        // 最新写入的条目总能读到
+        assertNotNull(cache.get("k" + (maxSize * 20 - 1), NOW));
+    }
+
+    @Test
+    void evictionPrefersExpiredEntries() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60_000);
+        for (int i = 0; i < 10; i++) {
+            cache.put("short" + i, claims(NOW + 100), NOW);
+        }
+        cache.put("live", claims(NOW + 60_000), NOW + 200);
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("live", NOW + 200));
+    }
+
+    @Test
+    void zeroSizeDisablesCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, 60_000);
+        cache.put("k", claims(NOW + 60_000), NOW);
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("k", NOW));
+    }
+
+    @Test
+    void digestIsStableAndDoesNotContainToken() {
+        String token = "header.payload.signature";
+        String digest = VerifiedTokenCache.digest(token);
+
+        assertEquals(digest, VerifiedTokenCache.digest(token));
+        assertNotEquals(digest, VerifiedTokenCache.digest(token + "x"));
+        assertTrue(!digest.contains("payload"));
+    }
+
+    private static JwtClaims claims(long expiration) {
+        Claims claims = Jwts.claims()
+                .setSubject("user")
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(NOW - 1_000))
+                .setExpiration(new Date(expiration));
+        return JwtClaims.from(claims, "fallback");
+    }
+}
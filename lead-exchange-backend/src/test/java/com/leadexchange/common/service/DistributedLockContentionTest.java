@@ -0,0 +1,174 @@
+package com.leadexchange.common.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分布式锁跨节点竞争压测
+ * 每个"节点"是独立的 DistributedLockService 实例，各自拥有Redis连接与消息监听容器，
+ * 节点之间只能通过Redis互斥（同一节点内的线程仍先在本地公平锁上排队）。
+ * 统计吞吐量与获取锁延迟分布，并校验临界区互斥与租约状态。
+ *
+ * 需要可用的Redis，默认不运行：
+ * mvn test -Dtest=DistributedLockContentionTest -Dlock.benchmark.redis=localhost:6379
+ * 可选参数：lock.benchmark.nodes、lock.benchmark.threads（每节点）、lock.benchmark.iterations（每线程）、
+ * lock.benchmark.hold-millis
+ *
+ * @author Lead Exchange Team
+ * @since 1.0.0
+ */
+@EnabledIfSystemProperty(named = "lock.benchmark.redis", matches = ".+")
+class DistributedLockContentionTest {
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String[] address = System.getProperty("lock.benchmark.redis").split(":");
+        String host = address[0];
+        int port = address.length > 1 ? Integer.parseInt(address[1]) : 6379;
+        int nodeCount = Integer.getInteger("lock.benchmark.nodes", 4);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new Node(host, port));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Node node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    void contendedLockIsMutuallyExclusiveAcrossNodes() throws Exception {
+        int threadsPerNode = Integer.getInteger("lock.benchmark.threads", 4);
+        int iterations = Integer.getInteger("lock.benchmark.iterations", 200);
+        long holdMillis = Long.getLong("lock.benchmark.hold-millis", 0L);
+        String lockName = "benchmark:" + UUID.randomUUID();
+
+        int threadCount = nodes.size() * threadsPerNode;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger leaseLost = new AtomicInteger();
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        long[] latencies = new long[threadCount * iterations];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threadCount);
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                DistributedLockService service = nodes.get(t % nodes.size()).service;
+                int offset = t * iterations;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        long begin = System.nanoTime();
+                        DistributedLockService.LockHandle handle = service.tryLock(lockName, 10, 0, TimeUnit.SECONDS);
+                        latencies[offset + i] = System.nanoTime() - begin;
+                        if (handle == null) {
+                            timeouts.incrementAndGet();
+                            continue;
+                        }
+                        try (DistributedLockService.LockHandle held = handle) {
+                            if (inside.incrementAndGet() != 1) {
+                                violations.incrementAndGet();
+                            }
+                            if (holdMillis > 0) {
+                                Thread.sleep(holdMillis);
+                            }
+                            if (!held.isHeld()) {
+                                leaseLost.incrementAndGet();
+                            }
+                            inside.decrementAndGet();
+                            acquired.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - begin;
+
+            Arrays.sort(latencies);
+            System.out.printf("分布式锁竞争压测: nodes=%d, threads=%d, iterations=%d, acquired=%d, timeouts=%d, "
+                            + "throughput=%.1f/s, p50=%dus, p99=%dus, max=%dus%n",
+                    nodes.size(), threadCount, iterations, acquired.get(), timeouts.get(),
+                    acquired.get() * 1_000_000_000.0 / elapsedNanos,
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[(int) (latencies.length * 0.99)]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[latencies.length - 1]));
+
+            assertEquals(0, violations.get(), "临界区出现重叠");
+            assertEquals(0, leaseLost.get(), "持有期间租约丢失");
+            assertTrue(acquired.get() > 0, "没有成功获取锁");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 独立节点：独立的连接、消息监听容器与锁服务实例
+     */
+    private static final class Node {
+
+        final LettuceConnectionFactory connectionFactory;
+
+        final RedisMessageListenerContainer listenerContainer;
+
+        final DistributedLockService service;
+
+        Node(String host, int port) {
+            connectionFactory = new LettuceConnectionFactory(host, port);
+            connectionFactory.afterPropertiesSet();
+
+            RedisTemplate<String, String> template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setDefaultSerializer(new StringRedisSerializer());
+            template.afterPropertiesSet();
+
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+
+            service = new DistributedLockService();
+            ReflectionTestUtils.setField(service, "stringRedisTemplate", template);
+            ReflectionTestUtils.setField(service, "redisMessageListenerContainer", listenerContainer);
+            service.init();
+        }
+
+        void close() throws Exception {
+            service.destroy();
+            listenerContainer.destroy();
+            connectionFactory.destroy();
+        }
+    }
+}